@@ -1,17 +1,22 @@
 package com.awad.ticketbooking.common.config;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
@@ -26,6 +31,15 @@ public class RedisConfig {
     public static final String CACHE_ADMIN_TOP_OPERATORS = "adminDashboard:topOperators";
     public static final String CACHE_ADMIN_RECENT_TRANSACTIONS = "adminDashboard:recentTransactions";
 
+    public static final Map<String, Duration> CACHE_TTLS = Map.of(
+            CACHE_ADMIN_METRICS, Duration.ofSeconds(30),
+            CACHE_ADMIN_RECENT_TRANSACTIONS, Duration.ofSeconds(30),
+            CACHE_ADMIN_REVENUE, Duration.ofMinutes(5),
+            CACHE_ADMIN_BOOKING_TRENDS, Duration.ofMinutes(5),
+            CACHE_ADMIN_BOOKING_CONVERSION, Duration.ofMinutes(5),
+            CACHE_ADMIN_TOP_ROUTES, Duration.ofMinutes(10),
+            CACHE_ADMIN_TOP_OPERATORS, Duration.ofMinutes(10));
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -46,17 +60,43 @@ public class RedisConfig {
                 .entryTtl(Duration.ofMinutes(10))
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(redisConnectionFactory)
+        Map<String, RedisCacheConfiguration> initialConfigurations = new HashMap<>();
+        CACHE_TTLS.forEach((name, ttl) -> initialConfigurations.put(name, cacheConfiguration.entryTtl(ttl)));
+
+        // Lettuce writes asynchronously by default, so a put could land after the eviction that
+        // should have removed it and keep a stale dashboard figure alive for its whole TTL
+        RedisCacheWriter cacheWriter = RedisCacheWriter.create(redisConnectionFactory,
+                RedisCacheWriter.RedisCacheWriterConfigurer::immediateWrites);
+
+        return RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(cacheConfiguration)
-                .withInitialCacheConfigurations(Map.of(
-                        CACHE_ADMIN_METRICS, cacheConfiguration.entryTtl(Duration.ofSeconds(30)),
-                        CACHE_ADMIN_RECENT_TRANSACTIONS, cacheConfiguration.entryTtl(Duration.ofSeconds(30)),
-                        CACHE_ADMIN_REVENUE, cacheConfiguration.entryTtl(Duration.ofMinutes(5)),
-                        CACHE_ADMIN_BOOKING_TRENDS, cacheConfiguration.entryTtl(Duration.ofMinutes(5)),
-                        CACHE_ADMIN_BOOKING_CONVERSION, cacheConfiguration.entryTtl(Duration.ofMinutes(5)),
-                        CACHE_ADMIN_TOP_ROUTES, cacheConfiguration.entryTtl(Duration.ofMinutes(10)),
-                        CACHE_ADMIN_TOP_OPERATORS, cacheConfiguration.entryTtl(Duration.ofMinutes(10))
-                ))
+                .withInitialCacheConfigurations(initialConfigurations)
+                .enableStatistics()
                 .build();
     }
+
+    /**
+     * Publishes hits, misses, puts and evictions of every cache as {@code cache.gets},
+     * {@code cache.puts} and {@code cache.evictions}, tagged with the cache name.
+     */
+    @Bean
+    public MeterBinder cacheMetrics(CacheManager cacheManager) {
+        return registry -> cacheManager.getCacheNames().forEach(name -> {
+            if (!(cacheManager.getCache(name) instanceof RedisCache cache)) {
+                return;
+            }
+            FunctionCounter.builder("cache.gets", cache, c -> c.getStatistics().getHits())
+                    .tags("cache", name, "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", cache, c -> c.getStatistics().getMisses())
+                    .tags("cache", name, "result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("cache.puts", cache, c -> c.getStatistics().getPuts())
+                    .tag("cache", name)
+                    .register(registry);
+            FunctionCounter.builder("cache.evictions", cache, c -> c.getStatistics().getDeletes())
+                    .tag("cache", name)
+                    .register(registry);
+        });
+    }
 }
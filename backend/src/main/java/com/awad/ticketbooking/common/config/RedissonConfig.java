@@ -28,6 +28,8 @@ public class RedissonConfig {
     @Bean
     public RedissonClient redissonClient() {
         Config config = new Config();
+        // Lua scripts (seat inventory) are sent once and then invoked via EVALSHA
+        config.setUseScriptCache(true);
         
         String protocol = redisSslEnabled ? "rediss://" : "redis://";
         String address = protocol + redisHost + ":" + redisPort;
@@ -57,6 +57,10 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/ws/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/health").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/trips/availability/rebuild",
+                                "/api/trips/*/availability/rebuild").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.PUT, "/api/trips/*/waiting-room").hasRole("ADMIN")
+                        .requestMatchers("/api/pricing-rules/**").hasRole("ADMIN")
                         .requestMatchers("/api/trips/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/routes/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/api/routes/**").permitAll()
@@ -72,6 +76,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.DELETE, "/api/bus-layouts/**").hasRole("ADMIN")
 
                         // Bookings
+                        .requestMatchers(HttpMethod.POST, "/api/bookings/view/rebuild",
+                                "/api/bookings/*/view/rebuild").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/bookings/bulk").hasRole("ADMIN") // Agency bulk booking
                         .requestMatchers("/api/bookings/seats/**").permitAll() // Lock/Unlock/View seats
                         .requestMatchers(HttpMethod.GET, "/api/bookings/**").permitAll() // View booking details
                                                                                          // (confirmation)
@@ -161,6 +168,7 @@ public class SecurityConfig {
         defaultConfig.setAllowedOrigins(validOrigins);
         defaultConfig.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         defaultConfig.setAllowedHeaders(List.of("*"));
+        defaultConfig.setExposedHeaders(List.of("X-Seat-Version", "X-Seat-Delta"));
         defaultConfig.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
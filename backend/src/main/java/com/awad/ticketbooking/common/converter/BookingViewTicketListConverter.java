@@ -0,0 +1,41 @@
+package com.awad.ticketbooking.common.converter;
+
+import com.awad.ticketbooking.modules.booking.entity.BookingView;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Collections;
+import java.util.List;
+
+@Converter
+public class BookingViewTicketListConverter implements AttributeConverter<List<BookingView.Ticket>, String> {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public String convertToDatabaseColumn(List<BookingView.Ticket> attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(attribute);
+        } catch (Exception e) {
+            throw new RuntimeException("Error converting tickets to JSON", e);
+        }
+    }
+
+    @Override
+    public List<BookingView.Ticket> convertToEntityAttribute(String dbData) {
+        if (dbData == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return objectMapper.readValue(dbData, new TypeReference<List<BookingView.Ticket>>() {
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Error converting JSON to tickets", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.awad.ticketbooking.common.enums;
+
+/**
+ * What a booking write changed, as far as the admin dashboard figures are concerned.
+ */
+public enum DashboardChange {
+    CREATED,              // a new booking: booking counts and recent transactions
+    UPDATED,              // passenger details or a pending booking cancelled: recent transactions only
+    CONFIRMATION_CHANGED  // became or stopped being CONFIRMED: revenue, tickets sold and rankings too
+}
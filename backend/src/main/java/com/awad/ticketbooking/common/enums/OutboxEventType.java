@@ -0,0 +1,7 @@
+package com.awad.ticketbooking.common.enums;
+
+public enum OutboxEventType {
+    BOOKING_CONFIRMATION_EMAIL, // payload: recipientEmail
+    BOOKING_STATUS_BROADCAST,   // payload: status
+    DASHBOARD_INVALIDATION      // payload: createdAt, change
+}
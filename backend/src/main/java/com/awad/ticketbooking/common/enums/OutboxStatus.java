@@ -0,0 +1,8 @@
+package com.awad.ticketbooking.common.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    PROCESSING,
+    DONE,
+    FAILED // gave up after the maximum number of attempts
+}
@@ -4,5 +4,7 @@ public enum PaymentStatus {
     PENDING,
     SUCCESS,
     FAILED,
-    CANCELLED
+    CANCELLED,
+    // Paid after the booking had expired or been cancelled; the money has to go back
+    REFUND_REQUIRED
 }
@@ -0,0 +1,8 @@
+package com.awad.ticketbooking.common.enums;
+
+public enum SeatLockResult {
+    LOCKED,
+    ALREADY_BOOKED,
+    HELD_BY_OTHER,
+    UNKNOWN_SEAT
+}
@@ -0,0 +1,7 @@
+package com.awad.ticketbooking.common.enums;
+
+public enum WaitingRoomState {
+    OPEN,     // no waiting room for the trip, go straight to the seat map
+    QUEUED,
+    ADMITTED
+}
@@ -23,4 +23,22 @@ public class GlobalExceptionHandler {
         logger.warn("Bad request: {}", e.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
     }
+
+    @ExceptionHandler(SeatConflictException.class)
+    public ResponseEntity<String> handleSeatConflict(SeatConflictException e) {
+        logger.info("Seat conflict: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(WaitingRoomException.class)
+    public ResponseEntity<String> handleWaitingRoom(WaitingRoomException e) {
+        logger.debug("Not admitted: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyException.class)
+    public ResponseEntity<String> handleIdempotency(IdempotencyException e) {
+        logger.info("Duplicate request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
 }
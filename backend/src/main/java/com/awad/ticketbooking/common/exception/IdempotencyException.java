@@ -0,0 +1,11 @@
+package com.awad.ticketbooking.common.exception;
+
+/**
+ * Thrown when a request repeats an Idempotency-Key whose first request has not finished yet.
+ */
+public class IdempotencyException extends RuntimeException {
+
+    public IdempotencyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.awad.ticketbooking.common.exception;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when seats requested for a booking are already held by another active booking.
+ */
+@Getter
+public class SeatConflictException extends RuntimeException {
+
+    private final List<String> seatCodes;
+
+    public SeatConflictException(List<String> seatCodes) {
+        super(seatCodes.size() == 1
+                ? "Seat " + seatCodes.get(0) + " is already booked"
+                : "Seats " + String.join(", ", seatCodes) + " are already booked");
+        this.seatCodes = seatCodes;
+    }
+}
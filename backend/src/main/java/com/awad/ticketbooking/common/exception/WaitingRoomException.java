@@ -0,0 +1,11 @@
+package com.awad.ticketbooking.common.exception;
+
+/**
+ * Thrown when a trip's waiting room is on and the caller has no valid admission token.
+ */
+public class WaitingRoomException extends RuntimeException {
+
+    public WaitingRoomException(String message) {
+        super(message);
+    }
+}
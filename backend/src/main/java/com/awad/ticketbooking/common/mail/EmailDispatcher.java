@@ -0,0 +1,174 @@
+package com.awad.ticketbooking.common.mail;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends emails through a bounded queue drained by a few sender threads.
+ * <p>
+ * Each sender takes whatever is queued, up to {@code app.mail.batch-size} messages, and hands it to the
+ * mail server over a single SMTP connection, so a burst of confirmations or reminders does not open one
+ * connection per message. Callers wait for their own message and get its failure thrown, which keeps
+ * retries with them (outbox backoff, next reminder run). A full queue makes callers wait up to
+ * {@code app.mail.enqueue-timeout-ms} and then fails the send rather than buffering without limit.
+ * <p>
+ * Metrics: {@code email.queue.depth}, {@code email.send.latency} (queued to handed over, by type and
+ * outcome), {@code email.batch.size}, {@code email.failures} and {@code email.rejected}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailDispatcher {
+
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.mail.senders:2}")
+    private int senderCount;
+
+    @Value("${app.mail.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.mail.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${app.mail.enqueue-timeout-ms:5000}")
+    private long enqueueTimeoutMillis;
+
+    @Value("${app.mail.send-timeout-seconds:60}")
+    private long sendTimeoutSeconds;
+
+    private BlockingQueue<PendingEmail> queue;
+    private ExecutorService senders;
+    private DistributionSummary batchSizes;
+
+    private record PendingEmail(String type, MimeMessage message, long queuedAt, CompletableFuture<Void> sent) {
+    }
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        meterRegistry.gauge("email.queue.depth", queue, BlockingQueue::size);
+        batchSizes = meterRegistry.summary("email.batch.size");
+        senders = Executors.newFixedThreadPool(senderCount, daemon("email-sender"));
+        for (int i = 0; i < senderCount; i++) {
+            senders.execute(this::drain);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        senders.shutdownNow();
+        senders.awaitTermination(5, TimeUnit.SECONDS);
+        List<PendingEmail> unsent = new ArrayList<>();
+        queue.drainTo(unsent);
+        unsent.forEach(email -> email.sent().completeExceptionally(new MailSendException("Shutting down")));
+    }
+
+    /**
+     * Queues the message and waits until it has been handed to the mail server.
+     *
+     * @param type kind of email, used as metric tag
+     * @throws MailException when the queue stays full, the server rejects the message or it times out
+     */
+    public void send(String type, MimeMessage message) {
+        PendingEmail email = new PendingEmail(type, message, System.nanoTime(), new CompletableFuture<>());
+        try {
+            if (!queue.offer(email, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                meterRegistry.counter("email.rejected", "type", type).increment();
+                throw new MailSendException("Email queue is full");
+            }
+            email.sent().get(sendTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while sending " + type + " email", e);
+        } catch (TimeoutException e) {
+            throw new MailSendException("Timed out sending " + type + " email", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MailException mailException) {
+                throw mailException;
+            }
+            throw new MailSendException("Failed to send " + type + " email", e.getCause());
+        }
+    }
+
+    private void drain() {
+        List<PendingEmail> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<PendingEmail> batch) {
+        Map<Object, Exception> failed = Map.of();
+        Exception batchFailure = null;
+        try {
+            // One connection for the whole batch; failures are reported per message
+            mailSender.send(batch.stream().map(PendingEmail::message).toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                batchFailure = e;
+            }
+        } catch (Exception e) {
+            batchFailure = e;
+        }
+        batchSizes.record(batch.size());
+
+        long now = System.nanoTime();
+        for (PendingEmail email : batch) {
+            Exception failure = batchFailure != null ? batchFailure : failed.get(email.message());
+            meterRegistry.timer("email.send.latency", "type", email.type(), "outcome",
+                    failure == null ? "sent" : "failed").record(now - email.queuedAt(), TimeUnit.NANOSECONDS);
+            if (failure == null) {
+                email.sent().complete(null);
+            } else {
+                meterRegistry.counter("email.failures", "type", email.type()).increment();
+                log.warn("Failed to send {} email: {}", email.type(), failure.getMessage());
+                email.sent().completeExceptionally(failure instanceof MailException
+                        ? failure
+                        : new MailSendException("Failed to send " + email.type() + " email", failure));
+            }
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.awad.ticketbooking.common.mail;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An HTML email body split once into its static fragments and {@code {{name}}} slots.
+ * <p>
+ * Rendering appends fragments and HTML-escaped slot values into a buffer sized for the static part,
+ * instead of scanning the whole document for format specifiers on every message.
+ */
+public final class EmailTemplate {
+
+    private static final Pattern SLOT = Pattern.compile("\\{\\{(\\w+)}}");
+
+    // fragments[i] comes before slots[i]; the last fragment closes the document
+    private final String[] fragments;
+    private final String[] slots;
+    private final int staticLength;
+
+    private EmailTemplate(List<String> fragments, List<String> slots) {
+        this.fragments = fragments.toArray(String[]::new);
+        this.slots = slots.toArray(String[]::new);
+        this.staticLength = fragments.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Reads and compiles a UTF-8 template from the classpath.
+     */
+    public static EmailTemplate load(String location) {
+        try {
+            return compile(new ClassPathResource(location).getContentAsString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read email template " + location, e);
+        }
+    }
+
+    public static EmailTemplate compile(String text) {
+        List<String> fragments = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        Matcher matcher = SLOT.matcher(text);
+        int start = 0;
+        while (matcher.find()) {
+            fragments.add(text.substring(start, matcher.start()));
+            slots.add(matcher.group(1));
+            start = matcher.end();
+        }
+        fragments.add(text.substring(start));
+        return new EmailTemplate(fragments, slots);
+    }
+
+    /**
+     * Fills every slot with its value, HTML-escaped; a {@code null} value leaves the slot empty.
+     *
+     * @throws IllegalArgumentException when a slot is missing from {@code values}
+     */
+    public String render(Map<String, ?> values) {
+        StringBuilder html = new StringBuilder(staticLength + 32 * slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            html.append(fragments[i]);
+            if (!values.containsKey(slots[i])) {
+                throw new IllegalArgumentException("No value for email template slot " + slots[i]);
+            }
+            Object value = values.get(slots[i]);
+            if (value != null) {
+                html.append(HtmlUtils.htmlEscape(value.toString(), StandardCharsets.UTF_8.name()));
+            }
+        }
+        return html.append(fragments[slots.length]).toString();
+    }
+}
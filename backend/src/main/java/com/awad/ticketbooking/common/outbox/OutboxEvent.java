@@ -0,0 +1,65 @@
+package com.awad.ticketbooking.common.outbox;
+
+import com.awad.ticketbooking.common.converter.MapConverter;
+import com.awad.ticketbooking.common.enums.OutboxEventType;
+import com.awad.ticketbooking.common.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+@Entity
+@Table(name = "outbox_events")
+@Getter
+@Setter
+public class OutboxEvent {
+
+    // Ids are reserved in blocks (V24) so a write's events are inserted in one JDBC batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_id")
+    @SequenceGenerator(name = "outbox_event_id", sequenceName = "outbox_event_id_seq", allocationSize = 50)
+    private Long id;
+
+    // Events of one aggregate (a booking) are delivered one at a time in creation order; nodes reserve
+    // separate id blocks, so ids only break ties
+    @Column(name = "aggregate_id", nullable = false)
+    private UUID aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false)
+    private OutboxEventType eventType;
+
+    @Convert(converter = MapConverter.class)
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private Map<String, Object> payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "available_at", nullable = false)
+    private Instant availableAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+
+    @PrePersist
+    public void onCreate() {
+        this.createdAt = Instant.now();
+        if (this.availableAt == null) {
+            this.availableAt = this.createdAt;
+        }
+    }
+}
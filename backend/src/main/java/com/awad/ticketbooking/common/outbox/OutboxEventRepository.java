@@ -0,0 +1,67 @@
+package com.awad.ticketbooking.common.outbox;
+
+import com.awad.ticketbooking.common.enums.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Leases up to {@code limit} due events, at most one per aggregate: an event is only due once every
+     * older open event of its aggregate (by creation time, then id) is done or given up. Rows locked by another node are skipped, and
+     * PROCESSING events whose lease ran out (their node died mid-delivery) are picked up again.
+     */
+    @Transactional
+    @Query(value = """
+            WITH next AS (
+                SELECT e.id
+                FROM outbox_events e
+                WHERE e.status IN ('PENDING', 'PROCESSING')
+                  AND e.available_at <= :now
+                  AND NOT EXISTS (
+                      SELECT 1
+                      FROM outbox_events older
+                      WHERE older.aggregate_id = e.aggregate_id
+                        AND older.status IN ('PENDING', 'PROCESSING')
+                        AND (older.created_at, older.id) < (e.created_at, e.id)
+                  )
+                ORDER BY e.created_at, e.id
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE outbox_events o
+            SET status = 'PROCESSING', available_at = :leaseUntil, attempts = o.attempts + 1
+            FROM next
+            WHERE o.id = next.id
+            RETURNING o.*
+            """, nativeQuery = true)
+    List<OutboxEvent> claimDue(@Param("now") Instant now, @Param("leaseUntil") Instant leaseUntil,
+                               @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.awad.ticketbooking.common.enums.OutboxStatus.DONE, "
+            + "e.processedAt = :now, e.lastError = null WHERE e.id = :id")
+    void markDone(@Param("id") Long id, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.availableAt = :availableAt, e.lastError = :error "
+            + "WHERE e.id = :id")
+    void markFailed(@Param("id") Long id, @Param("status") OutboxStatus status,
+                    @Param("availableAt") Instant availableAt, @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = com.awad.ticketbooking.common.enums.OutboxStatus.DONE "
+            + "AND e.processedAt < :before")
+    int deleteDeliveredBefore(@Param("before") Instant before);
+}
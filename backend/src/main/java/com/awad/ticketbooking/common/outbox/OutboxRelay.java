@@ -0,0 +1,216 @@
+package com.awad.ticketbooking.common.outbox;
+
+import com.awad.ticketbooking.common.enums.BookingStatus;
+import com.awad.ticketbooking.common.enums.DashboardChange;
+import com.awad.ticketbooking.common.enums.OutboxStatus;
+import com.awad.ticketbooking.common.scheduling.ClusterJobRunner;
+import com.awad.ticketbooking.common.service.ClusterBroadcastService;
+import com.awad.ticketbooking.common.service.EmailService;
+import com.awad.ticketbooking.modules.booking.dto.BookingStatusMessage;
+import com.awad.ticketbooking.modules.booking.entity.Booking;
+import com.awad.ticketbooking.modules.booking.repository.BookingRepository;
+import com.awad.ticketbooking.modules.dashboard.service.DashboardCacheInvalidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers outbox events with a pool of background workers.
+ * <p>
+ * Each round leases a batch of due events (at most one per booking, so events of a booking are
+ * delivered in the order they were written) and hands them to the workers. A failed delivery is
+ * retried with exponential backoff and given up after {@code app.outbox.max-attempts}; later events
+ * of the same booking wait until then. Rounds start right after a transaction that published events
+ * commits, and on a short poll that also picks up events of other nodes and retries.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    private static final Duration FIRST_RETRY_DELAY = Duration.ofSeconds(5);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(10);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final BookingRepository bookingRepository;
+    private final EmailService emailService;
+    private final ClusterBroadcastService clusterBroadcastService;
+    private final DashboardCacheInvalidator dashboardCacheInvalidator;
+    private final MeterRegistry meterRegistry;
+    private final ClusterJobRunner clusterJobRunner;
+
+    @Value("${app.outbox.workers:4}")
+    private int workerCount;
+
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    // A node that dies mid-delivery leaves its events to others once this runs out
+    @Value("${app.outbox.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${app.outbox.retention-hours:72}")
+    private long retentionHours;
+
+    private final AtomicBoolean roundQueued = new AtomicBoolean();
+    private ExecutorService poller;
+    private ExecutorService workers;
+
+    @PostConstruct
+    void start() {
+        poller = Executors.newSingleThreadExecutor(daemon("outbox-relay"));
+        workers = Executors.newFixedThreadPool(workerCount, daemon("outbox-worker"));
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        poller.shutdown();
+        poller.awaitTermination(5, TimeUnit.SECONDS);
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts a delivery round unless one is already waiting to run.
+     */
+    public void wakeUp() {
+        if (roundQueued.compareAndSet(false, true)) {
+            poller.execute(() -> {
+                roundQueued.set(false);
+                relay();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    // Delivery rounds run on every node (claims skip each other's rows); the purge only needs one node
+    @Scheduled(cron = "0 15 * * * *")
+    public void purgeDelivered() {
+        clusterJobRunner.runOnce("outbox-purge", Duration.ofHours(1), () -> {
+            int deleted = outboxEventRepository.deleteDeliveredBefore(
+                    Instant.now().minus(Duration.ofHours(retentionHours)));
+            if (deleted > 0) {
+                log.info("Purged {} delivered outbox events", deleted);
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Runs delivery rounds until no full batch is due.
+     *
+     * @return number of events delivered
+     */
+    int relay() {
+        AtomicInteger delivered = new AtomicInteger();
+        try {
+            List<OutboxEvent> claimed;
+            do {
+                Instant now = Instant.now();
+                claimed = outboxEventRepository.claimDue(now, now.plusSeconds(leaseSeconds), batchSize);
+                List<Callable<Boolean>> deliveries = claimed.stream()
+                        .<Callable<Boolean>>map(event -> () -> process(event))
+                        .toList();
+                for (Future<Boolean> result : workers.invokeAll(deliveries)) {
+                    if (result.get()) {
+                        delivered.incrementAndGet();
+                    }
+                }
+            } while (claimed.size() == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Outbox relay round failed: {}", e.getMessage(), e);
+        }
+        return delivered.get();
+    }
+
+    private boolean process(OutboxEvent event) {
+        long start = System.nanoTime();
+        try {
+            deliver(event);
+            outboxEventRepository.markDone(event.getId(), Instant.now());
+            meterRegistry.timer("outbox.delivery", "type", event.getEventType().name())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meterRegistry.timer("outbox.lag", "type", event.getEventType().name())
+                    .record(Duration.between(event.getCreatedAt(), Instant.now()));
+            return true;
+        } catch (Exception e) {
+            String error = Optional.ofNullable(e.getMessage()).orElse(e.getClass().getName());
+            error = error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH));
+            if (event.getAttempts() >= maxAttempts) {
+                log.error("Giving up on outbox event {} ({}) after {} attempts: {}", event.getId(),
+                        event.getEventType(), event.getAttempts(), error, e);
+                outboxEventRepository.markFailed(event.getId(), OutboxStatus.FAILED, Instant.now(), error);
+                meterRegistry.counter("outbox.failed", "type", event.getEventType().name()).increment();
+            } else {
+                log.warn("Outbox event {} ({}) failed on attempt {}: {}", event.getId(), event.getEventType(),
+                        event.getAttempts(), error, e);
+                outboxEventRepository.markFailed(event.getId(), OutboxStatus.PENDING,
+                        Instant.now().plus(retryDelay(event.getAttempts())), error);
+                meterRegistry.counter("outbox.retries", "type", event.getEventType().name()).increment();
+            }
+            return false;
+        }
+    }
+
+    private void deliver(OutboxEvent event) throws Exception {
+        switch (event.getEventType()) {
+            case BOOKING_CONFIRMATION_EMAIL -> {
+                Optional<Booking> booking = bookingRepository.findByIdWithFullDetails(event.getAggregateId());
+                if (booking.isEmpty()) {
+                    log.warn("Booking {} is gone, dropping its confirmation email", event.getAggregateId());
+                    return;
+                }
+                emailService.sendBookingConfirmationEmail(booking.get(),
+                        (String) event.getPayload().get("recipientEmail"));
+            }
+            case BOOKING_STATUS_BROADCAST -> clusterBroadcastService.convertAndSend(
+                    "/topic/booking/" + event.getAggregateId(),
+                    new BookingStatusMessage(event.getAggregateId(),
+                            BookingStatus.valueOf((String) event.getPayload().get("status"))));
+            case DASHBOARD_INVALIDATION -> dashboardCacheInvalidator.invalidate(
+                    Instant.parse((String) event.getPayload().get("createdAt")),
+                    DashboardChange.valueOf((String) event.getPayload().get("change")));
+        }
+    }
+
+    static Duration retryDelay(int attempts) {
+        Duration delay = FIRST_RETRY_DELAY.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+    }
+
+    private static java.util.concurrent.ThreadFactory daemon(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
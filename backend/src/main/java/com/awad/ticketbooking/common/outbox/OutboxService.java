@@ -0,0 +1,72 @@
+package com.awad.ticketbooking.common.outbox;
+
+import com.awad.ticketbooking.common.enums.BookingStatus;
+import com.awad.ticketbooking.common.enums.DashboardChange;
+import com.awad.ticketbooking.common.enums.OutboxEventType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records side effects of a write in the outbox table, inside the caller's transaction.
+ * <p>
+ * The events only become visible when the transaction commits, so a rolled back booking never
+ * sends an email; once committed they are delivered by {@link OutboxRelay} even if this node
+ * goes down right after the commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxRelay outboxRelay;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(UUID aggregateId, OutboxEventType type, Map<String, Object> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateId(aggregateId);
+        event.setEventType(type);
+        event.setPayload(payload);
+        outboxEventRepository.save(event);
+
+        // Deliver right after commit instead of waiting for the next poll
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.wakeUp();
+            }
+        });
+    }
+
+    /**
+     * Drops the admin dashboard figures the booking change makes stale, once it is committed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishDashboardChange(UUID bookingId, Instant createdAt, DashboardChange change) {
+        publish(bookingId, OutboxEventType.DASHBOARD_INVALIDATION,
+                Map.of("createdAt", createdAt.toString(), "change", change.name()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishStatusChange(UUID bookingId, BookingStatus status) {
+        publish(bookingId, OutboxEventType.BOOKING_STATUS_BROADCAST, Map.of("status", status.name()));
+    }
+
+    /**
+     * Queues the confirmation email; does nothing when the booking has no address to send it to.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishConfirmationEmail(UUID bookingId, String recipientEmail) {
+        if (recipientEmail == null || recipientEmail.isBlank()) {
+            return;
+        }
+        publish(bookingId, OutboxEventType.BOOKING_CONFIRMATION_EMAIL, Map.of("recipientEmail", recipientEmail));
+    }
+}
@@ -0,0 +1,116 @@
+package com.awad.ticketbooking.common.scheduling;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs scheduled jobs once per interval across all application nodes.
+ * <p>
+ * Every node keeps its own {@code @Scheduled} trigger, but a run first claims a lease in Redis that lasts
+ * about one interval; a node whose trigger fires while another node holds the lease skips the run. The outcome
+ * of each run is stored in Redis too, so {@link #getLastRuns()} shows the whole cluster, and recorded as
+ * {@code scheduler.job.*} metrics. Without Redis every node runs its jobs itself, as before leases existed.
+ * <p>
+ * A lease is not a lock: a run that takes longer than its interval may overlap with the next one, so
+ * jobs still have to tolerate concurrent runs (row claims with {@code SKIP LOCKED}, atomic scripts).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterJobRunner {
+
+    private static final String LEASE_KEY = "scheduler:lease:%s";
+    private static final String RUNS_KEY = "scheduler:runs";
+    private static final String NODE = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Runs {@code job} unless a node already started it within the last {@code interval}.
+     *
+     * @param job returns the number of items it processed
+     * @return whether the job ran on this node
+     */
+    public boolean runOnce(String name, Duration interval, IntSupplier job) {
+        if (!claim(name, interval)) {
+            meterRegistry.counter("scheduler.job.skipped", "job", name).increment();
+            return false;
+        }
+
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        int items = 0;
+        String error = null;
+        try {
+            items = job.getAsInt();
+        } catch (Exception e) {
+            error = Objects.requireNonNullElse(e.getMessage(), e.getClass().getSimpleName());
+            log.error("Scheduled job {} failed: {}", name, error);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        meterRegistry.timer("scheduler.job.duration", "job", name, "outcome", error == null ? "success" : "failure")
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("scheduler.job.items", "job", name).increment(items);
+        store(new JobRun(name, NODE, startedAt, TimeUnit.NANOSECONDS.toMillis(elapsed), items, error));
+        return true;
+    }
+
+    /**
+     * Last run of every job that ran since Redis was last flushed, by job name.
+     */
+    public List<JobRun> getLastRuns() {
+        return redissonClient.<String, String>getMap(RUNS_KEY, StringCodec.INSTANCE).readAllValues().stream()
+                .map(this::read)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(JobRun::getJob))
+                .toList();
+    }
+
+    private boolean claim(String name, Duration interval) {
+        try {
+            // A bit shorter than the interval, so the trigger that started the last run can always start the next
+            return redissonClient.getBucket(LEASE_KEY.formatted(name), StringCodec.INSTANCE)
+                    .setIfAbsent(NODE, interval.minus(interval.dividedBy(10)));
+        } catch (RedisException e) {
+            log.warn("Scheduler lease store unavailable, running {} on this node: {}", name, e.getMessage());
+            return true;
+        }
+    }
+
+    private void store(JobRun run) {
+        try {
+            redissonClient.<String, String>getMap(RUNS_KEY, StringCodec.INSTANCE)
+                    .fastPut(run.getJob(), objectMapper.writeValueAsString(run));
+        } catch (JsonProcessingException | RedisException e) {
+            log.warn("Could not record run of {}: {}", run.getJob(), e.getMessage());
+        }
+    }
+
+    private JobRun read(String json) {
+        try {
+            return objectMapper.readValue(json, JobRun.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping unreadable job run: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.awad.ticketbooking.common.scheduling;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Last run of a scheduled job anywhere in the cluster.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobRun {
+    private String job;
+    private String node;
+    private Instant startedAt;
+    private long durationMs;
+    private int itemsProcessed;
+    // null when the run succeeded
+    private String error;
+}
@@ -0,0 +1,97 @@
+package com.awad.ticketbooking.common.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers STOMP broadcasts to clients on every application node.
+ * <p>
+ * The in-memory simple broker only reaches sessions connected to the local node, so
+ * broadcasts are published once to a Redis topic. Every node, including the sender,
+ * listens on that topic and hands the message to its own broker, which then fans it
+ * out to its local subscribers.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterBroadcastService {
+
+    public static final String TOPIC = "ws:broadcast";
+
+    private final RedissonClient redissonClient;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private RTopic topic;
+    private int listenerId;
+
+    record ClusterMessage(String destination, String payload) {
+    }
+
+    @PostConstruct
+    void subscribe() {
+        topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, message) -> deliver(message));
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        topic.removeListener(listenerId);
+    }
+
+    public void convertAndSend(String destination, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (Exception e) {
+            log.error("Failed to serialize broadcast for {}: {}", destination, e.getMessage());
+            return;
+        }
+
+        try {
+            topic.publish(objectMapper.writeValueAsString(new ClusterMessage(destination, json)));
+        } catch (Exception e) {
+            // Redis is unavailable: other nodes miss this one, but local clients still get it
+            log.warn("Failed to publish broadcast for {} to other nodes: {}", destination, e.getMessage());
+            sendLocally(destination, json);
+        }
+    }
+
+    private void deliver(String message) {
+        try {
+            ClusterMessage clusterMessage = objectMapper.readValue(message, ClusterMessage.class);
+            sendLocally(clusterMessage.destination(), clusterMessage.payload());
+        } catch (Exception e) {
+            log.error("Failed to deliver cluster broadcast: {}", e.getMessage());
+        }
+    }
+
+    private void sendLocally(String destination, String json) {
+        // The payload is already JSON, so it is sent as raw bytes instead of going through the converters
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+
+        long start = System.nanoTime();
+        messagingTemplate.send(destination,
+                MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()));
+        meterRegistry.timer("ws.broadcast.local-fanout").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
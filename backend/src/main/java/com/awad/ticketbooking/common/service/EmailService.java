@@ -1,6 +1,9 @@
 package com.awad.ticketbooking.common.service;
 
+import com.awad.ticketbooking.common.mail.EmailDispatcher;
+import com.awad.ticketbooking.common.mail.EmailTemplate;
 import com.awad.ticketbooking.modules.booking.entity.Booking;
+import com.awad.ticketbooking.modules.booking.entity.BookingView;
 import com.awad.ticketbooking.modules.booking.entity.Ticket;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
@@ -9,13 +12,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.text.NumberFormat;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +28,7 @@ import java.util.stream.Collectors;
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final EmailDispatcher emailDispatcher;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
@@ -34,179 +39,80 @@ public class EmailService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("EEEE, dd/MM/yyyy",
             new Locale("vi", "VN"));
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
-    private static final NumberFormat CURRENCY_FORMATTER = NumberFormat.getCurrencyInstance(new Locale("vi", "VN"));
-
-    @Async
-    public void sendBookingConfirmationEmail(Booking booking, String recipientEmail) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail, fromName);
-            helper.setTo(recipientEmail);
-            helper.setSubject("Xác nhận đặt vé - #" + booking.getCode());
-            helper.setText(buildEmailContent(booking), true);
-
-            mailSender.send(message);
-            log.info("Booking confirmation email sent to: {}", recipientEmail);
-        } catch (MessagingException | java.io.UnsupportedEncodingException e) {
-            log.error("Failed to send email to {}: {}", recipientEmail, e.getMessage());
-        }
-    }
-
-    private String buildEmailContent(Booking booking) {
+    // NumberFormat is not thread-safe and emails are rendered by several outbox workers at once
+    private static final ThreadLocal<NumberFormat> CURRENCY_FORMATTER =
+            ThreadLocal.withInitial(() -> NumberFormat.getCurrencyInstance(new Locale("vi", "VN")));
+    private static final ZoneId DISPLAY_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    // Parsed once; rendering only fills the slots
+    private static final EmailTemplate BOOKING_CONFIRMATION = EmailTemplate.load("mail/booking-confirmation.html");
+    private static final EmailTemplate TRIP_REMINDER = EmailTemplate.load("mail/trip-reminder.html");
+
+    /**
+     * Sends the e-ticket and waits for it to go out; failures are thrown so the outbox relay can retry.
+     * The booking must have its trip, route, bus and tickets loaded.
+     */
+    public void sendBookingConfirmationEmail(Booking booking, String recipientEmail)
+            throws MessagingException, java.io.UnsupportedEncodingException {
         var trip = booking.getTrip();
         var route = trip.getRoute();
-        var departureTime = trip.getDepartureTime().atZone(ZoneId.of("Asia/Ho_Chi_Minh"));
-
-        String seats = booking.getTickets().stream()
+        var departureTime = trip.getDepartureTime().atZone(DISPLAY_ZONE);
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("code", booking.getCode());
+        values.put("operator", trip.getBus().getOperator().getName().toUpperCase());
+        values.put("originCity", route.getOriginStation().getCity());
+        values.put("destinationCity", route.getDestinationStation().getCity());
+        values.put("departureDate", DATE_FORMATTER.format(departureTime));
+        values.put("departureTime", TIME_FORMATTER.format(departureTime));
+        values.put("plateNumber", trip.getBus().getPlateNumber());
+        values.put("passengerName", booking.getPassengerName());
+        values.put("passengerPhone", booking.getPassengerPhone());
+        values.put("seats", booking.getTickets().stream()
                 .map(Ticket::getSeatCode)
-                .collect(Collectors.joining(", "));
-
-        return """
-                <!DOCTYPE html>
-                <html>
-                <body style="font-family: 'Courier New', Courier, monospace; background-color: #ffffff; color: #000000; font-size: 14px; line-height: 1.5;">
-                    <div style="max-width: 400px; margin: 0 auto; padding: 20px; border: 1px dashed #000000;">
-                        <div style="text-align: center; margin-bottom: 20px;">
-                            <h2 style="margin: 0; font-size: 18px; font-weight: bold;">VE XE KHACH DIEN TU</h2>
-                            <p style="margin: 5px 0 0 0;">E-TICKET</p>
-                        </div>
-
-                        <div style="text-align: center; margin-bottom: 20px;">
-                            <p style="margin: 0;">Ma ve: <span style="font-weight: bold;">#%s</span></p>
-                        </div>
-
-                        <div style="border-bottom: 1px dashed #000000; margin-bottom: 15px;"></div>
-
-                        <div style="text-align: center; margin-bottom: 15px;">
-                            <p style="font-weight: bold; margin: 0; font-size: 16px;">%s</p>
-                        </div>
-
-                        <div style="display: flex; justify-content: space-between; margin-bottom: 5px;">
-                            <span>Di tu (From):</span>
-                            <span style="font-weight: bold; text-align: right;">%s</span>
-                        </div>
-                        <div style="display: flex; justify-content: space-between; margin-bottom: 15px;">
-                            <span>Den (To):</span>
-                            <span style="font-weight: bold; text-align: right;">%s</span>
-                        </div>
-
-                        <div style="display: flex; justify-content: space-between; margin-bottom: 5px;">
-                            <span>Ngay di (Date):</span>
-                            <span style="font-weight: bold; text-align: right;">%s</span>
-                        </div>
-                        <div style="display: flex; justify-content: space-between; margin-bottom: 5px;">
-                            <span>Gio di (Time):</span>
-                            <span style="font-weight: bold; text-align: right;">%s</span>
-                        </div>
-                        <div style="display: flex; justify-content: space-between; margin-bottom: 15px;">
-                            <span>Xe (Bus):</span>
-                            <span style="font-weight: bold; text-align: right;">%s</span>
-                        </div>
-
-                        <div style="border-bottom: 1px dashed #000000; margin-bottom: 15px;"></div>
-
-                        <div style="display: flex; justify-content: space-between; margin-bottom: 5px;">
-                            <span>Hanh khach:</span>
-                            <span style="font-weight: bold; text-align: right;">%s</span>
-                        </div>
-                        <div style="display: flex; justify-content: space-between; margin-bottom: 15px;">
-                            <span>SDT:</span>
-                            <span style="font-weight: bold; text-align: right;">%s</span>
-                        </div>
-
-                        <div style="text-align: center; margin-bottom: 15px;">
-                            <p style="margin: 0;">GHE (SEATS):</p>
-                            <p style="margin: 5px 0 0 0; font-size: 18px; font-weight: bold;">%s</p>
-                        </div>
-
-                        <div style="border-bottom: 1px dashed #000000; margin-bottom: 15px;"></div>
-
-                        <div style="display: flex; justify-content: space-between; margin-bottom: 20px;">
-                            <span>TONG TIEN (TOTAL):</span>
-                            <span style="font-weight: bold; font-size: 16px;">%s</span>
-                        </div>
-
-                        <div style="text-align: center; font-size: 12px;">
-                            <p style="margin: 0;">Vui long dua ve nay cho nhan vien nha xe.</p>
-                            <p style="margin: 5px 0 0 0;">Cam on quy khach!</p>
-                        </div>
-                    </div>
-                </body>
-                </html>
-                """
-                .formatted(
-                        booking.getCode(),
-                        trip.getBus().getOperator().getName().toUpperCase(),
-                        route.getOriginStation().getCity(),
-                        route.getDestinationStation().getCity(),
-                        DATE_FORMATTER.format(departureTime),
-                        TIME_FORMATTER.format(departureTime),
-                        trip.getBus().getPlateNumber(),
-                        booking.getPassengerName(),
-                        booking.getPassengerPhone(),
-                        seats,
-                        CURRENCY_FORMATTER.format(booking.getTotalPrice()));
+                .collect(Collectors.joining(", ")));
+        values.put("totalPrice", CURRENCY_FORMATTER.get().format(booking.getTotalPrice()));
+
+        send("booking-confirmation", recipientEmail, "Xác nhận đặt vé - #" + booking.getCode(),
+                BOOKING_CONFIRMATION.render(values));
+        log.info("Booking confirmation email sent to: {}", recipientEmail);
     }
 
-    // @Async - Removed to ensure transactional consistency in scheduler
-    public void sendTripReminderEmail(Booking booking, String recipientEmail) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail, fromName);
-            helper.setTo(recipientEmail);
-            helper.setSubject(
-                    "Nhắc nhở khởi hành - Chuyến đi " + booking.getTrip().getRoute().getOriginStation().getCity()
-                            + " - " + booking.getTrip().getRoute().getDestinationStation().getCity());
-
-            String content = """
-                    <!DOCTYPE html>
-                    <html>
-                    <body style="font-family: Arial, sans-serif; background-color: #f4f4f4; padding: 20px;">
-                        <div style="max-width: 600px; margin: 0 auto; background-color: #ffffff; padding: 20px; border-radius: 8px; box-shadow: 0 0 10px rgba(0,0,0,0.1);">
-                            <h2 style="color: #333333; text-align: center;">Nhắc nhở chuyến đi sắp tới</h2>
-                            <p>Xin chào <strong>%s</strong>,</p>
-                            <p>Đây là email nhắc nhở về chuyến đi của bạn vào ngày mai.</p>
-
-                            <div style="background-color: #e9ecef; padding: 15px; border-radius: 5px; margin: 20px 0;">
-                                <p style="margin: 5px 0;"><strong>Mã vé:</strong> %s</p>
-                                <p style="margin: 5px 0;"><strong>Tuyến đường:</strong> %s - %s</p>
-                                <p style="margin: 5px 0;"><strong>Thời gian:</strong> %s %s</p>
-                                <p style="margin: 5px 0;"><strong>Điểm đón:</strong> %s</p>
-                                <p style="margin: 5px 0;"><strong>Nhà xe:</strong> %s (%s)</p>
-                            </div>
-
-                            <p>Vui lòng có mặt tại điểm đón trước <strong>15-30 phút</strong>.</p>
-                            <p>Chúc bạn có một chuyến đi an toàn và vui vẻ!</p>
-
-                            <hr style="border: 0; border-top: 1px solid #eeeeee; margin: 20px 0;">
-                            <p style="font-size: 12px; color: #999999; text-align: center;">Đây là email tự động, vui lòng không trả lời.</p>
-                        </div>
-                    </body>
-                    </html>
-                    """
-                    .formatted(
-                            booking.getPassengerName(),
-                            booking.getCode(),
-                            booking.getTrip().getRoute().getOriginStation().getCity(),
-                            booking.getTrip().getRoute().getDestinationStation().getCity(),
-                            TIME_FORMATTER
-                                    .format(booking.getTrip().getDepartureTime().atZone(ZoneId.of("Asia/Ho_Chi_Minh"))),
-                            DATE_FORMATTER
-                                    .format(booking.getTrip().getDepartureTime().atZone(ZoneId.of("Asia/Ho_Chi_Minh"))),
-                            booking.getPickupStation().getName(),
-                            booking.getTrip().getBus().getOperator().getName(),
-                            booking.getTrip().getBus().getPlateNumber());
-
-            helper.setText(content, true);
-
-            mailSender.send(message);
-            log.info("Reminder email sent to: {}", recipientEmail);
-        } catch (MessagingException | java.io.UnsupportedEncodingException e) {
-            log.error("Failed to send reminder email to {}: {}", recipientEmail, e.getMessage());
-        }
+    /**
+     * Sends the day-before reminder and waits for it to go out; failures are thrown so the booking is not
+     * flagged as reminded and the next run tries again.
+     */
+    public void sendTripReminderEmail(BookingView booking, String recipientEmail)
+            throws MessagingException, java.io.UnsupportedEncodingException {
+        var departureTime = booking.getDepartureTime().atZone(DISPLAY_ZONE);
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("passengerName", booking.getPassengerName());
+        values.put("code", booking.getCode());
+        values.put("originCity", booking.getOriginCity());
+        values.put("destinationCity", booking.getDestinationCity());
+        values.put("departureTime", TIME_FORMATTER.format(departureTime));
+        values.put("departureDate", DATE_FORMATTER.format(departureTime));
+        values.put("pickup", booking.getPickupName() != null ? booking.getPickupName() : booking.getOriginName());
+        values.put("operator", booking.getOperatorName());
+        values.put("plateNumber", booking.getPlateNumber());
+
+        send("trip-reminder", recipientEmail,
+                "Nhắc nhở khởi hành - Chuyến đi " + booking.getOriginCity() + " - " + booking.getDestinationCity(),
+                TRIP_REMINDER.render(values));
+        log.info("Reminder email sent to: {}", recipientEmail);
+    }
+
+    private void send(String type, String recipientEmail, String subject, String html)
+            throws MessagingException, java.io.UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(fromEmail, fromName);
+        helper.setTo(recipientEmail);
+        helper.setSubject(subject);
+        helper.setText(html, true);
+
+        emailDispatcher.send(type, message);
     }
 }
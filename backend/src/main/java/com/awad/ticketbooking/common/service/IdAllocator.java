@@ -0,0 +1,113 @@
+package com.awad.ticketbooking.common.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out booking codes and PayOS order codes without checking the database for duplicates.
+ * <p>
+ * Ids come from database sequences that advance by {@link #BLOCK_SIZE}: one {@code nextval}
+ * reserves a whole block for this node, which then serves ids from memory. Nodes never share a
+ * block, so ids are unique across the cluster; ids left in a block when a node stops are skipped.
+ * <p>
+ * Booking codes are the id passed through a fixed 35 bit permutation and written as seven
+ * Crockford base32 characters, so consecutive bookings don't get guessable neighbouring codes.
+ * Legacy codes have six characters, so the two never collide.
+ */
+@Service
+@Slf4j
+public class IdAllocator {
+
+    // Must match INCREMENT BY of booking_code_seq and payment_order_code_seq (V15)
+    static final int BLOCK_SIZE = 100;
+
+    private static final String BOOKING_CODE_PREFIX = "BK-";
+    private static final int BOOKING_CODE_LENGTH = 7;
+    private static final int BOOKING_CODE_BITS = 5 * BOOKING_CODE_LENGTH;
+    private static final long BOOKING_CODE_MASK = (1L << BOOKING_CODE_BITS) - 1;
+    // No I, L, O or U, so codes read back over the phone are unambiguous
+    private static final char[] CROCKFORD_BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final BlockSequence bookingCodes;
+    private final BlockSequence orderCodes;
+
+    @Autowired
+    public IdAllocator(JdbcTemplate jdbcTemplate) {
+        this(() -> nextval(jdbcTemplate, "booking_code_seq"), () -> nextval(jdbcTemplate, "payment_order_code_seq"));
+    }
+
+    IdAllocator(LongSupplier bookingCodeBlocks, LongSupplier orderCodeBlocks) {
+        this.bookingCodes = new BlockSequence("booking code", bookingCodeBlocks);
+        this.orderCodes = new BlockSequence("order code", orderCodeBlocks);
+    }
+
+    /**
+     * Next booking code, e.g. {@code BK-7KQ2M9X}.
+     */
+    public String nextBookingCode() {
+        return encodeBookingCode(bookingCodes.next());
+    }
+
+    /**
+     * Next PayOS order code; positive and below 2^53 as PayOS requires.
+     */
+    public long nextOrderCode() {
+        return orderCodes.next();
+    }
+
+    static String encodeBookingCode(long id) {
+        if (id < 0 || id > BOOKING_CODE_MASK) {
+            throw new IllegalStateException("Booking code space exhausted at id " + id);
+        }
+        long value = permute(id);
+        char[] code = new char[BOOKING_CODE_LENGTH];
+        for (int i = BOOKING_CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = CROCKFORD_BASE32[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return BOOKING_CODE_PREFIX + new String(code);
+    }
+
+    // Multiplying by an odd constant and xor-shifting right are both invertible modulo 2^35, so
+    // distinct ids always give distinct codes
+    private static long permute(long x) {
+        x = (x * 0x5DEECE66DL + 0xBL) & BOOKING_CODE_MASK;
+        x ^= x >>> 17;
+        x = (x * 0x2545F4914FL) & BOOKING_CODE_MASK;
+        x ^= x >>> 13;
+        return x;
+    }
+
+    private static long nextval(JdbcTemplate jdbcTemplate, String sequence) {
+        Long start = jdbcTemplate.queryForObject("SELECT nextval('" + sequence + "')", Long.class);
+        if (start == null) {
+            throw new IllegalStateException("Sequence " + sequence + " returned no value");
+        }
+        return start;
+    }
+
+    private static final class BlockSequence {
+        private final String name;
+        private final LongSupplier reserveBlock;
+        private long next;
+        private long end;
+
+        private BlockSequence(String name, LongSupplier reserveBlock) {
+            this.name = name;
+            this.reserveBlock = reserveBlock;
+        }
+
+        private synchronized long next() {
+            if (next == end) {
+                next = reserveBlock.getAsLong();
+                end = next + BLOCK_SIZE;
+                log.debug("Reserved {} block {}..{}", name, next, end - 1);
+            }
+            return next++;
+        }
+    }
+}
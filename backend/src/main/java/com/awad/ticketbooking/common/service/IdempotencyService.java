@@ -0,0 +1,179 @@
+package com.awad.ticketbooking.common.service;
+
+import com.awad.ticketbooking.common.exception.IdempotencyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Runs a create request once per client-chosen {@code Idempotency-Key} and replays its response to retries.
+ * <p>
+ * Keys are scoped to the caller (signed-in user or guest id), so two clients picking the same key never
+ * see each other's responses; a key sent without either is rejected. The first request claims the
+ * key in Redis with a pending marker and stores its response when it succeeds. A duplicate arriving
+ * meanwhile waits for that response, for as long as the first request may run, instead of running the
+ * request again; one arriving later gets the stored response straight away. Failed requests leave nothing behind, so a retry after an error runs
+ * again. Reusing a key for a different request body is rejected. Without Redis the request simply runs,
+ * as it did before keys were supported.
+ * <p>
+ * The marker outlives {@link #REQUEST_TIMEOUT}, which also bounds the transactions of the guarded
+ * endpoints: a request too slow to finish rolls back and frees the key before a duplicate could claim it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    // Transaction timeout of the endpoints guarded by a key, in seconds
+    public static final String REQUEST_TIMEOUT = "${app.idempotency.request-timeout-seconds:60}";
+
+    // Value is "P|<fingerprint>" while the first request runs, then "D|<fingerprint>|<response json>"
+    private static final String KEY = "idempotency:%s:%s:%s";
+    // Covers the work between the last statement and storing the response
+    private static final Duration MARKER_GRACE = Duration.ofSeconds(10);
+    private static final String PENDING = "P|";
+    private static final String DONE = "D|";
+    private static final int FINGERPRINT_LENGTH = 64;
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final long MAX_POLL_PAUSE_MS = 200;
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // A node that dies mid-request frees the key once the request would have timed out
+    @Value(REQUEST_TIMEOUT)
+    private long requestTimeoutSeconds;
+
+    /**
+     * Runs {@code action} unless a request with the same key already did.
+     *
+     * @param scope          endpoint the key belongs to, so one key can be used for a booking and its payment
+     * @param callerId       signed-in user or guest sending the request; required when a key is sent
+     * @param idempotencyKey key sent by the client; {@code null} runs the action without idempotency
+     * @param request        request body, compared with the first request that used the key
+     * @throws IllegalArgumentException when a key is sent without a caller, is too long or was used for
+     *                                  another request
+     */
+    public <T> T execute(String scope, UUID callerId, String idempotencyKey, Object request, Class<T> responseType,
+                         Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (callerId == null) {
+            throw new IllegalArgumentException(HEADER + " requires a signed-in user or a guestId");
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String fingerprint = fingerprint(request);
+        RBucket<String> bucket = redissonClient.getBucket(KEY.formatted(scope, callerId, idempotencyKey),
+                StringCodec.INSTANCE);
+        Duration markerTtl = Duration.ofSeconds(requestTimeoutSeconds).plus(MARKER_GRACE);
+        // By then the first request has answered or its marker is gone, unless yet another request took over
+        long deadline = System.currentTimeMillis() + markerTtl.toMillis();
+        long pause = 10;
+        while (true) {
+            String stored;
+            try {
+                if (bucket.setIfAbsent(PENDING + fingerprint, markerTtl)) {
+                    return runFirst(scope, bucket, fingerprint, action);
+                }
+                stored = bucket.get();
+            } catch (RedisException e) {
+                log.warn("Idempotency store unavailable, running {} request without it: {}", scope, e.getMessage());
+                return action.get();
+            }
+
+            if (stored != null) {
+                if (!stored.startsWith(fingerprint, 2)) {
+                    throw new IllegalArgumentException(HEADER + " was already used for a different request");
+                }
+                if (stored.startsWith(DONE)) {
+                    meterRegistry.counter("idempotency.replayed", "scope", scope).increment();
+                    return read(stored.substring(2 + FINGERPRINT_LENGTH + 1), responseType);
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new IdempotencyException("A request with this " + HEADER + " is still being processed");
+                }
+                meterRegistry.counter("idempotency.waited", "scope", scope).increment();
+                sleep(pause);
+                pause = Math.min(pause * 2, MAX_POLL_PAUSE_MS);
+            }
+            // A vanished key means the first request failed; claim it and run again
+        }
+    }
+
+    private <T> T runFirst(String scope, RBucket<String> bucket, String fingerprint, Supplier<T> action) {
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(bucket, fingerprint);
+            throw e;
+        }
+        try {
+            bucket.set(DONE + fingerprint + "|" + objectMapper.writeValueAsString(response),
+                    Duration.ofHours(ttlHours));
+        } catch (JsonProcessingException | RedisException e) {
+            log.warn("Could not store {} response for replay: {}", scope, e.getMessage());
+            release(bucket, fingerprint);
+        }
+        return response;
+    }
+
+    // Only drops our own marker; another node may have claimed the key after ours expired
+    private void release(RBucket<String> bucket, String fingerprint) {
+        try {
+            bucket.compareAndSet(PENDING + fingerprint, null);
+        } catch (RedisException e) {
+            log.warn("Could not release idempotency key {}: {}", bucket.getName(), e.getMessage());
+        }
+    }
+
+    private <T> T read(String json, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(json, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response is not a " + responseType.getSimpleName(), e);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyException("Interrupted while waiting for the first request");
+        }
+    }
+}
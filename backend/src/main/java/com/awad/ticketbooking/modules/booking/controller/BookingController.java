@@ -1,9 +1,14 @@
 package com.awad.ticketbooking.modules.booking.controller;
 
 import com.awad.ticketbooking.common.config.security.ApplicationUserDetails;
+import com.awad.ticketbooking.common.service.IdempotencyService;
 import com.awad.ticketbooking.modules.booking.dto.BookingResponse;
+import com.awad.ticketbooking.modules.booking.dto.BulkBookingRequest;
+import com.awad.ticketbooking.modules.booking.dto.BulkBookingResponse;
 import com.awad.ticketbooking.modules.booking.dto.CreateBookingRequest;
 import com.awad.ticketbooking.modules.booking.service.BookingService;
+import com.awad.ticketbooking.modules.booking.service.BulkBookingService;
+import com.awad.ticketbooking.modules.trip.service.WaitingRoomService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -24,11 +29,39 @@ import java.util.UUID;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final BulkBookingService bulkBookingService;
+    private final WaitingRoomService waitingRoomService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
-    @Operation(summary = "Create booking", description = "Creates a new booking for a given trip and passenger details.")
-    public ResponseEntity<BookingResponse> createBooking(@Valid @RequestBody CreateBookingRequest request) {
-        return ResponseEntity.ok(bookingService.createBooking(request));
+    @Operation(summary = "Create booking", description = "Creates a new booking for a given trip and passenger details. "
+            + "Trips with a waiting room require an admitted X-Queue-Token; placing the booking frees the shopper's slot. "
+            + "Retries from the same user or guest carrying the same Idempotency-Key get the first booking back instead of creating another.")
+    public ResponseEntity<BookingResponse> createBooking(@Valid @RequestBody CreateBookingRequest request,
+                                                         @RequestHeader(value = WaitingRoomService.ADMISSION_HEADER, required = false) String admissionToken,
+                                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                                         @AuthenticationPrincipal ApplicationUserDetails userDetails) {
+        UUID callerId = null;
+        if (userDetails != null) {
+            callerId = userDetails.getUser().getId();
+        } else if (request.getGuestId() != null && !request.getGuestId().isBlank()) {
+            callerId = UUID.fromString(request.getGuestId());
+        }
+        return ResponseEntity.ok(idempotencyService.execute("booking", callerId, idempotencyKey, request, BookingResponse.class,
+                () -> {
+                    waitingRoomService.requireAdmission(request.getTripId(), admissionToken);
+                    BookingResponse response = bookingService.createBooking(request);
+                    waitingRoomService.release(request.getTripId(), admissionToken);
+                    return response;
+                }));
+    }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Create bookings in bulk", description = "Books up to 100 entries across several trips for agencies and groups. "
+            + "Each trip is all-or-nothing; seats already sold or held by another shopper are reported as conflicts. "
+            + "The response reports the outcome of every entry in request order.")
+    public ResponseEntity<BulkBookingResponse> createBookings(@Valid @RequestBody BulkBookingRequest request) {
+        return ResponseEntity.ok(bulkBookingService.createBookings(request));
     }
 
     @PostMapping("/lookup")
@@ -61,6 +94,19 @@ public class BookingController {
         return ResponseEntity.ok(bookingService.getBookedSeatsForTrip(tripId));
     }
 
+    @PostMapping("/{id}/view/rebuild")
+    @Operation(summary = "Rebuild booking read model", description = "Recomputes the flattened booking_view row of a booking from its trip, route, bus and tickets.")
+    public ResponseEntity<Void> rebuildBookingView(@PathVariable UUID id) {
+        bookingService.rebuildBookingView(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/view/rebuild")
+    @Operation(summary = "Rebuild all booking read models", description = "Recomputes the booking_view row of every booking. Returns the number of rows written.")
+    public ResponseEntity<Integer> rebuildAllBookingViews() {
+        return ResponseEntity.ok(bookingService.rebuildAllBookingViews());
+    }
+
     @PutMapping("/{id}/confirm")
     @Operation(summary = "Confirm booking", description = "Marks a booking as confirmed after successful payment.")
     public ResponseEntity<BookingResponse> confirmBooking(@PathVariable UUID id) {
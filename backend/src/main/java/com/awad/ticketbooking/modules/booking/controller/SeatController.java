@@ -1,11 +1,15 @@
 package com.awad.ticketbooking.modules.booking.controller;
 
 import com.awad.ticketbooking.common.config.security.ApplicationUserDetails;
-import com.awad.ticketbooking.common.enums.BookingStatus;
+import com.awad.ticketbooking.common.enums.SeatLockResult;
 import com.awad.ticketbooking.modules.booking.dto.LockSeatRequest;
-import com.awad.ticketbooking.modules.booking.repository.BookingRepository;
+import com.awad.ticketbooking.modules.booking.dto.LockSeatsRequest;
+import com.awad.ticketbooking.modules.booking.dto.LockSeatsResponse;
+import com.awad.ticketbooking.modules.booking.repository.TicketRepository;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Segment;
 import com.awad.ticketbooking.modules.booking.service.SeatLockService;
-import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.service.WaitingRoomService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -14,10 +18,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/bookings/seats")
@@ -26,11 +30,16 @@ import java.util.stream.Collectors;
 public class SeatController {
 
     private final SeatLockService seatLockService;
-    private final BookingRepository bookingRepository;
+    private final TicketRepository ticketRepository;
+    private final WaitingRoomService waitingRoomService;
+
+    public static final String SEAT_VERSION_HEADER = "X-Seat-Version";
+    public static final String SEAT_DELTA_HEADER = "X-Seat-Delta";
 
     @PostMapping("/lock")
     @Operation(summary = "Lock a seat", description = "Attempts to place a temporary lock on a seat for the current user or guest.")
     public ResponseEntity<?> lockSeat(@Valid @RequestBody LockSeatRequest request,
+                                      @RequestHeader(value = WaitingRoomService.ADMISSION_HEADER, required = false) String admissionToken,
                                       @AuthenticationPrincipal ApplicationUserDetails userDetails) {
         UUID userId;
         if (userDetails != null) {
@@ -40,21 +49,45 @@ public class SeatController {
         } else {
             return ResponseEntity.status(401).body("User must be logged in or provide guest ID");
         }
+        waitingRoomService.requireAdmission(request.getTripId(), admissionToken);
 
-        // Check if seat is already booked (persistent check)
-        boolean isBooked = bookingRepository.existsByTripIdAndTicketsSeatCodeAndStatusNot(
-                request.getTripId(), request.getSeatCode(), BookingStatus.CANCELLED);
+        // Sold segments come from the inventory, which is built from the tickets table; the exclusion
+        // constraint on tickets stays the final guard when the booking is written
+        Segment segment = new Segment(request.getPickupStationId(), request.getDropoffStationId());
+        SeatLockResult result = seatLockService.lockSeat(request.getTripId(), request.getSeatCode(), userId,
+                segment);
+        return switch (result) {
+            case LOCKED -> ResponseEntity.ok().build();
+            case ALREADY_BOOKED -> ResponseEntity.badRequest().body("Seat is already booked");
+            case UNKNOWN_SEAT -> ResponseEntity.badRequest().body("Seat does not exist on this trip");
+            case HELD_BY_OTHER -> ResponseEntity.status(409).body("Seat is currently locked by another user");
+        };
+    }
 
-        if (isBooked) {
-            return ResponseEntity.badRequest().body("Seat is already booked");
+    @PostMapping("/lock/batch")
+    @Operation(summary = "Lock several seats", description = "Atomically locks all requested seats for the current user or guest, or none of them. Conflicting seats are reported with a reason.")
+    public ResponseEntity<?> lockSeats(@Valid @RequestBody LockSeatsRequest request,
+                                       @RequestHeader(value = WaitingRoomService.ADMISSION_HEADER, required = false) String admissionToken,
+                                       @AuthenticationPrincipal ApplicationUserDetails userDetails) {
+        UUID userId;
+        if (userDetails != null) {
+            userId = userDetails.getUser().getId();
+        } else if (request.getGuestId() != null && !request.getGuestId().isBlank()) {
+            userId = UUID.fromString(request.getGuestId());
+        } else {
+            return ResponseEntity.status(401).body("User must be logged in or provide guest ID");
         }
+        waitingRoomService.requireAdmission(request.getTripId(), admissionToken);
 
-        boolean locked = seatLockService.lockSeat(request.getTripId(), request.getSeatCode(), userId);
-        if (locked) {
-            return ResponseEntity.ok().build();
-        } else {
-            return ResponseEntity.status(409).body("Seat is currently locked by another user");
+        List<String> seatCodes = request.getSeatCodes().stream().distinct().toList();
+        Segment segment = new Segment(request.getPickupStationId(), request.getDropoffStationId());
+
+        Map<String, SeatLockResult> conflicts = seatLockService.lockSeats(request.getTripId(), seatCodes, userId,
+                segment);
+        if (!conflicts.isEmpty()) {
+            return ResponseEntity.status(409).body(new LockSeatsResponse(false, List.of(), conflicts));
         }
+        return ResponseEntity.ok(new LockSeatsResponse(true, seatCodes, Map.of()));
     }
 
     @PostMapping("/unlock")
@@ -75,24 +108,46 @@ public class SeatController {
     }
 
     @GetMapping("/{tripId}")
-    @Operation(summary = "Get seat status for trip", description = "Returns a map of seat codes to status (BOOKED or LOCKED) for a given trip.")
-    public ResponseEntity<Map<String, String>> getSeatStatus(@PathVariable UUID tripId) {
-        // 1. Get persistent bookings
-        Set<String> bookedSeats = bookingRepository.findAllByTripIdAndStatusNot(tripId, BookingStatus.CANCELLED)
-                .stream()
-                .flatMap(booking -> booking.getTickets().stream())
-                .map(ticket -> ticket.getSeatCode())
-                .collect(Collectors.toSet());
-
-        // 2. Get temporary locks
-        Map<String, UUID> lockedSeats = seatLockService.getLockedSeats(tripId);
+    @Operation(summary = "Get seat status for trip", description = "Returns a map of seat codes to status (BOOKED or LOCKED) for a given trip. "
+            + "With pickupStationId and/or dropoffStationId only sales and holds overlapping that part of the route count. "
+            + "The inventory version is returned in the X-Seat-Version header; passing it back as sinceVersion returns only "
+            + "the seats changed since then (AVAILABLE for freed seats, X-Seat-Delta: true) or 304 when nothing changed. "
+            + "Trips with a waiting room answer 429 unless an admitted X-Queue-Token is sent.")
+    public ResponseEntity<Map<String, String>> getSeatStatus(@PathVariable UUID tripId,
+                                                             @RequestParam(required = false) Long sinceVersion,
+                                                             @RequestParam(required = false) UUID pickupStationId,
+                                                             @RequestParam(required = false) UUID dropoffStationId,
+                                                             @RequestHeader(value = WaitingRoomService.ADMISSION_HEADER, required = false) String admissionToken) {
+        waitingRoomService.requireAdmission(tripId, admissionToken);
+        Segment segment = new Segment(pickupStationId, dropoffStationId);
+        if (sinceVersion != null) {
+            SeatInventoryService.Changes changes = seatLockService.getSeatChanges(tripId, sinceVersion, segment);
+            if (changes.complete()) {
+                if (changes.seats().isEmpty()) {
+                    return ResponseEntity.status(304)
+                            .header(SEAT_VERSION_HEADER, String.valueOf(changes.version()))
+                            .build();
+                }
+                return ResponseEntity.ok()
+                        .header(SEAT_VERSION_HEADER, String.valueOf(changes.version()))
+                        .header(SEAT_DELTA_HEADER, "true")
+                        .body(changes.seats());
+            }
+            // The change log does not reach back that far, fall back to a full snapshot
+        }
 
-        // 3. Merge results (Booked overrides Lock)
-        Map<String, String> statusMap = lockedSeats.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> "LOCKED:" + e.getValue()));
+        // Locks and version are read first so anything changing afterwards shows up in the next delta
+        SeatInventoryService.Snapshot snapshot = seatLockService.getSeatSnapshot(tripId, segment);
 
-        bookedSeats.forEach(seat -> statusMap.put(seat, "BOOKED"));
+        // Booked overrides Lock
+        Map<String, String> statusMap = new HashMap<>();
+        snapshot.lockedSeats().forEach((seat, owner) -> statusMap.put(seat, "LOCKED:" + owner));
+        ticketRepository.findBookedSeatCodesByTripIdAndSegment(tripId, snapshot.fromStop(), snapshot.toStop())
+                .forEach(seat -> statusMap.put(seat, "BOOKED"));
 
-        return ResponseEntity.ok(statusMap);
+        return ResponseEntity.ok()
+                .header(SEAT_VERSION_HEADER, String.valueOf(snapshot.version()))
+                .header(SEAT_DELTA_HEADER, "false")
+                .body(statusMap);
     }
 }
@@ -1,8 +1,10 @@
 package com.awad.ticketbooking.modules.booking.dto;
 
 import com.awad.ticketbooking.common.enums.BookingStatus;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -11,6 +13,8 @@ import java.util.UUID;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class BookingResponse {
     private UUID id;
     private String code;
@@ -27,6 +31,8 @@ public class BookingResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class TripInfo {
         private UUID id;
         private Instant departureTime;
@@ -37,6 +43,8 @@ public class BookingResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class RouteInfo {
         private UUID id;
         private StationInfo originStation;
@@ -46,6 +54,8 @@ public class BookingResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class StationInfo {
         private UUID id;
         private String name;
@@ -55,6 +65,8 @@ public class BookingResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class BusInfo {
         private UUID id;
         private String plateNumber;
@@ -65,6 +77,8 @@ public class BookingResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class TicketInfo {
         private UUID id;
         private String seatCode;
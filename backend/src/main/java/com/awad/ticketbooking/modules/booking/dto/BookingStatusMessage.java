@@ -0,0 +1,16 @@
+package com.awad.ticketbooking.modules.booking.dto;
+
+import com.awad.ticketbooking.common.enums.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingStatusMessage {
+    private UUID bookingId;
+    private BookingStatus status;
+}
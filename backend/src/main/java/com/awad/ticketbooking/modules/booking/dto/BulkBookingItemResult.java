@@ -0,0 +1,23 @@
+package com.awad.ticketbooking.modules.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+public class BulkBookingItemResult {
+    // Position of the entry in the request
+    private int index;
+    private UUID tripId;
+    private boolean success;
+    private UUID bookingId;
+    private String code;
+    private BigDecimal totalPrice;
+    private List<String> seatCodes;
+    private String error;
+    private List<String> conflictingSeats;
+}
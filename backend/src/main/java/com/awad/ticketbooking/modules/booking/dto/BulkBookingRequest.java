@@ -0,0 +1,16 @@
+package com.awad.ticketbooking.modules.booking.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkBookingRequest {
+    // One entry per booking; entries may target different trips
+    @NotEmpty(message = "At least one booking is required")
+    @Size(max = 100, message = "At most 100 bookings per request")
+    private List<@Valid CreateBookingRequest> bookings;
+}
@@ -0,0 +1,14 @@
+package com.awad.ticketbooking.modules.booking.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkBookingResponse {
+    private int booked;
+    private int failed;
+    private List<BulkBookingItemResult> results;
+}
@@ -4,7 +4,6 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
-import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Email;
 import lombok.Data;
 
@@ -33,10 +32,12 @@ public class CreateBookingRequest {
     private UUID pickupStationId;
     private UUID dropoffStationId;
 
-    @NotNull(message = "Total price is required")
-    @PositiveOrZero(message = "Total price must be zero or positive")
+    // Ignored: the total is computed on the server from the trip's pricing
     private BigDecimal totalPrice;
 
     @NotEmpty(message = "At least one ticket is required")
     private List<TicketRequest> tickets;
+
+    // For guest users who don't have a SecurityContext; scopes their Idempotency-Key
+    private String guestId;
 }
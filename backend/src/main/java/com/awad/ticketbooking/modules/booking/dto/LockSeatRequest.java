@@ -14,6 +14,10 @@ public class LockSeatRequest {
     @NotBlank(message = "Seat code is required")
     private String seatCode;
 
+    // Optional part of the route to hold the seat for; omitted stations mean the origin / destination
+    private UUID pickupStationId;
+    private UUID dropoffStationId;
+
     // For guest users who don't have a SecurityContext
     private String guestId;
 }
@@ -0,0 +1,27 @@
+package com.awad.ticketbooking.modules.booking.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class LockSeatsRequest {
+    @NotNull(message = "Trip ID is required")
+    private UUID tripId;
+
+    @NotEmpty(message = "At least one seat code is required")
+    @Size(max = 10, message = "At most 10 seats can be locked at once")
+    private List<@NotBlank(message = "Seat code is required") String> seatCodes;
+
+    // Optional part of the route to hold the seat for; omitted stations mean the origin / destination
+    private UUID pickupStationId;
+    private UUID dropoffStationId;
+
+    // For guest users who don't have a SecurityContext
+    private String guestId;
+}
@@ -0,0 +1,19 @@
+package com.awad.ticketbooking.modules.booking.dto;
+
+import com.awad.ticketbooking.common.enums.SeatLockResult;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LockSeatsResponse {
+    private boolean locked;
+    private List<String> lockedSeats;
+    // Seat code -> reason, only populated when nothing was locked
+    private Map<String, SeatLockResult> conflicts;
+}
@@ -0,0 +1,17 @@
+package com.awad.ticketbooking.modules.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeatStatusBatchMessage {
+    private UUID tripId;
+    private long version; // inventory version at send time, usable as sinceVersion on reconnect
+    private List<SeatStatusMessage> seats;
+}
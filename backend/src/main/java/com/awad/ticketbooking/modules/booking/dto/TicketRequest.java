@@ -1,7 +1,6 @@
 package com.awad.ticketbooking.modules.booking.dto;
 
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -17,7 +16,7 @@ public class TicketRequest {
     @NotBlank(message = "Passenger phone is required")
     private String passengerPhone;
 
-    @NotNull(message = "Ticket price is required")
+    // Ignored: tickets are priced on the server from the trip's pricing
     private BigDecimal price;
 }
 
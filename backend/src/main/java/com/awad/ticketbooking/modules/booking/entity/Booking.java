@@ -9,6 +9,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,4 +59,8 @@ public class Booking extends BaseEntity {
 
     @Column(name = "is_reminder_sent")
     private Boolean reminderSent = false;
+
+    // Unpaid bookings are cancelled once this passes; only meaningful while PENDING
+    @Column(name = "expires_at")
+    private Instant expiresAt;
 }
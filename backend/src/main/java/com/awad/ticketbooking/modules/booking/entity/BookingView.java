@@ -0,0 +1,160 @@
+package com.awad.ticketbooking.modules.booking.entity;
+
+import com.awad.ticketbooking.common.converter.BookingViewTicketListConverter;
+import com.awad.ticketbooking.common.converter.StringListConverter;
+import com.awad.ticketbooking.common.enums.BookingStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.Getter;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One booking flattened together with its trip, route, stations, bus and tickets. Rows are written
+ * by triggers on the source tables in the same transaction as the change, so this side only reads.
+ */
+@Entity
+@Table(name = "booking_view")
+@Immutable
+@Getter
+public class BookingView {
+
+    @Id
+    @Column(name = "booking_id")
+    private UUID bookingId;
+
+    private String code;
+
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+
+    @Column(name = "total_price")
+    private BigDecimal totalPrice;
+
+    @Column(name = "passenger_name")
+    private String passengerName;
+
+    @Column(name = "passenger_phone")
+    private String passengerPhone;
+
+    @Column(name = "passenger_email")
+    private String passengerEmail;
+
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "user_email")
+    private String userEmail;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @Column(name = "trip_id")
+    private UUID tripId;
+
+    @Column(name = "departure_time")
+    private Instant departureTime;
+
+    @Column(name = "arrival_time")
+    private Instant arrivalTime;
+
+    @Column(name = "route_id")
+    private UUID routeId;
+
+    @Column(name = "duration_minutes")
+    private Integer durationMinutes;
+
+    @Column(name = "distance_km")
+    private BigDecimal distanceKm;
+
+    @Column(name = "origin_station_id")
+    private UUID originStationId;
+
+    @Column(name = "origin_name")
+    private String originName;
+
+    @Column(name = "origin_city")
+    private String originCity;
+
+    @Column(name = "origin_address")
+    private String originAddress;
+
+    @Column(name = "destination_station_id")
+    private UUID destinationStationId;
+
+    @Column(name = "destination_name")
+    private String destinationName;
+
+    @Column(name = "destination_city")
+    private String destinationCity;
+
+    @Column(name = "destination_address")
+    private String destinationAddress;
+
+    @Column(name = "pickup_station_id")
+    private UUID pickupStationId;
+
+    @Column(name = "pickup_name")
+    private String pickupName;
+
+    @Column(name = "pickup_city")
+    private String pickupCity;
+
+    @Column(name = "pickup_address")
+    private String pickupAddress;
+
+    @Column(name = "dropoff_station_id")
+    private UUID dropoffStationId;
+
+    @Column(name = "dropoff_name")
+    private String dropoffName;
+
+    @Column(name = "dropoff_city")
+    private String dropoffCity;
+
+    @Column(name = "dropoff_address")
+    private String dropoffAddress;
+
+    @Column(name = "bus_id")
+    private UUID busId;
+
+    @Column(name = "plate_number")
+    private String plateNumber;
+
+    @Column(name = "bus_layout_id")
+    private UUID busLayoutId;
+
+    @Column(columnDefinition = "JSONB")
+    @Convert(converter = StringListConverter.class)
+    private List<String> amenities;
+
+    @Column(name = "operator_name")
+    private String operatorName;
+
+    @Column(columnDefinition = "TEXT")
+    @Convert(converter = BookingViewTicketListConverter.class)
+    private List<Ticket> tickets;
+
+    /**
+     * Email a guest must give to look the booking up: the passenger's, else the account's.
+     */
+    public String getContactEmail() {
+        return passengerEmail != null ? passengerEmail : userEmail;
+    }
+
+    @Data
+    public static class Ticket {
+        private UUID id;
+        private String seatCode;
+        private String passengerName;
+        private String passengerPhone;
+        private BigDecimal price;
+    }
+}
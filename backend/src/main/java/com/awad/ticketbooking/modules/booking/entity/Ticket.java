@@ -1,5 +1,6 @@
 package com.awad.ticketbooking.modules.booking.entity;
 
+import com.awad.ticketbooking.modules.trip.entity.Trip;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -11,6 +12,7 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
@@ -32,9 +34,22 @@ public class Ticket {
     @JsonIgnore
     private Booking booking;
 
+    // Denormalized from the booking so the active-seat unique index can cover it
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "trip_id", nullable = false)
+    @JsonIgnore
+    private Trip trip;
+
     @Column(name = "seat_code", nullable = false)
     private String seatCode;
 
+    // Stop indexes the passenger rides between (see RouteSegments); sales of one seat may not overlap
+    @Column(name = "segment_start", nullable = false)
+    private int segmentStart;
+
+    @Column(name = "segment_end", nullable = false)
+    private int segmentEnd;
+
     @Column(name = "passenger_name", nullable = false)
     private String passengerName;
 
@@ -43,5 +58,10 @@ public class Ticket {
 
     @Column(nullable = false)
     private BigDecimal price;
+
+    // Maintained by a trigger on bookings.status: true while the booking is PENDING or CONFIRMED
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("true")
+    private boolean active = true;
 }
 
@@ -4,12 +4,15 @@ import com.awad.ticketbooking.common.enums.BookingStatus;
 import com.awad.ticketbooking.modules.booking.entity.Booking;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -96,9 +99,6 @@ public interface BookingRepository extends JpaRepository<Booking, java.util.UUID
     @Query("SELECT SUM(b.totalPrice) FROM Booking b WHERE b.user.email = :email AND b.status = 'CONFIRMED'")
     BigDecimal sumTotalSpentByUser(@Param("email") String email);
 
-    @Query("SELECT b FROM Booking b WHERE b.user.email = :email ORDER BY b.trip.departureTime DESC")
-    List<Booking> findRecentBookingsByUser(@Param("email") String email, Pageable pageable);
-
     void deleteByTripId(java.util.UUID tripId);
 
     boolean existsByTripId(java.util.UUID tripId);
@@ -108,9 +108,7 @@ public interface BookingRepository extends JpaRepository<Booking, java.util.UUID
 
     List<Booking> findAllByTripIdAndStatusNot(java.util.UUID tripId, BookingStatus status);
 
-    // For Scheduler
-    @Query("SELECT b FROM Booking b WHERE b.status = 'PENDING' AND b.createdAt < :cutoffTime")
-    List<Booking> findExpiredPendingBookings(@Param("cutoffTime") Instant cutoffTime);
+    List<Booking> findByUserIdAndTripIdAndStatus(java.util.UUID userId, java.util.UUID tripId, BookingStatus status);
 
     @Query("SELECT b FROM Booking b " +
             "JOIN FETCH b.trip t " +
@@ -123,16 +121,23 @@ public interface BookingRepository extends JpaRepository<Booking, java.util.UUID
             "WHERE b.id = :bookingId")
     Optional<Booking> findByIdWithFullDetails(@Param("bookingId") java.util.UUID bookingId);
 
-    @Query("SELECT b FROM Booking b " +
-            "JOIN FETCH b.trip t " +
-            "JOIN FETCH t.route r " +
-            "JOIN FETCH r.originStation " +
-            "JOIN FETCH r.destinationStation " +
-            "JOIN FETCH t.bus bus " +
-            "JOIN FETCH bus.operator " +
-            "WHERE b.status = :status AND b.reminderSent = false AND t.departureTime BETWEEN :start AND :end")
-    List<Booking> findByStatusAndReminderSentFalseAndTripDepartureTimeBetween(
-            @Param("status") BookingStatus status,
-            @Param("start") Instant start,
-            @Param("end") Instant end);
+    /**
+     * Moves a booking from {@code from} to {@code to} only if it is still in {@code from}. Waits for a
+     * concurrent writer of the row (e.g. the expiry sweep) and re-checks the status it committed.
+     *
+     * @return 1 if the booking moved, 0 if it was no longer in {@code from}
+     */
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :to, b.updatedAt = CURRENT_TIMESTAMP WHERE b.id = :id AND b.status = :from")
+    int updateStatusIfCurrent(@Param("id") java.util.UUID id, @Param("from") BookingStatus from,
+                              @Param("to") BookingStatus to);
+
+    @Query("SELECT b.status FROM Booking b WHERE b.id = :id")
+    BookingStatus findStatusById(@Param("id") java.util.UUID id);
+
+    // Touches only is_reminder_sent, which booking_view does not copy, so it refreshes no view rows
+    @Transactional
+    @Modifying
+    @Query("UPDATE Booking b SET b.reminderSent = true WHERE b.id IN :ids")
+    int markRemindersSent(@Param("ids") Collection<java.util.UUID> ids);
 }
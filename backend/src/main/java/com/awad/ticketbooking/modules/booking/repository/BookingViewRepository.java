@@ -0,0 +1,50 @@
+package com.awad.ticketbooking.modules.booking.repository;
+
+import com.awad.ticketbooking.modules.booking.entity.BookingView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface BookingViewRepository extends JpaRepository<BookingView, UUID> {
+
+    Optional<BookingView> findByCode(String code);
+
+    Page<BookingView> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
+
+    List<BookingView> findByUserEmailOrderByDepartureTimeDesc(String userEmail, Pageable pageable);
+
+    /**
+     * Next page of confirmed bookings departing up to {@code until} that still need a trip reminder and
+     * have an address to send it to, ordered by departure and id to page after {@code (afterTime, afterId)}.
+     */
+    @Query(value = """
+            SELECT v.*
+            FROM booking_view v
+            JOIN bookings b ON b.id = v.booking_id
+            WHERE v.status = 'CONFIRMED'
+              AND b.is_reminder_sent IS NOT TRUE
+              AND COALESCE(v.passenger_email, v.user_email) <> ''
+              AND v.departure_time <= :until
+              AND (v.departure_time, v.booking_id) > (:afterTime, :afterId)
+            ORDER BY v.departure_time, v.booking_id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<BookingView> findReminderCandidates(@Param("afterTime") Instant afterTime, @Param("afterId") UUID afterId,
+                                             @Param("until") Instant until, @Param("limit") int limit);
+
+    // refresh_booking_view writes rows but is called through SELECT, so these are not @Modifying
+    @Query(value = "SELECT refresh_booking_view(ARRAY[CAST(:bookingId AS UUID)])", nativeQuery = true)
+    int rebuild(@Param("bookingId") UUID bookingId);
+
+    @Query(value = "SELECT refresh_booking_view(ARRAY(SELECT id FROM bookings))", nativeQuery = true)
+    int rebuildAll();
+}
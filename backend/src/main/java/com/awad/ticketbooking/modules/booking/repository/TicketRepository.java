@@ -5,13 +5,28 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface TicketRepository extends JpaRepository<Ticket, UUID> {
 
-    @Query("SELECT t.seatCode FROM Ticket t WHERE t.booking.trip.id = :tripId AND t.booking.status IN ('PENDING', 'CONFIRMED')")
+    @Query("SELECT t.seatCode FROM Ticket t WHERE t.trip.id = :tripId AND t.active = true")
     List<String> findBookedSeatCodesByTripId(@Param("tripId") UUID tripId);
 
-    List<Ticket> findByBookingTripIdAndSeatCodeIn(UUID tripId, List<String> seatCodes);
+    @Query("SELECT t.seatCode FROM Ticket t WHERE t.trip.id = :tripId AND t.active = true "
+            + "AND t.segmentStart < :toStop AND t.segmentEnd > :fromStop")
+    List<String> findBookedSeatCodesByTripIdAndSegment(@Param("tripId") UUID tripId,
+                                                       @Param("fromStop") int fromStop,
+                                                       @Param("toStop") int toStop);
+
+    // Rows of [seatCode, segmentStart, segmentEnd]
+    @Query("SELECT t.seatCode, t.segmentStart, t.segmentEnd FROM Ticket t WHERE t.trip.id = :tripId AND t.active = true")
+    List<Object[]> findActiveSeatSegmentsByTripId(@Param("tripId") UUID tripId);
+
+    // Rows of [seatCode, segmentStart, segmentEnd]
+    @Query("SELECT t.seatCode, t.segmentStart, t.segmentEnd FROM Ticket t WHERE t.trip.id = :tripId AND t.active = true "
+            + "AND t.seatCode IN :seatCodes")
+    List<Object[]> findActiveSeatSegmentsByTripIdAndSeatCodes(@Param("tripId") UUID tripId,
+                                                              @Param("seatCodes") Collection<String> seatCodes);
 }
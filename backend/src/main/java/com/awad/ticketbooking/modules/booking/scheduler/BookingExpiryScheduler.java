@@ -0,0 +1,45 @@
+package com.awad.ticketbooking.modules.booking.scheduler;
+
+import com.awad.ticketbooking.common.scheduling.ClusterJobRunner;
+import com.awad.ticketbooking.modules.booking.service.BookingExpiryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingExpiryScheduler {
+
+    private final BookingExpiryService bookingExpiryService;
+    private final ClusterJobRunner clusterJobRunner;
+
+    @Value("${app.bookings.expiry-batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.bookings.expiry-sweep-ms:1000}")
+    private long sweepMillis;
+
+    // Deadlines are indexed, so a short tick is cheap and cancels bookings within about a second of theirs
+    @Scheduled(fixedDelayString = "${app.bookings.expiry-sweep-ms:1000}")
+    public void expirePendingBookings() {
+        clusterJobRunner.runOnce("booking-expiry", Duration.ofMillis(sweepMillis), () -> {
+            Instant now = Instant.now();
+            int total = 0;
+            int expired;
+            do {
+                expired = bookingExpiryService.expireDue(now, batchSize);
+                total += expired;
+            } while (expired == batchSize);
+            if (total > 0) {
+                log.info("Cancelled {} unpaid bookings past their deadline", total);
+            }
+            return total;
+        });
+    }
+}
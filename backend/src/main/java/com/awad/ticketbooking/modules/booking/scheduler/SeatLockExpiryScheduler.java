@@ -0,0 +1,38 @@
+package com.awad.ticketbooking.modules.booking.scheduler;
+
+import com.awad.ticketbooking.common.scheduling.ClusterJobRunner;
+import com.awad.ticketbooking.modules.booking.service.SeatLockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SeatLockExpiryScheduler {
+
+    private final SeatLockService seatLockService;
+    private final ClusterJobRunner clusterJobRunner;
+
+    @Value("${app.seats.lock-expiry-batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.seats.lock-expiry-sweep-ms:1000}")
+    private long sweepMillis;
+
+    // Short interval so clients see timed out holds freed within about a second
+    @Scheduled(fixedDelayString = "${app.seats.lock-expiry-sweep-ms:1000}")
+    public void releaseExpiredLocks() {
+        clusterJobRunner.runOnce("seat-lock-expiry", Duration.ofMillis(sweepMillis), () -> {
+            int released = seatLockService.releaseExpiredLocks(batchSize);
+            if (released > 0) {
+                log.info("Released {} expired seat locks", released);
+            }
+            return released;
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.enums.BookingStatus;
+import com.awad.ticketbooking.common.enums.DashboardChange;
+import com.awad.ticketbooking.common.outbox.OutboxService;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Release;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Segment;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cancels PENDING bookings whose payment deadline ({@code expires_at}) has passed.
+ * <p>
+ * Due bookings are claimed in deadline order from a partial index with {@code FOR UPDATE SKIP LOCKED},
+ * so nodes sweeping at the same time split the work instead of cancelling the same booking twice. A
+ * booking whose payment callback holds its row is skipped; the callback only confirms a booking that is
+ * still PENDING, so a payment landing after the sweep is flagged for refund rather than confirmed. A batch is cancelled and its tickets deleted in a
+ * single statement; the seats go back to the inventory in one pipelined call once that commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingExpiryService {
+
+    private static final String EXPIRE_DUE = """
+            WITH due AS (
+                SELECT id
+                FROM bookings
+                WHERE status = 'PENDING' AND expires_at <= ?
+                ORDER BY expires_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ), cancelled AS (
+                UPDATE bookings b
+                SET status = 'CANCELLED', updated_at = ?
+                FROM due
+                WHERE b.id = due.id
+                RETURNING b.id, b.trip_id, b.created_at, b.pickup_station_id, b.dropoff_station_id
+            ), freed AS (
+                DELETE FROM tickets t
+                USING cancelled c
+                WHERE t.booking_id = c.id
+                RETURNING t.booking_id, t.seat_code
+            )
+            SELECT c.id, c.trip_id, c.created_at, c.pickup_station_id, c.dropoff_station_id,
+                   array_remove(array_agg(f.seat_code), NULL) AS seat_codes
+            FROM cancelled c
+            LEFT JOIN freed f ON f.booking_id = c.id
+            GROUP BY c.id, c.trip_id, c.created_at, c.pickup_station_id, c.dropoff_station_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SeatLockService seatLockService;
+    private final OutboxService outboxService;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Cancels up to {@code limit} bookings whose deadline is at or before {@code now}.
+     *
+     * @return number of bookings cancelled
+     */
+    @Transactional
+    public int expireDue(Instant now, int limit) {
+        Timestamp at = Timestamp.from(now);
+        List<ExpiredBooking> expired = jdbcTemplate.query(EXPIRE_DUE, (rs, rowNum) -> new ExpiredBooking(
+                rs.getObject("id", UUID.class),
+                rs.getObject("trip_id", UUID.class),
+                rs.getTimestamp("created_at").toInstant(),
+                new Segment(rs.getObject("pickup_station_id", UUID.class),
+                        rs.getObject("dropoff_station_id", UUID.class)),
+                List.of((String[]) rs.getArray("seat_codes").getArray())), at, limit, at);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        for (ExpiredBooking booking : expired) {
+            outboxService.publishDashboardChange(booking.id(), booking.createdAt(), DashboardChange.UPDATED);
+            outboxService.publishStatusChange(booking.id(), BookingStatus.CANCELLED);
+        }
+        seatLockService.releaseSeatsAfterCommit(expired.stream()
+                .map(booking -> new Release(booking.tripId(), booking.seatCodes(), booking.segment()))
+                .toList());
+        meterRegistry.counter("bookings.expired").increment(expired.size());
+        return expired.size();
+    }
+
+    record ExpiredBooking(UUID id, UUID tripId, Instant createdAt, Segment segment, List<String> seatCodes) {
+    }
+}
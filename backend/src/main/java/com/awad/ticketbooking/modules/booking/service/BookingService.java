@@ -1,7 +1,11 @@
 package com.awad.ticketbooking.modules.booking.service;
 
 import com.awad.ticketbooking.common.enums.BookingStatus;
-import com.awad.ticketbooking.common.service.EmailService;
+import com.awad.ticketbooking.common.enums.DashboardChange;
+import com.awad.ticketbooking.common.exception.SeatConflictException;
+import com.awad.ticketbooking.common.outbox.OutboxService;
+import com.awad.ticketbooking.common.service.IdAllocator;
+import com.awad.ticketbooking.common.service.IdempotencyService;
 import com.awad.ticketbooking.modules.auth.entity.User;
 import com.awad.ticketbooking.modules.auth.repository.UserRepository;
 import com.awad.ticketbooking.modules.booking.dto.BookingResponse;
@@ -9,25 +13,37 @@ import com.awad.ticketbooking.modules.booking.dto.CreateBookingRequest;
 import com.awad.ticketbooking.modules.booking.dto.TicketRequest;
 import com.awad.ticketbooking.modules.booking.dto.UpdateBookingRequest;
 import com.awad.ticketbooking.modules.booking.entity.Booking;
+import com.awad.ticketbooking.modules.booking.entity.BookingView;
 import com.awad.ticketbooking.modules.booking.entity.Ticket;
 import com.awad.ticketbooking.modules.booking.repository.BookingRepository;
+import com.awad.ticketbooking.modules.booking.repository.BookingViewRepository;
 import com.awad.ticketbooking.modules.booking.repository.TicketRepository;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Segment;
 import java.util.Set;
-import java.util.Map;
 import com.awad.ticketbooking.modules.catalog.entity.Station;
 import com.awad.ticketbooking.modules.trip.entity.Trip;
 import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.service.PriceMatrix;
+import com.awad.ticketbooking.modules.trip.service.TripPricingService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,22 +51,26 @@ import java.util.stream.Collectors;
 public class BookingService {
 
     private final BookingRepository bookingRepository;
+    private final BookingViewRepository bookingViewRepository;
     private final TripRepository tripRepository;
     private final UserRepository userRepository;
     private final TicketRepository ticketRepository;
-    private final EmailService emailService;
     private final SeatLockService seatLockService;
+    private final IdAllocator idAllocator;
+    private final OutboxService outboxService;
+    private final TripPricingService tripPricingService;
 
-    @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_METRICS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_REVENUE, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_TRENDS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_ROUTES, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_OPERATORS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS, allEntries = true)
-    })
+    // Unpaid bookings give their seats back after this long
+    @Value("${app.bookings.pending-expiry-minutes:15}")
+    private long pendingExpiryMinutes;
+
+    private static final String ACTIVE_SEAT_CONSTRAINT = "ex_tickets_active_trip_seat_segment";
+    // PostgreSQL reports the overlap as
+    // "Key (trip_id, seat_code, int4range(segment_start, segment_end))=(<trip>, <seat>, [0,2)) conflicts with ..."
+    private static final Pattern CONFLICTING_SEAT = Pattern.compile("\\(trip_id, seat_code, [^=]*\\)=\\([^,]+, ([^,]+), ");
+
+    // Never outlives the Idempotency-Key marker, so a retry cannot run while this one may still commit
+    @Transactional(timeoutString = IdempotencyService.REQUEST_TIMEOUT)
     public BookingResponse createBooking(CreateBookingRequest request) {
         Trip trip = tripRepository.findById(request.getTripId())
                 .orElseThrow(() -> new RuntimeException("Trip not found"));
@@ -61,55 +81,47 @@ public class BookingService {
             user = userRepository.findById(request.getUserId()).orElse(null);
         }
 
-        // Validate seats are not already booked
-        // Fetch booked seats to warm up/validate seat availability via the repository (conflicts handled below).
-        ticketRepository.findBookedSeatCodesByTripId(request.getTripId());
         List<String> requestedSeats = request.getTickets().stream()
                 .map(TicketRequest::getSeatCode)
                 .collect(Collectors.toList());
-
-        // Check for seat conflicts with "Self-Correction" logic
-        List<Ticket> conflictingTickets = ticketRepository.findByBookingTripIdAndSeatCodeIn(request.getTripId(),
-                requestedSeats);
-
-        if (!conflictingTickets.isEmpty()) {
-            // Check if these conflicts are all from ONE pending booking of THIS user
-            Map<UUID, List<Ticket>> ticketsByBookingId = conflictingTickets.stream()
-                    .collect(Collectors.groupingBy(t -> t.getBooking().getId()));
-
-            for (List<Ticket> tickets : ticketsByBookingId.values()) {
-                Booking existingBooking = tickets.get(0).getBooking();
-                boolean isSelfConflict = false;
-
-                // Check if it's a PENDING booking from the SAME user
-                if (existingBooking.getStatus() == BookingStatus.PENDING &&
-                        user != null && existingBooking.getUser() != null &&
-                        existingBooking.getUser().getId().equals(user.getId())) {
-                    isSelfConflict = true;
+        Segment requestedSegment = new Segment(
+                Objects.requireNonNullElse(request.getPickupStationId(), trip.getRoute().getOriginStation().getId()),
+                Objects.requireNonNullElse(request.getDropoffStationId(),
+                        trip.getRoute().getDestinationStation().getId()));
+
+        // Seats taken by another active booking on an overlapping segment are rejected by the exclusion
+        // constraint on insert. Only the user's own pending bookings need a look up front ("Self-Correction").
+        if (user != null) {
+            Set<String> requestedSeatSet = new HashSet<>(requestedSeats);
+            for (Booking existingBooking : bookingRepository.findByUserIdAndTripIdAndStatus(user.getId(),
+                    trip.getId(), BookingStatus.PENDING)) {
+                Set<String> existingSeats = existingBooking.getTickets().stream()
+                        .map(Ticket::getSeatCode)
+                        .collect(Collectors.toSet());
+                if (Collections.disjoint(existingSeats, requestedSeatSet)) {
+                    continue;
                 }
 
-                if (isSelfConflict) {
-                    // 1. Check if seats are IDENTICAL (Update Case)
-                    Set<String> existingSeats = existingBooking.getTickets().stream()
-                            .map(Ticket::getSeatCode)
-                            .collect(Collectors.toSet());
-                    Set<String> requestedSeatSet = new java.util.HashSet<>(requestedSeats);
-
-                    if (existingSeats.equals(requestedSeatSet)) {
-                        // Matches exactly -> Update this booking instead of creating new
-                        return updatePendingBooking(existingBooking, request);
-                    } else {
-                        // 2. Mismatch (User changed seats) -> "Self-Healing": Cancel old,
-                        // create new
-                        existingBooking.setStatus(BookingStatus.CANCELLED);
-                        bookingRepository.save(existingBooking);
-                    }
-                } else if (existingBooking.getStatus() == BookingStatus.PENDING
-                        || existingBooking.getStatus() == BookingStatus.CONFIRMED) {
-                    // Real conflict with another user/confirmed booking
-                    throw new RuntimeException(
-                            "Seat " + tickets.get(0).getSeatCode() + " is already booked");
+                if (existingSeats.equals(requestedSeatSet)) {
+                    // Matches exactly -> Update this booking instead of creating new
+                    outboxService.publishDashboardChange(existingBooking.getId(), existingBooking.getCreatedAt(),
+                            DashboardChange.UPDATED);
+                    return updatePendingBooking(existingBooking, request);
                 }
+
+                // Mismatch (User changed seats) -> "Self-Healing": Cancel old, create new.
+                // Flushed right away so its tickets stop holding seats before the new ones are inserted.
+                existingBooking.setStatus(BookingStatus.CANCELLED);
+                bookingRepository.saveAndFlush(existingBooking);
+                outboxService.publishStatusChange(existingBooking.getId(), BookingStatus.CANCELLED);
+
+                // Seats dropped from the old booking become sellable again; kept seats too when the
+                // new booking rides a different part of the route
+                boolean sameSegment = segmentOf(existingBooking).equals(requestedSegment);
+                List<String> droppedSeats = existingSeats.stream()
+                        .filter(seat -> !sameSegment || !requestedSeatSet.contains(seat))
+                        .collect(Collectors.toList());
+                seatLockService.releaseSeatsAfterCommit(trip.getId(), droppedSeats, segmentOf(existingBooking));
             }
         }
 
@@ -120,6 +132,7 @@ public class BookingService {
         booking.setPassengerPhone(request.getPassengerPhone());
         booking.setPassengerEmail(request.getPassengerEmail());
         booking.setStatus(BookingStatus.PENDING);
+        booking.setExpiresAt(Instant.now().plus(Duration.ofMinutes(pendingExpiryMinutes)));
 
         // Validate Pickup/Dropoff
         Station pickupStation = null;
@@ -188,33 +201,72 @@ public class BookingService {
             throw new RuntimeException("Pickup station must be before dropoff station");
         }
 
-        // Generate unique booking code with retry
-        String bookingCode = generateBookingCode();
-        int maxRetries = 5;
-        while (bookingRepository.findByCode(bookingCode).isPresent() && maxRetries > 0) {
-            bookingCode = generateBookingCode();
-            maxRetries--;
-        }
-        if (maxRetries == 0) {
-            throw new RuntimeException("Failed to generate unique booking code. Please try again.");
-        }
-        booking.setCode(bookingCode);
+        // Codes come from a reserved block, so they are unique without a lookup
+        booking.setCode(idAllocator.nextBookingCode());
 
+        PriceMatrix prices = tripPricingService.getMatrix(trip.getId());
+        // In seat-code order, so concurrent sales take the per-seat availability locks in the same order
         booking.setTickets(request.getTickets().stream()
-                .map(ticketReq -> mapTicket(ticketReq, booking))
+                .sorted(Comparator.comparing(TicketRequest::getSeatCode))
+                .map(ticketReq -> mapTicket(ticketReq, booking, prices))
                 .collect(Collectors.toList()));
+        assignSegment(booking);
 
         BigDecimal calculatedTotal = booking.getTickets().stream()
                 .map(Ticket::getPrice)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         booking.setTotalPrice(calculatedTotal);
 
-        Booking savedBooking = bookingRepository.save(booking);
+        Booking savedBooking = saveAndFlushTickets(booking, requestedSeats);
+        seatLockService.markSeatsBooked(trip.getId(), requestedSeats, segmentOf(savedBooking));
+        outboxService.publishDashboardChange(savedBooking.getId(), savedBooking.getCreatedAt(),
+                DashboardChange.CREATED);
 
         return toBookingResponse(savedBooking);
     }
 
+    private static Segment segmentOf(Booking booking) {
+        return Segment.between(booking.getPickupStation(), booking.getDropoffStation());
+    }
+
+    /**
+     * Stores the stop indexes of the booking's pickup and dropoff on its tickets, which the exclusion
+     * constraint on tickets compares against other sales of the same seats.
+     */
+    private void assignSegment(Booking booking) {
+        RouteSegments segments = RouteSegments.of(booking.getTrip().getRoute());
+        Segment segment = segmentOf(booking);
+        int start = segments.startIndex(segment.fromStationId());
+        int end = segments.endIndex(segment.toStationId());
+        if (start >= end) {
+            throw new RuntimeException("Pickup station must be before dropoff station");
+        }
+        for (Ticket ticket : booking.getTickets()) {
+            ticket.setSegmentStart(start);
+            ticket.setSegmentEnd(end);
+        }
+    }
+
+    /**
+     * Writes the booking with its tickets in one batched flush. A seat already sold to another
+     * active booking on an overlapping segment trips the exclusion constraint and is reported as a
+     * {@link SeatConflictException}.
+     */
+    private Booking saveAndFlushTickets(Booking booking, List<String> requestedSeats) {
+        try {
+            return bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            String detail = String.valueOf(e.getMostSpecificCause().getMessage());
+            if (!detail.contains(ACTIVE_SEAT_CONSTRAINT)) {
+                throw e;
+            }
+            Matcher matcher = CONFLICTING_SEAT.matcher(detail);
+            throw new SeatConflictException(matcher.find() ? List.of(matcher.group(1)) : requestedSeats);
+        }
+    }
+
     private BookingResponse updatePendingBooking(Booking booking, CreateBookingRequest request) {
+        Segment previousSegment = segmentOf(booking);
         booking.setPassengerName(request.getPassengerName());
         booking.setPassengerPhone(request.getPassengerPhone());
         booking.setPassengerEmail(request.getPassengerEmail());
@@ -263,34 +315,34 @@ public class BookingService {
         // minute.
         // Let's keep price as is or re-calc if needed. User wants "Edit Info".
 
+        if (!segmentOf(booking).equals(previousSegment)) {
+            // Same seats on another part of the route: move the tickets and the inventory along
+            return toBookingResponse(moveToSegment(booking, previousSegment));
+        }
         return toBookingResponse(bookingRepository.save(booking));
     }
 
-    private String generateBookingCode() {
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        StringBuilder code = new StringBuilder("BK-");
-        java.util.Random rnd = new java.util.Random();
-        for (int i = 0; i < 6; i++) {
-            code.append(chars.charAt(rnd.nextInt(chars.length())));
-        }
-        return code.toString();
+    private Booking moveToSegment(Booking booking, Segment previousSegment) {
+        List<String> seatCodes = booking.getTickets().stream()
+                .map(Ticket::getSeatCode)
+                .collect(Collectors.toList());
+        assignSegment(booking);
+        Booking savedBooking = saveAndFlushTickets(booking, seatCodes);
+
+        UUID tripId = booking.getTrip().getId();
+        seatLockService.releaseSeatsAfterCommit(tripId, seatCodes, previousSegment);
+        seatLockService.markSeatsBooked(tripId, seatCodes, segmentOf(savedBooking));
+        return savedBooking;
     }
 
+    // History and lookup read the flattened booking_view row instead of walking trip, route, bus and tickets
+
     @Transactional(readOnly = true)
     public BookingResponse lookupBooking(String code, String email) {
-        Booking booking = bookingRepository.findByCode(code)
+        BookingView booking = bookingViewRepository.findByCode(code)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
-        // Check if email matches either user email or passenger email (if stored
-        // separately)
-        // For now, checking against user email if exists, or just assuming passenger
-        // email is stored?
-        // Wait, Booking entity has passengerEmail, let's use that first.
-        String bookingEmail = booking.getPassengerEmail();
-        if (bookingEmail == null && booking.getUser() != null) {
-            bookingEmail = booking.getUser().getEmail();
-        }
-
+        String bookingEmail = booking.getContactEmail();
         if (bookingEmail == null || !bookingEmail.equalsIgnoreCase(email)) {
             throw new RuntimeException("Booking not found or email does not match");
         }
@@ -300,37 +352,51 @@ public class BookingService {
 
     @Transactional(readOnly = true)
     public BookingResponse getBookingById(UUID bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
+        BookingView booking = bookingViewRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
         return toBookingResponse(booking);
     }
 
     @Transactional(readOnly = true)
     public Page<BookingResponse> getUserBookings(UUID userId, Pageable pageable) {
-        return bookingRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable)
+        return bookingViewRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable)
                 .map(this::toBookingResponse);
     }
 
+    /**
+     * Recomputes the booking_view row of one booking from the source tables.
+     */
+    @Transactional
+    public void rebuildBookingView(UUID bookingId) {
+        if (!bookingRepository.existsById(bookingId)) {
+            throw new RuntimeException("Booking not found");
+        }
+        bookingViewRepository.rebuild(bookingId);
+    }
+
+    /**
+     * Recomputes every booking_view row, e.g. after changing bookings by hand with triggers disabled.
+     *
+     * @return number of rows written
+     */
+    @Transactional
+    public int rebuildAllBookingViews() {
+        return bookingViewRepository.rebuildAll();
+    }
+
     @Transactional(readOnly = true)
     public List<String> getBookedSeatsForTrip(UUID tripId) {
         return ticketRepository.findBookedSeatCodesByTripId(tripId);
     }
 
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_METRICS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_REVENUE, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_TRENDS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_ROUTES, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_OPERATORS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS, allEntries = true)
-    })
     public BookingResponse confirmBooking(UUID bookingId) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
-        if (booking.getStatus() != BookingStatus.PENDING) {
+        // Conditional, so a booking the expiry sweep cancels meanwhile is not confirmed without its tickets
+        if (booking.getStatus() != BookingStatus.PENDING || bookingRepository.updateStatusIfCurrent(bookingId,
+                BookingStatus.PENDING, BookingStatus.CONFIRMED) == 0) {
             throw new RuntimeException("Only pending bookings can be confirmed");
         }
 
@@ -343,26 +409,16 @@ public class BookingService {
             recipientEmail = booking.getUser().getEmail();
         }
 
-        // Send confirmation email if we have an email
-        if (recipientEmail != null && !recipientEmail.isBlank()) {
-            Booking bookingForEmail = bookingRepository.findByIdWithFullDetails(savedBooking.getId())
-                    .orElse(savedBooking);
-            emailService.sendBookingConfirmationEmail(bookingForEmail, recipientEmail);
-        }
+        // Delivered by the outbox relay once this commits, in this order
+        outboxService.publishDashboardChange(savedBooking.getId(), savedBooking.getCreatedAt(),
+                DashboardChange.CONFIRMATION_CHANGED);
+        outboxService.publishStatusChange(savedBooking.getId(), BookingStatus.CONFIRMED);
+        outboxService.publishConfirmationEmail(savedBooking.getId(), recipientEmail);
 
         return toBookingResponse(savedBooking);
     }
 
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_METRICS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_REVENUE, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_TRENDS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_ROUTES, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_OPERATORS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS, allEntries = true)
-    })
     public BookingResponse cancelBooking(UUID bookingId) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
@@ -386,33 +442,32 @@ public class BookingService {
         ticketRepository.deleteAll(booking.getTickets());
         booking.getTickets().clear();
 
-        // Release Redis locks
-        seatLockService.unlockSeatsForBooking(booking.getTrip().getId(), seatCodes);
+        // Seats go back to the inventory once the cancellation commits
+        seatLockService.releaseSeatsAfterCommit(booking.getTrip().getId(), seatCodes, segmentOf(booking));
 
+        DashboardChange change = booking.getStatus() == BookingStatus.CONFIRMED
+                ? DashboardChange.CONFIRMATION_CHANGED
+                : DashboardChange.UPDATED;
         booking.setStatus(BookingStatus.CANCELLED);
-        return toBookingResponse(bookingRepository.save(booking));
+        Booking savedBooking = bookingRepository.save(booking);
+        outboxService.publishDashboardChange(savedBooking.getId(), savedBooking.getCreatedAt(), change);
+        outboxService.publishStatusChange(savedBooking.getId(), BookingStatus.CANCELLED);
+        return toBookingResponse(savedBooking);
     }
 
-    private Ticket mapTicket(TicketRequest ticketReq, Booking booking) {
+    // Priced from the trip's pricing; a price sent by the client is ignored
+    private Ticket mapTicket(TicketRequest ticketReq, Booking booking, PriceMatrix prices) {
         Ticket ticket = new Ticket();
         ticket.setBooking(booking);
+        ticket.setTrip(booking.getTrip());
         ticket.setSeatCode(ticketReq.getSeatCode());
         ticket.setPassengerName(ticketReq.getPassengerName());
         ticket.setPassengerPhone(ticketReq.getPassengerPhone());
-        ticket.setPrice(ticketReq.getPrice());
+        ticket.setPrice(prices.priceOf(ticketReq.getSeatCode()));
         return ticket;
     }
 
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_METRICS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_REVENUE, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_TRENDS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_ROUTES, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_OPERATORS, allEntries = true),
-            @CacheEvict(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS, allEntries = true)
-    })
     public BookingResponse updateBooking(UUID bookingId, UpdateBookingRequest request) {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
@@ -420,6 +475,10 @@ public class BookingService {
         if (booking.getStatus() != BookingStatus.PENDING) {
             throw new RuntimeException("Only pending bookings can be updated");
         }
+        // Only goes out if the update commits
+        outboxService.publishDashboardChange(bookingId, booking.getCreatedAt(), DashboardChange.UPDATED);
+
+        Segment previousSegment = segmentOf(booking);
 
         // Update passenger details
         booking.setPassengerName(request.getPassengerName());
@@ -466,36 +525,48 @@ public class BookingService {
             }
         }
 
+        boolean segmentChanged = !segmentOf(booking).equals(previousSegment);
+
         // Update tickets (seats) if provided
         if (request.getTickets() != null && !request.getTickets().isEmpty()) {
             List<String> requestedSeats = request.getTickets().stream()
                     .map(TicketRequest::getSeatCode)
                     .collect(Collectors.toList());
 
-            // Check for seat conflicts (excluding this booking's tickets)
-            List<Ticket> conflictingTickets = ticketRepository
-                    .findByBookingTripIdAndSeatCodeIn(booking.getTrip().getId(), requestedSeats);
-
-            boolean hasRealConflict = conflictingTickets.stream()
-                    .anyMatch(t -> !t.getBooking().getId().equals(bookingId));
-
-            if (hasRealConflict) {
-                throw new RuntimeException("One or more seats are already booked by another user");
-            }
+            // On a new segment every old seat is given back, otherwise only the ones not picked again
+            List<String> previousSeats = booking.getTickets().stream()
+                    .map(Ticket::getSeatCode)
+                    .filter(seat -> segmentChanged || !requestedSeats.contains(seat))
+                    .collect(Collectors.toList());
 
             // Replace tickets
+            PriceMatrix prices = tripPricingService.getMatrix(trip.getId());
             List<Ticket> newTickets = request.getTickets().stream()
-                    .map(ticketReq -> mapTicket(ticketReq, booking))
+                    .map(ticketReq -> mapTicket(ticketReq, booking, prices))
                     .collect(Collectors.toList());
 
+            // Old tickets are deleted before the new ones are inserted, so re-selected seats
+            // don't collide with this booking's own rows in the unique index
             booking.getTickets().clear();
+            bookingRepository.flush();
             booking.getTickets().addAll(newTickets);
+            assignSegment(booking);
 
             // Recalculate total price
             BigDecimal calculatedTotal = newTickets.stream()
                     .map(Ticket::getPrice)
                     .reduce(BigDecimal.ZERO, BigDecimal::add);
             booking.setTotalPrice(calculatedTotal);
+
+            Booking savedBooking = saveAndFlushTickets(booking, requestedSeats);
+
+            seatLockService.releaseSeatsAfterCommit(trip.getId(), previousSeats, previousSegment);
+            seatLockService.markSeatsBooked(trip.getId(), requestedSeats, segmentOf(savedBooking));
+            return toBookingResponse(savedBooking);
+        }
+
+        if (segmentChanged) {
+            return toBookingResponse(moveToSegment(booking, previousSegment));
         }
 
         Booking savedBooking = bookingRepository.save(booking);
@@ -587,4 +658,64 @@ public class BookingService {
                         : null)
                 .build();
     }
+
+    private BookingResponse toBookingResponse(BookingView booking) {
+        return BookingResponse.builder()
+                .id(booking.getBookingId())
+                .code(booking.getCode())
+                .status(booking.getStatus())
+                .totalPrice(booking.getTotalPrice())
+                .passengerName(booking.getPassengerName())
+                .passengerPhone(booking.getPassengerPhone())
+                .createdAt(booking.getCreatedAt())
+                .updatedAt(booking.getUpdatedAt())
+                .trip(BookingResponse.TripInfo.builder()
+                        .id(booking.getTripId())
+                        .departureTime(booking.getDepartureTime())
+                        .arrivalTime(booking.getArrivalTime())
+                        .route(BookingResponse.RouteInfo.builder()
+                                .id(booking.getRouteId())
+                                .originStation(stationInfo(booking.getOriginStationId(), booking.getOriginName(),
+                                        booking.getOriginCity(), booking.getOriginAddress()))
+                                .destinationStation(stationInfo(booking.getDestinationStationId(),
+                                        booking.getDestinationName(), booking.getDestinationCity(),
+                                        booking.getDestinationAddress()))
+                                .durationMinutes(booking.getDurationMinutes())
+                                .build())
+                        .bus(BookingResponse.BusInfo.builder()
+                                .id(booking.getBusId())
+                                .plateNumber(booking.getPlateNumber())
+                                .operatorName(booking.getOperatorName())
+                                .busLayoutId(booking.getBusLayoutId())
+                                .amenities(booking.getAmenities())
+                                .build())
+                        .build())
+                .tickets(booking.getTickets().stream()
+                        .map(ticket -> BookingResponse.TicketInfo.builder()
+                                .id(ticket.getId())
+                                .seatCode(ticket.getSeatCode())
+                                .passengerName(ticket.getPassengerName())
+                                .passengerPhone(ticket.getPassengerPhone())
+                                .price(ticket.getPrice())
+                                .build())
+                        .collect(Collectors.toList()))
+                .pickupStation(booking.getPickupStationId() != null
+                        ? stationInfo(booking.getPickupStationId(), booking.getPickupName(),
+                        booking.getPickupCity(), booking.getPickupAddress())
+                        : null)
+                .dropoffStation(booking.getDropoffStationId() != null
+                        ? stationInfo(booking.getDropoffStationId(), booking.getDropoffName(),
+                        booking.getDropoffCity(), booking.getDropoffAddress())
+                        : null)
+                .build();
+    }
+
+    private static BookingResponse.StationInfo stationInfo(UUID id, String name, String city, String address) {
+        return BookingResponse.StationInfo.builder()
+                .id(id)
+                .name(name)
+                .city(city)
+                .address(address)
+                .build();
+    }
 }
@@ -0,0 +1,356 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.enums.BookingStatus;
+import com.awad.ticketbooking.common.enums.DashboardChange;
+import com.awad.ticketbooking.common.enums.SeatLockResult;
+import com.awad.ticketbooking.common.enums.StopType;
+import com.awad.ticketbooking.common.enums.TripStatus;
+import com.awad.ticketbooking.common.exception.SeatConflictException;
+import com.awad.ticketbooking.common.exception.WaitingRoomException;
+import com.awad.ticketbooking.common.outbox.OutboxService;
+import com.awad.ticketbooking.common.service.IdAllocator;
+import com.awad.ticketbooking.modules.auth.entity.User;
+import com.awad.ticketbooking.modules.auth.repository.UserRepository;
+import com.awad.ticketbooking.modules.booking.dto.BulkBookingItemResult;
+import com.awad.ticketbooking.modules.booking.dto.BulkBookingRequest;
+import com.awad.ticketbooking.modules.booking.dto.BulkBookingResponse;
+import com.awad.ticketbooking.modules.booking.dto.CreateBookingRequest;
+import com.awad.ticketbooking.modules.booking.dto.TicketRequest;
+import com.awad.ticketbooking.modules.booking.repository.TicketRepository;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Segment;
+import com.awad.ticketbooking.modules.catalog.entity.Route;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.service.PriceMatrix;
+import com.awad.ticketbooking.modules.trip.service.TripPricingService;
+import com.awad.ticketbooking.modules.trip.service.WaitingRoomService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Books many seats across several trips in one request, for travel agencies and groups.
+ * <p>
+ * Trips, users and the seats already sold are loaded with one query each for the whole request (seats
+ * per trip), every entry is validated in memory and its seats are held in the seat inventory like a
+ * shopper's, and the bookings and tickets of a trip are written with two JDBC batches in one transaction. A trip is all-or-nothing: if any entry for it fails, none
+ * of its entries are booked, while entries for other trips still go through.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkBookingService {
+
+    private static final String INSERT_BOOKING = """
+            INSERT INTO bookings (id, trip_id, user_id, pickup_station_id, dropoff_station_id, total_price, status,
+                                  passenger_name, passenger_phone, passenger_email, code, is_reminder_sent,
+                                  created_at, updated_at, expires_at)
+            VALUES (?, ?, ?, ?, ?, ?, CAST(? AS booking_status), ?, ?, ?, ?, FALSE, ?, ?, ?)
+            """;
+
+    private static final String INSERT_TICKET = """
+            INSERT INTO tickets (id, booking_id, trip_id, seat_code, segment_start, segment_end,
+                                 passenger_name, passenger_phone, price)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String ACTIVE_SEAT_CONSTRAINT = "ex_tickets_active_trip_seat_segment";
+
+    private final TripRepository tripRepository;
+    private final UserRepository userRepository;
+    private final TicketRepository ticketRepository;
+    private final TripPricingService tripPricingService;
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
+    private final SeatLockService seatLockService;
+    private final OutboxService outboxService;
+    private final WaitingRoomService waitingRoomService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.bookings.pending-expiry-minutes:15}")
+    private long pendingExpiryMinutes;
+
+    public BulkBookingResponse createBookings(BulkBookingRequest request) {
+        List<CreateBookingRequest> items = request.getBookings();
+
+        Map<UUID, List<Integer>> itemsByTrip = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            itemsByTrip.computeIfAbsent(items.get(i).getTripId(), tripId -> new ArrayList<>()).add(i);
+        }
+        Map<UUID, Trip> trips = tripRepository.findWithRouteStopsByIdIn(itemsByTrip.keySet()).stream()
+                .collect(Collectors.toMap(Trip::getId, Function.identity()));
+        Map<UUID, PriceMatrix> prices = tripPricingService.getMatrices(trips.keySet());
+        Map<UUID, User> users = userRepository.findAllById(items.stream()
+                        .map(CreateBookingRequest::getUserId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        BulkBookingItemResult[] results = new BulkBookingItemResult[items.size()];
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        itemsByTrip.forEach((tripId, indexes) -> {
+            try {
+                List<PlannedBooking> booked = transaction.execute(
+                        status -> bookTrip(tripId, trips.get(tripId), prices.get(tripId), items, indexes, users));
+                for (PlannedBooking booking : booked) {
+                    results[booking.index()] = booking.toResult();
+                }
+            } catch (ItemException e) {
+                for (int index : indexes) {
+                    results[index] = index == e.index
+                            ? failure(index, tripId, e.getMessage(), e.conflictingSeats)
+                            : failure(index, tripId, "Not booked because entry " + e.index
+                                    + " for the same trip failed", List.of());
+                }
+            } catch (SeatConflictException e) {
+                indexes.forEach(index -> results[index] = failure(index, tripId, e.getMessage(), e.getSeatCodes()));
+            } catch (RuntimeException e) {
+                log.warn("Bulk booking for trip {} failed: {}", tripId, e.getMessage());
+                indexes.forEach(index -> results[index] = failure(index, tripId, e.getMessage(), List.of()));
+            }
+        });
+
+        List<BulkBookingItemResult> resultList = Arrays.asList(results);
+        int booked = (int) resultList.stream().filter(BulkBookingItemResult::isSuccess).count();
+        return BulkBookingResponse.builder()
+                .booked(booked)
+                .failed(resultList.size() - booked)
+                .results(resultList)
+                .build();
+    }
+
+    private List<PlannedBooking> bookTrip(UUID tripId, Trip trip, PriceMatrix prices,
+                                          List<CreateBookingRequest> items, List<Integer> indexes,
+                                          Map<UUID, User> users) {
+        if (trip == null) {
+            throw new RuntimeException("Trip not found");
+        }
+        if (trip.getStatus() != TripStatus.SCHEDULED || !trip.getDepartureTime().isAfter(Instant.now())) {
+            throw new RuntimeException("Trip is no longer open for booking");
+        }
+        try {
+            // No queue token in a bulk request: flash-sale trips are left to the waiting room
+            waitingRoomService.requireAdmission(tripId, null);
+        } catch (WaitingRoomException e) {
+            throw new RuntimeException("Trip is selling through its waiting room; book it individually");
+        }
+
+        Route route = trip.getRoute();
+        RouteSegments segments = RouteSegments.of(route);
+        Set<String> requestedSeats = indexes.stream()
+                .flatMap(index -> items.get(index).getTickets().stream())
+                .map(TicketRequest::getSeatCode)
+                .collect(Collectors.toSet());
+        // Segments already sold per seat; grows with each entry so entries of one request can't overlap either
+        Map<String, List<int[]>> soldSegments = new HashMap<>();
+        for (Object[] row : ticketRepository.findActiveSeatSegmentsByTripIdAndSeatCodes(tripId, requestedSeats)) {
+            soldSegments.computeIfAbsent((String) row[0], seat -> new ArrayList<>())
+                    .add(new int[]{(Integer) row[1], (Integer) row[2]});
+        }
+
+        Instant now = Instant.now();
+        List<PlannedBooking> planned = new ArrayList<>();
+        for (int index : indexes) {
+            CreateBookingRequest item = items.get(index);
+            UUID pickupId = pickupStationId(route, item.getPickupStationId(), index);
+            UUID dropoffId = dropoffStationId(route, item.getDropoffStationId(), index);
+            int start = segments.startIndex(pickupId);
+            int end = segments.endIndex(dropoffId);
+            if (start >= end) {
+                throw new ItemException(index, "Pickup station must be before dropoff station", List.of());
+            }
+
+            List<String> seatCodes = item.getTickets().stream().map(TicketRequest::getSeatCode).toList();
+            if (new HashSet<>(seatCodes).size() != seatCodes.size()) {
+                throw new ItemException(index, "A seat is listed more than once", List.of());
+            }
+            List<String> unknownSeats = seatCodes.stream().filter(seat -> !prices.hasSeat(seat)).toList();
+            if (!unknownSeats.isEmpty()) {
+                throw new ItemException(index, "Seats " + String.join(", ", unknownSeats)
+                        + " do not exist on this bus", unknownSeats);
+            }
+            BigDecimal totalPrice = BigDecimal.ZERO;
+            for (String seat : seatCodes) {
+                try {
+                    totalPrice = totalPrice.add(prices.priceOf(seat));
+                } catch (IllegalArgumentException e) {
+                    throw new ItemException(index, e.getMessage(), List.of(seat));
+                }
+            }
+            List<String> takenSeats = seatCodes.stream()
+                    .filter(seat -> soldSegments.getOrDefault(seat, List.of()).stream()
+                            .anyMatch(sold -> sold[0] < end && start < sold[1]))
+                    .toList();
+            if (!takenSeats.isEmpty()) {
+                throw new ItemException(index, new SeatConflictException(takenSeats).getMessage(), takenSeats);
+            }
+            seatCodes.forEach(seat -> soldSegments.computeIfAbsent(seat, s -> new ArrayList<>())
+                    .add(new int[]{start, end}));
+
+            // Seats other shoppers are holding mid-checkout are taken too. The holds placed here are
+            // replaced by the sale on commit and given back if the trip rolls back.
+            UUID holder = UUID.randomUUID();
+            Map<String, SeatLockResult> lockConflicts = seatLockService.lockSeats(tripId, seatCodes, holder,
+                    new Segment(pickupId, dropoffId));
+            if (!lockConflicts.isEmpty()) {
+                throw new ItemException(index, lockConflictMessage(lockConflicts),
+                        List.copyOf(lockConflicts.keySet()));
+            }
+            seatLockService.unlockSeatsOnRollback(tripId, seatCodes, holder);
+
+            User user = item.getUserId() != null ? users.get(item.getUserId()) : null;
+            planned.add(new PlannedBooking(index, UUID.randomUUID(), idAllocator.nextBookingCode(), tripId, item,
+                    user != null ? user.getId() : null, pickupId, dropoffId, start, end, totalPrice, now));
+        }
+
+        insert(planned, prices);
+
+        for (PlannedBooking booking : planned) {
+            seatLockService.markSeatsBooked(tripId, booking.seatCodes(),
+                    new Segment(booking.pickupStationId(), booking.dropoffStationId()));
+        }
+        // All bookings of the batch share createdAt, so one invalidation covers them
+        outboxService.publishDashboardChange(planned.get(0).id(), now, DashboardChange.CREATED);
+        return planned;
+    }
+
+    private void insert(List<PlannedBooking> planned, PriceMatrix prices) {
+        List<Object[]> bookingRows = new ArrayList<>();
+        List<Object[]> ticketRows = new ArrayList<>();
+        for (PlannedBooking booking : planned) {
+            CreateBookingRequest item = booking.request();
+            Timestamp createdAt = Timestamp.from(booking.createdAt());
+            Timestamp expiresAt = Timestamp.from(booking.createdAt().plus(Duration.ofMinutes(pendingExpiryMinutes)));
+            bookingRows.add(new Object[]{booking.id(), booking.tripId(), booking.userId(), booking.pickupStationId(),
+                    booking.dropoffStationId(), booking.totalPrice(), BookingStatus.PENDING.name(),
+                    item.getPassengerName(), item.getPassengerPhone(), item.getPassengerEmail(), booking.code(),
+                    createdAt, createdAt, expiresAt});
+            for (TicketRequest ticket : item.getTickets()) {
+                ticketRows.add(new Object[]{UUID.randomUUID(), booking.id(), booking.tripId(), ticket.getSeatCode(),
+                        booking.segmentStart(), booking.segmentEnd(), ticket.getPassengerName(),
+                        ticket.getPassengerPhone(), prices.priceOf(ticket.getSeatCode())});
+            }
+        }
+
+        // In seat-code order, so concurrent sales take the per-seat availability locks in the same order
+        ticketRows.sort(Comparator.comparing(row -> (String) row[3]));
+
+        jdbcTemplate.batchUpdate(INSERT_BOOKING, bookingRows);
+        try {
+            jdbcTemplate.batchUpdate(INSERT_TICKET, ticketRows);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent sale got in between the check and the insert
+            if (String.valueOf(e.getMostSpecificCause().getMessage()).contains(ACTIVE_SEAT_CONSTRAINT)) {
+                throw new SeatConflictException(planned.stream()
+                        .flatMap(booking -> booking.seatCodes().stream())
+                        .toList());
+            }
+            throw e;
+        }
+    }
+
+    private static UUID pickupStationId(Route route, UUID stationId, int index) {
+        if (stationId == null || stationId.equals(route.getOriginStation().getId())) {
+            return route.getOriginStation().getId();
+        }
+        return route.getStops().stream()
+                .filter(stop -> stop.getStation().getId().equals(stationId)
+                        && (stop.getStopType() == StopType.PICKUP || stop.getStopType() == StopType.BOTH))
+                .map(stop -> stop.getStation().getId())
+                .findFirst()
+                .orElseThrow(() -> new ItemException(index, "Invalid pickup station for this route", List.of()));
+    }
+
+    private static UUID dropoffStationId(Route route, UUID stationId, int index) {
+        if (stationId == null || stationId.equals(route.getDestinationStation().getId())) {
+            return route.getDestinationStation().getId();
+        }
+        return route.getStops().stream()
+                .filter(stop -> stop.getStation().getId().equals(stationId)
+                        && (stop.getStopType() == StopType.DROPOFF || stop.getStopType() == StopType.BOTH))
+                .map(stop -> stop.getStation().getId())
+                .findFirst()
+                .orElseThrow(() -> new ItemException(index, "Invalid dropoff station for this route", List.of()));
+    }
+
+    private static String lockConflictMessage(Map<String, SeatLockResult> conflicts) {
+        List<String> heldSeats = conflicts.entrySet().stream()
+                .filter(conflict -> conflict.getValue() == SeatLockResult.HELD_BY_OTHER)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (heldSeats.isEmpty()) {
+            return new SeatConflictException(List.copyOf(conflicts.keySet())).getMessage();
+        }
+        return heldSeats.size() == 1
+                ? "Seat " + heldSeats.get(0) + " is held by another customer"
+                : "Seats " + String.join(", ", heldSeats) + " are held by another customer";
+    }
+
+    private static BulkBookingItemResult failure(int index, UUID tripId, String error, List<String> conflictingSeats) {
+        return BulkBookingItemResult.builder()
+                .index(index)
+                .tripId(tripId)
+                .success(false)
+                .error(error)
+                .conflictingSeats(conflictingSeats)
+                .build();
+    }
+
+    private record PlannedBooking(int index, UUID id, String code, UUID tripId, CreateBookingRequest request,
+                                  UUID userId, UUID pickupStationId, UUID dropoffStationId,
+                                  int segmentStart, int segmentEnd, BigDecimal totalPrice, Instant createdAt) {
+
+        List<String> seatCodes() {
+            return request.getTickets().stream().map(TicketRequest::getSeatCode).toList();
+        }
+
+        BulkBookingItemResult toResult() {
+            return BulkBookingItemResult.builder()
+                    .index(index)
+                    .tripId(tripId)
+                    .success(true)
+                    .bookingId(id)
+                    .code(code)
+                    .totalPrice(totalPrice)
+                    .seatCodes(seatCodes())
+                    .build();
+        }
+    }
+
+    /**
+     * A single entry is invalid; rolls back the whole trip.
+     */
+    private static class ItemException extends RuntimeException {
+        private final int index;
+        private final List<String> conflictingSeats;
+
+        ItemException(int index, String message, List<String> conflictingSeats) {
+            super(message);
+            this.index = index;
+            this.conflictingSeats = conflictingSeats;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.enums.StopType;
+import com.awad.ticketbooking.modules.catalog.entity.Route;
+import com.awad.ticketbooking.modules.catalog.entity.RouteStop;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stop indexes of a route as used by the segment-aware seat inventory.
+ * <p>
+ * Index 0 is the origin, intermediate stops follow in {@code stopOrder} and the destination comes
+ * last. A passenger riding from stop {@code i} to stop {@code j} occupies legs {@code i..j-1}; those
+ * legs are the bits of a mask, so two sales of one seat can coexist exactly when their masks don't
+ * overlap.
+ */
+public final class RouteSegments {
+
+    // Masks are evaluated by Redis' 32 bit Lua bit library, so they must stay positive ints
+    public static final int MAX_LEGS = 30;
+
+    private final Map<UUID, Integer> stopIndexes;
+    private final int legs;
+    private final Map<UUID, Stop> stops = new LinkedHashMap<>();
+
+    /**
+     * A station of the route: the stop indexes a segment starting or ending there uses, and whether
+     * passengers may board or leave there. The indexes only differ on a route with too many stops to
+     * track per leg, where every segment covers the whole trip.
+     */
+    public record Stop(int startIndex, int endIndex, boolean pickup, boolean dropoff) {
+
+        private Stop merge(boolean pickup, boolean dropoff) {
+            return new Stop(startIndex, endIndex, this.pickup || pickup, this.dropoff || dropoff);
+        }
+    }
+
+    RouteSegments(List<UUID> stationIds) {
+        Map<UUID, Integer> indexes = new LinkedHashMap<>();
+        if (stationIds.size() - 1 <= MAX_LEGS) {
+            for (int i = 0; i < stationIds.size(); i++) {
+                indexes.putIfAbsent(stationIds.get(i), i);
+            }
+            this.legs = Math.max(1, stationIds.size() - 1);
+        } else {
+            // Too many stops to track per leg: every sale then occupies the whole trip
+            this.legs = 1;
+        }
+        this.stopIndexes = indexes;
+    }
+
+    public static RouteSegments of(Route route) {
+        List<RouteStop> routeStops = route.getStops().stream()
+                .sorted(Comparator.comparing(RouteStop::getStopOrder))
+                .toList();
+        UUID originId = route.getOriginStation().getId();
+        UUID destinationId = route.getDestinationStation().getId();
+        List<UUID> stationIds = new ArrayList<>();
+        stationIds.add(originId);
+        routeStops.forEach(stop -> stationIds.add(stop.getStation().getId()));
+        stationIds.add(destinationId);
+
+        // Same rules as booking: board at the origin or a PICKUP/BOTH stop, leave at the destination
+        // or a DROPOFF/BOTH stop
+        RouteSegments segments = new RouteSegments(stationIds);
+        segments.addStop(originId, true, false);
+        for (RouteStop stop : routeStops) {
+            StopType type = stop.getStopType();
+            segments.addStop(stop.getStation().getId(), type == StopType.PICKUP || type == StopType.BOTH,
+                    type == StopType.DROPOFF || type == StopType.BOTH);
+        }
+        segments.addStop(destinationId, false, true);
+        return segments;
+    }
+
+    private void addStop(UUID stationId, boolean pickup, boolean dropoff) {
+        stops.merge(stationId, new Stop(startIndex(stationId), endIndex(stationId), pickup, dropoff),
+                (existing, added) -> existing.merge(pickup, dropoff));
+    }
+
+    public int legs() {
+        return legs;
+    }
+
+    /**
+     * Every station of the route, in route order.
+     */
+    public Map<UUID, Stop> stops() {
+        return stops;
+    }
+
+    /**
+     * Index of the stop a passenger boards at; no (or an unknown) station means the origin.
+     */
+    public int startIndex(UUID stationId) {
+        return stationId == null ? 0 : stopIndexes.getOrDefault(stationId, 0);
+    }
+
+    /**
+     * Index of the stop a passenger leaves at; no (or an unknown) station means the destination.
+     */
+    public int endIndex(UUID stationId) {
+        return stationId == null ? legs : stopIndexes.getOrDefault(stationId, legs);
+    }
+
+    /**
+     * Bitmask of the legs between two stop indexes.
+     */
+    public static long mask(int startIndex, int endIndex) {
+        return (1L << endIndex) - (1L << startIndex);
+    }
+}
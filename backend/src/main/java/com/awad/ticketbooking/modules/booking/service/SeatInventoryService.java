@@ -0,0 +1,793 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.enums.SeatLockResult;
+import com.awad.ticketbooking.modules.booking.repository.TicketRepository;
+import com.awad.ticketbooking.modules.catalog.entity.LayoutSeat;
+import com.awad.ticketbooking.modules.catalog.entity.Station;
+import com.awad.ticketbooking.modules.catalog.repository.LayoutSeatRepository;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Compact per-trip seat inventory kept in Redis.
+ * <p>
+ * Every trip owns a handful of keys: a hash of the seat codes of the bus layout (which also maps
+ * the route's stations to stop indexes), a hash of booked segments per seat, a hash of holds per
+ * seat and a sorted set of hold expiry times. All mutations run as Lua scripts so a check-and-lock
+ * is a single round trip.
+ * <p>
+ * Occupancy is tracked per segment of the route: a sale or hold from stop {@code i} to stop
+ * {@code j} is stored as a bitmask over the legs in between (see {@link RouteSegments}), so a seat
+ * sold up to the first stop can be sold again from there on. Checking whether a seat is free
+ * between two stops is one AND per seat.
+ * <p>
+ * Each mutation also bumps a per-trip inventory version and records it against the
+ * touched seats in a change log, so clients can ask for only what changed since the
+ * version they last saw.
+ * <p>
+ * A global sorted set indexes trips by their earliest hold expiry so that timed out
+ * holds can be swept in batches instead of silently lingering until the next lock attempt.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SeatInventoryService {
+
+    private final RedissonClient redissonClient;
+    private final TripRepository tripRepository;
+    private final LayoutSeatRepository layoutSeatRepository;
+    private final TicketRepository ticketRepository;
+
+    private static final String SEAT_INDEX_KEY = "trip:%s:seat-index";
+    private static final String HOLDS_KEY = "trip:%s:holds";
+    private static final String BOOKED_KEY = "trip:%s:booked-segments";
+    private static final String HOLD_EXPIRY_KEY = "trip:%s:hold-expiry";
+    private static final String VERSION_KEY = "trip:%s:version";
+    private static final String CHANGES_KEY = "trip:%s:changes";
+    private static final String EXPIRY_INDEX_KEY = "seat-locks:expiry-index";
+
+    // Inventory keys are a cache of layout + ticket data, so they are dropped after a
+    // quiet period and rebuilt on the next access.
+    private static final Duration INVENTORY_RETENTION = Duration.ofDays(3);
+
+    private static final long NOT_INITIALIZED = -1;
+    private static final long INVALID_SEGMENT = -2;
+    private static final long INVALID_PICKUP = -3;
+    private static final long INVALID_DROPOFF = -4;
+
+    // Shared by every script that takes the per-trip keys (index, holds, booked, hold expiry, version,
+    // changes). Holds are stored per seat as a JSON object of owner -> [segment mask, expiresAt] and
+    // indexed in the expiry set as 'seat|owner'. Seat codes never start with '#' or '@', which mark the
+    // index's own fields ('@<stationId>' holds 'startIndex:endIndex:kinds' for every station of the route,
+    // kinds containing 'p' where passengers may board and 'd' where they may leave).
+    private static final String INVENTORY_FUNCTIONS = """
+            local function touch(seats)
+                local version = redis.call('INCR', KEYS[5])
+                for _, seat in ipairs(seats) do
+                    redis.call('ZADD', KEYS[6], version, seat)
+                end
+                return version
+            end
+
+            local function initialized()
+                return redis.call('HEXISTS', KEYS[1], '#stops') == 1
+            end
+
+            local function known_seat(seat)
+                local first = seat:sub(1, 1)
+                return first ~= '#' and first ~= '@' and redis.call('HEXISTS', KEYS[1], seat) == 1
+            end
+
+            -- Start and end index of a station of the route whose kinds include 'kind', or of any station
+            -- of the route with 'any'; nil otherwise
+            local function stop_of(station, kind, any)
+                local raw = redis.call('HGET', KEYS[1], '@' .. station)
+                if not raw then
+                    return nil
+                end
+                local first, last, kinds = raw:match('^(%d+):(%d+):(%a*)$')
+                if not (any or kinds:find(kind, 1, true)) then
+                    return nil
+                end
+                return tonumber(first), tonumber(last)
+            end
+
+            -- Mask of the legs between two stations ('' for the origin or the destination) and their stop
+            -- indexes, or nil and an error code: '-3' when passengers may not board at the pickup, '-4'
+            -- when they may not leave at the dropoff and '-2' when the dropoff does not come after the
+            -- pickup. With 'any' every station of the route will do, so sales made before a stop changed
+            -- its type can still be recorded and released.
+            local function segment(from, to, any)
+                local first = 0
+                local last = tonumber(redis.call('HGET', KEYS[1], '#legs'))
+                if from ~= '' then
+                    first = stop_of(from, 'p', any)
+                    if not first then
+                        return nil, '-3'
+                    end
+                end
+                if to ~= '' then
+                    local _
+                    _, last = stop_of(to, 'd', any)
+                    if not last then
+                        return nil, '-4'
+                    end
+                end
+                if first >= last then
+                    return nil, '-2'
+                end
+                return bit.lshift(1, last) - bit.lshift(1, first), first, last
+            end
+
+            local function booked_mask(seat)
+                return tonumber(redis.call('HGET', KEYS[3], seat) or '0')
+            end
+
+            local function set_booked_mask(seat, mask)
+                if mask == 0 then
+                    redis.call('HDEL', KEYS[3], seat)
+                else
+                    redis.call('HSET', KEYS[3], seat, mask)
+                end
+            end
+
+            local function holds_of(seat)
+                local raw = redis.call('HGET', KEYS[2], seat)
+                if raw then
+                    return cjson.decode(raw)
+                end
+                return {}
+            end
+
+            local function save_holds(seat, holds)
+                if next(holds) == nil then
+                    redis.call('HDEL', KEYS[2], seat)
+                else
+                    redis.call('HSET', KEYS[2], seat, cjson.encode(holds))
+                end
+            end
+
+            -- Drops every hold on the seat that overlaps the mask, whoever owns it
+            local function drop_holds(seat, mask)
+                local holds = holds_of(seat)
+                for owner, hold in pairs(holds) do
+                    if bit.band(hold[1], mask) ~= 0 then
+                        holds[owner] = nil
+                        redis.call('ZREM', KEYS[4], seat .. '|' .. owner)
+                    end
+                end
+                save_holds(seat, holds)
+            end
+
+            -- Owner of a live hold overlapping the mask, other than 'except'
+            local function holder(seat, mask, now, except)
+                for owner, hold in pairs(holds_of(seat)) do
+                    if owner ~= except and hold[2] > now and bit.band(hold[1], mask) ~= 0 then
+                        return owner
+                    end
+                end
+                return nil
+            end
+
+            -- Whether nothing at all is sold or held on the seat, i.e. it is free for the whole trip
+            local function is_free(seat)
+                return redis.call('HEXISTS', KEYS[3], seat) == 0 and redis.call('HEXISTS', KEYS[2], seat) == 0
+            end
+            """;
+
+    // KEYS: index, booked, version, changes
+    // ARGV: retentionMs, now, legs, seatCount, seatCodes..., stationCount, (stationId, stop)...,
+    //       (bookedSeatCode, mask)...
+    // The '#' field holds the seat count so that a layout without seats still creates the index key,
+    // and '#stops' marks an index that knows where passengers may board and leave; an index without it
+    // is rebuilt.
+    // The '#base' field holds the version the change log starts at; a version key that outlived the
+    // index is kept, otherwise the clock seeds it so versions never go backwards across rebuilds.
+    private static final String INIT_SCRIPT = """
+            if redis.call('HEXISTS', KEYS[1], '#stops') == 1 then
+                return 0
+            end
+            redis.call('DEL', KEYS[1], KEYS[2])
+            local count = tonumber(ARGV[4])
+            redis.call('HSET', KEYS[1], '#', count)
+            for i = 1, count do
+                redis.call('HSET', KEYS[1], ARGV[4 + i], i - 1)
+            end
+            local pos = 5 + count
+            local stations = tonumber(ARGV[pos])
+            for i = 1, stations do
+                redis.call('HSET', KEYS[1], '@' .. ARGV[pos + 2 * i - 1], ARGV[pos + 2 * i])
+            end
+            for i = pos + 2 * stations + 1, #ARGV - 1, 2 do
+                if redis.call('HEXISTS', KEYS[1], ARGV[i]) == 1 then
+                    local mask = tonumber(redis.call('HGET', KEYS[2], ARGV[i]) or '0')
+                    redis.call('HSET', KEYS[2], ARGV[i], bit.bor(mask, tonumber(ARGV[i + 1])))
+                end
+            end
+            local version = redis.call('GET', KEYS[3])
+            if not version then
+                version = ARGV[2]
+                redis.call('SET', KEYS[3], version)
+            end
+            redis.call('HSET', KEYS[1], '#base', version)
+            redis.call('HSET', KEYS[1], '#legs', ARGV[3])
+            redis.call('HSET', KEYS[1], '#stops', stations)
+            redis.call('DEL', KEYS[4])
+            for i = 1, 3 do
+                redis.call('PEXPIRE', KEYS[i], ARGV[1])
+            end
+            return 1
+            """;
+
+    // KEYS: index, holds, booked, hold expiry, version, changes, expiry index
+    // ARGV: owner, now, expiresAt, retentionMs, tripId, fromStation, toStation, seatCodes...
+    // Returns {'-1'} when the inventory is missing, a segment error code ({'-2'} to {'-4'}), {'0'} when
+    // every seat was locked, or {'1', seat, reason, ...} listing the conflicting seats when nothing was
+    // locked.
+    // An owner holds a seat for one segment at a time; locking it again replaces the previous hold.
+    private static final String LOCK_SCRIPT = INVENTORY_FUNCTIONS + """
+            if not initialized() then
+                return {'-1'}
+            end
+            local mask, err = segment(ARGV[6], ARGV[7], false)
+            if not mask then
+                return {err}
+            end
+            local now = tonumber(ARGV[2])
+            local seats = {}
+            local conflicts = {}
+            for i = 8, #ARGV do
+                local seat = ARGV[i]
+                if not known_seat(seat) then
+                    table.insert(conflicts, seat)
+                    table.insert(conflicts, 'UNKNOWN_SEAT')
+                elseif bit.band(booked_mask(seat), mask) ~= 0 then
+                    table.insert(conflicts, seat)
+                    table.insert(conflicts, 'ALREADY_BOOKED')
+                elseif holder(seat, mask, now, ARGV[1]) then
+                    table.insert(conflicts, seat)
+                    table.insert(conflicts, 'HELD_BY_OTHER')
+                else
+                    table.insert(seats, seat)
+                end
+            end
+            if #conflicts > 0 then
+                table.insert(conflicts, 1, '1')
+                return conflicts
+            end
+            local expiresAt = tonumber(ARGV[3])
+            for _, seat in ipairs(seats) do
+                local holds = holds_of(seat)
+                holds[ARGV[1]] = {mask, expiresAt}
+                save_holds(seat, holds)
+                redis.call('ZADD', KEYS[4], ARGV[3], seat .. '|' .. ARGV[1])
+            end
+            touch(seats)
+            for i = 1, 6 do
+                redis.call('PEXPIRE', KEYS[i], ARGV[4])
+            end
+            local due = redis.call('ZSCORE', KEYS[7], ARGV[5])
+            if (not due) or tonumber(due) > expiresAt then
+                redis.call('ZADD', KEYS[7], ARGV[3], ARGV[5])
+            end
+            return {'0'}
+            """;
+
+    // KEYS: index, holds, booked, hold expiry, version, changes | ARGV: seatCode, owner
+    // Returns 0 when the owner held nothing, 1 when the hold was released and 2 when that left the
+    // seat free for the whole trip.
+    private static final String UNLOCK_SCRIPT = INVENTORY_FUNCTIONS + """
+            if not initialized() then
+                return 0
+            end
+            local holds = holds_of(ARGV[1])
+            if not holds[ARGV[2]] then
+                return 0
+            end
+            holds[ARGV[2]] = nil
+            save_holds(ARGV[1], holds)
+            redis.call('ZREM', KEYS[4], ARGV[1] .. '|' .. ARGV[2])
+            touch({ARGV[1]})
+            if is_free(ARGV[1]) then
+                return 2
+            end
+            return 1
+            """;
+
+    // KEYS: index, holds, booked, hold expiry, version, changes | ARGV: fromStation, toStation, seatCodes...
+    // Clears the segment from the booked masks and drops holds overlapping it. Returns the seats that
+    // are now free for the whole trip; a missing inventory has nothing to release and reports them all,
+    // it is rebuilt from the tickets table on next use.
+    private static final String RELEASE_SCRIPT = INVENTORY_FUNCTIONS + """
+            local released = {}
+            if not initialized() then
+                for i = 3, #ARGV do
+                    table.insert(released, ARGV[i])
+                end
+                return released
+            end
+            local mask = segment(ARGV[1], ARGV[2], true)
+            if not mask then
+                return redis.error_reply('Invalid segment')
+            end
+            local seats = {}
+            for i = 3, #ARGV do
+                local seat = ARGV[i]
+                set_booked_mask(seat, bit.band(booked_mask(seat), bit.bnot(mask)))
+                drop_holds(seat, mask)
+                table.insert(seats, seat)
+                if is_free(seat) then
+                    table.insert(released, seat)
+                end
+            end
+            touch(seats)
+            return released
+            """;
+
+    // KEYS: index, holds, booked, hold expiry, version, changes | ARGV: fromStation, toStation, seatCodes...
+    // Returns -1 when the inventory is missing, a segment error code, or the number of seats marked.
+    private static final String MARK_BOOKED_SCRIPT = INVENTORY_FUNCTIONS + """
+            if not initialized() then
+                return -1
+            end
+            local mask, err = segment(ARGV[1], ARGV[2], true)
+            if not mask then
+                return tonumber(err)
+            end
+            local seats = {}
+            for i = 3, #ARGV do
+                local seat = ARGV[i]
+                set_booked_mask(seat, bit.bor(booked_mask(seat), mask))
+                drop_holds(seat, mask)
+                table.insert(seats, seat)
+            end
+            touch(seats)
+            return #seats
+            """;
+
+    // KEYS: index, holds, booked, hold expiry, version, changes, expiry index | ARGV: now, tripId, limit
+    // Frees up to limit timed out holds and returns {swept, seat...} with the seats that are now free for
+    // the whole trip. The trip's entry in the expiry index is moved to its next pending expiry, or
+    // removed once no holds are left.
+    private static final String EXPIRE_SCRIPT = INVENTORY_FUNCTIONS + """
+            local now = tonumber(ARGV[1])
+            local due = redis.call('ZRANGEBYSCORE', KEYS[4], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[3]))
+            local seats = {}
+            for _, member in ipairs(due) do
+                redis.call('ZREM', KEYS[4], member)
+                local seat, owner = member:match('^(.*)|([^|]*)$')
+                if seat then
+                    local holds = holds_of(seat)
+                    local hold = holds[owner]
+                    if hold and hold[2] <= now then
+                        holds[owner] = nil
+                        save_holds(seat, holds)
+                        table.insert(seats, seat)
+                    end
+                end
+            end
+            local result = {tostring(#due)}
+            if #seats > 0 and initialized() then
+                touch(seats)
+                for _, seat in ipairs(seats) do
+                    if is_free(seat) then
+                        table.insert(result, seat)
+                    end
+                end
+            end
+            local pending = redis.call('ZRANGE', KEYS[4], 0, 0, 'WITHSCORES')
+            if #pending > 0 then
+                redis.call('ZADD', KEYS[7], pending[2], ARGV[2])
+            else
+                redis.call('ZREM', KEYS[7], ARGV[2])
+            end
+            return result
+            """;
+
+    // KEYS: index, holds, booked, hold expiry, version, changes | ARGV: now, fromStation, toStation
+    // Returns {'-1'} when the inventory is missing, a segment error code, otherwise
+    // {version, fromStop, toStop, seat, owner, ...} for live holds overlapping the segment.
+    private static final String SNAPSHOT_SCRIPT = INVENTORY_FUNCTIONS + """
+            if not initialized() then
+                return {'-1'}
+            end
+            local mask, first, last = segment(ARGV[2], ARGV[3], false)
+            if not mask then
+                return {first}
+            end
+            local result = {redis.call('GET', KEYS[5]), tostring(first), tostring(last)}
+            local members = redis.call('ZRANGEBYSCORE', KEYS[4], '(' .. ARGV[1], '+inf')
+            for _, member in ipairs(members) do
+                local seat, owner = member:match('^(.*)|([^|]*)$')
+                local hold = seat and holds_of(seat)[owner]
+                if hold and bit.band(hold[1], mask) ~= 0 then
+                    table.insert(result, seat)
+                    table.insert(result, owner)
+                end
+            end
+            return result
+            """;
+
+    // KEYS: index, holds, booked, hold expiry, version, changes | ARGV: sinceVersion, now, fromStation, toStation
+    // Returns {'-1'} when the inventory is missing, a segment error code, {version, '0'} when the
+    // change log does not reach back to sinceVersion, otherwise {version, '1', seat, status, ...} for
+    // every seat changed after it, with its status on the requested segment.
+    private static final String CHANGES_SCRIPT = INVENTORY_FUNCTIONS + """
+            if not initialized() then
+                return {'-1'}
+            end
+            local mask, err = segment(ARGV[3], ARGV[4], false)
+            if not mask then
+                return {err}
+            end
+            local version = redis.call('GET', KEYS[5])
+            local since = tonumber(ARGV[1])
+            if since < tonumber(redis.call('HGET', KEYS[1], '#base')) or since > tonumber(version) then
+                return {version, '0'}
+            end
+            local now = tonumber(ARGV[2])
+            local result = {version, '1'}
+            local seats = redis.call('ZRANGEBYSCORE', KEYS[6], '(' .. ARGV[1], '+inf')
+            for _, seat in ipairs(seats) do
+                local status = 'AVAILABLE'
+                if bit.band(booked_mask(seat), mask) ~= 0 then
+                    status = 'BOOKED'
+                else
+                    local owner = holder(seat, mask, now, nil)
+                    if owner then
+                        status = 'LOCKED:' .. owner
+                    end
+                end
+                table.insert(result, seat)
+                table.insert(result, status)
+            end
+            return result
+            """;
+
+    /**
+     * Part of the route between two stations. A {@code null} station stands for the origin or the
+     * destination respectively, so {@link #WHOLE_TRIP} covers every leg.
+     */
+    public record Segment(UUID fromStationId, UUID toStationId) {
+
+        public static final Segment WHOLE_TRIP = new Segment(null, null);
+
+        public static Segment between(Station pickupStation, Station dropoffStation) {
+            return new Segment(pickupStation == null ? null : pickupStation.getId(),
+                    dropoffStation == null ? null : dropoffStation.getId());
+        }
+
+        private String from() {
+            return fromStationId == null ? "" : fromStationId.toString();
+        }
+
+        private String to() {
+            return toStationId == null ? "" : toStationId.toString();
+        }
+    }
+
+    /**
+     * Live holds overlapping a segment together with the inventory version they were read at and the
+     * segment's stop indexes.
+     */
+    public record Snapshot(long version, int fromStop, int toStop, Map<String, UUID> lockedSeats) {
+    }
+
+    /**
+     * Seats changed after a given version, mapped to their current status on the requested segment
+     * ({@code BOOKED}, {@code LOCKED:<owner>} or {@code AVAILABLE}). When {@code complete}
+     * is false the change log no longer reaches back that far and a full snapshot is needed.
+     */
+    public record Changes(long version, boolean complete, Map<String, String> seats) {
+    }
+
+    /**
+     * Outcome of one expiry sweep: how many timed out holds were looked at, and which seats became
+     * free for the whole trip as a result.
+     */
+    public record ExpiredHolds(int swept, List<String> freedSeats) {
+    }
+
+    /**
+     * Seats of one booking to clear from the inventory, see {@link #releaseAll(List)}.
+     */
+    public record Release(UUID tripId, List<String> seatCodes, Segment segment) {
+    }
+
+    public SeatLockResult lock(UUID tripId, String seatCode, UUID ownerId, Segment segment, Duration ttl) {
+        return lockAll(tripId, List.of(seatCode), ownerId, segment, ttl)
+                .getOrDefault(seatCode, SeatLockResult.LOCKED);
+    }
+
+    /**
+     * Locks every seat on the given segment for the owner or none of them.
+     *
+     * @return the conflicting seats with the reason they could not be locked; empty when all seats were locked
+     * @throws IllegalArgumentException when passengers may not board or leave at the segment's stations, or
+     *                                  it does not end after it starts
+     */
+    public Map<String, SeatLockResult> lockAll(UUID tripId, Collection<String> seatCodes, UUID ownerId,
+                                               Segment segment, Duration ttl) {
+        long now = System.currentTimeMillis();
+        List<Object> args = new ArrayList<>(seatCodes.size() + 7);
+        args.add(ownerId.toString());
+        args.add(String.valueOf(now));
+        args.add(String.valueOf(now + ttl.toMillis()));
+        args.add(String.valueOf(INVENTORY_RETENTION.toMillis()));
+        args.add(tripId.toString());
+        args.add(segment.from());
+        args.add(segment.to());
+        args.addAll(seatCodes);
+
+        List<Object> keys = new ArrayList<>(allKeys(tripId));
+        keys.add(EXPIRY_INDEX_KEY);
+        Supplier<List<Object>> call = () -> script().eval(RScript.Mode.READ_WRITE, LOCK_SCRIPT,
+                RScript.ReturnType.MULTI, keys, args.toArray());
+        List<Object> result = evalMultiWithInit(tripId, call);
+        requireValidSegment(result);
+
+        Map<String, SeatLockResult> conflicts = new LinkedHashMap<>();
+        for (int i = 1; i + 1 < result.size(); i += 2) {
+            conflicts.put((String) result.get(i), SeatLockResult.valueOf((String) result.get(i + 1)));
+        }
+        return conflicts;
+    }
+
+    /**
+     * Releases the owner's hold on a seat, whatever segment it covers.
+     *
+     * @return whether the seat is now free for the whole trip
+     */
+    public boolean unlock(UUID tripId, String seatCode, UUID ownerId) {
+        Long result = script().eval(RScript.Mode.READ_WRITE, UNLOCK_SCRIPT, RScript.ReturnType.INTEGER,
+                allKeys(tripId), seatCode, ownerId.toString());
+        return result != null && result == 2;
+    }
+
+    /**
+     * Clears the segment from the booked seats and drops any hold overlapping it, regardless of owner.
+     *
+     * @return the seats that are now free for the whole trip
+     */
+    public List<String> release(UUID tripId, List<String> seatCodes, Segment segment) {
+        if (seatCodes.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>(seatCodes.size() + 2);
+        args.add(segment.from());
+        args.add(segment.to());
+        args.addAll(seatCodes);
+        List<Object> released = script().eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.MULTI,
+                allKeys(tripId), args.toArray());
+        return released.stream().map(String.class::cast).toList();
+    }
+
+    /**
+     * Runs {@link #release} for several bookings, possibly of different trips, in one pipelined round trip.
+     * Releases are applied in order, so a seat freed by a later entry of the same trip is reported there.
+     *
+     * @return the seats now free for the whole trip, one list per release
+     */
+    public List<List<String>> releaseAll(List<Release> releases) {
+        RBatch batch = redissonClient.createBatch();
+        List<RFuture<List<Object>>> results = new ArrayList<>(releases.size());
+        for (Release release : releases) {
+            if (release.seatCodes().isEmpty()) {
+                results.add(null);
+                continue;
+            }
+            List<Object> args = new ArrayList<>(release.seatCodes().size() + 2);
+            args.add(release.segment().from());
+            args.add(release.segment().to());
+            args.addAll(release.seatCodes());
+            results.add(batch.getScript(StringCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE, RELEASE_SCRIPT,
+                    RScript.ReturnType.MULTI, allKeys(release.tripId()), args.toArray()));
+        }
+        if (results.stream().anyMatch(Objects::nonNull)) {
+            batch.execute();
+        }
+        return results.stream()
+                .map(result -> result == null
+                        ? List.<String>of()
+                        : result.toCompletableFuture().join().stream().map(String.class::cast).toList())
+                .toList();
+    }
+
+    /**
+     * Flags seats as sold on the segment and drops any outstanding holds overlapping it.
+     */
+    public void markBooked(UUID tripId, List<String> seatCodes, Segment segment) {
+        if (seatCodes.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>(seatCodes.size() + 2);
+        args.add(segment.from());
+        args.add(segment.to());
+        args.addAll(seatCodes);
+        Long result = evalWithInit(tripId, () -> script().eval(RScript.Mode.READ_WRITE, MARK_BOOKED_SCRIPT,
+                RScript.ReturnType.INTEGER, allKeys(tripId), args.toArray()));
+        requireValidSegment(result);
+    }
+
+    /**
+     * Current inventory version of the trip, or 0 when its inventory has not been built yet.
+     */
+    public long getVersion(UUID tripId) {
+        String version = redissonClient.<String>getBucket(key(VERSION_KEY, tripId), StringCodec.INSTANCE).get();
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    /**
+     * Returns trips holding at least one lock that timed out at or before {@code now}, oldest first.
+     */
+    public List<UUID> findTripsWithExpiredLocks(long now, int limit) {
+        return redissonClient.<String>getScoredSortedSet(EXPIRY_INDEX_KEY, StringCodec.INSTANCE)
+                .valueRange(Double.NEGATIVE_INFINITY, true, now, true, 0, limit)
+                .stream()
+                .map(UUID::fromString)
+                .toList();
+    }
+
+    /**
+     * Frees up to {@code limit} holds of the trip that timed out at or before {@code now}.
+     */
+    public ExpiredHolds expireLocks(UUID tripId, long now, int limit) {
+        List<Object> keys = new ArrayList<>(allKeys(tripId));
+        keys.add(EXPIRY_INDEX_KEY);
+        List<Object> result = script().eval(RScript.Mode.READ_WRITE, EXPIRE_SCRIPT, RScript.ReturnType.MULTI,
+                keys, String.valueOf(now), tripId.toString(), String.valueOf(limit));
+        List<String> freed = result.subList(1, result.size()).stream().map(String.class::cast).toList();
+        return new ExpiredHolds(Integer.parseInt((String) result.get(0)), freed);
+    }
+
+    /**
+     * Reads the live holds overlapping the segment and the current inventory version in one round trip.
+     */
+    public Snapshot getSnapshot(UUID tripId, Segment segment) {
+        Supplier<List<Object>> call = () -> script().eval(RScript.Mode.READ_ONLY, SNAPSHOT_SCRIPT,
+                RScript.ReturnType.MULTI, allKeys(tripId), String.valueOf(System.currentTimeMillis()),
+                segment.from(), segment.to());
+        List<Object> result = evalMultiWithInit(tripId, call);
+        requireValidSegment(result);
+
+        Map<String, UUID> locked = new LinkedHashMap<>();
+        for (int i = 3; i + 1 < result.size(); i += 2) {
+            locked.put((String) result.get(i), UUID.fromString((String) result.get(i + 1)));
+        }
+        return new Snapshot(Long.parseLong((String) result.get(0)), Integer.parseInt((String) result.get(1)),
+                Integer.parseInt((String) result.get(2)), locked);
+    }
+
+    public Changes getChangesSince(UUID tripId, long sinceVersion, Segment segment) {
+        Supplier<List<Object>> call = () -> script().eval(RScript.Mode.READ_ONLY, CHANGES_SCRIPT,
+                RScript.ReturnType.MULTI, allKeys(tripId), String.valueOf(sinceVersion),
+                String.valueOf(System.currentTimeMillis()), segment.from(), segment.to());
+        List<Object> result = evalMultiWithInit(tripId, call);
+        requireValidSegment(result);
+
+        Map<String, String> seats = new LinkedHashMap<>();
+        for (int i = 2; i + 1 < result.size(); i += 2) {
+            seats.put((String) result.get(i), (String) result.get(i + 1));
+        }
+        return new Changes(Long.parseLong((String) result.get(0)), "1".equals(result.get(1)), seats);
+    }
+
+    private List<Object> evalMultiWithInit(UUID tripId, Supplier<List<Object>> call) {
+        List<Object> result = call.get();
+        if (isNotInitialized(result)) {
+            initialize(tripId);
+            result = call.get();
+        }
+        if (isNotInitialized(result)) {
+            throw new IllegalStateException("Seat inventory for trip " + tripId + " could not be initialized");
+        }
+        return result;
+    }
+
+    private Long evalWithInit(UUID tripId, Supplier<Long> call) {
+        Long result = call.get();
+        if (result != null && result == NOT_INITIALIZED) {
+            initialize(tripId);
+            result = call.get();
+        }
+        if (result == null || result == NOT_INITIALIZED) {
+            throw new IllegalStateException("Seat inventory for trip " + tripId + " could not be initialized");
+        }
+        return result;
+    }
+
+    private void initialize(UUID tripId) {
+        Trip trip = tripRepository.findWithRouteStopsById(tripId)
+                .orElseThrow(() -> new IllegalArgumentException("Trip not found"));
+        UUID layoutId = tripRepository.findBusLayoutIdById(tripId)
+                .orElseThrow(() -> new IllegalArgumentException("Trip not found"));
+        RouteSegments segments = RouteSegments.of(trip.getRoute());
+
+        List<String> seatCodes = layoutSeatRepository.findByBusLayoutId(layoutId).stream()
+                .filter(seat -> !Boolean.FALSE.equals(seat.getIsActive()))
+                .sorted(Comparator.comparing((LayoutSeat seat) -> Objects.requireNonNullElse(seat.getFloorNumber(), 1))
+                        .thenComparing(LayoutSeat::getRowIndex)
+                        .thenComparing(LayoutSeat::getColIndex))
+                .map(LayoutSeat::getSeatCode)
+                .toList();
+        List<Object[]> bookedSegments = ticketRepository.findActiveSeatSegmentsByTripId(tripId);
+
+        List<Object> args = new ArrayList<>(seatCodes.size() + 2 * segments.stops().size()
+                + 2 * bookedSegments.size() + 5);
+        args.add(String.valueOf(INVENTORY_RETENTION.toMillis()));
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(segments.legs()));
+        args.add(String.valueOf(seatCodes.size()));
+        args.addAll(seatCodes);
+        args.add(String.valueOf(segments.stops().size()));
+        segments.stops().forEach((stationId, stop) -> {
+            args.add(stationId.toString());
+            args.add(stop.startIndex() + ":" + stop.endIndex() + ":" + (stop.pickup() ? "p" : "")
+                    + (stop.dropoff() ? "d" : ""));
+        });
+        for (Object[] row : bookedSegments) {
+            args.add(row[0]);
+            args.add(String.valueOf(RouteSegments.mask((Integer) row[1], (Integer) row[2])));
+        }
+
+        script().eval(RScript.Mode.READ_WRITE, INIT_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(key(SEAT_INDEX_KEY, tripId), key(BOOKED_KEY, tripId), key(VERSION_KEY, tripId),
+                        key(CHANGES_KEY, tripId)), args.toArray());
+        log.debug("Initialized seat inventory for trip {} ({} seats, {} legs, {} booked segments)", tripId,
+                seatCodes.size(), segments.legs(), bookedSegments.size());
+    }
+
+    private static boolean isNotInitialized(List<Object> result) {
+        return result.isEmpty() || "-1".equals(result.get(0));
+    }
+
+    private static void requireValidSegment(List<Object> result) {
+        if (((String) result.get(0)).startsWith("-")) {
+            requireValidSegment(Long.parseLong((String) result.get(0)));
+        }
+    }
+
+    private static void requireValidSegment(long result) {
+        if (result == INVALID_PICKUP) {
+            throw new IllegalArgumentException("Invalid pickup station for this route");
+        }
+        if (result == INVALID_DROPOFF) {
+            throw new IllegalArgumentException("Invalid dropoff station for this route");
+        }
+        if (result == INVALID_SEGMENT) {
+            throw new IllegalArgumentException("Dropoff station must come after pickup station");
+        }
+    }
+
+    private List<Object> allKeys(UUID tripId) {
+        return List.of(key(SEAT_INDEX_KEY, tripId), key(HOLDS_KEY, tripId), key(BOOKED_KEY, tripId),
+                key(HOLD_EXPIRY_KEY, tripId), key(VERSION_KEY, tripId), key(CHANGES_KEY, tripId));
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    private static String key(String pattern, UUID tripId) {
+        return String.format(pattern, tripId);
+    }
+}
@@ -1,114 +1,182 @@
 package com.awad.ticketbooking.modules.booking.service;
 
-import com.awad.ticketbooking.modules.booking.dto.SeatStatusMessage;
+import com.awad.ticketbooking.common.enums.SeatLockResult;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Segment;
+import com.awad.ticketbooking.modules.trip.service.TripSearchCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RMap;
-import org.redisson.api.RedissonClient;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SeatLockService {
 
-    private final RedissonClient redissonClient;
-    private final SimpMessagingTemplate messagingTemplate;
-
-    private static final String LOCK_KEY_PREFIX = "trip:%s:seat:%s";
-    private static final String LOCK_INFO_MAP_PREFIX = "trip:%s:locks";
-    private static final long LOCK_TTL_MINUTES = 10;
-
-    public boolean lockSeat(UUID tripId, String seatCode, UUID userId) {
-        String lockKey = String.format(LOCK_KEY_PREFIX, tripId, seatCode);
-        RLock lock = redissonClient.getLock(lockKey);
-
-        try {
-            // Try to acquire lock. Wait 0s, hold for 10m
-            if (lock.tryLock(0, LOCK_TTL_MINUTES, TimeUnit.MINUTES)) {
-                // Store lock info in a map for easy retrieval
-                RMap<String, UUID> locksMap = redissonClient.getMap(String.format(LOCK_INFO_MAP_PREFIX, tripId));
-                locksMap.put(seatCode, userId);
-                locksMap.expire(LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+    private final SeatInventoryService seatInventoryService;
+    private final SeatStatusBroadcaster seatStatusBroadcaster;
+    private final TripSearchCache tripSearchCache;
+
+    private static final Duration LOCK_TTL = Duration.ofMinutes(10);
+
+    /**
+     * Holds a seat on the segment for one holder. The segment's stations are checked against the route
+     * with the same rules as a booking (board at the origin or a PICKUP/BOTH stop, leave at the destination
+     * or a DROPOFF/BOTH stop) inside the lock script, before anything is held.
+     *
+     * @throws IllegalArgumentException when passengers may not board or leave at the segment's stations
+     */
+    public SeatLockResult lockSeat(UUID tripId, String seatCode, UUID userId, Segment segment) {
+        SeatLockResult result = seatInventoryService.lock(tripId, seatCode, userId, segment, LOCK_TTL);
+        if (result == SeatLockResult.LOCKED) {
+            broadcastSeatStatus(tripId, seatCode, "LOCKED", userId);
+        }
+        return result;
+    }
 
+    /**
+     * Locks all requested seats on the segment for one holder in a single round trip, or none of them.
+     *
+     * @return conflicting seats with their reason; empty when every seat was locked
+     * @throws IllegalArgumentException when passengers may not board or leave at the segment's stations
+     */
+    public Map<String, SeatLockResult> lockSeats(UUID tripId, List<String> seatCodes, UUID userId, Segment segment) {
+        Map<String, SeatLockResult> conflicts = seatInventoryService.lockAll(tripId, seatCodes, userId, segment,
+                LOCK_TTL);
+        if (conflicts.isEmpty()) {
+            for (String seatCode : seatCodes) {
                 broadcastSeatStatus(tripId, seatCode, "LOCKED", userId);
-                return true;
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Error locking seat", e);
         }
-        return false;
+        return conflicts;
     }
 
     public void unlockSeat(UUID tripId, String seatCode, UUID userId) {
-        String lockKey = String.format(LOCK_KEY_PREFIX, tripId, seatCode);
-        RLock lock = redissonClient.getLock(lockKey);
-
-        if (lock.isLocked()) {
-            // In a real scenario we should check if it's locked by the same user or if it's
-            // force unlock
-            // but RLock handles hold count. For simplicity, we assume the controller
-            // validates user ownership
-            // or we check the map.
-
-            RMap<String, UUID> locksMap = redissonClient.getMap(String.format(LOCK_INFO_MAP_PREFIX, tripId));
-            UUID lockerId = locksMap.get(seatCode);
-
-            if (lockerId != null && lockerId.equals(userId)) {
-                if (lock.isHeldByCurrentThread() || lock.isLocked()) {
-                    // Force unlock if needed or just unlock.
-                    // Since we are in a different thread than the one that locked it (likely),
-                    // standard lock.unlock() might throw IllegalMonitorStateException if not
-                    // handled correctly by Redisson across threads/transactions.
-                    // However, Redisson RLock is reentrant. But here we are processing a new
-                    // request.
-                    // A safer way with Redisson for distributed locks not tied to thread is
-                    // forceUnlock if we verify ownership via the Map.
-                    lock.forceUnlock();
-                }
-                locksMap.remove(seatCode);
-                broadcastSeatStatus(tripId, seatCode, "AVAILABLE", null);
-            }
+        // Ownership is verified inside the unlock script, so a user can only release their own hold
+        if (seatInventoryService.unlock(tripId, seatCode, userId)) {
+            broadcastSeatStatus(tripId, seatCode, "AVAILABLE", null);
         }
     }
 
-    public void unlockSeatsForBooking(UUID tripId, java.util.List<String> seatCodes) {
-        RMap<String, UUID> locksMap = redissonClient.getMap(String.format(LOCK_INFO_MAP_PREFIX, tripId));
+    /**
+     * Gives the holder's holds on the seats back if the surrounding transaction rolls back. On commit the
+     * holds stay until the sale replaces them.
+     */
+    public void unlockSeatsOnRollback(UUID tripId, List<String> seatCodes, UUID userId) {
+        runAfterRollback(() -> seatCodes.forEach(seatCode -> unlockSeat(tripId, seatCode, userId)));
+    }
 
-        for (String seatCode : seatCodes) {
-            String lockKey = String.format(LOCK_KEY_PREFIX, tripId, seatCode);
-            RLock lock = redissonClient.getLock(lockKey);
+    /**
+     * Clears the seats of one booking on its segment, and any hold on them regardless of owner so no
+     * zombie holds remain, once the surrounding transaction commits.
+     */
+    public void releaseSeatsAfterCommit(UUID tripId, List<String> seatCodes, Segment segment) {
+        releaseSeatsAfterCommit(List.of(new SeatInventoryService.Release(tripId, seatCodes, segment)));
+    }
 
-            // Force unlock if locked, regardless of map status
-            // This ensures no zombie locks remain if map entry is lost
-            if (lock.isLocked()) {
-                lock.forceUnlock();
+    /**
+     * Clears the seats of cancelled bookings once the surrounding transaction commits, in one round trip
+     * to the inventory, and tells subscribers which seats are available again.
+     */
+    public void releaseSeatsAfterCommit(List<SeatInventoryService.Release> releases) {
+        if (releases.isEmpty()) {
+            return;
+        }
+        releases.stream().map(SeatInventoryService.Release::tripId).distinct()
+                .forEach(tripSearchCache::availabilityChanged);
+        runAfterCommit(() -> {
+            List<List<String>> freed = seatInventoryService.releaseAll(releases);
+            for (int i = 0; i < releases.size(); i++) {
+                for (String seatCode : freed.get(i)) {
+                    broadcastSeatStatus(releases.get(i).tripId(), seatCode, "AVAILABLE", null);
+                }
             }
+        });
+    }
 
-            // Also clean up map
-            if (locksMap.containsKey(seatCode)) {
-                locksMap.remove(seatCode);
+    /**
+     * Flags the seats of a new booking as sold on its segment once the surrounding transaction commits,
+     * so a rolled back booking never leaves phantom sold seats in the inventory.
+     */
+    public void markSeatsBooked(UUID tripId, List<String> seatCodes, Segment segment) {
+        tripSearchCache.availabilityChanged(tripId);
+        runAfterCommit(() -> {
+            seatInventoryService.markBooked(tripId, seatCodes, segment);
+            for (String seatCode : seatCodes) {
+                broadcastSeatStatus(tripId, seatCode, "BOOKED", null);
             }
-            // Always broadcast available status to ensure frontend updates
-            broadcastSeatStatus(tripId, seatCode, "AVAILABLE", null);
+        });
+    }
+
+    /**
+     * Frees holds whose TTL has passed and tells subscribers which seats are available again.
+     * Trips are picked from the expiry index and swept in batches of {@code batchSize} holds.
+     *
+     * @return number of seats that became available
+     */
+    public int releaseExpiredLocks(int batchSize) {
+        long now = System.currentTimeMillis();
+        int released = 0;
+        for (UUID tripId : seatInventoryService.findTripsWithExpiredLocks(now, batchSize)) {
+            SeatInventoryService.ExpiredHolds expired;
+            do {
+                expired = seatInventoryService.expireLocks(tripId, now, batchSize);
+                for (String seatCode : expired.freedSeats()) {
+                    broadcastSeatStatus(tripId, seatCode, "AVAILABLE", null);
+                }
+                released += expired.freedSeats().size();
+            } while (expired.swept() == batchSize);
         }
+        return released;
     }
 
-    public Map<String, UUID> getLockedSeats(UUID tripId) {
-        RMap<String, UUID> locksMap = redissonClient.getMap(String.format(LOCK_INFO_MAP_PREFIX, tripId));
-        return locksMap.readAllMap();
+    /**
+     * Live holds on the segment, whose stations are validated like {@link #lockSeat}'s.
+     */
+    public SeatInventoryService.Snapshot getSeatSnapshot(UUID tripId, Segment segment) {
+        return seatInventoryService.getSnapshot(tripId, segment);
     }
 
+    public SeatInventoryService.Changes getSeatChanges(UUID tripId, long sinceVersion, Segment segment) {
+        return seatInventoryService.getChangesSince(tripId, sinceVersion, segment);
+    }
+
+    // Broadcasts describe the whole trip: a seat only turns AVAILABLE once nothing is sold or held on any
+    // of its segments. Clients viewing a part of the route get exact statuses from the delta endpoint.
     private void broadcastSeatStatus(UUID tripId, String seatCode, String status, UUID userId) {
-        SeatStatusMessage message = new SeatStatusMessage(seatCode, status, userId);
-        messagingTemplate.convertAndSend("/topic/trip/" + tripId + "/seats", message);
+        seatStatusBroadcaster.broadcast(tripId, seatCode, status, userId);
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void runAfterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,117 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.service.ClusterBroadcastService;
+import com.awad.ticketbooking.modules.booking.dto.SeatStatusBatchMessage;
+import com.awad.ticketbooking.modules.booking.dto.SeatStatusMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces seat status changes per trip and sends them as one batched frame.
+ * <p>
+ * The first change for a trip opens a short window; later changes in that window are
+ * merged into the same buffer (the latest status per seat wins) and the whole buffer
+ * goes out as a single {@link SeatStatusBatchMessage} when the window closes. Frames are
+ * sent through {@link ClusterBroadcastService}, so clients on every node receive them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SeatStatusBroadcaster {
+
+    private final ClusterBroadcastService clusterBroadcastService;
+    private final SeatInventoryService seatInventoryService;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<UUID, Buffer> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "seat-broadcast");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.seats.broadcast-window-ms:50}")
+    private long windowMs;
+
+    public void broadcast(UUID tripId, String seatCode, String status, UUID userId) {
+        SeatStatusMessage message = new SeatStatusMessage(seatCode, status, userId);
+        boolean[] opened = {false};
+        pending.compute(tripId, (id, buffer) -> {
+            if (buffer == null) {
+                buffer = new Buffer(System.nanoTime());
+                opened[0] = true;
+            }
+            buffer.seats.put(seatCode, message);
+            buffer.updates++;
+            return buffer;
+        });
+        meterRegistry.counter("seat.broadcast.updates").increment();
+
+        if (opened[0]) {
+            flusher.schedule(() -> flush(tripId), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(UUID tripId) {
+        Buffer buffer = pending.remove(tripId);
+        if (buffer == null) {
+            return;
+        }
+        try {
+            SeatStatusBatchMessage frame = new SeatStatusBatchMessage(tripId, currentVersion(tripId),
+                    new ArrayList<>(buffer.seats.values()));
+
+            long sendStart = System.nanoTime();
+            clusterBroadcastService.convertAndSend("/topic/trip/" + tripId + "/seats", frame);
+            long sendEnd = System.nanoTime();
+
+            meterRegistry.timer("seat.broadcast.publish").record(sendEnd - sendStart, TimeUnit.NANOSECONDS);
+            meterRegistry.timer("seat.broadcast.latency").record(sendEnd - buffer.openedAt, TimeUnit.NANOSECONDS);
+            meterRegistry.counter("seat.broadcast.frames").increment();
+            meterRegistry.counter("seat.broadcast.frames.saved").increment(buffer.updates - 1);
+        } catch (Exception e) {
+            log.error("Failed to broadcast seat status for trip {}: {}", tripId, e.getMessage());
+        }
+    }
+
+    private long currentVersion(UUID tripId) {
+        try {
+            return seatInventoryService.getVersion(tripId);
+        } catch (Exception e) {
+            // Clients fall back to a full snapshot on reconnect when the version is unknown
+            log.warn("Could not read seat inventory version for trip {}: {}", tripId, e.getMessage());
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // Windows already opened still run after shutdown, so give them a moment before flushing the rest
+        flusher.shutdown();
+        flusher.awaitTermination(1, TimeUnit.SECONDS);
+        pending.keySet().forEach(this::flush);
+    }
+
+    private static final class Buffer {
+        private final long openedAt;
+        private final Map<String, SeatStatusMessage> seats = new LinkedHashMap<>();
+        private int updates;
+
+        private Buffer(long openedAt) {
+            this.openedAt = openedAt;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.service.EmailService;
+import com.awad.ticketbooking.modules.booking.entity.BookingView;
+import com.awad.ticketbooking.modules.booking.repository.BookingRepository;
+import com.awad.ticketbooking.modules.booking.repository.BookingViewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the day-before reminders of confirmed bookings.
+ * <p>
+ * Candidates are read from the booking read model in keyset pages ordered by departure, so memory and
+ * connection use stay flat however many bookings leave in the window, and no connection is held while
+ * emails go out. Each page is sent on virtual threads, at most {@code app.reminders.concurrency} at a
+ * time and no faster than {@code app.reminders.rate-per-second}, then flagged with one update. A reminder
+ * that fails is left unflagged and retried on the next run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TripReminderService {
+
+    // Lowest UUID in PostgreSQL's ordering, so the first page starts right at the window's start
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final BookingViewRepository bookingViewRepository;
+    private final BookingRepository bookingRepository;
+    private final EmailService emailService;
+
+    @Value("${app.reminders.page-size:500}")
+    private int pageSize;
+
+    @Value("${app.reminders.concurrency:8}")
+    private int concurrency;
+
+    @Value("${app.reminders.rate-per-second:20}")
+    private double ratePerSecond;
+
+    /**
+     * Reminds every booking departing after {@code now} and within {@code window} that was not reminded yet.
+     *
+     * @return number of reminders sent
+     */
+    public int sendReminders(Instant now, Duration window) {
+        Instant until = now.plus(window);
+        Semaphore inFlight = new Semaphore(concurrency);
+        long spacingNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        AtomicLong nextSendAt = new AtomicLong(System.nanoTime());
+
+        Instant afterTime = now;
+        UUID afterId = FIRST_ID;
+        int sent = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<BookingView> page;
+            do {
+                page = bookingViewRepository.findReminderCandidates(afterTime, afterId, until, pageSize);
+                List<Future<UUID>> results = new ArrayList<>(page.size());
+                for (BookingView booking : page) {
+                    results.add(executor.submit(() -> send(booking, inFlight, nextSendAt, spacingNanos)));
+                }
+
+                List<UUID> reminded = results.stream().map(TripReminderService::await).filter(Objects::nonNull)
+                        .toList();
+                if (!reminded.isEmpty()) {
+                    bookingRepository.markRemindersSent(reminded);
+                    sent += reminded.size();
+                }
+                if (!page.isEmpty()) {
+                    BookingView last = page.get(page.size() - 1);
+                    afterTime = last.getDepartureTime();
+                    afterId = last.getBookingId();
+                }
+            } while (page.size() == pageSize);
+        }
+        return sent;
+    }
+
+    // Returns the booking id once its reminder went out, or null when it has to wait for the next run
+    private UUID send(BookingView booking, Semaphore inFlight, AtomicLong nextSendAt, long spacingNanos)
+            throws InterruptedException {
+        inFlight.acquire();
+        try {
+            // Claims the next free send slot; slots are spaced so the whole run stays under the rate
+            long now = System.nanoTime();
+            long slot = Math.max(now,
+                    nextSendAt.getAndAccumulate(now, (next, time) -> Math.max(next, time) + spacingNanos));
+            TimeUnit.NANOSECONDS.sleep(slot - now);
+
+            emailService.sendTripReminderEmail(booking, booking.getContactEmail());
+            return booking.getBookingId();
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to send reminder for booking {}: {}", booking.getCode(), e.getMessage());
+            return null;
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private static UUID await(Future<UUID> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.awad.ticketbooking.modules.catalog.controller;
 
 import com.awad.ticketbooking.modules.catalog.dto.CreateStationRequest;
+import com.awad.ticketbooking.modules.catalog.dto.StationSuggestion;
 import com.awad.ticketbooking.modules.catalog.entity.Station;
 import com.awad.ticketbooking.modules.catalog.service.StationService;
+import com.awad.ticketbooking.modules.catalog.service.StationSuggestIndex;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +18,7 @@ import java.util.List;
 public class StationController {
 
     private final StationService stationService;
+    private final StationSuggestIndex stationSuggestIndex;
 
     @PostMapping
     public ResponseEntity<Station> createStation(@Valid @RequestBody CreateStationRequest request) {
@@ -28,6 +31,13 @@ public class StationController {
         return ResponseEntity.ok(stationService.getAllStations(pageable));
     }
 
+    // Served from memory, cheap enough to call on every keystroke
+    @GetMapping("/suggest")
+    public ResponseEntity<List<StationSuggestion>> suggest(@RequestParam(defaultValue = "") String q,
+                                                           @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(stationSuggestIndex.suggest(q, limit));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Station> updateStation(@PathVariable java.util.UUID id,
                                                  @Valid @RequestBody CreateStationRequest request) {
@@ -0,0 +1,22 @@
+package com.awad.ticketbooking.modules.catalog.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+public class StationSuggestion {
+
+    public enum Type {
+        CITY,
+        STATION
+    }
+
+    private Type type;
+    // Null for a city
+    private UUID stationId;
+    private String name;
+    private String city;
+}
@@ -2,10 +2,23 @@ package com.awad.ticketbooking.modules.catalog.repository;
 
 import com.awad.ticketbooking.modules.catalog.entity.Station;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface StationRepository extends JpaRepository<Station, UUID> {
+
+    // [stationId, confirmed bookings on routes starting or ending there], for ranking suggestions
+    @Query(value = """
+            SELECT s.id, COUNT(b.id)
+            FROM stations s
+            JOIN routes r ON r.origin_station_id = s.id OR r.destination_station_id = s.id
+            JOIN trips t ON t.route_id = r.id
+            JOIN bookings b ON b.trip_id = t.id AND b.status = 'CONFIRMED'
+            GROUP BY s.id
+            """, nativeQuery = true)
+    List<Object[]> countConfirmedBookingsByStation();
 }
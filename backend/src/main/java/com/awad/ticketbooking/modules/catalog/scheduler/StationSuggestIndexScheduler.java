@@ -0,0 +1,27 @@
+package com.awad.ticketbooking.modules.catalog.scheduler;
+
+import com.awad.ticketbooking.modules.catalog.service.StationSuggestIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StationSuggestIndexScheduler {
+
+    private final StationSuggestIndex stationSuggestIndex;
+
+    // Runs on every node, each keeps its own trie; the first run at startup loads it, later runs pick up
+    // booking counts for the ranking
+    @Scheduled(fixedDelayString = "${app.stations.suggest-rebuild-ms:3600000}")
+    public void rebuildIndex() {
+        try {
+            int indexed = stationSuggestIndex.rebuild();
+            log.debug("Indexed {} stations for suggestions", indexed);
+        } catch (Exception e) {
+            log.error("Failed to rebuild station suggestions: {}", e.getMessage());
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.awad.ticketbooking.modules.catalog.entity.BusLayout;
 import com.awad.ticketbooking.modules.catalog.entity.LayoutSeat;
 import com.awad.ticketbooking.modules.catalog.repository.BusLayoutRepository;
 import com.awad.ticketbooking.modules.catalog.repository.LayoutSeatRepository;
+import com.awad.ticketbooking.modules.trip.service.TripPricingService;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,7 @@ public class BusLayoutService {
     private final BusLayoutRepository busLayoutRepository;
     private final LayoutSeatRepository layoutSeatRepository;
     private final EntityManager entityManager;
+    private final TripPricingService tripPricingService;
 
     @Transactional
     public BusLayout createLayout(BusLayoutPayload.BusLayoutRequest request) {
@@ -64,6 +66,9 @@ public class BusLayoutService {
         // 3. Update total seats
         layout.setTotalSeats(newSeats.size());
         busLayoutRepository.save(layout);
+
+        // Seat codes and types of every trip on this layout may have changed
+        tripPricingService.invalidateAll();
     }
 
     @Transactional
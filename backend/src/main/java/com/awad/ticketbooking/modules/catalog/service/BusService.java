@@ -21,6 +21,8 @@ public class BusService {
     private final BusLayoutRepository busLayoutRepository;
     private final com.awad.ticketbooking.modules.trip.repository.TripRepository tripRepository;
     private final com.awad.ticketbooking.modules.booking.repository.BookingRepository bookingRepository;
+    private final com.awad.ticketbooking.modules.trip.service.TripPricingService tripPricingService;
+    private final com.awad.ticketbooking.modules.trip.service.TripSearchIndex tripSearchIndex;
 
     @Transactional
     public Bus createBus(CreateBusRequest request) {
@@ -50,10 +52,16 @@ public class BusService {
                 .findById(request.getBusLayoutId())
                 .orElseThrow(() -> new RuntimeException("Bus layout not found"));
 
+        if (!busLayout.getId().equals(bus.getBusLayout().getId())) {
+            // The trips of this bus now sell the seats of another layout
+            tripPricingService.invalidateAll();
+        }
         bus.setOperator(operator);
         bus.setBusLayout(busLayout);
         bus.setPlateNumber(request.getPlateNumber());
         bus.setAmenities(request.getAmenities());
+        // Trips show these in search results
+        tripSearchIndex.refreshAll();
 
         return busRepository.save(bus);
     }
@@ -71,6 +79,7 @@ public class BusService {
             tripRepository.deleteByBusId(id);
         }
         busRepository.deleteById(id);
+        tripSearchIndex.refreshAll();
     }
 
     @Transactional(readOnly = true)
@@ -17,6 +17,7 @@ public class OperatorService {
     private final com.awad.ticketbooking.modules.catalog.repository.BusRepository busRepository;
     private final com.awad.ticketbooking.modules.trip.repository.TripRepository tripRepository;
     private final com.awad.ticketbooking.modules.booking.repository.BookingRepository bookingRepository;
+    private final com.awad.ticketbooking.modules.trip.service.TripSearchIndex tripSearchIndex;
 
     @Transactional
     public Operator createOperator(CreateOperatorRequest request) {
@@ -38,6 +39,8 @@ public class OperatorService {
                 .orElseThrow(() -> new IllegalArgumentException("Operator not found"));
         operator.setName(request.getName());
         operator.setContactInfo(request.getContactInfo());
+        // Trips show these in search results
+        tripSearchIndex.refreshAll();
         return operatorRepository.save(operator);
     }
 
@@ -55,5 +58,6 @@ public class OperatorService {
             busRepository.deleteByOperatorId(id);
         }
         operatorRepository.deleteById(id);
+        tripSearchIndex.refreshAll();
     }
 }
@@ -22,6 +22,7 @@ public class RouteService {
 
     private final com.awad.ticketbooking.modules.booking.repository.BookingRepository bookingRepository;
     private final com.awad.ticketbooking.modules.trip.repository.TripRepository tripRepository;
+    private final com.awad.ticketbooking.modules.trip.service.TripSearchIndex tripSearchIndex;
     private final jakarta.persistence.EntityManager entityManager;
 
     @Transactional(readOnly = true)
@@ -121,6 +122,8 @@ public class RouteService {
         route.setOriginStation(origin);
         route.setDestinationStation(destination);
         route.setDistanceKm(request.getDistanceKm());
+        // Trips show these in search results
+        tripSearchIndex.refreshAll();
 
         return routeRepository.save(route);
     }
@@ -138,6 +141,7 @@ public class RouteService {
             tripRepository.deleteByRouteId(id);
         }
         routeRepository.deleteById(id);
+        tripSearchIndex.refreshAll();
     }
 
     @Transactional
@@ -158,6 +162,7 @@ public class RouteService {
         stop.setStopType(request.getStopType());
 
         routeStopRepository.save(stop);
+        tripSearchIndex.refreshAll();
 
         // Refresh route to get new stops
         entityManager.refresh(route); // Need EntityManager or just return updated DTO.
@@ -178,5 +183,6 @@ public class RouteService {
         }
 
         routeStopRepository.delete(stop);
+        tripSearchIndex.refreshAll();
     }
 }
@@ -17,6 +17,8 @@ public class StationService {
     private final com.awad.ticketbooking.modules.catalog.repository.RouteRepository routeRepository;
     private final com.awad.ticketbooking.modules.trip.repository.TripRepository tripRepository;
     private final com.awad.ticketbooking.modules.booking.repository.BookingRepository bookingRepository;
+    private final com.awad.ticketbooking.modules.trip.service.TripSearchIndex tripSearchIndex;
+    private final StationSuggestIndex stationSuggestIndex;
 
     @Transactional
     public Station createStation(CreateStationRequest request) {
@@ -24,7 +26,9 @@ public class StationService {
         station.setName(request.getName());
         station.setCity(request.getCity());
         station.setAddress(request.getAddress());
-        return stationRepository.save(station);
+        Station saved = stationRepository.save(station);
+        stationSuggestIndex.refresh(saved.getId());
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -40,6 +44,9 @@ public class StationService {
         station.setName(request.getName());
         station.setCity(request.getCity());
         station.setAddress(request.getAddress());
+        // Trips show these in search results
+        tripSearchIndex.refreshAll();
+        stationSuggestIndex.refresh(id);
         return stationRepository.save(station);
     }
 
@@ -75,5 +82,7 @@ public class StationService {
             routeRepository.deleteByDestinationStationId(id);
         }
         stationRepository.deleteById(id);
+        tripSearchIndex.refreshAll();
+        stationSuggestIndex.refresh(id);
     }
 }
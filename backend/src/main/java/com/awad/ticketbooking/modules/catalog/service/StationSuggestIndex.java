@@ -0,0 +1,232 @@
+package com.awad.ticketbooking.modules.catalog.service;
+
+import com.awad.ticketbooking.modules.catalog.dto.StationSuggestion;
+import com.awad.ticketbooking.modules.catalog.entity.Station;
+import com.awad.ticketbooking.modules.catalog.repository.StationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Station and city autocomplete from an in-memory prefix trie, so suggestions never query the database.
+ * <p>
+ * Names are folded to lower-case ASCII ("Đà Nẵng" becomes "da nang") and every word start is indexed, so
+ * "nang", "Đà N" and "da nang" all find Đà Nẵng. Every trie node keeps the best {@value #MAX_SUGGESTIONS}
+ * suggestions below it, ranked by confirmed bookings on routes from or to the station (summed per city), so
+ * a lookup walks the query's characters and copies at most that many entries. The trie is immutable and
+ * swapped as a whole; a station change is applied to the station list in memory and the trie rebuilt from
+ * it on every node through a Redis topic, while {@code StationSuggestIndexScheduler} reloads everything,
+ * popularity included, now and then.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StationSuggestIndex {
+
+    public static final String TOPIC = "stations:suggest";
+    public static final int MAX_SUGGESTIONS = 20;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private final StationRepository stationRepository;
+    private final RedissonClient redissonClient;
+
+    // Empty until the first load
+    private volatile Node root = new Node();
+    // Guarded by this
+    private final Map<UUID, Station> stations = new HashMap<>();
+    private final Map<UUID, Long> popularity = new HashMap<>();
+
+    private RTopic topic;
+    private int listenerId;
+
+    private record Entry(StationSuggestion suggestion, long popularity, String key) {
+
+        static final Comparator<Entry> RANK = Comparator.comparingLong(Entry::popularity).reversed()
+                .thenComparing(entry -> entry.suggestion().getType())
+                .thenComparing(Entry::key);
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new HashMap<>();
+        Entry[] top = new Entry[0];
+        // Only used while building
+        Set<Entry> entries = new LinkedHashSet<>();
+    }
+
+    @PostConstruct
+    void subscribe() {
+        topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, message) -> apply(message));
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        topic.removeListener(listenerId);
+    }
+
+    public List<StationSuggestion> suggest(String query, int limit) {
+        Node node = root;
+        String key = normalize(query);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        return Arrays.stream(node.top)
+                .limit(Math.max(1, Math.min(limit, MAX_SUGGESTIONS)))
+                .map(Entry::suggestion)
+                .toList();
+    }
+
+    /**
+     * Re-reads the station on every node once the current transaction commits.
+     */
+    public void refresh(UUID stationId) {
+        afterCommit(stationId.toString());
+    }
+
+    /**
+     * Reloads every station and its popularity.
+     *
+     * @return number of stations indexed
+     */
+    public synchronized int rebuild() {
+        List<Station> all = stationRepository.findAll();
+        Map<UUID, Long> counts = new HashMap<>();
+        for (Object[] row : stationRepository.countConfirmedBookingsByStation()) {
+            counts.put((UUID) row[0], ((Number) row[1]).longValue());
+        }
+        stations.clear();
+        all.forEach(station -> stations.put(station.getId(), station));
+        popularity.clear();
+        popularity.putAll(counts);
+        root = build(stations.values());
+        return stations.size();
+    }
+
+    synchronized void reload(UUID stationId) {
+        stationRepository.findById(stationId).ifPresentOrElse(
+                station -> stations.put(stationId, station),
+                () -> stations.remove(stationId));
+        root = build(stations.values());
+    }
+
+    private Node build(Collection<Station> stations) {
+        Node root = new Node();
+        Map<String, String> cityNames = new HashMap<>();
+        Map<String, Long> cityPopularity = new HashMap<>();
+        for (Station station : stations) {
+            long count = popularity.getOrDefault(station.getId(), 0L);
+            String city = normalize(station.getCity());
+            cityNames.putIfAbsent(city, station.getCity());
+            cityPopularity.merge(city, count, Long::sum);
+
+            Entry entry = new Entry(StationSuggestion.builder()
+                    .type(StationSuggestion.Type.STATION)
+                    .stationId(station.getId())
+                    .name(station.getName())
+                    .city(station.getCity())
+                    .build(), count, normalize(station.getName()));
+            insert(root, entry.key(), entry);
+            insert(root, city, entry);
+        }
+        cityNames.forEach((city, name) -> insert(root, city, new Entry(StationSuggestion.builder()
+                .type(StationSuggestion.Type.CITY)
+                .name(name)
+                .city(name)
+                .build(), cityPopularity.get(city), city)));
+        freeze(root);
+        return root;
+    }
+
+    // Indexes the text from every word start, so a query can begin anywhere in the name
+    private static void insert(Node root, String text, Entry entry) {
+        for (int start = 0; start < text.length(); start++) {
+            if (start > 0 && text.charAt(start - 1) != ' ') {
+                continue;
+            }
+            Node node = root;
+            node.entries.add(entry);
+            for (int i = start; i < text.length(); i++) {
+                node = node.children.computeIfAbsent(text.charAt(i), c -> new Node());
+                node.entries.add(entry);
+            }
+        }
+    }
+
+    private static void freeze(Node root) {
+        List<Node> pending = new ArrayList<>(List.of(root));
+        while (!pending.isEmpty()) {
+            Node node = pending.removeLast();
+            node.top = node.entries.stream().sorted(Entry.RANK).limit(MAX_SUGGESTIONS).toArray(Entry[]::new);
+            node.entries = null;
+            pending.addAll(node.children.values());
+        }
+    }
+
+    // "TP. Hồ Chí Minh" -> "tp ho chi minh"
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'd')
+                .toLowerCase(Locale.ROOT);
+        return SEPARATORS.matcher(folded).replaceAll(" ").strip();
+    }
+
+    private void afterCommit(String message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(message);
+            }
+        });
+    }
+
+    // Every node, including this one, applies the change when the message comes back on the topic
+    private void publish(String message) {
+        try {
+            topic.publish(message);
+        } catch (Exception e) {
+            log.warn("Failed to publish station suggestion change {} to other nodes: {}", message, e.getMessage());
+            apply(message);
+        }
+    }
+
+    private void apply(String message) {
+        try {
+            reload(UUID.fromString(message));
+        } catch (Exception e) {
+            log.error("Failed to update station suggestions for {}: {}", message, e.getMessage());
+        }
+    }
+}
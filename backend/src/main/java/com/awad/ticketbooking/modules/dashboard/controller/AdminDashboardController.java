@@ -1,5 +1,7 @@
 package com.awad.ticketbooking.modules.dashboard.controller;
 
+import com.awad.ticketbooking.common.scheduling.ClusterJobRunner;
+import com.awad.ticketbooking.common.scheduling.JobRun;
 import com.awad.ticketbooking.modules.dashboard.dto.*;
 import com.awad.ticketbooking.modules.dashboard.service.AdminDashboardService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -30,6 +32,7 @@ import java.util.List;
 public class AdminDashboardController {
 
     private final AdminDashboardService adminDashboardService;
+    private final ClusterJobRunner clusterJobRunner;
 
     @GetMapping("/metrics")
     @Operation(
@@ -313,4 +316,20 @@ public class AdminDashboardController {
         }
         return ResponseEntity.ok(adminDashboardService.getBookingConversion(from, to));
     }
+
+    @GetMapping("/jobs")
+    @Operation(
+            summary = "Get background job runs",
+            description = "Returns the last run of every scheduled job in the cluster: node, start time, duration, items processed and error, if any."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Job runs retrieved successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = JobRun.class)))
+            )
+    })
+    public ResponseEntity<List<JobRun>> getJobRuns() {
+        return ResponseEntity.ok(clusterJobRunner.getLastRuns());
+    }
 }
@@ -27,9 +27,10 @@ public class AdminDashboardService {
 
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
+    private final DashboardCacheInvalidator cacheInvalidator;
 
     @Transactional(readOnly = true)
-    @Cacheable(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_METRICS, key = "T(java.time.LocalDate).now().toString()")
+    @Cacheable(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_METRICS, key = "T(com.awad.ticketbooking.modules.dashboard.service.DashboardCacheInvalidator).metricsKey(T(java.time.LocalDate).now())")
     public MetricsResponse getMetrics() {
         Instant now = Instant.now();
         Instant startOfDay = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant();
@@ -56,9 +57,11 @@ public class AdminDashboardService {
     @Transactional(readOnly = true)
     @Cacheable(
             value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_REVENUE,
-            key = "T(String).valueOf(#start) + ':' + T(String).valueOf(#end)"
+            key = "T(com.awad.ticketbooking.modules.dashboard.service.DashboardCacheInvalidator).rangeKey(#start, #end)"
     )
     public List<RevenueChartResponse> getRevenueChart(Instant start, Instant end) {
+        cacheInvalidator.register(com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_REVENUE,
+                DashboardCacheInvalidator.rangeKey(start, end), start, end);
         List<Object[]> data = bookingRepository.getRevenueChartData(start, end);
         return data.stream().map(row -> {
             // Assuming row[0] is Date/Timestamp and row[1] is BigDecimal
@@ -76,6 +79,8 @@ public class AdminDashboardService {
     @Transactional(readOnly = true)
     @Cacheable(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_ROUTES, key = "'all:' + #limit")
     public List<TopRouteResponse> getTopRoutes(int limit) {
+        cacheInvalidator.register(com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_ROUTES,
+                "all:" + limit, null, null);
         List<Object[]> data = bookingRepository.findTopRoutes(PageRequest.of(0, limit));
         return data.stream().map(row -> {
             Route route = (Route) row[0];
@@ -92,9 +97,11 @@ public class AdminDashboardService {
     @Transactional(readOnly = true)
     @Cacheable(
             value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_ROUTES,
-            key = "T(String).valueOf(#start) + ':' + T(String).valueOf(#end) + ':' + #limit"
+            key = "T(com.awad.ticketbooking.modules.dashboard.service.DashboardCacheInvalidator).rangeKey(#start, #end, #limit)"
     )
     public List<TopRouteResponse> getTopRoutes(Instant start, Instant end, int limit) {
+        cacheInvalidator.register(com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_ROUTES,
+                DashboardCacheInvalidator.rangeKey(start, end, limit), start, end);
         if (start == null || end == null) {
             return getTopRoutes(limit);
         }
@@ -118,6 +125,8 @@ public class AdminDashboardService {
     @Transactional(readOnly = true)
     @Cacheable(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS, key = "'limit:' + #limit")
     public List<TransactionResponse> getRecentTransactions(int limit) {
+        cacheInvalidator.register(com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS,
+                "limit:" + limit, null, null);
         List<Booking> bookings = bookingRepository.findRecentBookings(PageRequest.of(0, limit));
         return bookings.stream().map(booking -> TransactionResponse.builder()
                 .id(booking.getId())
@@ -133,6 +142,8 @@ public class AdminDashboardService {
     @Transactional(readOnly = true)
     @Cacheable(value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_OPERATORS, key = "'all:' + #limit")
     public List<TopOperatorResponse> getTopOperators(int limit) {
+        cacheInvalidator.register(com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_OPERATORS,
+                "all:" + limit, null, null);
         List<Object[]> data = bookingRepository.findTopOperators(PageRequest.of(0, limit));
         return data.stream().map(row -> {
             com.awad.ticketbooking.modules.catalog.entity.Operator operator = (com.awad.ticketbooking.modules.catalog.entity.Operator) row[0];
@@ -150,9 +161,11 @@ public class AdminDashboardService {
     @Transactional(readOnly = true)
     @Cacheable(
             value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_OPERATORS,
-            key = "T(String).valueOf(#start) + ':' + T(String).valueOf(#end) + ':' + #limit"
+            key = "T(com.awad.ticketbooking.modules.dashboard.service.DashboardCacheInvalidator).rangeKey(#start, #end, #limit)"
     )
     public List<TopOperatorResponse> getTopOperators(Instant start, Instant end, int limit) {
+        cacheInvalidator.register(com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_TOP_OPERATORS,
+                DashboardCacheInvalidator.rangeKey(start, end, limit), start, end);
         if (start == null || end == null) {
             return getTopOperators(limit);
         }
@@ -177,7 +190,7 @@ public class AdminDashboardService {
     @Transactional(readOnly = true)
     @Cacheable(
             value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_TRENDS,
-            key = "T(String).valueOf(#start) + ':' + T(String).valueOf(#end) + ':' + (#groupBy == null ? 'day' : #groupBy)"
+            key = "T(com.awad.ticketbooking.modules.dashboard.service.DashboardCacheInvalidator).rangeKey(#start, #end, #groupBy == null ? 'day' : #groupBy)"
     )
     public List<BookingTrendResponse> getBookingTrends(Instant start, Instant end, String groupBy) {
         if (start == null || end == null) {
@@ -190,6 +203,9 @@ public class AdminDashboardService {
         List<Object[]> totalData;
         List<Object[]> confirmedData;
 
+        cacheInvalidator.register(com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_TRENDS,
+                DashboardCacheInvalidator.rangeKey(start, end, groupBy == null ? "day" : groupBy), start, end);
+
         String normalized = groupBy == null ? "day" : groupBy.trim().toLowerCase();
         switch (normalized) {
             case "week" -> {
@@ -229,7 +245,7 @@ public class AdminDashboardService {
     @Transactional(readOnly = true)
     @Cacheable(
             value = com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION,
-            key = "T(String).valueOf(#start) + ':' + T(String).valueOf(#end)"
+            key = "T(com.awad.ticketbooking.modules.dashboard.service.DashboardCacheInvalidator).rangeKey(#start, #end)"
     )
     public BookingConversionResponse getBookingConversion(Instant start, Instant end) {
         if (start == null || end == null) {
@@ -239,6 +255,9 @@ public class AdminDashboardService {
             throw new IllegalArgumentException("from must be <= to");
         }
 
+        cacheInvalidator.register(com.awad.ticketbooking.common.config.RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION,
+                DashboardCacheInvalidator.rangeKey(start, end), start, end);
+
         long total = bookingRepository.countByCreatedAtBetween(start, end);
         long confirmed = bookingRepository.countByCreatedAtBetweenAndStatus(start, end, BookingStatus.CONFIRMED);
 
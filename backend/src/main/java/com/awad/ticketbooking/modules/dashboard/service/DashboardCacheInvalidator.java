@@ -0,0 +1,147 @@
+package com.awad.ticketbooking.modules.dashboard.service;
+
+import com.awad.ticketbooking.common.config.RedisConfig;
+import com.awad.ticketbooking.common.enums.DashboardChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScoredSortedSetAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evicts only the admin dashboard entries a booking change makes stale.
+ * <p>
+ * Every cached figure covers a {@code createdAt} range (all time for rankings and recent
+ * transactions). When an entry is computed its key and range are recorded in a sorted set per cache,
+ * scored by when the entry expires, so invalidation reads the live keys of a cache from that index
+ * instead of scanning Redis, and keeps the entries for other periods warm.
+ * <p>
+ * Entries are registered before they are computed and stored, so an invalidation can run in between
+ * and a figure read before the change can still be put afterwards. Evicting a key therefore leaves
+ * it in the index: the next change covering its range finds it again, and index members only go away
+ * once their score has passed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardCacheInvalidator {
+
+    private static final String INDEX_KEY = "%s:index";
+    private static final String OPEN_BOUND = "*";
+    // Keeps an index member alive past its entry, which is stored only once the figure is computed
+    private static final Duration REGISTRATION_GRACE = Duration.ofMinutes(1);
+
+    private static final List<String> BOOKING_COUNT_CACHES = List.of(
+            RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS,
+            RedisConfig.CACHE_ADMIN_BOOKING_TRENDS,
+            RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION);
+
+    private static final List<String> CONFIRMED_BOOKING_CACHES = List.of(
+            RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS,
+            RedisConfig.CACHE_ADMIN_BOOKING_TRENDS,
+            RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION,
+            RedisConfig.CACHE_ADMIN_REVENUE,
+            RedisConfig.CACHE_ADMIN_TOP_ROUTES,
+            RedisConfig.CACHE_ADMIN_TOP_OPERATORS);
+
+    private final CacheManager cacheManager;
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+
+    public static String rangeKey(Instant start, Instant end) {
+        return start + ":" + end;
+    }
+
+    public static String rangeKey(Instant start, Instant end, Object qualifier) {
+        return rangeKey(start, end) + ":" + qualifier;
+    }
+
+    public static String metricsKey(LocalDate day) {
+        return day.toString();
+    }
+
+    /**
+     * Records a freshly computed entry; {@code null} bounds mean the range is open on that side.
+     */
+    public void register(String cacheName, String key, Instant start, Instant end) {
+        long expiresAt = System.currentTimeMillis()
+                + RedisConfig.CACHE_TTLS.get(cacheName).plus(REGISTRATION_GRACE).toMillis();
+        redissonClient.<String>getScoredSortedSet(indexKey(cacheName), StringCodec.INSTANCE)
+                .add(expiresAt, bound(start) + "/" + bound(end) + "/" + key);
+    }
+
+    public void invalidate(Instant createdAt, DashboardChange change) {
+        List<String> cacheNames = switch (change) {
+            case UPDATED -> List.of(RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS);
+            case CREATED -> BOOKING_COUNT_CACHES;
+            case CONFIRMATION_CHANGED -> CONFIRMED_BOOKING_CACHES;
+        };
+
+        if (change == DashboardChange.CONFIRMATION_CHANGED) {
+            // Today's metrics are keyed by day, no index needed
+            evict(RedisConfig.CACHE_ADMIN_METRICS,
+                    List.of(metricsKey(LocalDate.ofInstant(createdAt, ZoneId.systemDefault()))));
+        }
+
+        // Drop expired index entries and read the live ones of every cache in one round trip
+        double now = System.currentTimeMillis();
+        RBatch batch = redissonClient.createBatch();
+        Map<String, RFuture<Collection<String>>> liveEntries = new LinkedHashMap<>();
+        for (String cacheName : cacheNames) {
+            RScoredSortedSetAsync<String> index = batch.getScoredSortedSet(indexKey(cacheName), StringCodec.INSTANCE);
+            index.removeRangeByScoreAsync(Double.NEGATIVE_INFINITY, true, now, true);
+            liveEntries.put(cacheName, index.valueRangeAsync(now, false, Double.POSITIVE_INFINITY, true));
+        }
+        batch.execute();
+
+        // Evicted keys stay indexed in case a put computed before this change lands after it
+        liveEntries.forEach((cacheName, future) -> {
+            List<String> stale = future.toCompletableFuture().join().stream()
+                    .filter(entry -> covers(entry, createdAt))
+                    .map(entry -> entry.split("/", 3)[2])
+                    .toList();
+            if (!stale.isEmpty()) {
+                evict(cacheName, stale);
+            }
+        });
+    }
+
+    private void evict(String cacheName, List<String> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        keys.forEach(cache::evict);
+        meterRegistry.counter("dashboard.cache.invalidations", "cache", cacheName).increment(keys.size());
+        log.debug("Evicted {} entries of {}", keys.size(), cacheName);
+    }
+
+    private static boolean covers(String entry, Instant createdAt) {
+        String[] parts = entry.split("/", 3);
+        return (OPEN_BOUND.equals(parts[0]) || !createdAt.isBefore(Instant.parse(parts[0])))
+                && (OPEN_BOUND.equals(parts[1]) || !createdAt.isAfter(Instant.parse(parts[1])));
+    }
+
+    private static String bound(Instant instant) {
+        return instant == null ? OPEN_BOUND : instant.toString();
+    }
+
+    private static String indexKey(String cacheName) {
+        return INDEX_KEY.formatted(cacheName);
+    }
+}
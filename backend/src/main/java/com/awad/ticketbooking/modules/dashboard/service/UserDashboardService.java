@@ -1,7 +1,8 @@
 package com.awad.ticketbooking.modules.dashboard.service;
 
-import com.awad.ticketbooking.modules.booking.entity.Booking;
+import com.awad.ticketbooking.modules.booking.entity.BookingView;
 import com.awad.ticketbooking.modules.booking.repository.BookingRepository;
+import com.awad.ticketbooking.modules.booking.repository.BookingViewRepository;
 import com.awad.ticketbooking.modules.dashboard.dto.UserDashboardSummaryResponse;
 import com.awad.ticketbooking.modules.dashboard.dto.UserRecentTripResponse;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +18,7 @@ import java.util.stream.Collectors;
 public class UserDashboardService {
 
     private final BookingRepository bookingRepository;
+    private final BookingViewRepository bookingViewRepository;
 
     public UserDashboardSummaryResponse getUserDashboardSummary(String email) {
         long totalTrips = bookingRepository.countByUserEmail(email);
@@ -31,14 +33,15 @@ public class UserDashboardService {
     }
 
     public List<UserRecentTripResponse> getUserRecentTrips(String email, int limit) {
-        List<Booking> bookings = bookingRepository.findRecentBookingsByUser(email, PageRequest.of(0, limit));
+        List<BookingView> bookings = bookingViewRepository.findByUserEmailOrderByDepartureTimeDesc(email,
+                PageRequest.of(0, limit));
 
         return bookings.stream()
                 .map(booking -> UserRecentTripResponse.builder()
-                        .origin(booking.getTrip().getRoute().getOriginStation().getCity())
-                        .destination(booking.getTrip().getRoute().getDestinationStation().getCity())
-                        .departureTime(booking.getTrip().getDepartureTime())
-                        .distance(booking.getTrip().getRoute().getDistanceKm().doubleValue())
+                        .origin(booking.getOriginCity())
+                        .destination(booking.getDestinationCity())
+                        .departureTime(booking.getDepartureTime())
+                        .distance(booking.getDistanceKm().doubleValue())
                         .status(booking.getStatus().name())
                         .build())
                 .collect(Collectors.toList());
@@ -1,11 +1,14 @@
 package com.awad.ticketbooking.modules.payment.controller;
 
+import com.awad.ticketbooking.common.config.security.ApplicationUserDetails;
+import com.awad.ticketbooking.common.service.IdempotencyService;
 import com.awad.ticketbooking.modules.payment.dto.CreatePaymentRequest;
 import com.awad.ticketbooking.modules.payment.dto.PaymentResponse;
 import com.awad.ticketbooking.modules.payment.service.PaymentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.UUID;
@@ -16,13 +19,24 @@ import java.util.UUID;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
 
     /**
-     * Create a payment link for a pending booking
+     * Create a payment link for a pending booking. Retries from the same user or guest with the same
+     * Idempotency-Key get the first link back without calling PayOS again.
      */
     @PostMapping
-    public ResponseEntity<PaymentResponse> createPayment(@Valid @RequestBody CreatePaymentRequest request) {
-        return ResponseEntity.ok(paymentService.createPayment(request));
+    public ResponseEntity<PaymentResponse> createPayment(@Valid @RequestBody CreatePaymentRequest request,
+                                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                                         @AuthenticationPrincipal ApplicationUserDetails userDetails) {
+        UUID callerId = null;
+        if (userDetails != null) {
+            callerId = userDetails.getUser().getId();
+        } else if (request.getGuestId() != null && !request.getGuestId().isBlank()) {
+            callerId = UUID.fromString(request.getGuestId());
+        }
+        return ResponseEntity.ok(idempotencyService.execute("payment", callerId, idempotencyKey, request, PaymentResponse.class,
+                () -> paymentService.createPayment(request)));
     }
 
     /**
@@ -17,4 +17,7 @@ public class CreatePaymentRequest {
 
     @NotBlank(message = "Cancel URL is required")
     private String cancelUrl;
+
+    // For guest users who don't have a SecurityContext; scopes their Idempotency-Key
+    private String guestId;
 }
@@ -13,6 +13,4 @@ public interface PaymentTransactionRepository extends JpaRepository<PaymentTrans
     Optional<PaymentTransaction> findByOrderCode(Long orderCode);
 
     Optional<PaymentTransaction> findByBookingId(UUID bookingId);
-
-    boolean existsByOrderCode(Long orderCode);
 }
@@ -1,10 +1,16 @@
 package com.awad.ticketbooking.modules.payment.service;
 
 import com.awad.ticketbooking.common.enums.BookingStatus;
+import com.awad.ticketbooking.common.enums.DashboardChange;
 import com.awad.ticketbooking.common.enums.PaymentStatus;
-import com.awad.ticketbooking.common.service.EmailService;
+import com.awad.ticketbooking.common.outbox.OutboxService;
+import com.awad.ticketbooking.common.service.IdAllocator;
+import com.awad.ticketbooking.common.service.IdempotencyService;
 import com.awad.ticketbooking.modules.booking.entity.Booking;
+import com.awad.ticketbooking.modules.booking.entity.Ticket;
 import com.awad.ticketbooking.modules.booking.repository.BookingRepository;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService;
+import com.awad.ticketbooking.modules.booking.service.SeatLockService;
 import com.awad.ticketbooking.modules.payment.dto.CreatePaymentRequest;
 import com.awad.ticketbooking.modules.payment.dto.PaymentResponse;
 import com.awad.ticketbooking.modules.payment.entity.PaymentTransaction;
@@ -33,9 +39,12 @@ public class PaymentService {
     private final PaymentWebhookEventRepository webhookEventRepository;
     private final BookingRepository bookingRepository;
     private final ObjectMapper objectMapper;
-    private final EmailService emailService;
+    private final SeatLockService seatLockService;
+    private final IdAllocator idAllocator;
+    private final OutboxService outboxService;
 
-    @Transactional
+    // Never outlives the Idempotency-Key marker, so a retry cannot run while this one may still commit
+    @Transactional(timeoutString = IdempotencyService.REQUEST_TIMEOUT)
     public PaymentResponse createPayment(CreatePaymentRequest request) {
         // Find the booking
         Booking booking = bookingRepository.findById(request.getBookingId())
@@ -52,11 +61,8 @@ public class PaymentService {
         }
 
         try {
-            // Generate unique order code (timestamp + random to ensure uniqueness)
-            Long orderCode = System.currentTimeMillis();
-            while (paymentTransactionRepository.existsByOrderCode(orderCode)) {
-                orderCode = System.currentTimeMillis() + (long) (Math.random() * 1000);
-            }
+            // Order codes come from a reserved block, so they are unique across nodes without a lookup
+            Long orderCode = idAllocator.nextOrderCode();
 
             // Create payment link request using PayOS SDK v2
             CreatePaymentLinkRequest paymentData = CreatePaymentLinkRequest.builder()
@@ -140,41 +146,11 @@ public class PaymentService {
 
             // Process based on payment status
             if ("00".equals(code)) {
-                // Payment successful
-                transaction.setStatus(PaymentStatus.SUCCESS);
                 transaction.setTransactionId(reference);
-                booking.setStatus(BookingStatus.CONFIRMED);
-                log.info("Payment successful for booking {}", booking.getCode());
-
-                // Save first to commit booking status
-                paymentTransactionRepository.save(transaction);
-                bookingRepository.save(booking);
-
-                // Send confirmation email
-                try {
-                    String recipientEmail = booking.getPassengerEmail() != null
-                            ? booking.getPassengerEmail()
-                            : (booking.getUser() != null ? booking.getUser().getEmail() : null);
-
-                    if (recipientEmail != null) {
-                        Booking bookingForEmail = bookingRepository.findByIdWithFullDetails(booking.getId())
-                                .orElse(booking);
-                        emailService.sendBookingConfirmationEmail(bookingForEmail, recipientEmail);
-                        log.info("Sent confirmation email to {} for booking {}", recipientEmail, booking.getCode());
-                    }
-                } catch (Exception emailError) {
-                    log.error("Failed to send confirmation email for booking {}: {}", booking.getCode(),
-                            emailError.getMessage());
-                }
+                confirmPaid(transaction, booking);
             } else {
-                // Payment failed
-                transaction.setStatus(PaymentStatus.FAILED);
-                booking.setStatus(BookingStatus.CANCELLED);
                 log.warn("Payment failed for booking {} with code {}", booking.getCode(), code);
-
-                // Save updates
-                paymentTransactionRepository.save(transaction);
-                bookingRepository.save(booking);
+                cancelUnpaid(transaction, booking);
             }
 
             // Log webhook event
@@ -219,7 +195,8 @@ public class PaymentService {
                 .orElseThrow(() -> new RuntimeException("Payment not found for booking: " + bookingId));
 
         // If already processed, just return
-        if (transaction.getStatus() == PaymentStatus.SUCCESS) {
+        if (transaction.getStatus() == PaymentStatus.SUCCESS
+                || transaction.getStatus() == PaymentStatus.REFUND_REQUIRED) {
             return toPaymentResponse(transaction);
         }
 
@@ -233,41 +210,10 @@ public class PaymentService {
             Booking booking = transaction.getBooking();
 
             if ("PAID".equals(status)) {
-                // Payment successful
-                transaction.setStatus(PaymentStatus.SUCCESS);
-                booking.setStatus(BookingStatus.CONFIRMED);
-
-                paymentTransactionRepository.save(transaction);
-                bookingRepository.save(booking);
-
-                log.info("Payment verified and confirmed for booking {}", booking.getCode());
-
-                // Send confirmation email
-                try {
-                    String recipientEmail = booking.getPassengerEmail() != null
-                            ? booking.getPassengerEmail()
-                            : (booking.getUser() != null ? booking.getUser().getEmail() : null);
-
-                    if (recipientEmail != null) {
-                        // Fetch booking with all relations for async email (avoid
-                        // LazyInitializationException)
-                        Booking bookingForEmail = bookingRepository.findByIdWithFullDetails(booking.getId())
-                                .orElse(booking);
-                        emailService.sendBookingConfirmationEmail(bookingForEmail, recipientEmail);
-                        log.info("Sent confirmation email to {} for booking {}", recipientEmail, booking.getCode());
-                    }
-                } catch (Exception emailError) {
-                    log.error("Failed to send confirmation email for booking {}: {}", booking.getCode(),
-                            emailError.getMessage());
-                }
+                confirmPaid(transaction, booking);
             } else if ("CANCELLED".equals(status) || "EXPIRED".equals(status)) {
-                transaction.setStatus(PaymentStatus.FAILED);
-                booking.setStatus(BookingStatus.CANCELLED);
-
-                paymentTransactionRepository.save(transaction);
-                bookingRepository.save(booking);
-
                 log.warn("Payment {} for booking {}", status, booking.getCode());
+                cancelUnpaid(transaction, booking);
             }
             // PENDING status - do nothing, keep current state
 
@@ -279,6 +225,71 @@ public class PaymentService {
         }
     }
 
+    /**
+     * Confirms the booking of a successful payment if it is still PENDING. The expiry sweep may cancel it
+     * at the same moment: the conditional update waits for the sweep's row lock and then sees the
+     * cancellation, so a late payment is flagged for refund instead of reviving a booking whose tickets
+     * are gone. A booking the sweep has not reached yet is confirmed and is no longer due.
+     */
+    private void confirmPaid(PaymentTransaction transaction, Booking booking) {
+        if (bookingRepository.updateStatusIfCurrent(booking.getId(), BookingStatus.PENDING,
+                BookingStatus.CONFIRMED) == 1) {
+            transaction.setStatus(PaymentStatus.SUCCESS);
+            paymentTransactionRepository.save(transaction);
+            log.info("Payment successful for booking {}", booking.getCode());
+            publishConfirmation(booking);
+            return;
+        }
+
+        BookingStatus current = bookingRepository.findStatusById(booking.getId());
+        if (current == BookingStatus.CONFIRMED) {
+            // The webhook and a manual verify both saw the payment; the first one confirmed it
+            transaction.setStatus(PaymentStatus.SUCCESS);
+        } else {
+            transaction.setStatus(PaymentStatus.REFUND_REQUIRED);
+            log.error("Payment {} arrived for booking {} which is already {}, refund required",
+                    transaction.getOrderCode(), booking.getCode(), current);
+        }
+        paymentTransactionRepository.save(transaction);
+    }
+
+    /**
+     * Cancels the booking of a failed payment if it is still PENDING. Seats are only given back by
+     * whoever cancelled the booking, so they are never released twice after the sweep got there first.
+     */
+    private void cancelUnpaid(PaymentTransaction transaction, Booking booking) {
+        transaction.setStatus(PaymentStatus.FAILED);
+        paymentTransactionRepository.save(transaction);
+        if (bookingRepository.updateStatusIfCurrent(booking.getId(), BookingStatus.PENDING,
+                BookingStatus.CANCELLED) == 0) {
+            return;
+        }
+        releaseSeats(booking);
+        outboxService.publishDashboardChange(booking.getId(), booking.getCreatedAt(), DashboardChange.UPDATED);
+        outboxService.publishStatusChange(booking.getId(), BookingStatus.CANCELLED);
+    }
+
+    /**
+     * Queues what follows a successful payment; the relay sends it after commit, in this order.
+     */
+    private void publishConfirmation(Booking booking) {
+        String recipientEmail = booking.getPassengerEmail() != null
+                ? booking.getPassengerEmail()
+                : (booking.getUser() != null ? booking.getUser().getEmail() : null);
+
+        outboxService.publishDashboardChange(booking.getId(), booking.getCreatedAt(),
+                DashboardChange.CONFIRMATION_CHANGED);
+        outboxService.publishStatusChange(booking.getId(), BookingStatus.CONFIRMED);
+        outboxService.publishConfirmationEmail(booking.getId(), recipientEmail);
+    }
+
+    private void releaseSeats(Booking booking) {
+        seatLockService.releaseSeatsAfterCommit(booking.getTrip().getId(), booking.getTickets().stream()
+                        .map(Ticket::getSeatCode)
+                        .toList(),
+                SeatInventoryService.Segment.between(booking.getPickupStation(), booking.getDropoffStation()));
+    }
+
     private PaymentResponse toPaymentResponse(PaymentTransaction transaction) {
         return PaymentResponse.builder()
                 .id(transaction.getId())
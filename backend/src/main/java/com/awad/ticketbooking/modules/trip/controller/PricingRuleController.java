@@ -0,0 +1,52 @@
+package com.awad.ticketbooking.modules.trip.controller;
+
+import com.awad.ticketbooking.modules.trip.dto.PricingRuleRequest;
+import com.awad.ticketbooking.modules.trip.entity.PricingRule;
+import com.awad.ticketbooking.modules.trip.service.PricingRuleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/pricing-rules")
+@RequiredArgsConstructor
+@Tag(name = "Pricing rules", description = "Endpoints for managing occupancy-driven price adjustments.")
+public class PricingRuleController {
+
+    private final PricingRuleService pricingRuleService;
+
+    @GetMapping
+    @Operation(summary = "List pricing rules", description = "Returns all pricing rules in evaluation order.")
+    public ResponseEntity<List<PricingRule>> getRules() {
+        return ResponseEntity.ok(pricingRuleService.getRules());
+    }
+
+    @PostMapping
+    @Operation(summary = "Create pricing rule", description = "Adds a rule that changes a trip's prices by adjustmentPercent while its occupancy "
+            + "is above/below the given percentages and, if set, it departs within the given hours. "
+            + "Active rules are checked by ascending priority and the first match applies. "
+            + "Changes reach search and booking prices within app.pricing.rules-ttl-seconds.")
+    public ResponseEntity<PricingRule> createRule(@RequestBody @Valid PricingRuleRequest request) {
+        return ResponseEntity.ok(pricingRuleService.createRule(request));
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update pricing rule", description = "Replaces the conditions and adjustment of a pricing rule.")
+    public ResponseEntity<PricingRule> updateRule(@PathVariable UUID id,
+                                                  @RequestBody @Valid PricingRuleRequest request) {
+        return ResponseEntity.ok(pricingRuleService.updateRule(id, request));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete pricing rule", description = "Removes a pricing rule.")
+    public ResponseEntity<Void> deleteRule(@PathVariable UUID id) {
+        pricingRuleService.deleteRule(id);
+        return ResponseEntity.noContent().build();
+    }
+}
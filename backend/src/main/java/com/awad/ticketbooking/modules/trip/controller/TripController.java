@@ -11,6 +11,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.util.Map;
 import java.util.UUID;
 
 import jakarta.validation.Valid;
@@ -41,6 +43,12 @@ public class TripController {
         return ResponseEntity.ok(tripService.getTripById(id));
     }
 
+    @GetMapping("/{id}/seat-prices")
+    @Operation(summary = "Get seat prices", description = "Returns the price of every bookable seat of the trip by seat code, resolved from the trip's pricing and the seat types of its bus layout.")
+    public ResponseEntity<Map<String, BigDecimal>> getSeatPrices(@PathVariable UUID id) {
+        return ResponseEntity.ok(tripService.getSeatPrices(id));
+    }
+
     @PostMapping
     @Operation(summary = "Create trip", description = "Creates a new trip with pricing and schedule information.")
     public ResponseEntity<TripResponse> createTrip(@RequestBody @Valid CreateTripRequest request) {
@@ -54,6 +62,19 @@ public class TripController {
         return ResponseEntity.ok(tripService.updateTrip(id, request));
     }
 
+    @PostMapping("/{id}/availability/rebuild")
+    @Operation(summary = "Rebuild trip seat counters", description = "Recomputes the seats-left counters of a trip from its bus layout and active tickets.")
+    public ResponseEntity<Void> rebuildSeatAvailability(@PathVariable UUID id) {
+        tripService.rebuildSeatAvailability(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/availability/rebuild")
+    @Operation(summary = "Rebuild all seat counters", description = "Recomputes the seats-left counters of every trip. Returns the number of counter rows written.")
+    public ResponseEntity<Integer> rebuildAllSeatAvailability() {
+        return ResponseEntity.ok(tripService.rebuildAllSeatAvailability());
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete trip", description = "Deletes (or force deletes) a trip. When force is true, will also handle dependent entities.")
     public ResponseEntity<Void> deleteTrip(@PathVariable UUID id, @RequestParam(defaultValue = "false") boolean force) {
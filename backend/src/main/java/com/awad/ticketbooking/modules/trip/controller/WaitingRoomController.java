@@ -0,0 +1,56 @@
+package com.awad.ticketbooking.modules.trip.controller;
+
+import com.awad.ticketbooking.common.config.security.ApplicationUserDetails;
+import com.awad.ticketbooking.modules.trip.dto.JoinWaitingRoomRequest;
+import com.awad.ticketbooking.modules.trip.dto.WaitingRoomRequest;
+import com.awad.ticketbooking.modules.trip.dto.WaitingRoomResponse;
+import com.awad.ticketbooking.modules.trip.service.WaitingRoomService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/trips/{tripId}/waiting-room")
+@RequiredArgsConstructor
+@Tag(name = "Waiting room", description = "Endpoints for queueing shoppers of high-demand trips.")
+public class WaitingRoomController {
+
+    private final WaitingRoomService waitingRoomService;
+
+    @GetMapping
+    @Operation(summary = "Get waiting room status", description = "Returns whether the trip has a waiting room, how many shoppers are active and how long the queue is.")
+    public ResponseEntity<WaitingRoomResponse> getStatus(@PathVariable UUID tripId) {
+        return ResponseEntity.ok(waitingRoomService.getStatus(tripId));
+    }
+
+    @PutMapping
+    @Operation(summary = "Configure waiting room", description = "Turns the waiting room of a trip on or off and sets how many shoppers may use the seat map at a time.")
+    public ResponseEntity<WaitingRoomResponse> configure(@PathVariable UUID tripId,
+                                                         @RequestBody @Valid WaitingRoomRequest request) {
+        return ResponseEntity.ok(waitingRoomService.configure(tripId, request));
+    }
+
+    @PostMapping("/join")
+    @Operation(summary = "Join waiting room", description = "Queues the current user or guest, or returns their place in the queue. "
+            + "Once admitted, the returned token must be sent in the X-Queue-Token header when locking seats and booking. "
+            + "Progress is pushed to /topic/trip/{tripId}/queue; call again within the idle timeout to keep the place.")
+    public ResponseEntity<?> join(@PathVariable UUID tripId,
+                                  @RequestBody(required = false) JoinWaitingRoomRequest request,
+                                  @AuthenticationPrincipal ApplicationUserDetails userDetails) {
+        UUID visitorId;
+        if (userDetails != null) {
+            visitorId = userDetails.getUser().getId();
+        } else if (request != null && request.getGuestId() != null && !request.getGuestId().isBlank()) {
+            visitorId = UUID.fromString(request.getGuestId());
+        } else {
+            return ResponseEntity.status(401).body("User must be logged in or provide guest ID");
+        }
+        return ResponseEntity.ok(waitingRoomService.join(tripId, visitorId));
+    }
+}
@@ -0,0 +1,8 @@
+package com.awad.ticketbooking.modules.trip.dto;
+
+import lombok.Data;
+
+@Data
+public class JoinWaitingRoomRequest {
+    private String guestId; // Optional, for guest users
+}
@@ -0,0 +1,42 @@
+package com.awad.ticketbooking.modules.trip.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+public class PricingRuleRequest {
+    // Leave empty to apply the rule to every operator
+    private UUID operatorId;
+
+    @NotBlank
+    private String name;
+
+    @Min(0)
+    @Max(100)
+    private Integer occupancyAbovePercent;
+
+    @Min(0)
+    @Max(100)
+    private Integer occupancyBelowPercent;
+
+    @Positive
+    private Integer withinHoursOfDeparture;
+
+    @NotNull
+    @DecimalMin(value = "-100", inclusive = false)
+    @DecimalMax("999.99")
+    private BigDecimal adjustmentPercent;
+
+    private int priority;
+
+    private boolean active = true;
+}
@@ -0,0 +1,18 @@
+package com.awad.ticketbooking.modules.trip.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QueueStatusMessage {
+    private UUID tripId;
+    // Queued clients are in once this reaches their ticket; ticket - servingTicket approximates their position
+    private long servingTicket;
+    private int queueLength;
+    private int activeShoppers;
+}
@@ -27,6 +27,7 @@ public class SearchTripRequest {
 
     private List<String> amenities;
     private List<java.util.UUID> operatorIds;
+    private Integer minAvailableSeats;
 
     private String sortBy; // e.g., "price,asc" or "departureTime,desc"
     private int page = 0;
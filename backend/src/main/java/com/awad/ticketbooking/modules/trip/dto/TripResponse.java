@@ -2,8 +2,10 @@ package com.awad.ticketbooking.modules.trip.dto;
 
 import com.awad.ticketbooking.common.enums.SeatType;
 import com.awad.ticketbooking.common.enums.TripStatus;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -12,6 +14,8 @@ import java.util.UUID;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class TripResponse {
     private UUID id;
     private RouteInfo route;
@@ -20,9 +24,13 @@ public class TripResponse {
     private Instant arrivalTime;
     private TripStatus status;
     private List<TripPricingInfo> tripPricings;
+    private Integer availableSeats;
+    private List<SeatAvailabilityInfo> seatAvailability;
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class RouteInfo {
         private UUID id;
         private StationInfo originStation;
@@ -34,6 +42,8 @@ public class TripResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class RouteStopInfo {
         private UUID id;
         private StationInfo station;
@@ -44,6 +54,8 @@ public class TripResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class StationInfo {
         private UUID id;
         private String name;
@@ -52,6 +64,8 @@ public class TripResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class BusInfo {
         private UUID id;
         private String plateNumber;
@@ -63,6 +77,8 @@ public class TripResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class OperatorInfo {
         private UUID id;
         private String name;
@@ -70,9 +86,23 @@ public class TripResponse {
 
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class TripPricingInfo {
         private UUID id;
         private SeatType seatType;
         private BigDecimal price;
+        // Configured price before the pricing rule currently applied, equal to price when none applies
+        private BigDecimal basePrice;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SeatAvailabilityInfo {
+        private SeatType seatType;
+        private int totalSeats;
+        private int availableSeats;
     }
 }
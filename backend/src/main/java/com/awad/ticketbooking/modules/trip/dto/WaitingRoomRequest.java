@@ -0,0 +1,19 @@
+package com.awad.ticketbooking.modules.trip.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class WaitingRoomRequest {
+    @NotNull
+    private Boolean enabled;
+
+    // Shoppers allowed on the seat map at the same time, required when enabling
+    @Positive
+    private Integer maxActiveShoppers;
+
+    // How long an admitted shopper keeps their slot without any activity; defaults to app.waiting-room.admission-ttl-seconds
+    @Positive
+    private Integer admissionTtlSeconds;
+}
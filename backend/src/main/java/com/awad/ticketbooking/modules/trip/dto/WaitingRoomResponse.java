@@ -0,0 +1,19 @@
+package com.awad.ticketbooking.modules.trip.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WaitingRoomResponse {
+    private UUID tripId;
+    private boolean enabled;
+    private int maxActiveShoppers;
+    private int activeShoppers;
+    private int queueLength;
+    private long servingTicket; // highest queue ticket let in so far
+}
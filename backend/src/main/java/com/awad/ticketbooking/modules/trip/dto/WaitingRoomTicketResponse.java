@@ -0,0 +1,21 @@
+package com.awad.ticketbooking.modules.trip.dto;
+
+import com.awad.ticketbooking.common.enums.WaitingRoomState;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WaitingRoomTicketResponse {
+    private WaitingRoomState state;
+    // Sent back in the X-Queue-Token header on seat and booking requests; null when the trip has no waiting room
+    private String token;
+    private long ticket;
+    private long position; // 1 = next in line, 0 when not queued
+    private long servingTicket;
+    private Instant admittedUntil;
+}
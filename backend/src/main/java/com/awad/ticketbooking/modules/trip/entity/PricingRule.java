@@ -0,0 +1,68 @@
+package com.awad.ticketbooking.modules.trip.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Adjusts the prices of a trip by a percentage while its occupancy and time to departure are in range,
+ * e.g. +10% above 70% occupancy or -15% within 2 hours of departure below 40%. Unset conditions always hold.
+ */
+@Entity
+@Table(name = "pricing_rules")
+@Getter
+@Setter
+public class PricingRule {
+
+    @Id
+    @GeneratedValue
+    @UuidGenerator
+    private UUID id;
+
+    // Null for rules that apply to every operator
+    @Column(name = "operator_id")
+    private UUID operatorId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(name = "occupancy_above_percent")
+    private Integer occupancyAbovePercent;
+
+    @Column(name = "occupancy_below_percent")
+    private Integer occupancyBelowPercent;
+
+    @Column(name = "within_hours_of_departure")
+    private Integer withinHoursOfDeparture;
+
+    @Column(name = "adjustment_percent", nullable = false)
+    private BigDecimal adjustmentPercent;
+
+    @Column(nullable = false)
+    private int priority;
+
+    @Column(name = "is_active", nullable = false)
+    private boolean active = true;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    public void onCreate() {
+        this.createdAt = Instant.now();
+    }
+
+    public boolean matches(UUID tripOperatorId, double occupancyPercent, Duration untilDeparture) {
+        return (operatorId == null || operatorId.equals(tripOperatorId))
+                && (occupancyAbovePercent == null || occupancyPercent > occupancyAbovePercent)
+                && (occupancyBelowPercent == null || occupancyPercent < occupancyBelowPercent)
+                && (withinHoursOfDeparture == null || (!untilDeparture.isNegative()
+                        && untilDeparture.compareTo(Duration.ofHours(withinHoursOfDeparture)) <= 0));
+    }
+}
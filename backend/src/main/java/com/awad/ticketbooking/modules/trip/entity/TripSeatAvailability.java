@@ -0,0 +1,44 @@
+package com.awad.ticketbooking.modules.trip.entity;
+
+import com.awad.ticketbooking.common.enums.SeatType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.util.UUID;
+
+/**
+ * Seat counters for one seat type of a trip. {@code bookedSeats} is moved by a trigger on
+ * {@code tickets} in the same transaction as the ticket write, so it is read-only here.
+ */
+@Entity
+@Table(name = "trip_seat_availability")
+@Getter
+@Setter
+public class TripSeatAvailability {
+
+    @Id
+    @GeneratedValue
+    @UuidGenerator
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "trip_id", nullable = false)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private Trip trip;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "seat_type", nullable = false)
+    private SeatType seatType;
+
+    @Column(name = "total_seats", nullable = false)
+    private int totalSeats;
+
+    @Column(name = "booked_seats", nullable = false)
+    private int bookedSeats;
+
+    public int getAvailableSeats() {
+        return Math.max(0, totalSeats - bookedSeats);
+    }
+}
@@ -0,0 +1,106 @@
+package com.awad.ticketbooking.modules.trip.mapper;
+
+import com.awad.ticketbooking.common.enums.TripStatus;
+import com.awad.ticketbooking.modules.catalog.entity.Bus;
+import com.awad.ticketbooking.modules.catalog.entity.Route;
+import com.awad.ticketbooking.modules.catalog.entity.Station;
+import com.awad.ticketbooking.modules.trip.dto.TripResponse;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.entity.TripSeatAvailability;
+import com.awad.ticketbooking.modules.trip.service.PriceMatrix;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+public final class TripMapper {
+
+    private TripMapper() {}
+
+    public static TripResponse toResponse(Trip trip, List<TripSeatAvailability> availability, PriceMatrix prices) {
+        return toResponse(trip.getId(), routeInfo(trip.getRoute()), busInfo(trip.getBus()), trip.getDepartureTime(),
+                trip.getArrivalTime(), trip.getStatus(), seatAvailability(availability), prices);
+    }
+
+    /**
+     * Builds a response from parts mapped earlier; the route and bus parts are never modified, so they can be
+     * shared by many responses.
+     */
+    public static TripResponse toResponse(UUID id, TripResponse.RouteInfo route, TripResponse.BusInfo bus,
+                                          Instant departureTime, Instant arrivalTime, TripStatus status,
+                                          List<TripResponse.SeatAvailabilityInfo> seatAvailability,
+                                          PriceMatrix prices) {
+        return TripResponse.builder()
+                .id(id)
+                .route(route)
+                .bus(bus)
+                .departureTime(departureTime)
+                .arrivalTime(arrivalTime)
+                .status(status)
+                .tripPricings(prices.pricings().stream()
+                        .map(pricing -> TripResponse.TripPricingInfo.builder()
+                                .id(pricing.id())
+                                .seatType(pricing.seatType())
+                                .price(pricing.price())
+                                .basePrice(pricing.basePrice())
+                                .build())
+                        .toList())
+                .availableSeats(seatAvailability.stream()
+                        .mapToInt(TripResponse.SeatAvailabilityInfo::getAvailableSeats)
+                        .sum())
+                .seatAvailability(seatAvailability)
+                .build();
+    }
+
+    public static TripResponse.RouteInfo routeInfo(Route route) {
+        return TripResponse.RouteInfo.builder()
+                .id(route.getId())
+                .originStation(stationInfo(route.getOriginStation()))
+                .destinationStation(stationInfo(route.getDestinationStation()))
+                .durationMinutes(route.getDurationMinutes())
+                .stops(route.getStops().stream()
+                        .map(stop -> TripResponse.RouteStopInfo.builder()
+                                .id(stop.getId())
+                                .station(stationInfo(stop.getStation()))
+                                .stopOrder(stop.getStopOrder())
+                                .durationMinutesFromOrigin(stop.getDurationMinutesFromOrigin())
+                                .stopType(stop.getStopType().name())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    public static TripResponse.BusInfo busInfo(Bus bus) {
+        return TripResponse.BusInfo.builder()
+                .id(bus.getId())
+                .plateNumber(bus.getPlateNumber())
+                .operator(TripResponse.OperatorInfo.builder()
+                        .id(bus.getOperator().getId())
+                        .name(bus.getOperator().getName())
+                        .build())
+                .totalSeats(bus.getBusLayout().getTotalSeats())
+                .busLayoutId(bus.getBusLayout().getId())
+                .amenities(bus.getAmenities())
+                .build();
+    }
+
+    public static List<TripResponse.SeatAvailabilityInfo> seatAvailability(List<TripSeatAvailability> availability) {
+        return availability.stream()
+                .sorted(Comparator.comparing(TripSeatAvailability::getSeatType))
+                .map(a -> TripResponse.SeatAvailabilityInfo.builder()
+                        .seatType(a.getSeatType())
+                        .totalSeats(a.getTotalSeats())
+                        .availableSeats(a.getAvailableSeats())
+                        .build())
+                .toList();
+    }
+
+    private static TripResponse.StationInfo stationInfo(Station station) {
+        return TripResponse.StationInfo.builder()
+                .id(station.getId())
+                .name(station.getName())
+                .city(station.getCity())
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package com.awad.ticketbooking.modules.trip.repository;
+
+import com.awad.ticketbooking.modules.trip.entity.PricingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PricingRuleRepository extends JpaRepository<PricingRule, UUID> {
+
+    // Evaluation order: the first matching rule applies
+    List<PricingRule> findByActiveTrueOrderByPriorityAscCreatedAtAsc();
+
+    List<PricingRule> findAllByOrderByPriorityAscCreatedAtAsc();
+}
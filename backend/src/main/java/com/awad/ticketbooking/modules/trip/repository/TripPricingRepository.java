@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -15,4 +17,19 @@ public interface TripPricingRepository extends JpaRepository<TripPricing, UUID>
     @Modifying
     @Query("DELETE FROM TripPricing tp WHERE tp.trip.id = :tripId")
     void deleteAllByTripId(@Param("tripId") UUID tripId);
+
+    @Query("SELECT tp FROM TripPricing tp WHERE tp.trip.id IN :tripIds")
+    List<TripPricing> findByTripIdIn(@Param("tripIds") Collection<UUID> tripIds);
+
+    // Rows of [tripId, operatorId, departure epoch millis, seatCode, seatType] for the active seats of each
+    // trip's bus layout; a trip without seats has one row with null seat columns
+    @Query(value = """
+            SELECT tr.id, b.operator_id, CAST(EXTRACT(EPOCH FROM tr.departure_time) * 1000 AS BIGINT),
+                   ls.seat_code, ls.seat_type
+            FROM trips tr
+            JOIN buses b ON b.id = tr.bus_id
+            LEFT JOIN layout_seats ls ON ls.layout_id = b.bus_layout_id AND ls.is_active IS NOT FALSE
+            WHERE tr.id IN :tripIds
+            """, nativeQuery = true)
+    List<Object[]> findTripSeatsByTripIdIn(@Param("tripIds") Collection<UUID> tripIds);
 }
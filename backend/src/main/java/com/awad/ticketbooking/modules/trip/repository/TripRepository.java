@@ -1,11 +1,15 @@
 package com.awad.ticketbooking.modules.trip.repository;
 
 import com.awad.ticketbooking.modules.trip.entity.Trip;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -23,4 +27,23 @@ public interface TripRepository extends JpaRepository<Trip, UUID>, JpaSpecificat
     java.util.List<Trip> findByRouteId(UUID routeId);
 
     java.util.List<Trip> findByBusId(UUID busId);
+
+    @EntityGraph(attributePaths = {"route", "route.stops"})
+    Optional<Trip> findWithRouteStopsById(UUID id);
+
+    @EntityGraph(attributePaths = {"bus", "route", "route.originStation", "route.destinationStation",
+            "route.stops", "route.stops.station"})
+    java.util.List<Trip> findWithRouteStopsByIdIn(java.util.Collection<UUID> ids);
+
+    // Everything a search result shows, for the in-memory search index
+    @EntityGraph(attributePaths = {"bus", "bus.operator", "bus.busLayout", "route", "route.originStation",
+            "route.destinationStation", "route.stops", "route.stops.station"})
+    java.util.List<Trip> findSearchableByDepartureTimeGreaterThanEqual(Instant from);
+
+    @EntityGraph(attributePaths = {"bus", "bus.operator", "bus.busLayout", "route", "route.originStation",
+            "route.destinationStation", "route.stops", "route.stops.station"})
+    java.util.List<Trip> findSearchableByIdIn(java.util.Collection<UUID> ids);
+
+    @Query("SELECT t.bus.busLayout.id FROM Trip t WHERE t.id = :tripId")
+    Optional<UUID> findBusLayoutIdById(@Param("tripId") UUID tripId);
 }
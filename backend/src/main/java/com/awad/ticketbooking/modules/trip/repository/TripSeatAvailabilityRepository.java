@@ -0,0 +1,62 @@
+package com.awad.ticketbooking.modules.trip.repository;
+
+import com.awad.ticketbooking.modules.trip.entity.TripSeatAvailability;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TripSeatAvailabilityRepository extends JpaRepository<TripSeatAvailability, UUID> {
+
+    String REBUILD_SELECT = """
+            SELECT tr.id, ls.seat_type, COUNT(DISTINCT ls.id), COUNT(DISTINCT ls.id) FILTER (WHERE tk.id IS NOT NULL)
+            FROM trips tr
+            JOIN buses b ON b.id = tr.bus_id
+            JOIN layout_seats ls ON ls.layout_id = b.bus_layout_id AND ls.is_active IS NOT FALSE
+            LEFT JOIN tickets tk ON tk.trip_id = tr.id AND tk.seat_code = ls.seat_code AND tk.active
+            """;
+
+    String REBUILD_UPSERT = """
+            ON CONFLICT (trip_id, seat_type) DO UPDATE
+            SET total_seats = EXCLUDED.total_seats,
+                booked_seats = EXCLUDED.booked_seats
+            """;
+
+    @Query("SELECT a FROM TripSeatAvailability a WHERE a.trip.id IN :tripIds")
+    List<TripSeatAvailability> findByTripIdIn(@Param("tripIds") Collection<UUID> tripIds);
+
+    @Modifying
+    @Query("DELETE FROM TripSeatAvailability a WHERE a.trip.id = :tripId")
+    void deleteAllByTripId(@Param("tripId") UUID tripId);
+
+    @Modifying
+    @Query(value = "INSERT INTO trip_seat_availability (trip_id, seat_type, total_seats, booked_seats) "
+            + REBUILD_SELECT + " WHERE tr.id = :tripId GROUP BY tr.id, ls.seat_type " + REBUILD_UPSERT,
+            nativeQuery = true)
+    int rebuildForTrip(@Param("tripId") UUID tripId);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM trip_seat_availability a
+            WHERE NOT EXISTS (
+                SELECT 1
+                FROM trips tr
+                JOIN buses b ON b.id = tr.bus_id
+                JOIN layout_seats ls ON ls.layout_id = b.bus_layout_id AND ls.is_active IS NOT FALSE
+                WHERE tr.id = a.trip_id AND ls.seat_type = a.seat_type
+            )
+            """, nativeQuery = true)
+    int deleteStale();
+
+    @Modifying
+    @Query(value = "INSERT INTO trip_seat_availability (trip_id, seat_type, total_seats, booked_seats) "
+            + REBUILD_SELECT + " GROUP BY tr.id, ls.seat_type " + REBUILD_UPSERT,
+            nativeQuery = true)
+    int rebuildAll();
+}
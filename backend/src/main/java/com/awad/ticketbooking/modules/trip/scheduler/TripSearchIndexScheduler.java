@@ -0,0 +1,27 @@
+package com.awad.ticketbooking.modules.trip.scheduler;
+
+import com.awad.ticketbooking.modules.trip.service.TripSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TripSearchIndexScheduler {
+
+    private final TripSearchIndex tripSearchIndex;
+
+    // Runs on every node, each keeps its own index; the first run at startup loads it, later runs drop departed
+    // trips and repair anything a missed change message left behind
+    @Scheduled(fixedDelayString = "${app.search.index-rebuild-ms:600000}")
+    public void rebuildIndex() {
+        try {
+            int indexed = tripSearchIndex.rebuild();
+            log.debug("Indexed {} upcoming trips for search", indexed);
+        } catch (Exception e) {
+            log.error("Failed to rebuild the trip search index: {}", e.getMessage());
+        }
+    }
+}
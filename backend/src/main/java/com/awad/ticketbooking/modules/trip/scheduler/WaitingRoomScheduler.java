@@ -0,0 +1,28 @@
+package com.awad.ticketbooking.modules.trip.scheduler;
+
+import com.awad.ticketbooking.modules.trip.service.WaitingRoomService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WaitingRoomScheduler {
+
+    private final WaitingRoomService waitingRoomService;
+
+    // Runs on every node; the admit script is atomic and only the node that moved a queue broadcasts it
+    @Scheduled(fixedDelayString = "${app.waiting-room.admit-interval-ms:1000}")
+    public void admitWaiting() {
+        try {
+            int moved = waitingRoomService.admitWaiting();
+            if (moved > 0) {
+                log.debug("Advanced {} waiting room queues", moved);
+            }
+        } catch (Exception e) {
+            log.error("Failed to advance waiting room queues: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.common.enums.SeatType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The price of every seat of one trip, resolved from the trip's pricing and the seat types of its bus layout,
+ * optionally adjusted by a pricing rule.
+ * <p>
+ * Built by {@link TripPricingService} and never modified, so it is shared by concurrent requests without
+ * copying.
+ */
+public final class PriceMatrix {
+
+    /**
+     * Price of one seat type; {@code basePrice} is the trip's configured price before any pricing rule.
+     */
+    public record Pricing(UUID id, SeatType seatType, BigDecimal price, BigDecimal basePrice) {
+
+        public Pricing(UUID id, SeatType seatType, BigDecimal price) {
+            this(id, seatType, price, price);
+        }
+    }
+
+    private final UUID tripId;
+    private final UUID operatorId;
+    private final Instant departureTime;
+    private final UUID ruleId;
+    private final List<Pricing> pricings;
+    // Seat code to layout type, null when the layout names a type that has no SeatType
+    private final Map<String, SeatType> seatTypes;
+    private final Map<String, BigDecimal> seatPrices;
+
+    public PriceMatrix(UUID tripId, UUID operatorId, Instant departureTime, List<Pricing> pricings,
+                       Map<String, String> layoutSeatTypes) {
+        this(tripId, operatorId, departureTime, null, pricings, seatTypes(layoutSeatTypes));
+    }
+
+    private PriceMatrix(UUID tripId, UUID operatorId, Instant departureTime, UUID ruleId, List<Pricing> pricings,
+                        Map<String, SeatType> seatTypes) {
+        this.tripId = tripId;
+        this.operatorId = operatorId;
+        this.departureTime = departureTime;
+        this.ruleId = ruleId;
+        this.pricings = List.copyOf(pricings);
+        this.seatTypes = seatTypes;
+        Map<SeatType, BigDecimal> typePrices = new EnumMap<>(SeatType.class);
+        pricings.forEach(pricing -> typePrices.put(pricing.seatType(), pricing.price()));
+
+        Map<String, BigDecimal> prices = new HashMap<>();
+        seatTypes.forEach((seatCode, seatType) -> {
+            BigDecimal price = seatType != null ? typePrices.get(seatType) : null;
+            if (price != null) {
+                prices.put(seatCode, price);
+            }
+        });
+        this.seatPrices = Collections.unmodifiableMap(prices);
+    }
+
+    /**
+     * Returns a copy with every base price changed by {@code percent}, rounded to the base price's scale.
+     */
+    public PriceMatrix adjusted(UUID ruleId, BigDecimal percent) {
+        BigDecimal factor = BigDecimal.ONE.add(percent.movePointLeft(2));
+        List<Pricing> adjusted = pricings.stream()
+                .map(pricing -> new Pricing(pricing.id(), pricing.seatType(),
+                        pricing.basePrice().multiply(factor)
+                                .setScale(pricing.basePrice().scale(), RoundingMode.HALF_UP),
+                        pricing.basePrice()))
+                .toList();
+        return new PriceMatrix(tripId, operatorId, departureTime, ruleId, adjusted, seatTypes);
+    }
+
+    public UUID tripId() {
+        return tripId;
+    }
+
+    public UUID operatorId() {
+        return operatorId;
+    }
+
+    public Instant departureTime() {
+        return departureTime;
+    }
+
+    /**
+     * The pricing rule these prices come from, or {@code null} for the trip's base prices.
+     */
+    public UUID ruleId() {
+        return ruleId;
+    }
+
+    /**
+     * Prices set per seat type, as configured on the trip.
+     */
+    public List<Pricing> pricings() {
+        return pricings;
+    }
+
+    /**
+     * Prices of the seats that can be sold, by seat code. Seats whose type has no price are left out.
+     */
+    public Map<String, BigDecimal> seatPrices() {
+        return seatPrices;
+    }
+
+    public boolean hasSeat(String seatCode) {
+        return seatTypes.containsKey(seatCode);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the seat is not on the trip's bus or its type has no price
+     */
+    public BigDecimal priceOf(String seatCode) {
+        BigDecimal price = seatPrices.get(seatCode);
+        if (price != null) {
+            return price;
+        }
+        if (!seatTypes.containsKey(seatCode)) {
+            throw new IllegalArgumentException("Seat " + seatCode + " does not exist on this trip");
+        }
+        SeatType seatType = seatTypes.get(seatCode);
+        throw new IllegalArgumentException("Seat " + seatCode + " cannot be booked: no price is set for "
+                + (seatType != null ? seatType.name() : "its seat type") + " seats on this trip");
+    }
+
+    private static Map<String, SeatType> seatTypes(Map<String, String> layoutSeatTypes) {
+        Map<String, SeatType> types = new HashMap<>();
+        layoutSeatTypes.forEach((seatCode, layoutType) -> types.put(seatCode, seatType(layoutType)));
+        return Collections.unmodifiableMap(types);
+    }
+
+    private static SeatType seatType(String layoutType) {
+        if (layoutType == null) {
+            return null;
+        }
+        try {
+            return SeatType.valueOf(layoutType.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
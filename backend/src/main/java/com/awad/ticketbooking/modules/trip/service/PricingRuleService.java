@@ -0,0 +1,75 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.modules.catalog.repository.OperatorRepository;
+import com.awad.ticketbooking.modules.trip.dto.PricingRuleRequest;
+import com.awad.ticketbooking.modules.trip.entity.PricingRule;
+import com.awad.ticketbooking.modules.trip.repository.PricingRuleRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Manages the occupancy-driven pricing rules; {@link TripPricingService} evaluates them.
+ */
+@Service
+@RequiredArgsConstructor
+public class PricingRuleService {
+
+    private final PricingRuleRepository pricingRuleRepository;
+    private final OperatorRepository operatorRepository;
+    private final TripPricingService tripPricingService;
+
+    @Transactional(readOnly = true)
+    public List<PricingRule> getRules() {
+        return pricingRuleRepository.findAllByOrderByPriorityAscCreatedAtAsc();
+    }
+
+    @Transactional
+    public PricingRule createRule(PricingRuleRequest request) {
+        PricingRule rule = new PricingRule();
+        apply(rule, request);
+        PricingRule saved = pricingRuleRepository.save(rule);
+        tripPricingService.invalidateRules();
+        return saved;
+    }
+
+    @Transactional
+    public PricingRule updateRule(UUID id, PricingRuleRequest request) {
+        PricingRule rule = pricingRuleRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Pricing rule not found"));
+        apply(rule, request);
+        PricingRule saved = pricingRuleRepository.save(rule);
+        tripPricingService.invalidateRules();
+        return saved;
+    }
+
+    @Transactional
+    public void deleteRule(UUID id) {
+        if (!pricingRuleRepository.existsById(id)) {
+            throw new RuntimeException("Pricing rule not found");
+        }
+        pricingRuleRepository.deleteById(id);
+        tripPricingService.invalidateRules();
+    }
+
+    private void apply(PricingRule rule, PricingRuleRequest request) {
+        if (request.getOperatorId() != null && !operatorRepository.existsById(request.getOperatorId())) {
+            throw new IllegalArgumentException("Operator not found");
+        }
+        if (request.getOccupancyAbovePercent() != null && request.getOccupancyBelowPercent() != null
+                && request.getOccupancyAbovePercent() >= request.getOccupancyBelowPercent()) {
+            throw new IllegalArgumentException("occupancyAbovePercent must be below occupancyBelowPercent");
+        }
+        rule.setOperatorId(request.getOperatorId());
+        rule.setName(request.getName());
+        rule.setOccupancyAbovePercent(request.getOccupancyAbovePercent());
+        rule.setOccupancyBelowPercent(request.getOccupancyBelowPercent());
+        rule.setWithinHoursOfDeparture(request.getWithinHoursOfDeparture());
+        rule.setAdjustmentPercent(request.getAdjustmentPercent());
+        rule.setPriority(request.getPriority());
+        rule.setActive(request.isActive());
+    }
+}
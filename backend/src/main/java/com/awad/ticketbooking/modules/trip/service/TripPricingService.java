@@ -0,0 +1,297 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.modules.trip.entity.PricingRule;
+import com.awad.ticketbooking.modules.trip.entity.TripPricing;
+import com.awad.ticketbooking.modules.trip.entity.TripSeatAvailability;
+import com.awad.ticketbooking.modules.trip.repository.PricingRuleRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripPricingRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripSeatAvailabilityRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves seat prices on the server from each trip's pricing, the seat types of its bus layout and the
+ * operators' {@link PricingRule}s.
+ * <p>
+ * Two in-memory layers keep lookups to a map read. The base {@link PriceMatrix} of a trip is built on first
+ * use and kept until the trip's pricing, bus or layout changes; those changes invalidate it once their
+ * transaction ends, on every node through a Redis topic. The effective matrix, with the first matching rule
+ * applied for the trip's current occupancy and time to departure, is kept for
+ * {@code app.pricing.rules-ttl-seconds}. Occupancy comes from the seat counters the tickets trigger keeps up
+ * to date with every sale and release, so no tickets are counted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TripPricingService {
+
+    public static final String TOPIC = "pricing:invalidate";
+    private static final String ALL_TRIPS = "*";
+    private static final String RULES = "rules";
+
+    private final TripPricingRepository tripPricingRepository;
+    private final TripSeatAvailabilityRepository tripSeatAvailabilityRepository;
+    private final PricingRuleRepository pricingRuleRepository;
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.pricing.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${app.pricing.rules-ttl-seconds:30}")
+    private long rulesTtlSeconds;
+
+    private final Map<UUID, PriceMatrix> matrices = new ConcurrentHashMap<>();
+    private final Map<UUID, Effective> effectiveMatrices = new ConcurrentHashMap<>();
+    private volatile ActiveRules activeRules;
+    // Bumped by every invalidation; a load that raced one is returned but not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private RTopic topic;
+    private int listenerId;
+
+    private record Effective(PriceMatrix matrix, long expiresAt) {
+    }
+
+    private record ActiveRules(List<PricingRule> rules, long expiresAt) {
+    }
+
+    @PostConstruct
+    void subscribe() {
+        topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, message) -> evict(message));
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        topic.removeListener(listenerId);
+    }
+
+    public PriceMatrix getMatrix(UUID tripId) {
+        return getMatrices(List.of(tripId)).get(tripId);
+    }
+
+    /**
+     * Returns the effective prices of the given trips. Trips not cached, or cached longer than the rules
+     * TTL, are priced together with at most four queries.
+     */
+    public Map<UUID, PriceMatrix> getMatrices(Collection<UUID> tripIds) {
+        Map<UUID, PriceMatrix> result = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        for (UUID tripId : tripIds) {
+            Effective effective = effectiveMatrices.get(tripId);
+            if (effective != null && now - effective.expiresAt() < 0) {
+                result.put(tripId, effective.matrix());
+            } else {
+                missing.add(tripId);
+            }
+        }
+        meterRegistry.counter("pricing.matrix.hits").increment(result.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        meterRegistry.counter("pricing.matrix.misses").increment(missing.size());
+        long loadedAt = generation.get();
+        Map<UUID, PriceMatrix> priced = applyRules(getBaseMatrices(missing, loadedAt), now);
+        if (generation.get() == loadedAt) {
+            // Departed trips are never looked up again; dropping everything now and then keeps the map bounded
+            if (effectiveMatrices.size() + priced.size() > cacheSize) {
+                effectiveMatrices.clear();
+            }
+            long expiresAt = now + TimeUnit.SECONDS.toNanos(rulesTtlSeconds);
+            priced.forEach((tripId, matrix) -> effectiveMatrices.put(tripId, new Effective(matrix, expiresAt)));
+        }
+        result.putAll(priced);
+        return result;
+    }
+
+    /**
+     * Builds the effective matrix from the current transaction's view without caching it, for responses to
+     * the change that is about to invalidate it.
+     */
+    public PriceMatrix loadMatrix(UUID tripId) {
+        return applyRules(load(List.of(tripId)), System.nanoTime()).get(tripId);
+    }
+
+    /**
+     * Drops the trip's prices on every node once the current transaction ends.
+     */
+    public void invalidate(UUID tripId) {
+        afterCompletion(tripId.toString());
+    }
+
+    /**
+     * Drops every trip's prices on every node once the current transaction ends, e.g. after a bus changed
+     * layout.
+     */
+    public void invalidateAll() {
+        afterCompletion(ALL_TRIPS);
+    }
+
+    /**
+     * Re-reads the pricing rules and re-applies them to every trip on every node once the current
+     * transaction ends.
+     */
+    public void invalidateRules() {
+        afterCompletion(RULES);
+    }
+
+    private Map<UUID, PriceMatrix> getBaseMatrices(List<UUID> tripIds, long loadedAt) {
+        Map<UUID, PriceMatrix> result = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID tripId : tripIds) {
+            PriceMatrix matrix = matrices.get(tripId);
+            if (matrix != null) {
+                result.put(tripId, matrix);
+            } else {
+                missing.add(tripId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<UUID, PriceMatrix> loaded = load(missing);
+        if (generation.get() == loadedAt) {
+            if (matrices.size() + loaded.size() > cacheSize) {
+                matrices.clear();
+            }
+            matrices.putAll(loaded);
+        }
+        result.putAll(loaded);
+        return result;
+    }
+
+    private Map<UUID, PriceMatrix> applyRules(Map<UUID, PriceMatrix> baseMatrices, long now) {
+        List<PricingRule> active = currentRules(now);
+        if (active.isEmpty() || baseMatrices.isEmpty()) {
+            return baseMatrices;
+        }
+
+        // Seat counters of all seat types, summed per trip
+        Map<UUID, int[]> seats = new HashMap<>();
+        for (TripSeatAvailability availability : tripSeatAvailabilityRepository.findByTripIdIn(baseMatrices.keySet())) {
+            int[] counts = seats.computeIfAbsent(availability.getTrip().getId(), tripId -> new int[2]);
+            counts[0] += availability.getTotalSeats();
+            counts[1] += availability.getBookedSeats();
+        }
+
+        Instant at = Instant.now();
+        Map<UUID, PriceMatrix> priced = new HashMap<>();
+        baseMatrices.forEach((tripId, matrix) -> {
+            int[] counts = seats.getOrDefault(tripId, new int[2]);
+            double occupancyPercent = counts[0] == 0 ? 0 : 100.0 * counts[1] / counts[0];
+            Duration untilDeparture = matrix.departureTime() != null
+                    ? Duration.between(at, matrix.departureTime())
+                    : Duration.ofSeconds(-1);
+            PricingRule rule = active.stream()
+                    .filter(candidate -> candidate.matches(matrix.operatorId(), occupancyPercent, untilDeparture))
+                    .findFirst()
+                    .orElse(null);
+            priced.put(tripId, rule != null ? matrix.adjusted(rule.getId(), rule.getAdjustmentPercent()) : matrix);
+        });
+        return priced;
+    }
+
+    private List<PricingRule> currentRules(long now) {
+        ActiveRules current = activeRules;
+        if (current == null || now - current.expiresAt() >= 0) {
+            current = new ActiveRules(List.copyOf(pricingRuleRepository.findByActiveTrueOrderByPriorityAscCreatedAtAsc()),
+                    now + TimeUnit.SECONDS.toNanos(rulesTtlSeconds));
+            activeRules = current;
+        }
+        return current.rules();
+    }
+
+    private Map<UUID, PriceMatrix> load(Collection<UUID> tripIds) {
+        Map<UUID, List<PriceMatrix.Pricing>> pricings = new HashMap<>();
+        for (TripPricing pricing : tripPricingRepository.findByTripIdIn(tripIds)) {
+            pricings.computeIfAbsent(pricing.getTrip().getId(), tripId -> new ArrayList<>())
+                    .add(new PriceMatrix.Pricing(pricing.getId(), pricing.getSeatType(), pricing.getPrice()));
+        }
+        Map<UUID, Object[]> trips = new HashMap<>();
+        Map<UUID, Map<String, String>> seatTypes = new HashMap<>();
+        for (Object[] row : tripPricingRepository.findTripSeatsByTripIdIn(tripIds)) {
+            UUID tripId = (UUID) row[0];
+            trips.putIfAbsent(tripId, row);
+            Map<String, String> types = seatTypes.computeIfAbsent(tripId, id -> new HashMap<>());
+            if (row[3] != null) {
+                types.put((String) row[3], (String) row[4]);
+            }
+        }
+
+        Map<UUID, PriceMatrix> loaded = new HashMap<>();
+        for (UUID tripId : tripIds) {
+            Object[] trip = trips.get(tripId);
+            loaded.put(tripId, new PriceMatrix(tripId,
+                    trip != null ? (UUID) trip[1] : null,
+                    trip != null ? Instant.ofEpochMilli(((Number) trip[2]).longValue()) : null,
+                    pricings.getOrDefault(tripId, List.of()),
+                    seatTypes.getOrDefault(tripId, Map.of())));
+        }
+        return loaded;
+    }
+
+    // After completion rather than commit: a rolled back change may have been read into the cache too
+    private void afterCompletion(String message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                publish(message);
+            }
+        });
+    }
+
+    private void publish(String message) {
+        // Dropped here right away; the topic reaches the other nodes
+        evict(message);
+        try {
+            topic.publish(message);
+        } catch (Exception e) {
+            log.warn("Failed to publish price invalidation {} to other nodes: {}", message, e.getMessage());
+        }
+    }
+
+    private void evict(String message) {
+        generation.incrementAndGet();
+        if (RULES.equals(message)) {
+            activeRules = null;
+            effectiveMatrices.clear();
+        } else if (ALL_TRIPS.equals(message)) {
+            matrices.clear();
+            effectiveMatrices.clear();
+        } else {
+            UUID tripId = UUID.fromString(message);
+            matrices.remove(tripId);
+            effectiveMatrices.remove(tripId);
+        }
+    }
+}
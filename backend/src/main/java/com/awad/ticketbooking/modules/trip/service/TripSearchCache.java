@@ -0,0 +1,407 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.modules.trip.dto.SearchTripRequest;
+import com.awad.ticketbooking.modules.trip.dto.TripResponse;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripSeatAvailabilityRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucket;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScoredSortedSetAsync;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Redis cache of the trip searches {@link TripSearchIndex} cannot answer, keyed by the normalized request.
+ * <p>
+ * Searches without a date, for a past date or with a sort the index does not support run a specification
+ * query, a count and the mapping of every trip on the page; identical requests share one result for
+ * {@code app.search.cache.ttl-seconds}. Requests that only differ in ways the query ignores (city case, the
+ * order of amenities or operators, trailing zeros of a price, time filters without a date) share an entry.
+ * <p>
+ * Every entry is registered in a sorted set of its date ("any" without one), scored by expiry, with the
+ * cities it searched for. A trip created, updated or deleted through {@code TripService} evicts the entries
+ * of its date and the undated ones whose cities match the trip's the way the query does. A booking or
+ * cancellation only evicts once the trip has at most {@code app.search.cache.low-seats} seats left, where a
+ * sell-out, a reopening or a seats-left filter can change the result; smaller seat drift lasts until the TTL.
+ * <p>
+ * Concurrent misses of one request are collapsed: threads of a node share one load, and nodes take a
+ * short-lived claim in Redis so only one of them queries the database while the others wait for its entry.
+ * Every eviction bumps a generation counter and a load that started before it is not stored, so a slow
+ * query cannot put back a result the eviction just dropped. Without Redis every search simply runs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TripSearchCache {
+
+    private static final String ENTRY_KEY = "search:results:%s";
+    private static final String CLAIM_KEY = "search:results:%s:claim";
+    // Members are "<origin>/<destination>/<fingerprint>", cities lower-cased and URL-encoded
+    private static final String INDEX_KEY = "search:results:index:%s";
+    private static final String GENERATION_KEY = "search:results:generation";
+    private static final String ANY_DATE = "any";
+    private static final long MAX_POLL_PAUSE_MS = 100;
+
+    // Stores the entry and registers it, unless an eviction ran since the load started
+    private static final String STORE_SCRIPT = """
+            if tonumber(redis.call('get', KEYS[1]) or '0') ~= tonumber(ARGV[1]) then
+                return 0
+            end
+            redis.call('set', KEYS[2], ARGV[2], 'PX', ARGV[3])
+            redis.call('zadd', KEYS[3], ARGV[4], ARGV[5])
+            redis.call('pexpire', KEYS[3], ARGV[3])
+            return 1
+            """;
+
+    private final TripRepository tripRepository;
+    private final TripSeatAvailabilityRepository tripSeatAvailabilityRepository;
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CompletableFuture<Page<TripResponse>>> loading = new ConcurrentHashMap<>();
+
+    @Value("${app.search.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${app.search.cache.low-seats:5}")
+    private int lowSeats;
+
+    // A node that dies mid-load lets the others query after this long
+    @Value("${app.search.cache.claim-seconds:10}")
+    private long claimSeconds;
+
+    @Value("${app.search.cache.wait-ms:3000}")
+    private long waitMillis;
+
+    record CachedPage(List<TripResponse> content, long totalElements) {
+    }
+
+    // Date and lower-cased cities of a search (empty when it does not filter on them) or of a trip
+    private record Scope(String date, String origin, String destination) {
+
+        // Whether a trip with this scope is found by a search for the given cities
+        boolean foundBy(String searchOrigin, String searchDestination) {
+            return origin.contains(searchOrigin) && destination.contains(searchDestination);
+        }
+    }
+
+    /**
+     * Returns the cached page of the search, or runs {@code search} once for every caller asking for it now.
+     *
+     * @param pageable page, size and sort of the request, as {@code search} applies them
+     */
+    public Page<TripResponse> get(SearchTripRequest request, Pageable pageable, Supplier<Page<TripResponse>> search) {
+        Scope scope = scope(request);
+        String fingerprint = fingerprint(request, pageable);
+        RBucket<String> entry = redissonClient.getBucket(ENTRY_KEY.formatted(fingerprint), StringCodec.INSTANCE);
+        try {
+            String cached = entry.get();
+            if (cached != null) {
+                meterRegistry.counter("search.cache.hits").increment();
+                return read(cached, pageable);
+            }
+        } catch (RedisException e) {
+            log.warn("Search cache unavailable, searching without it: {}", e.getMessage());
+            return search.get();
+        }
+
+        CompletableFuture<Page<TripResponse>> mine = new CompletableFuture<>();
+        CompletableFuture<Page<TripResponse>> running = loading.putIfAbsent(fingerprint, mine);
+        if (running != null) {
+            meterRegistry.counter("search.cache.collapsed").increment();
+            return join(running);
+        }
+        try {
+            Page<TripResponse> page = loadOnce(scope, fingerprint, entry, pageable, search);
+            mine.complete(page);
+            return page;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(fingerprint, mine);
+        }
+    }
+
+    /**
+     * Evicts the searches the trip can appear in, as it is now, once the current transaction commits. Called
+     * before and after an update, so the searches of its old and its new date and cities both go.
+     */
+    public void invalidate(Trip trip) {
+        Scope scope = scope(trip);
+        afterCommit(() -> evict(scope));
+    }
+
+    /**
+     * Evicts the searches of the trip once the current transaction commits, if its seats left are now low
+     * enough for the change to matter.
+     */
+    public void availabilityChanged(UUID tripId) {
+        afterCommit(() -> {
+            try {
+                int seatsLeft = tripSeatAvailabilityRepository.findByTripIdIn(List.of(tripId)).stream()
+                        .mapToInt(availability -> availability.getTotalSeats() - availability.getBookedSeats())
+                        .sum();
+                if (seatsLeft > lowSeats) {
+                    return;
+                }
+                tripRepository.findSearchableByIdIn(List.of(tripId)).forEach(trip -> evict(scope(trip)));
+            } catch (RuntimeException e) {
+                log.warn("Failed to evict cached searches of trip {}: {}", tripId, e.getMessage());
+            }
+        });
+    }
+
+    private Page<TripResponse> loadOnce(Scope scope, String fingerprint, RBucket<String> entry, Pageable pageable,
+                                        Supplier<Page<TripResponse>> search) {
+        String token = UUID.randomUUID().toString();
+        RBucket<String> claim = redissonClient.getBucket(CLAIM_KEY.formatted(fingerprint), StringCodec.INSTANCE);
+        long deadline = System.currentTimeMillis() + waitMillis;
+        long pause = 5;
+        while (true) {
+            try {
+                if (claim.setIfAbsent(token, Duration.ofSeconds(claimSeconds))) {
+                    break;
+                }
+                sleep(pause);
+                pause = Math.min(pause * 2, MAX_POLL_PAUSE_MS);
+                String cached = entry.get();
+                if (cached != null) {
+                    meterRegistry.counter("search.cache.collapsed").increment();
+                    return read(cached, pageable);
+                }
+            } catch (RedisException e) {
+                log.warn("Search cache unavailable, searching without it: {}", e.getMessage());
+                return search.get();
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                // The node holding the claim is slow or gone; search instead of failing the request
+                return search.get();
+            }
+            // A vanished claim without an entry means the load failed or was evicted; claim it and load again
+        }
+
+        try {
+            long generation = redissonClient.getAtomicLong(GENERATION_KEY).get();
+            meterRegistry.counter("search.cache.misses").increment();
+            Page<TripResponse> page = search.get();
+            store(scope, fingerprint, page, generation);
+            return page;
+        } finally {
+            release(claim, token);
+        }
+    }
+
+    private void store(Scope scope, String fingerprint, Page<TripResponse> page, long generation) {
+        try {
+            String json = objectMapper.writeValueAsString(new CachedPage(page.getContent(), page.getTotalElements()));
+            long ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+            redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, STORE_SCRIPT,
+                    RScript.ReturnType.INTEGER,
+                    List.of(GENERATION_KEY, ENTRY_KEY.formatted(fingerprint), INDEX_KEY.formatted(scope.date())),
+                    String.valueOf(generation), json, String.valueOf(ttlMillis),
+                    String.valueOf(System.currentTimeMillis() + ttlMillis),
+                    encode(scope.origin()) + "/" + encode(scope.destination()) + "/" + fingerprint);
+        } catch (JsonProcessingException | RedisException e) {
+            log.warn("Could not cache search {}: {}", fingerprint, e.getMessage());
+        }
+    }
+
+    // Only drops our own claim; another node may have claimed the search after ours expired
+    private void release(RBucket<String> claim, String token) {
+        try {
+            claim.compareAndSet(token, null);
+        } catch (RedisException e) {
+            log.warn("Could not release search claim {}: {}", claim.getName(), e.getMessage());
+        }
+    }
+
+    // Drops the entries of the trip's date and the undated ones whose cities the trip matches
+    private void evict(Scope trip) {
+        try {
+            redissonClient.getAtomicLong(GENERATION_KEY).incrementAndGet();
+
+            double now = System.currentTimeMillis();
+            RBatch batch = redissonClient.createBatch();
+            Map<String, RFuture<Collection<String>>> liveEntries = new LinkedHashMap<>();
+            for (String date : List.of(trip.date(), ANY_DATE)) {
+                RScoredSortedSetAsync<String> index = batch.getScoredSortedSet(INDEX_KEY.formatted(date),
+                        StringCodec.INSTANCE);
+                index.removeRangeByScoreAsync(Double.NEGATIVE_INFINITY, true, now, true);
+                liveEntries.put(date, index.valueRangeAsync(now, false, Double.POSITIVE_INFINITY, true));
+            }
+            batch.execute();
+
+            RBatch cleanup = redissonClient.createBatch();
+            int evicted = 0;
+            for (Map.Entry<String, RFuture<Collection<String>>> live : liveEntries.entrySet()) {
+                List<String> stale = new ArrayList<>();
+                for (String member : live.getValue().toCompletableFuture().join()) {
+                    String[] parts = member.split("/", 3);
+                    if (trip.foundBy(decode(parts[0]), decode(parts[1]))) {
+                        cleanup.getBucket(ENTRY_KEY.formatted(parts[2]), StringCodec.INSTANCE).deleteAsync();
+                        stale.add(member);
+                    }
+                }
+                if (!stale.isEmpty()) {
+                    cleanup.getScoredSortedSet(INDEX_KEY.formatted(live.getKey()), StringCodec.INSTANCE)
+                            .removeAllAsync(stale);
+                    evicted += stale.size();
+                }
+            }
+            if (evicted > 0) {
+                cleanup.execute();
+                meterRegistry.counter("search.cache.evictions").increment(evicted);
+                log.debug("Evicted {} cached searches for {} -> {} on {}", evicted, trip.origin(),
+                        trip.destination(), trip.date());
+            }
+        } catch (RedisException e) {
+            log.warn("Failed to evict cached searches for {} -> {} on {}: {}", trip.origin(), trip.destination(),
+                    trip.date(), e.getMessage());
+        }
+    }
+
+    private Page<TripResponse> read(String json, Pageable pageable) {
+        try {
+            CachedPage cached = objectMapper.readValue(json, CachedPage.class);
+            return new PageImpl<>(cached.content(), pageable, cached.totalElements());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cached search is not a page of trips", e);
+        }
+    }
+
+    private static Scope scope(SearchTripRequest request) {
+        return new Scope(request.getDate() != null ? request.getDate().toString() : ANY_DATE,
+                city(request.getOrigin()), city(request.getDestination()));
+    }
+
+    private static Scope scope(Trip trip) {
+        return new Scope(LocalDate.ofInstant(trip.getDepartureTime(), ZoneId.systemDefault()).toString(),
+                city(trip.getRoute().getOriginStation().getCity()),
+                city(trip.getRoute().getDestinationStation().getCity()));
+    }
+
+    // Everything the query's result depends on, with the parts it ignores left out
+    static String fingerprint(SearchTripRequest request, Pageable pageable) {
+        boolean dated = request.getDate() != null;
+        String normalized = String.join("|",
+                city(request.getOrigin()),
+                city(request.getDestination()),
+                String.valueOf(request.getDate()),
+                dated ? String.valueOf(request.getMinTime()) : "",
+                dated ? String.valueOf(request.getMaxTime()) : "",
+                price(request.getMinPrice()),
+                price(request.getMaxPrice()),
+                sorted(request.getAmenities()),
+                sorted(request.getOperatorIds()),
+                request.getMinAvailableSeats() != null && request.getMinAvailableSeats() > 0
+                        ? request.getMinAvailableSeats().toString() : "",
+                pageable.getSort().toString(),
+                String.valueOf(pageable.getPageNumber()),
+                String.valueOf(pageable.getPageSize()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint search", e);
+        }
+    }
+
+    private static String city(String city) {
+        return city == null || city.isBlank() ? "" : city.toLowerCase();
+    }
+
+    private static String price(BigDecimal price) {
+        return price == null ? "" : price.stripTrailingZeros().toPlainString();
+    }
+
+    private static String sorted(Collection<?> values) {
+        return values == null ? "" : values.stream()
+                .filter(Objects::nonNull)
+                .map(Object::toString)
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    private static String encode(String city) {
+        return URLEncoder.encode(city, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String city) {
+        return URLDecoder.decode(city, StandardCharsets.UTF_8);
+    }
+
+    private static Page<TripResponse> join(CompletableFuture<Page<TripResponse>> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a search to load", e);
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.common.enums.TripStatus;
+import com.awad.ticketbooking.modules.trip.dto.SearchTripRequest;
+import com.awad.ticketbooking.modules.trip.dto.TripResponse;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.entity.TripSeatAvailability;
+import com.awad.ticketbooking.modules.trip.mapper.TripMapper;
+import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripSeatAvailabilityRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Serves trip search from memory instead of the {@code %LIKE%} specification query.
+ * <p>
+ * Trips departing from the start of today on are bucketed by departure date and origin/destination city. A
+ * bucket is an immutable array of trips sorted by departure time, next to a {@code long[]} of the departure
+ * times, so a time window is two binary searches and readers never lock. The index is loaded with one query
+ * and rebuilt by {@code TripSearchIndexScheduler}; in between, a trip change reloads that trip on every node
+ * through a Redis topic and a catalog change reloads everything. Prices come from {@link TripPricingService},
+ * and seats left are read for a whole bucket at once and reused for {@code app.search.availability-ttl-seconds}.
+ * <p>
+ * A search the index cannot answer (no date, a date before the indexed range, an unknown sort property)
+ * returns empty and is run against the database instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TripSearchIndex {
+
+    public static final String TOPIC = "search:trips";
+    private static final String ALL_TRIPS = "*";
+    private static final Set<String> SORT_PROPERTIES = Set.of("departureTime", "arrivalTime", "price");
+
+    private final TripRepository tripRepository;
+    private final TripSeatAvailabilityRepository tripSeatAvailabilityRepository;
+    private final TripPricingService tripPricingService;
+    private final PlatformTransactionManager transactionManager;
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.search.availability-ttl-seconds:5}")
+    private long availabilityTtlSeconds;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    // Replaced as a whole by every change, so searches read a consistent snapshot without locking
+    private volatile Map<LocalDate, Map<CityPair, Bucket>> days = Map.of();
+    // Where each indexed trip is, to move it when it changes; guarded by this
+    private final Map<UUID, BucketKey> locations = new HashMap<>();
+    // Null until the first load, so every search goes to the database until then
+    private volatile LocalDate indexedFrom;
+
+    private RTopic topic;
+    private int listenerId;
+
+    record CityPair(String origin, String destination) {
+    }
+
+    record BucketKey(LocalDate date, CityPair cities) {
+    }
+
+    /**
+     * What a search filters on and shows about one trip; {@code departure} is in epoch milliseconds.
+     */
+    record IndexedTrip(UUID id, long departure, Instant departureTime, Instant arrivalTime, TripStatus status,
+                       UUID operatorId, List<String> amenities, TripResponse.RouteInfo route,
+                       TripResponse.BusInfo bus) {
+    }
+
+    private record SeatCounts(Map<UUID, List<TripResponse.SeatAvailabilityInfo>> byTrip, long expiresAt) {
+    }
+
+    private record Candidate(IndexedTrip trip, Bucket bucket) {
+    }
+
+    static final class Bucket {
+
+        private static final Comparator<IndexedTrip> ORDER = Comparator.comparingLong(IndexedTrip::departure)
+                .thenComparing(IndexedTrip::id);
+
+        final IndexedTrip[] trips;
+        final long[] departures;
+        volatile SeatCounts seats;
+
+        Bucket(Collection<IndexedTrip> trips) {
+            this.trips = trips.toArray(IndexedTrip[]::new);
+            Arrays.sort(this.trips, ORDER);
+            this.departures = Arrays.stream(this.trips).mapToLong(IndexedTrip::departure).toArray();
+        }
+
+        // Index of the first trip departing at or after the given time
+        int from(long departure) {
+            int low = 0;
+            int high = departures.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (departures[mid] < departure) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    @PostConstruct
+    void subscribe() {
+        topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, message) -> apply(message));
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        topic.removeListener(listenerId);
+    }
+
+    public Optional<Page<TripResponse>> search(SearchTripRequest request) {
+        LocalDate date = request.getDate();
+        LocalDate from = indexedFrom;
+        String property = "departureTime";
+        Sort.Direction direction = Sort.Direction.ASC;
+        Sort sort = Sort.unsorted();
+        if (request.getSortBy() != null) {
+            String[] parts = request.getSortBy().split(",");
+            property = parts[0];
+            if (parts.length == 2) {
+                direction = Sort.Direction.fromString(parts[1]);
+                sort = Sort.by(direction, property);
+            } else {
+                sort = Sort.by(property);
+            }
+        }
+        if (from == null || date == null || date.isBefore(from) || !SORT_PROPERTIES.contains(property)) {
+            meterRegistry.counter("search.index.misses").increment();
+            return Optional.empty();
+        }
+        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), sort);
+
+        long dayStart = date.atStartOfDay(zone).toInstant().toEpochMilli();
+        long dayEnd = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        long earliest = request.getMinTime() != null
+                ? Math.max(dayStart, date.atTime(request.getMinTime()).atZone(zone).toInstant().toEpochMilli())
+                : dayStart;
+        long latest = request.getMaxTime() != null
+                ? Math.min(dayEnd - 1, date.atTime(request.getMaxTime()).atZone(zone).toInstant().toEpochMilli())
+                : dayEnd - 1;
+        String origin = cityQuery(request.getOrigin());
+        String destination = cityQuery(request.getDestination());
+        Set<UUID> operatorIds = request.getOperatorIds() != null && !request.getOperatorIds().isEmpty()
+                ? new HashSet<>(request.getOperatorIds())
+                : null;
+        List<String> amenities = request.getAmenities() != null ? request.getAmenities() : List.of();
+
+        List<Candidate> candidates = new ArrayList<>();
+        days.getOrDefault(date, Map.of()).forEach((cities, bucket) -> {
+            if (!cities.origin().contains(origin) || !cities.destination().contains(destination)) {
+                return;
+            }
+            for (int i = bucket.from(earliest); i < bucket.trips.length && bucket.departures[i] <= latest; i++) {
+                IndexedTrip trip = bucket.trips[i];
+                if ((operatorIds == null || operatorIds.contains(trip.operatorId())) && hasAll(trip, amenities)) {
+                    candidates.add(new Candidate(trip, bucket));
+                }
+            }
+        });
+
+        Map<UUID, PriceMatrix> prices = new HashMap<>();
+        BigDecimal minPrice = request.getMinPrice();
+        BigDecimal maxPrice = request.getMaxPrice();
+        if (minPrice != null || maxPrice != null || property.equals("price")) {
+            prices.putAll(tripPricingService.getMatrices(ids(candidates)));
+            if (minPrice != null || maxPrice != null) {
+                candidates.removeIf(candidate -> !hasPriceBetween(prices.get(candidate.trip().id()), minPrice, maxPrice));
+            }
+        }
+        Map<UUID, List<TripResponse.SeatAvailabilityInfo>> seats = new HashMap<>();
+        Integer minAvailableSeats = request.getMinAvailableSeats();
+        if (minAvailableSeats != null && minAvailableSeats > 0) {
+            seats.putAll(seatCounts(candidates));
+            candidates.removeIf(candidate -> availableSeats(seats.get(candidate.trip().id())) < minAvailableSeats);
+        }
+
+        candidates.sort(order(property, direction, prices));
+        int start = (int) Math.min(pageable.getOffset(), candidates.size());
+        List<Candidate> page = candidates.subList(start, Math.min(start + pageable.getPageSize(), candidates.size()));
+        if (!prices.keySet().containsAll(ids(page))) {
+            prices.putAll(tripPricingService.getMatrices(ids(page)));
+        }
+        if (seats.isEmpty()) {
+            seats.putAll(seatCounts(page));
+        }
+        List<TripResponse> content = page.stream()
+                .map(Candidate::trip)
+                .map(trip -> TripMapper.toResponse(trip.id(), trip.route(), trip.bus(), trip.departureTime(),
+                        trip.arrivalTime(), trip.status(), seats.getOrDefault(trip.id(), List.of()),
+                        prices.get(trip.id())))
+                .toList();
+        meterRegistry.counter("search.index.hits").increment();
+        return Optional.of(new PageImpl<>(content, pageable, candidates.size()));
+    }
+
+    /**
+     * Reloads the trip on every node once the current transaction commits.
+     */
+    public void refresh(UUID tripId) {
+        afterCommit(tripId.toString());
+    }
+
+    /**
+     * Reloads every trip on every node once the current transaction commits, e.g. after a station, route, bus
+     * or operator shown in search results changed.
+     */
+    public void refreshAll() {
+        afterCommit(ALL_TRIPS);
+    }
+
+    /**
+     * Replaces the index with the trips departing from the start of today on.
+     *
+     * @return number of trips indexed
+     */
+    public synchronized int rebuild() {
+        LocalDate from = LocalDate.now(zone);
+        List<IndexedTrip> trips = load(
+                () -> tripRepository.findSearchableByDepartureTimeGreaterThanEqual(from.atStartOfDay(zone).toInstant()));
+
+        Map<BucketKey, List<IndexedTrip>> grouped = new HashMap<>();
+        locations.clear();
+        for (IndexedTrip trip : trips) {
+            BucketKey key = key(trip);
+            grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(trip);
+            locations.put(trip.id(), key);
+        }
+        Map<LocalDate, Map<CityPair, Bucket>> rebuilt = new HashMap<>();
+        grouped.forEach((key, bucketTrips) ->
+                rebuilt.computeIfAbsent(key.date(), date -> new HashMap<>()).put(key.cities(), new Bucket(bucketTrips)));
+        rebuilt.replaceAll((date, pairs) -> Collections.unmodifiableMap(pairs));
+        days = Collections.unmodifiableMap(rebuilt);
+        indexedFrom = from;
+        return trips.size();
+    }
+
+    synchronized void reload(Collection<UUID> tripIds) {
+        LocalDate from = indexedFrom;
+        if (from == null) {
+            // The first load will pick them up
+            return;
+        }
+        List<IndexedTrip> trips = load(() -> tripRepository.findSearchableByIdIn(tripIds));
+
+        Map<LocalDate, Map<CityPair, Bucket>> next = new HashMap<>(days);
+        for (UUID tripId : tripIds) {
+            BucketKey key = locations.remove(tripId);
+            if (key != null) {
+                update(next, key, bucketTrips -> bucketTrips.removeIf(trip -> trip.id().equals(tripId)));
+            }
+        }
+        for (IndexedTrip trip : trips) {
+            BucketKey key = key(trip);
+            if (!key.date().isBefore(from)) {
+                update(next, key, bucketTrips -> bucketTrips.add(trip));
+                locations.put(trip.id(), key);
+            }
+        }
+        days = Collections.unmodifiableMap(next);
+    }
+
+    private static void update(Map<LocalDate, Map<CityPair, Bucket>> days, BucketKey key,
+                               Consumer<List<IndexedTrip>> change) {
+        Map<CityPair, Bucket> pairs = new HashMap<>(days.getOrDefault(key.date(), Map.of()));
+        Bucket bucket = pairs.get(key.cities());
+        List<IndexedTrip> trips = bucket != null ? new ArrayList<>(Arrays.asList(bucket.trips)) : new ArrayList<>();
+        change.accept(trips);
+        if (trips.isEmpty()) {
+            pairs.remove(key.cities());
+        } else {
+            pairs.put(key.cities(), new Bucket(trips));
+        }
+        if (pairs.isEmpty()) {
+            days.remove(key.date());
+        } else {
+            days.put(key.date(), Collections.unmodifiableMap(pairs));
+        }
+    }
+
+    private List<IndexedTrip> load(Supplier<List<Trip>> query) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> query.get().stream().map(this::index).toList());
+    }
+
+    private IndexedTrip index(Trip trip) {
+        return new IndexedTrip(trip.getId(), trip.getDepartureTime().toEpochMilli(), trip.getDepartureTime(),
+                trip.getArrivalTime(), trip.getStatus(), trip.getBus().getOperator().getId(),
+                trip.getBus().getAmenities() != null ? List.copyOf(trip.getBus().getAmenities()) : List.of(),
+                TripMapper.routeInfo(trip.getRoute()), TripMapper.busInfo(trip.getBus()));
+    }
+
+    private BucketKey key(IndexedTrip trip) {
+        return new BucketKey(LocalDate.ofInstant(trip.departureTime(), zone), new CityPair(
+                city(trip.route().getOriginStation().getCity()),
+                city(trip.route().getDestinationStation().getCity())));
+    }
+
+    // Reads the seats left of every trip in the candidates' buckets that were not read within the TTL, in one
+    // query for all of them
+    private Map<UUID, List<TripResponse.SeatAvailabilityInfo>> seatCounts(List<Candidate> candidates) {
+        long now = System.nanoTime();
+        Set<Bucket> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Candidate candidate : candidates) {
+            SeatCounts counts = candidate.bucket().seats;
+            if (counts == null || now - counts.expiresAt() >= 0) {
+                stale.add(candidate.bucket());
+            }
+        }
+        if (!stale.isEmpty()) {
+            List<UUID> tripIds = stale.stream()
+                    .flatMap(bucket -> Arrays.stream(bucket.trips))
+                    .map(IndexedTrip::id)
+                    .toList();
+            Map<UUID, List<TripSeatAvailability>> availability = tripSeatAvailabilityRepository.findByTripIdIn(tripIds)
+                    .stream()
+                    .collect(Collectors.groupingBy(a -> a.getTrip().getId()));
+            long expiresAt = now + TimeUnit.SECONDS.toNanos(availabilityTtlSeconds);
+            for (Bucket bucket : stale) {
+                Map<UUID, List<TripResponse.SeatAvailabilityInfo>> byTrip = new HashMap<>();
+                for (IndexedTrip trip : bucket.trips) {
+                    byTrip.put(trip.id(), TripMapper.seatAvailability(availability.getOrDefault(trip.id(), List.of())));
+                }
+                bucket.seats = new SeatCounts(byTrip, expiresAt);
+            }
+        }
+
+        Map<UUID, List<TripResponse.SeatAvailabilityInfo>> seats = new HashMap<>();
+        for (Candidate candidate : candidates) {
+            UUID tripId = candidate.trip().id();
+            seats.put(tripId, candidate.bucket().seats.byTrip().getOrDefault(tripId, List.of()));
+        }
+        return seats;
+    }
+
+    private static Comparator<Candidate> order(String property, Sort.Direction direction,
+                                               Map<UUID, PriceMatrix> prices) {
+        Comparator<Candidate> order = switch (property) {
+            // Trips without any price go last either way
+            case "price" -> Comparator.comparing(candidate -> lowestPrice(prices.get(candidate.trip().id())),
+                    Comparator.nullsLast(direction.isAscending()
+                            ? Comparator.<BigDecimal>naturalOrder()
+                            : Comparator.<BigDecimal>reverseOrder()));
+            case "arrivalTime" -> direction.isAscending()
+                    ? Comparator.comparing(candidate -> candidate.trip().arrivalTime())
+                    : Comparator.comparing((Candidate candidate) -> candidate.trip().arrivalTime()).reversed();
+            default -> direction.isAscending()
+                    ? Comparator.comparingLong(candidate -> candidate.trip().departure())
+                    : Comparator.comparingLong((Candidate candidate) -> candidate.trip().departure()).reversed();
+        };
+        return order.thenComparing(candidate -> candidate.trip().id());
+    }
+
+    private static BigDecimal lowestPrice(PriceMatrix prices) {
+        return prices == null ? null : prices.pricings().stream()
+                .map(PriceMatrix.Pricing::price)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+    }
+
+    // Same as the database path: some seat type is priced within the range
+    private static boolean hasPriceBetween(PriceMatrix prices, BigDecimal min, BigDecimal max) {
+        return prices != null && prices.pricings().stream()
+                .map(PriceMatrix.Pricing::price)
+                .anyMatch(price -> (min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0));
+    }
+
+    private static boolean hasAll(IndexedTrip trip, List<String> amenities) {
+        for (String amenity : amenities) {
+            if (trip.amenities().stream().noneMatch(busAmenity -> busAmenity.contains(amenity))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int availableSeats(List<TripResponse.SeatAvailabilityInfo> seats) {
+        return seats == null ? 0 : seats.stream().mapToInt(TripResponse.SeatAvailabilityInfo::getAvailableSeats).sum();
+    }
+
+    private static List<UUID> ids(List<Candidate> candidates) {
+        return candidates.stream().map(candidate -> candidate.trip().id()).toList();
+    }
+
+    // Matches like the database path's lower(city) LIKE '%query%'
+    private static String cityQuery(String query) {
+        return query == null || query.isBlank() ? "" : city(query);
+    }
+
+    private static String city(String city) {
+        return city.toLowerCase(Locale.ROOT);
+    }
+
+    private void afterCommit(String message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(message);
+            }
+        });
+    }
+
+    // Every node, including this one, applies the change when the message comes back on the topic
+    private void publish(String message) {
+        try {
+            topic.publish(message);
+        } catch (Exception e) {
+            log.warn("Failed to publish search index change {} to other nodes: {}", message, e.getMessage());
+            apply(message);
+        }
+    }
+
+    private void apply(String message) {
+        try {
+            if (ALL_TRIPS.equals(message)) {
+                rebuild();
+            } else {
+                reload(List.of(UUID.fromString(message)));
+            }
+        } catch (Exception e) {
+            log.error("Failed to update the search index for {}: {}", message, e.getMessage());
+        }
+    }
+}
@@ -9,10 +9,15 @@ import com.awad.ticketbooking.modules.trip.dto.SearchTripRequest;
 import com.awad.ticketbooking.modules.trip.dto.TripResponse;
 import com.awad.ticketbooking.modules.trip.entity.Trip;
 import com.awad.ticketbooking.modules.trip.entity.TripPricing;
+import com.awad.ticketbooking.modules.trip.entity.TripSeatAvailability;
+import com.awad.ticketbooking.modules.trip.mapper.TripMapper;
 import com.awad.ticketbooking.modules.trip.repository.TripPricingRepository;
 import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripSeatAvailabilityRepository;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -20,12 +25,16 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,9 +43,14 @@ public class TripService {
 
     private final TripRepository tripRepository;
     private final TripPricingRepository tripPricingRepository;
+    private final TripSeatAvailabilityRepository tripSeatAvailabilityRepository;
     private final BusRepository busRepository;
     private final RouteRepository routeRepository;
     private final com.awad.ticketbooking.modules.booking.repository.BookingRepository bookingRepository;
+    private final TripPricingService tripPricingService;
+    private final TripSearchIndex tripSearchIndex;
+    private final TripSearchCache tripSearchCache;
+    private final PlatformTransactionManager transactionManager;
 
     @Transactional
     public TripResponse createTrip(CreateTripRequest request) {
@@ -60,7 +74,8 @@ public class TripService {
         trip.setDepartureTime(request.getDepartureTime());
         trip.setArrivalTime(request.getArrivalTime());
 
-        Trip savedTrip = tripRepository.save(trip);
+        Trip savedTrip = tripRepository.saveAndFlush(trip);
+        tripSeatAvailabilityRepository.rebuildForTrip(savedTrip.getId());
 
         if (request.getPricings() != null) {
             List<TripPricing> pricings = request.getPricings().stream().map(p -> {
@@ -73,8 +88,12 @@ public class TripService {
             tripPricingRepository.saveAll(pricings);
             savedTrip.setTripPricings(pricings);
         }
+        tripPricingService.invalidate(savedTrip.getId());
+        tripSearchIndex.refresh(savedTrip.getId());
+        tripSearchCache.invalidate(savedTrip);
 
-        return mapToResponse(savedTrip);
+        return mapToResponse(savedTrip, tripSeatAvailabilityRepository.findByTripIdIn(List.of(savedTrip.getId())),
+                tripPricingService.loadMatrix(savedTrip.getId()));
     }
 
     @Transactional
@@ -103,6 +122,9 @@ public class TripService {
                         "Bus " + bus.getPlateNumber() + " is already assigned to another trip during this time");
             }
 
+            // Searches that found the trip where it was
+            tripSearchCache.invalidate(trip);
+
             trip.setBus(bus);
             trip.setRoute(route);
             trip.setDepartureTime(request.getDepartureTime());
@@ -125,7 +147,18 @@ public class TripService {
                 trip.getTripPricings().addAll(pricings);
             }
 
-            return mapToResponse(tripRepository.save(trip));
+            Trip savedTrip = tripRepository.saveAndFlush(trip);
+
+            // The bus (and so the layout) may have changed; the trip has no tickets yet
+            tripSeatAvailabilityRepository.deleteAllByTripId(id);
+            tripSeatAvailabilityRepository.rebuildForTrip(id);
+            // Pricing, bus and so seat types may all have changed
+            tripPricingService.invalidate(id);
+            tripSearchIndex.refresh(id);
+            tripSearchCache.invalidate(savedTrip);
+
+            return mapToResponse(savedTrip, tripSeatAvailabilityRepository.findByTripIdIn(List.of(id)),
+                    tripPricingService.loadMatrix(id));
         } catch (RuntimeException e) {
             throw e; // Re-throw RuntimeException as-is
         } catch (Exception e) {
@@ -135,17 +168,33 @@ public class TripService {
 
     @Transactional
     public void deleteTrip(java.util.UUID id, boolean force) {
-        if (!tripRepository.existsById(id)) {
-            throw new RuntimeException("Trip not found");
-        }
+        Trip trip = tripRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Trip not found"));
         if (force) {
             bookingRepository.deleteByTripId(id);
         }
+        tripSearchCache.invalidate(trip);
         tripRepository.deleteById(id);
+        tripPricingService.invalidate(id);
+        tripSearchIndex.refresh(id);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Answers from the in-memory {@link TripSearchIndex} when it can, without a transaction, and from the
+     * database otherwise, through {@link TripSearchCache} so identical searches share one query.
+     */
     public Page<TripResponse> searchTrips(SearchTripRequest request) {
+        return tripSearchIndex.search(request).orElseGet(() -> {
+            Pageable pageable = pageable(request);
+            return tripSearchCache.get(request, pageable, () -> {
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                transaction.setReadOnly(true);
+                return transaction.execute(status -> searchDatabase(request, pageable));
+            });
+        });
+    }
+
+    private Page<TripResponse> searchDatabase(SearchTripRequest request, Pageable pageable) {
         Specification<Trip> spec = (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
@@ -206,10 +255,25 @@ public class TripService {
                 predicates.add(root.get("bus").get("operator").get("id").in(request.getOperatorIds()));
             }
 
+            // 7. Seats Left Filter - reads the maintained counters instead of counting tickets
+            if (request.getMinAvailableSeats() != null && request.getMinAvailableSeats() > 0) {
+                Subquery<Integer> available = query.subquery(Integer.class);
+                Root<TripSeatAvailability> availability = available.from(TripSeatAvailability.class);
+                available.select(cb.sum(cb.diff(availability.<Integer>get("totalSeats"),
+                                availability.<Integer>get("bookedSeats"))))
+                        .where(cb.equal(availability.get("trip"), root));
+                predicates.add(cb.greaterThanOrEqualTo(available, request.getMinAvailableSeats()));
+            }
+
             return cb.and(predicates.toArray(new Predicate[0]));
         };
 
-        // Sorting
+        Page<Trip> trips = tripRepository.findAll(spec, pageable);
+
+        return mapPage(trips);
+    }
+
+    private static Pageable pageable(SearchTripRequest request) {
         Sort sort = Sort.unsorted();
         if (request.getSortBy() != null) {
             String[] parts = request.getSortBy().split(",");
@@ -219,77 +283,70 @@ public class TripService {
                 sort = Sort.by(parts[0]);
             }
         }
+        return PageRequest.of(request.getPage(), request.getSize(), sort);
+    }
 
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), sort);
-        Page<Trip> trips = tripRepository.findAll(spec, pageable);
+    @Transactional(readOnly = true)
+    public Page<TripResponse> getAllTrips(Pageable pageable) {
+        return mapPage(tripRepository.findAll(pageable));
+    }
+
+    /**
+     * Recomputes the seat counters of one trip from its bus layout and active tickets.
+     */
+    @Transactional
+    public void rebuildSeatAvailability(UUID tripId) {
+        if (!tripRepository.existsById(tripId)) {
+            throw new RuntimeException("Trip not found");
+        }
+        tripSeatAvailabilityRepository.deleteAllByTripId(tripId);
+        tripSeatAvailabilityRepository.rebuildForTrip(tripId);
+    }
 
-        return trips.map(this::mapToResponse);
+    /**
+     * Recomputes the seat counters of every trip, e.g. after fixing tickets by hand.
+     *
+     * @return number of counter rows written
+     */
+    @Transactional
+    public int rebuildAllSeatAvailability() {
+        tripSeatAvailabilityRepository.deleteStale();
+        return tripSeatAvailabilityRepository.rebuildAll();
     }
 
+    /**
+     * Prices of the trip's bookable seats by seat code, for rendering the seat map.
+     */
     @Transactional(readOnly = true)
-    public Page<TripResponse> getAllTrips(Pageable pageable) {
-        return tripRepository.findAll(pageable)
-                .map(this::mapToResponse);
+    public Map<String, java.math.BigDecimal> getSeatPrices(UUID id) {
+        if (!tripRepository.existsById(id)) {
+            throw new RuntimeException("Trip not found");
+        }
+        return tripPricingService.getMatrix(id).seatPrices();
+    }
+
+    // Loads the counters of the whole page in one query instead of one per trip, and prices from the
+    // cached matrices instead of each trip's pricing collection
+    private Page<TripResponse> mapPage(Page<Trip> trips) {
+        List<UUID> tripIds = trips.map(Trip::getId).getContent();
+        Map<UUID, List<TripSeatAvailability>> availabilityByTrip = tripIds.isEmpty()
+                ? Map.of()
+                : tripSeatAvailabilityRepository.findByTripIdIn(tripIds).stream()
+                        .collect(Collectors.groupingBy(a -> a.getTrip().getId()));
+        Map<UUID, PriceMatrix> prices = tripIds.isEmpty() ? Map.of() : tripPricingService.getMatrices(tripIds);
+        return trips.map(trip -> mapToResponse(trip, availabilityByTrip.getOrDefault(trip.getId(), List.of()),
+                prices.get(trip.getId())));
     }
 
-    private TripResponse mapToResponse(Trip trip) {
-        return TripResponse.builder()
-                .id(trip.getId())
-                .route(TripResponse.RouteInfo.builder()
-                        .id(trip.getRoute().getId())
-                        .originStation(TripResponse.StationInfo.builder()
-                                .id(trip.getRoute().getOriginStation().getId())
-                                .name(trip.getRoute().getOriginStation().getName())
-                                .city(trip.getRoute().getOriginStation().getCity())
-                                .build())
-                        .destinationStation(TripResponse.StationInfo.builder()
-                                .id(trip.getRoute().getDestinationStation().getId())
-                                .name(trip.getRoute().getDestinationStation().getName())
-                                .city(trip.getRoute().getDestinationStation().getCity())
-                                .build())
-                        .durationMinutes(trip.getRoute().getDurationMinutes())
-                        .stops(trip.getRoute().getStops().stream()
-                                .map(stop -> TripResponse.RouteStopInfo.builder()
-                                        .id(stop.getId())
-                                        .station(TripResponse.StationInfo.builder()
-                                                .id(stop.getStation().getId())
-                                                .name(stop.getStation().getName())
-                                                .city(stop.getStation().getCity())
-                                                .build())
-                                        .stopOrder(stop.getStopOrder())
-                                        .durationMinutesFromOrigin(stop.getDurationMinutesFromOrigin())
-                                        .stopType(stop.getStopType().name())
-                                        .build())
-                                .collect(Collectors.toList()))
-                        .build())
-                .bus(TripResponse.BusInfo.builder()
-                        .id(trip.getBus().getId())
-                        .plateNumber(trip.getBus().getPlateNumber())
-                        .operator(TripResponse.OperatorInfo.builder()
-                                .id(trip.getBus().getOperator().getId())
-                                .name(trip.getBus().getOperator().getName())
-                                .build())
-                        .totalSeats(trip.getBus().getBusLayout().getTotalSeats())
-                        .busLayoutId(trip.getBus().getBusLayout().getId())
-                        .amenities(trip.getBus().getAmenities())
-                        .build())
-                .departureTime(trip.getDepartureTime())
-                .arrivalTime(trip.getArrivalTime())
-                .status(trip.getStatus())
-                .tripPricings(trip.getTripPricings().stream()
-                        .map(pricing -> TripResponse.TripPricingInfo.builder()
-                                .id(pricing.getId())
-                                .seatType(pricing.getSeatType())
-                                .price(pricing.getPrice())
-                                .build())
-                        .collect(Collectors.toList()))
-                .build();
+    private TripResponse mapToResponse(Trip trip, List<TripSeatAvailability> availability, PriceMatrix prices) {
+        return TripMapper.toResponse(trip, availability, prices);
     }
 
     @Transactional(readOnly = true)
     public TripResponse getTripById(java.util.UUID id) {
         Trip trip = tripRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Trip not found")); // Should use custom exception
-        return mapToResponse(trip);
+        return mapToResponse(trip, tripSeatAvailabilityRepository.findByTripIdIn(List.of(id)),
+                tripPricingService.getMatrix(id));
     }
 }
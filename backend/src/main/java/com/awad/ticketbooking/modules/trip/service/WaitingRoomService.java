@@ -0,0 +1,322 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.common.enums.WaitingRoomState;
+import com.awad.ticketbooking.common.exception.WaitingRoomException;
+import com.awad.ticketbooking.common.service.ClusterBroadcastService;
+import com.awad.ticketbooking.modules.trip.dto.QueueStatusMessage;
+import com.awad.ticketbooking.modules.trip.dto.WaitingRoomRequest;
+import com.awad.ticketbooking.modules.trip.dto.WaitingRoomResponse;
+import com.awad.ticketbooking.modules.trip.dto.WaitingRoomTicketResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Per-trip admission control for flash sales, kept in Redis.
+ * <p>
+ * When an admin turns the waiting room on for a trip, only a fixed number of shoppers may use its
+ * seat map at a time. Everyone else joins a FIFO queue: each visitor gets a queue ticket number and
+ * an opaque token, and a periodic sweep moves the head of the queue in as admitted shoppers leave,
+ * book or go idle. Seat and booking endpoints require an admitted token, so a hot trip cannot tie up
+ * database connections and Redis for every other trip.
+ * <p>
+ * Progress is broadcast per trip as the highest ticket let in so far, one frame for the whole queue;
+ * clients compare it with their own ticket. Trips without a waiting room are recognised from a local
+ * copy of the enabled set and cost no Redis round trip.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WaitingRoomService {
+
+    public static final String ADMISSION_HEADER = "X-Queue-Token";
+
+    private final RedissonClient redissonClient;
+    private final ClusterBroadcastService clusterBroadcastService;
+    private final MeterRegistry meterRegistry;
+
+    // Settings and counters (capacity, admission-ttl, idle-timeout, seq, served, announced); exists only while enabled
+    private static final String CONFIG_KEY = "trip:%s:waiting-room";
+    private static final String TOKENS_KEY = "trip:%s:waiting-room:tokens";
+    private static final String QUEUE_KEY = "trip:%s:waiting-room:queue";
+    private static final String SEEN_KEY = "trip:%s:waiting-room:seen";
+    private static final String ADMITTED_KEY = "trip:%s:waiting-room:admitted";
+    private static final String TRIPS_KEY = "waiting-room:trips";
+
+    // A forgotten waiting room switches itself off after this long without visitors
+    private static final Duration ROOM_RETENTION = Duration.ofDays(3);
+
+    // KEYS: config, tokens, queue (token -> ticket), seen (token -> last join), admitted (token -> expiresAt).
+    // Lets queued visitors in while there are free slots; visitors that stopped polling are dropped
+    // when they reach the head of the queue instead of taking a slot nobody uses.
+    private static final String ROOM_FUNCTIONS = """
+            local function admit(now)
+              local capacity = tonumber(redis.call('HGET', KEYS[1], 'capacity'))
+              local ttl = tonumber(redis.call('HGET', KEYS[1], 'admission-ttl'))
+              local idle = tonumber(redis.call('HGET', KEYS[1], 'idle-timeout'))
+              local changed = redis.call('ZREMRANGEBYSCORE', KEYS[5], '-inf', now) > 0
+              local free = capacity - redis.call('ZCARD', KEYS[5])
+              while free > 0 do
+                local head = redis.call('ZRANGE', KEYS[3], 0, 0, 'WITHSCORES')
+                if #head == 0 then
+                  break
+                end
+                local seen = tonumber(redis.call('ZSCORE', KEYS[4], head[1]))
+                redis.call('ZREM', KEYS[3], head[1])
+                redis.call('ZREM', KEYS[4], head[1])
+                redis.call('HSET', KEYS[1], 'served', head[2])
+                if seen and seen >= now - idle then
+                  redis.call('ZADD', KEYS[5], now + ttl, head[1])
+                  free = free - 1
+                end
+                changed = true
+              end
+              return changed
+            end
+            """;
+
+    // ARGV: visitor, new token, now, retention
+    // Returns {'0'} without a waiting room, {'2', token, admittedUntil} once admitted and
+    // {'1', token, ticket, position, served} while queued
+    private static final String JOIN_SCRIPT = ROOM_FUNCTIONS + """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              return {'0'}
+            end
+            local now = tonumber(ARGV[3])
+            local token = redis.call('HGET', KEYS[2], ARGV[1])
+            if not token then
+              token = ARGV[2]
+              redis.call('HSET', KEYS[2], ARGV[1], token)
+            end
+            local expires = tonumber(redis.call('ZSCORE', KEYS[5], token))
+            if (not expires or expires <= now) and not redis.call('ZSCORE', KEYS[3], token) then
+              redis.call('ZADD', KEYS[3], redis.call('HINCRBY', KEYS[1], 'seq', 1), token)
+            end
+            if redis.call('ZSCORE', KEYS[3], token) then
+              redis.call('ZADD', KEYS[4], now, token)
+            end
+            admit(now)
+            for i = 1, 5 do
+              redis.call('PEXPIRE', KEYS[i], ARGV[4])
+            end
+
+            if redis.call('ZSCORE', KEYS[5], token) then
+              local until_at = now + tonumber(redis.call('HGET', KEYS[1], 'admission-ttl'))
+              redis.call('ZADD', KEYS[5], until_at, token)
+              return {'2', token, tostring(until_at)}
+            end
+            local served = redis.call('HGET', KEYS[1], 'served') or '0'
+            return {'1', token, redis.call('ZSCORE', KEYS[3], token), tostring(redis.call('ZRANK', KEYS[3], token) + 1),
+                    served}
+            """;
+
+    // KEYS: config, admitted. ARGV: token, now. Slides the admission of an active shopper.
+    private static final String CHECK_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              return 1
+            end
+            local now = tonumber(ARGV[2])
+            local expires = tonumber(redis.call('ZSCORE', KEYS[2], ARGV[1]))
+            if not expires or expires <= now then
+              return 0
+            end
+            redis.call('ZADD', KEYS[2], now + tonumber(redis.call('HGET', KEYS[1], 'admission-ttl')), ARGV[1])
+            return 1
+            """;
+
+    // ARGV: now. Returns {'-1'} once the waiting room is gone, else {changed, served, queue length, admitted}.
+    // 'announced' remembers the last broadcast progress so that exactly one node reports a change.
+    private static final String ADMIT_SCRIPT = ROOM_FUNCTIONS + """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              return {'-1'}
+            end
+            local changed = admit(tonumber(ARGV[1]))
+            local served = redis.call('HGET', KEYS[1], 'served') or '0'
+            if served ~= redis.call('HGET', KEYS[1], 'announced') then
+              redis.call('HSET', KEYS[1], 'announced', served)
+              changed = true
+            end
+            return {changed and '1' or '0', served, tostring(redis.call('ZCARD', KEYS[3])),
+                    tostring(redis.call('ZCARD', KEYS[5]))}
+            """;
+
+    @Value("${app.waiting-room.admission-ttl-seconds:300}")
+    private int defaultAdmissionTtlSeconds;
+
+    @Value("${app.waiting-room.idle-timeout-seconds:120}")
+    private int idleTimeoutSeconds;
+
+    private volatile Set<UUID> enabledTrips = Set.of();
+
+    public WaitingRoomResponse configure(UUID tripId, WaitingRoomRequest request) {
+        if (!request.getEnabled()) {
+            redissonClient.getKeys().delete(roomKeys(tripId).stream().map(String.class::cast).toArray(String[]::new));
+            redissonClient.getSet(TRIPS_KEY, StringCodec.INSTANCE).remove(tripId.toString());
+            updateLocalTrips(tripId, false);
+            log.info("Waiting room for trip {} turned off", tripId);
+            return getStatus(tripId);
+        }
+        if (request.getMaxActiveShoppers() == null) {
+            throw new IllegalArgumentException("maxActiveShoppers is required to enable the waiting room");
+        }
+        int admissionTtlSeconds = request.getAdmissionTtlSeconds() != null
+                ? request.getAdmissionTtlSeconds()
+                : defaultAdmissionTtlSeconds;
+
+        String configKey = key(CONFIG_KEY, tripId);
+        script().eval(RScript.Mode.READ_WRITE, """
+                        redis.call('HSET', KEYS[1], 'capacity', ARGV[1], 'admission-ttl', ARGV[2], 'idle-timeout', ARGV[3])
+                        redis.call('PEXPIRE', KEYS[1], ARGV[4])
+                        redis.call('SADD', KEYS[2], ARGV[5])
+                        return 1
+                        """, RScript.ReturnType.INTEGER, List.of(configKey, TRIPS_KEY),
+                String.valueOf(request.getMaxActiveShoppers()),
+                String.valueOf(Duration.ofSeconds(admissionTtlSeconds).toMillis()),
+                String.valueOf(Duration.ofSeconds(idleTimeoutSeconds).toMillis()),
+                String.valueOf(ROOM_RETENTION.toMillis()), tripId.toString());
+        updateLocalTrips(tripId, true);
+        log.info("Waiting room for trip {} turned on with {} active shoppers", tripId, request.getMaxActiveShoppers());
+        return getStatus(tripId);
+    }
+
+    public WaitingRoomResponse getStatus(UUID tripId) {
+        List<Object> result = script().eval(RScript.Mode.READ_ONLY, """
+                        if redis.call('EXISTS', KEYS[1]) == 0 then
+                          return {}
+                        end
+                        return {redis.call('HGET', KEYS[1], 'capacity'), redis.call('HGET', KEYS[1], 'served') or '0',
+                                tostring(redis.call('ZCARD', KEYS[2])), tostring(redis.call('ZCARD', KEYS[3]))}
+                        """, RScript.ReturnType.MULTI,
+                List.of(key(CONFIG_KEY, tripId), key(QUEUE_KEY, tripId), key(ADMITTED_KEY, tripId)));
+        if (result.isEmpty()) {
+            return new WaitingRoomResponse(tripId, false, 0, 0, 0, 0);
+        }
+        return new WaitingRoomResponse(tripId, true, Integer.parseInt((String) result.get(0)),
+                Integer.parseInt((String) result.get(3)), Integer.parseInt((String) result.get(2)),
+                Long.parseLong((String) result.get(1)));
+    }
+
+    /**
+     * Queues the visitor, or returns their current place when they are already queued. Visitors keep
+     * their token and ticket across calls and must call again within the idle timeout to stay queued.
+     */
+    public WaitingRoomTicketResponse join(UUID tripId, UUID visitorId) {
+        List<Object> result = script().eval(RScript.Mode.READ_WRITE, JOIN_SCRIPT, RScript.ReturnType.MULTI,
+                roomKeys(tripId), visitorId.toString(), UUID.randomUUID().toString(),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(ROOM_RETENTION.toMillis()));
+
+        return switch ((String) result.get(0)) {
+            case "0" -> new WaitingRoomTicketResponse(WaitingRoomState.OPEN, null, 0, 0, 0, null);
+            case "2" -> new WaitingRoomTicketResponse(WaitingRoomState.ADMITTED, (String) result.get(1), 0, 0, 0,
+                    Instant.ofEpochMilli(Long.parseLong((String) result.get(2))));
+            default -> new WaitingRoomTicketResponse(WaitingRoomState.QUEUED, (String) result.get(1),
+                    Long.parseLong((String) result.get(2)), Long.parseLong((String) result.get(3)),
+                    Long.parseLong((String) result.get(4)), null);
+        };
+    }
+
+    /**
+     * Lets the request through when the trip has no waiting room or the token is admitted.
+     *
+     * @throws WaitingRoomException when the caller has to queue first
+     */
+    public void requireAdmission(UUID tripId, String token) {
+        if (!enabledTrips.contains(tripId)) {
+            return;
+        }
+        Long admitted;
+        try {
+            admitted = script().eval(RScript.Mode.READ_WRITE, CHECK_SCRIPT, RScript.ReturnType.INTEGER,
+                    List.of(key(CONFIG_KEY, tripId), key(ADMITTED_KEY, tripId)),
+                    token == null ? "" : token, String.valueOf(System.currentTimeMillis()));
+        } catch (RedisException e) {
+            // Seat locks need Redis too, so an outage here is not the place to turn customers away
+            log.warn("Could not check waiting room admission for trip {}: {}", tripId, e.getMessage());
+            return;
+        }
+        if (admitted == null || admitted == 0) {
+            meterRegistry.counter("waiting-room.rejected").increment();
+            throw new WaitingRoomException("Trip " + tripId + " has a waiting room; join the queue to get an admission token");
+        }
+    }
+
+    /**
+     * Frees the shopper's slot, e.g. once their booking is placed. The next visitor is let in by the sweep.
+     */
+    public void release(UUID tripId, String token) {
+        if (token == null || !enabledTrips.contains(tripId)) {
+            return;
+        }
+        redissonClient.getScoredSortedSet(key(ADMITTED_KEY, tripId), StringCodec.INSTANCE).remove(token);
+    }
+
+    /**
+     * Lets queued visitors in on every trip with a waiting room and broadcasts the new progress of the
+     * queues that moved.
+     *
+     * @return number of trips whose queue moved
+     */
+    public int admitWaiting() {
+        Set<UUID> trips = redissonClient.<String>getSet(TRIPS_KEY, StringCodec.INSTANCE).readAll().stream()
+                .map(UUID::fromString)
+                .collect(Collectors.toSet());
+        enabledTrips = trips;
+
+        String now = String.valueOf(System.currentTimeMillis());
+        int moved = 0;
+        for (UUID tripId : trips) {
+            List<Object> result = script().eval(RScript.Mode.READ_WRITE, ADMIT_SCRIPT, RScript.ReturnType.MULTI,
+                    roomKeys(tripId), now);
+            if ("-1".equals(result.get(0))) {
+                // Retention ran out without anyone switching the room off
+                redissonClient.getSet(TRIPS_KEY, StringCodec.INSTANCE).remove(tripId.toString());
+                updateLocalTrips(tripId, false);
+                continue;
+            }
+            if ("1".equals(result.get(0))) {
+                moved++;
+                clusterBroadcastService.convertAndSend("/topic/trip/" + tripId + "/queue",
+                        new QueueStatusMessage(tripId, Long.parseLong((String) result.get(1)),
+                                Integer.parseInt((String) result.get(2)), Integer.parseInt((String) result.get(3))));
+            }
+        }
+        return moved;
+    }
+
+    private synchronized void updateLocalTrips(UUID tripId, boolean enabled) {
+        Set<UUID> trips = new HashSet<>(enabledTrips);
+        if (enabled) {
+            trips.add(tripId);
+        } else {
+            trips.remove(tripId);
+        }
+        enabledTrips = Set.copyOf(trips);
+    }
+
+    private List<Object> roomKeys(UUID tripId) {
+        return List.of(key(CONFIG_KEY, tripId), key(TOKENS_KEY, tripId), key(QUEUE_KEY, tripId),
+                key(SEEN_KEY, tripId), key(ADMITTED_KEY, tripId));
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    private static String key(String pattern, UUID tripId) {
+        return String.format(pattern, tripId);
+    }
+}
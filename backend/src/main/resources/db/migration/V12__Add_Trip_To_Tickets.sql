@@ -0,0 +1,52 @@
+-- Denormalize the trip onto tickets so one index can guard every seat of a trip
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS trip_id UUID REFERENCES trips(id);
+
+UPDATE tickets t
+SET trip_id = b.trip_id
+FROM bookings b
+WHERE b.id = t.booking_id
+  AND t.trip_id IS NULL;
+
+ALTER TABLE tickets ALTER COLUMN trip_id SET NOT NULL;
+
+-- A ticket holds its seat while its booking is PENDING or CONFIRMED
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS active BOOLEAN NOT NULL DEFAULT TRUE;
+
+UPDATE tickets t
+SET active = (b.status IN ('PENDING', 'CONFIRMED'))
+FROM bookings b
+WHERE b.id = t.booking_id;
+
+-- Existing data may contain double-sold seats: keep the confirmed (then the oldest) ticket active
+UPDATE tickets
+SET active = FALSE
+WHERE id IN (
+    SELECT ranked.id
+    FROM (
+        SELECT t.id,
+               ROW_NUMBER() OVER (PARTITION BY t.trip_id, t.seat_code
+                                  ORDER BY (b.status = 'CONFIRMED') DESC, b.created_at) AS rn
+        FROM tickets t
+        JOIN bookings b ON b.id = t.booking_id
+        WHERE t.active
+    ) ranked
+    WHERE ranked.rn > 1
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_tickets_active_trip_seat ON tickets (trip_id, seat_code) WHERE active;
+
+-- Keep the flag in sync with booking status changes, whichever code path makes them
+CREATE OR REPLACE FUNCTION sync_ticket_active() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE tickets
+    SET active = (NEW.status IN ('PENDING', 'CONFIRMED'))
+    WHERE booking_id = NEW.id;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_bookings_sync_ticket_active
+    AFTER UPDATE OF status ON bookings
+    FOR EACH ROW
+    WHEN (OLD.status IS DISTINCT FROM NEW.status)
+EXECUTE FUNCTION sync_ticket_active();
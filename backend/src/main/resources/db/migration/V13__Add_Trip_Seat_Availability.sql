@@ -0,0 +1,70 @@
+-- Seats per trip and seat type, with how many of them are held by an active ticket
+CREATE TABLE IF NOT EXISTS trip_seat_availability (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    trip_id UUID NOT NULL REFERENCES trips(id) ON DELETE CASCADE,
+    seat_type seat_type NOT NULL,
+    total_seats INTEGER NOT NULL,
+    booked_seats INTEGER NOT NULL DEFAULT 0,
+
+    UNIQUE(trip_id, seat_type)
+);
+
+-- Build counters for existing trips from the bus layout and the active tickets
+INSERT INTO trip_seat_availability (trip_id, seat_type, total_seats, booked_seats)
+SELECT tr.id, ls.seat_type, COUNT(*), COUNT(tk.id)
+FROM trips tr
+JOIN buses b ON b.id = tr.bus_id
+JOIN layout_seats ls ON ls.layout_id = b.bus_layout_id AND ls.is_active IS NOT FALSE
+LEFT JOIN tickets tk ON tk.trip_id = tr.id AND tk.seat_code = ls.seat_code AND tk.active
+GROUP BY tr.id, ls.seat_type
+ON CONFLICT (trip_id, seat_type) DO UPDATE
+SET total_seats = EXCLUDED.total_seats,
+    booked_seats = EXCLUDED.booked_seats;
+
+-- Move the counter whenever a ticket starts or stops holding its seat, in the same transaction
+CREATE OR REPLACE FUNCTION sync_trip_seat_availability() RETURNS TRIGGER AS $$
+DECLARE
+    delta INTEGER;
+    ticket_trip_id UUID;
+    ticket_seat_code VARCHAR;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        IF NOT NEW.active THEN
+            RETURN NULL;
+        END IF;
+        delta := 1;
+        ticket_trip_id := NEW.trip_id;
+        ticket_seat_code := NEW.seat_code;
+    ELSIF TG_OP = 'DELETE' THEN
+        IF NOT OLD.active THEN
+            RETURN NULL;
+        END IF;
+        delta := -1;
+        ticket_trip_id := OLD.trip_id;
+        ticket_seat_code := OLD.seat_code;
+    ELSE
+        IF OLD.active = NEW.active THEN
+            RETURN NULL;
+        END IF;
+        delta := CASE WHEN NEW.active THEN 1 ELSE -1 END;
+        ticket_trip_id := NEW.trip_id;
+        ticket_seat_code := NEW.seat_code;
+    END IF;
+
+    UPDATE trip_seat_availability a
+    SET booked_seats = a.booked_seats + delta
+    FROM trips tr
+    JOIN buses b ON b.id = tr.bus_id
+    JOIN layout_seats ls ON ls.layout_id = b.bus_layout_id
+    WHERE tr.id = ticket_trip_id
+      AND ls.seat_code = ticket_seat_code
+      AND a.trip_id = tr.id
+      AND a.seat_type = ls.seat_type;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_tickets_sync_trip_seat_availability
+    AFTER INSERT OR DELETE OR UPDATE OF active ON tickets
+    FOR EACH ROW
+EXECUTE FUNCTION sync_trip_seat_availability();
@@ -0,0 +1,87 @@
+-- Tickets cover the part of the route between two stop indexes: 0 is the origin, intermediate stops
+-- follow in stop_order and the destination is last. A seat can be sold again on segments that don't overlap.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS segment_start INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS segment_end INTEGER;
+
+-- Existing tickets were sold for the whole trip. Routes with more than 30 legs are tracked as one leg.
+UPDATE tickets t
+SET segment_end = CASE WHEN legs.count > 30 THEN 1 ELSE legs.count END
+FROM (
+    SELECT tr.id AS trip_id, COUNT(rs.id) + 1 AS count
+    FROM trips tr
+    LEFT JOIN route_stops rs ON rs.route_id = tr.route_id
+    GROUP BY tr.id
+) legs
+WHERE legs.trip_id = t.trip_id
+  AND t.segment_end IS NULL;
+
+ALTER TABLE tickets ALTER COLUMN segment_end SET NOT NULL;
+ALTER TABLE tickets ADD CONSTRAINT check_ticket_segment CHECK (segment_start < segment_end);
+
+-- Active tickets of one seat may not share a leg
+DROP INDEX IF EXISTS ux_tickets_active_trip_seat;
+ALTER TABLE tickets ADD CONSTRAINT ex_tickets_active_trip_seat_segment
+    EXCLUDE USING gist (trip_id WITH =, seat_code WITH =, int4range(segment_start, segment_end) WITH &&)
+    WHERE (active);
+
+-- A seat counts as booked while any of its segments is sold, so the counter only moves when the
+-- first ticket of a seat becomes active or the last one stops being active. Concurrent sales of
+-- disjoint segments of one seat can both count it; the rebuild corrects such drift.
+CREATE OR REPLACE FUNCTION sync_trip_seat_availability() RETURNS TRIGGER AS $$
+DECLARE
+    delta INTEGER;
+    ticket_id UUID;
+    ticket_trip_id UUID;
+    ticket_seat_code VARCHAR;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        IF NOT NEW.active THEN
+            RETURN NULL;
+        END IF;
+        delta := 1;
+        ticket_id := NEW.id;
+        ticket_trip_id := NEW.trip_id;
+        ticket_seat_code := NEW.seat_code;
+    ELSIF TG_OP = 'DELETE' THEN
+        IF NOT OLD.active THEN
+            RETURN NULL;
+        END IF;
+        delta := -1;
+        ticket_id := OLD.id;
+        ticket_trip_id := OLD.trip_id;
+        ticket_seat_code := OLD.seat_code;
+    ELSE
+        IF OLD.active = NEW.active THEN
+            RETURN NULL;
+        END IF;
+        delta := CASE WHEN NEW.active THEN 1 ELSE -1 END;
+        ticket_id := NEW.id;
+        ticket_trip_id := NEW.trip_id;
+        ticket_seat_code := NEW.seat_code;
+    END IF;
+
+    IF EXISTS (
+        SELECT 1
+        FROM tickets t
+        WHERE t.trip_id = ticket_trip_id
+          AND t.seat_code = ticket_seat_code
+          AND t.active
+          AND t.id <> ticket_id
+    ) THEN
+        RETURN NULL;
+    END IF;
+
+    UPDATE trip_seat_availability a
+    SET booked_seats = a.booked_seats + delta
+    FROM trips tr
+    JOIN buses b ON b.id = tr.bus_id
+    JOIN layout_seats ls ON ls.layout_id = b.bus_layout_id
+    WHERE tr.id = ticket_trip_id
+      AND ls.seat_code = ticket_seat_code
+      AND a.trip_id = tr.id
+      AND a.seat_type = ls.seat_type;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
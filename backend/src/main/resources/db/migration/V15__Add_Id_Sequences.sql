@@ -0,0 +1,5 @@
+-- Identifier blocks handed out by IdAllocator: one nextval reserves INCREMENT BY consecutive ids for a node
+CREATE SEQUENCE IF NOT EXISTS booking_code_seq START WITH 1 INCREMENT BY 100;
+
+-- PayOS order codes used to be epoch millis (~1.7e12); allocated ones start above anything generated that way
+CREATE SEQUENCE IF NOT EXISTS payment_order_code_seq START WITH 10000000000000 INCREMENT BY 100;
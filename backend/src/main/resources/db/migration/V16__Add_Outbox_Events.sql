@@ -0,0 +1,20 @@
+-- Side effects of booking and payment writes (emails, broadcasts, cache evictions), recorded in the
+-- same transaction and delivered afterwards by the outbox relay
+CREATE TABLE outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_id UUID NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    -- When a PENDING event may be tried next, or when the lease of a PROCESSING one runs out
+    available_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    processed_at TIMESTAMP
+);
+
+-- Claiming scans open events in id order and checks for older open events of the same aggregate
+CREATE INDEX idx_outbox_events_open ON outbox_events (available_at, id) WHERE status IN ('PENDING', 'PROCESSING');
+CREATE INDEX idx_outbox_events_open_aggregate ON outbox_events (aggregate_id, id) WHERE status IN ('PENDING', 'PROCESSING');
+CREATE INDEX idx_outbox_events_processed_at ON outbox_events (processed_at) WHERE status = 'DONE';
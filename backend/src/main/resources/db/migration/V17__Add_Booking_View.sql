@@ -0,0 +1,288 @@
+-- Flattened copy of a booking with its trip, route, stations, bus, operator and tickets, so booking
+-- history and guest lookup read one row per booking instead of walking the associations
+CREATE TABLE IF NOT EXISTS booking_view (
+    booking_id UUID PRIMARY KEY REFERENCES bookings(id) ON DELETE CASCADE,
+    code VARCHAR(20) NOT NULL,
+    status booking_status NOT NULL,
+    total_price DECIMAL(15, 2) NOT NULL,
+    passenger_name VARCHAR(100) NOT NULL,
+    passenger_phone VARCHAR(20) NOT NULL,
+    passenger_email VARCHAR(255),
+    user_id UUID,
+    user_email VARCHAR(255),
+    created_at TIMESTAMPTZ,
+    updated_at TIMESTAMPTZ,
+
+    trip_id UUID NOT NULL,
+    departure_time TIMESTAMPTZ NOT NULL,
+    arrival_time TIMESTAMPTZ NOT NULL,
+
+    route_id UUID NOT NULL,
+    duration_minutes INTEGER,
+    distance_km DECIMAL(10, 2),
+    origin_station_id UUID NOT NULL,
+    origin_name VARCHAR(255),
+    origin_city VARCHAR(100),
+    origin_address TEXT,
+    destination_station_id UUID NOT NULL,
+    destination_name VARCHAR(255),
+    destination_city VARCHAR(100),
+    destination_address TEXT,
+
+    pickup_station_id UUID,
+    pickup_name VARCHAR(255),
+    pickup_city VARCHAR(100),
+    pickup_address TEXT,
+    dropoff_station_id UUID,
+    dropoff_name VARCHAR(255),
+    dropoff_city VARCHAR(100),
+    dropoff_address TEXT,
+
+    bus_id UUID NOT NULL,
+    plate_number VARCHAR(20),
+    bus_layout_id UUID,
+    amenities JSONB,
+    operator_name VARCHAR(255),
+
+    -- [{"id", "seatCode", "passengerName", "passengerPhone", "price"}] ordered by seat code
+    tickets TEXT NOT NULL DEFAULT '[]'
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_booking_view_code ON booking_view (code);
+CREATE INDEX IF NOT EXISTS idx_booking_view_user_created ON booking_view (user_id, created_at DESC);
+CREATE INDEX IF NOT EXISTS idx_booking_view_user_email_departure ON booking_view (user_email, departure_time DESC);
+CREATE INDEX IF NOT EXISTS idx_booking_view_trip ON booking_view (trip_id);
+
+-- Recomputes the rows of the given bookings from the source tables
+CREATE OR REPLACE FUNCTION refresh_booking_view(booking_ids UUID[]) RETURNS INTEGER AS $$
+DECLARE
+    refreshed INTEGER;
+BEGIN
+    IF booking_ids IS NULL OR cardinality(booking_ids) = 0 THEN
+        RETURN 0;
+    END IF;
+
+    INSERT INTO booking_view (
+        booking_id, code, status, total_price, passenger_name, passenger_phone, passenger_email,
+        user_id, user_email, created_at, updated_at,
+        trip_id, departure_time, arrival_time,
+        route_id, duration_minutes, distance_km,
+        origin_station_id, origin_name, origin_city, origin_address,
+        destination_station_id, destination_name, destination_city, destination_address,
+        pickup_station_id, pickup_name, pickup_city, pickup_address,
+        dropoff_station_id, dropoff_name, dropoff_city, dropoff_address,
+        bus_id, plate_number, bus_layout_id, amenities, operator_name, tickets)
+    SELECT b.id, b.code, b.status, b.total_price, b.passenger_name, b.passenger_phone, b.passenger_email,
+           b.user_id, u.email, b.created_at, b.updated_at,
+           tr.id, tr.departure_time, tr.arrival_time,
+           r.id, r.duration_minutes, r.distance_km,
+           os.id, os.name, os.city, os.address,
+           ds.id, ds.name, ds.city, ds.address,
+           ps.id, ps.name, ps.city, ps.address,
+           dps.id, dps.name, dps.city, dps.address,
+           bus.id, bus.plate_number, bus.bus_layout_id, bus.amenities, op.name,
+           COALESCE((
+               SELECT json_agg(json_build_object(
+                       'id', tk.id,
+                       'seatCode', tk.seat_code,
+                       'passengerName', tk.passenger_name,
+                       'passengerPhone', tk.passenger_phone,
+                       'price', tk.price) ORDER BY tk.seat_code)::TEXT
+               FROM tickets tk
+               WHERE tk.booking_id = b.id
+           ), '[]')
+    FROM bookings b
+    JOIN trips tr ON tr.id = b.trip_id
+    JOIN routes r ON r.id = tr.route_id
+    JOIN stations os ON os.id = r.origin_station_id
+    JOIN stations ds ON ds.id = r.destination_station_id
+    JOIN buses bus ON bus.id = tr.bus_id
+    JOIN operators op ON op.id = bus.operator_id
+    LEFT JOIN users u ON u.id = b.user_id
+    LEFT JOIN stations ps ON ps.id = b.pickup_station_id
+    LEFT JOIN stations dps ON dps.id = b.dropoff_station_id
+    WHERE b.id = ANY(booking_ids)
+    ON CONFLICT (booking_id) DO UPDATE
+    SET code = EXCLUDED.code,
+        status = EXCLUDED.status,
+        total_price = EXCLUDED.total_price,
+        passenger_name = EXCLUDED.passenger_name,
+        passenger_phone = EXCLUDED.passenger_phone,
+        passenger_email = EXCLUDED.passenger_email,
+        user_id = EXCLUDED.user_id,
+        user_email = EXCLUDED.user_email,
+        created_at = EXCLUDED.created_at,
+        updated_at = EXCLUDED.updated_at,
+        trip_id = EXCLUDED.trip_id,
+        departure_time = EXCLUDED.departure_time,
+        arrival_time = EXCLUDED.arrival_time,
+        route_id = EXCLUDED.route_id,
+        duration_minutes = EXCLUDED.duration_minutes,
+        distance_km = EXCLUDED.distance_km,
+        origin_station_id = EXCLUDED.origin_station_id,
+        origin_name = EXCLUDED.origin_name,
+        origin_city = EXCLUDED.origin_city,
+        origin_address = EXCLUDED.origin_address,
+        destination_station_id = EXCLUDED.destination_station_id,
+        destination_name = EXCLUDED.destination_name,
+        destination_city = EXCLUDED.destination_city,
+        destination_address = EXCLUDED.destination_address,
+        pickup_station_id = EXCLUDED.pickup_station_id,
+        pickup_name = EXCLUDED.pickup_name,
+        pickup_city = EXCLUDED.pickup_city,
+        pickup_address = EXCLUDED.pickup_address,
+        dropoff_station_id = EXCLUDED.dropoff_station_id,
+        dropoff_name = EXCLUDED.dropoff_name,
+        dropoff_city = EXCLUDED.dropoff_city,
+        dropoff_address = EXCLUDED.dropoff_address,
+        bus_id = EXCLUDED.bus_id,
+        plate_number = EXCLUDED.plate_number,
+        bus_layout_id = EXCLUDED.bus_layout_id,
+        amenities = EXCLUDED.amenities,
+        operator_name = EXCLUDED.operator_name,
+        tickets = EXCLUDED.tickets;
+
+    GET DIAGNOSTICS refreshed = ROW_COUNT;
+    RETURN refreshed;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Statement-level triggers see every row a statement touched at once, so a batch of tickets
+-- refreshes its booking once per statement instead of once per ticket
+CREATE OR REPLACE FUNCTION sync_booking_view_from_bookings() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM refresh_booking_view(ARRAY(SELECT id FROM changed_rows));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION sync_booking_view_from_tickets() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM refresh_booking_view(ARRAY(SELECT DISTINCT booking_id FROM changed_rows));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Catalog edits only refresh the bookings whose copied columns actually changed
+CREATE OR REPLACE FUNCTION sync_booking_view_from_catalog() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_TABLE_NAME = 'trips' THEN
+        PERFORM refresh_booking_view(ARRAY(
+            SELECT bv.booking_id
+            FROM new_rows n
+            JOIN old_rows o ON o.id = n.id
+            JOIN booking_view bv ON bv.trip_id = n.id
+            WHERE (n.departure_time, n.arrival_time, n.route_id, n.bus_id)
+                  IS DISTINCT FROM (o.departure_time, o.arrival_time, o.route_id, o.bus_id)));
+    ELSIF TG_TABLE_NAME = 'routes' THEN
+        PERFORM refresh_booking_view(ARRAY(
+            SELECT bv.booking_id
+            FROM new_rows n
+            JOIN old_rows o ON o.id = n.id
+            JOIN booking_view bv ON bv.route_id = n.id
+            WHERE (n.duration_minutes, n.distance_km, n.origin_station_id, n.destination_station_id)
+                  IS DISTINCT FROM (o.duration_minutes, o.distance_km, o.origin_station_id, o.destination_station_id)));
+    ELSIF TG_TABLE_NAME = 'stations' THEN
+        PERFORM refresh_booking_view(ARRAY(
+            SELECT bv.booking_id
+            FROM new_rows n
+            JOIN old_rows o ON o.id = n.id
+            JOIN booking_view bv ON n.id IN (bv.origin_station_id, bv.destination_station_id,
+                                             bv.pickup_station_id, bv.dropoff_station_id)
+            WHERE (n.name, n.city, n.address) IS DISTINCT FROM (o.name, o.city, o.address)));
+    ELSIF TG_TABLE_NAME = 'buses' THEN
+        PERFORM refresh_booking_view(ARRAY(
+            SELECT bv.booking_id
+            FROM new_rows n
+            JOIN old_rows o ON o.id = n.id
+            JOIN booking_view bv ON bv.bus_id = n.id
+            WHERE (n.plate_number, n.bus_layout_id, n.operator_id, n.amenities)
+                  IS DISTINCT FROM (o.plate_number, o.bus_layout_id, o.operator_id, o.amenities)));
+    ELSIF TG_TABLE_NAME = 'operators' THEN
+        PERFORM refresh_booking_view(ARRAY(
+            SELECT bv.booking_id
+            FROM new_rows n
+            JOIN old_rows o ON o.id = n.id
+            JOIN buses bus ON bus.operator_id = n.id
+            JOIN booking_view bv ON bv.bus_id = bus.id
+            WHERE n.name IS DISTINCT FROM o.name));
+    ELSIF TG_TABLE_NAME = 'users' THEN
+        PERFORM refresh_booking_view(ARRAY(
+            SELECT bv.booking_id
+            FROM new_rows n
+            JOIN old_rows o ON o.id = n.id
+            JOIN booking_view bv ON bv.user_id = n.id
+            WHERE n.email IS DISTINCT FROM o.email));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Transition tables allow a single event per trigger, hence one trigger per event
+DROP TRIGGER IF EXISTS trg_booking_view_bookings_insert ON bookings;
+CREATE TRIGGER trg_booking_view_bookings_insert
+    AFTER INSERT ON bookings
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_bookings();
+
+DROP TRIGGER IF EXISTS trg_booking_view_bookings_update ON bookings;
+CREATE TRIGGER trg_booking_view_bookings_update
+    AFTER UPDATE ON bookings
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_bookings();
+
+DROP TRIGGER IF EXISTS trg_booking_view_tickets_insert ON tickets;
+CREATE TRIGGER trg_booking_view_tickets_insert
+    AFTER INSERT ON tickets
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_tickets();
+
+DROP TRIGGER IF EXISTS trg_booking_view_tickets_update ON tickets;
+CREATE TRIGGER trg_booking_view_tickets_update
+    AFTER UPDATE ON tickets
+    REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_tickets();
+
+DROP TRIGGER IF EXISTS trg_booking_view_tickets_delete ON tickets;
+CREATE TRIGGER trg_booking_view_tickets_delete
+    AFTER DELETE ON tickets
+    REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_tickets();
+
+DROP TRIGGER IF EXISTS trg_booking_view_trips ON trips;
+CREATE TRIGGER trg_booking_view_trips
+    AFTER UPDATE ON trips
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_catalog();
+
+DROP TRIGGER IF EXISTS trg_booking_view_routes ON routes;
+CREATE TRIGGER trg_booking_view_routes
+    AFTER UPDATE ON routes
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_catalog();
+
+DROP TRIGGER IF EXISTS trg_booking_view_stations ON stations;
+CREATE TRIGGER trg_booking_view_stations
+    AFTER UPDATE ON stations
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_catalog();
+
+DROP TRIGGER IF EXISTS trg_booking_view_buses ON buses;
+CREATE TRIGGER trg_booking_view_buses
+    AFTER UPDATE ON buses
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_catalog();
+
+DROP TRIGGER IF EXISTS trg_booking_view_operators ON operators;
+CREATE TRIGGER trg_booking_view_operators
+    AFTER UPDATE ON operators
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_catalog();
+
+DROP TRIGGER IF EXISTS trg_booking_view_users ON users;
+CREATE TRIGGER trg_booking_view_users
+    AFTER UPDATE ON users
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_catalog();
+
+SELECT refresh_booking_view(ARRAY(SELECT id FROM bookings));
@@ -0,0 +1,9 @@
+-- Deadline of a PENDING booking. The expiry sweep claims due bookings through the partial index,
+-- so it only ever touches the (small) set of unpaid bookings.
+ALTER TABLE bookings ADD COLUMN expires_at TIMESTAMPTZ;
+
+UPDATE bookings
+SET expires_at = created_at + INTERVAL '15 minutes'
+WHERE status = 'PENDING';
+
+CREATE INDEX idx_bookings_pending_expires_at ON bookings (expires_at) WHERE status = 'PENDING';
@@ -0,0 +1,4 @@
+-- Trip reminders page through confirmed bookings by departure time (keyset on departure_time, booking_id)
+CREATE INDEX IF NOT EXISTS idx_booking_view_confirmed_departure
+    ON booking_view (departure_time, booking_id)
+    WHERE status = 'CONFIRMED';
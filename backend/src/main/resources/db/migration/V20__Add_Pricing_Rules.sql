@@ -0,0 +1,15 @@
+-- Price adjustments operators apply to a trip depending on how full it is and how close it departs.
+-- Active rules are checked in priority order against the trip's seat counters; the first match applies.
+CREATE TABLE pricing_rules (
+    id UUID PRIMARY KEY,
+    -- NULL applies the rule to trips of every operator
+    operator_id UUID REFERENCES operators(id) ON DELETE CASCADE,
+    name VARCHAR(100) NOT NULL,
+    occupancy_above_percent INTEGER CHECK (occupancy_above_percent BETWEEN 0 AND 100),
+    occupancy_below_percent INTEGER CHECK (occupancy_below_percent BETWEEN 0 AND 100),
+    within_hours_of_departure INTEGER CHECK (within_hours_of_departure > 0),
+    adjustment_percent NUMERIC(5, 2) NOT NULL CHECK (adjustment_percent > -100),
+    priority INTEGER NOT NULL DEFAULT 0,
+    is_active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,71 @@
+-- Counting +1/-1 per ticket drifted when disjoint segments of one seat were sold concurrently: neither
+-- transaction saw the other's ticket, so both counted the seat. The trigger now locks the trip's counter
+-- rows and recounts them from the tickets. A concurrent sale on the same trip waits for the lock, and
+-- because every statement of the function reads a fresh snapshot, its recount sees the committed ticket.
+-- Occupancy-based pricing reads these counters, so they have to stay exact without a rebuild.
+CREATE OR REPLACE FUNCTION sync_trip_seat_availability() RETURNS TRIGGER AS $$
+DECLARE
+    ticket_trip_id UUID;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        IF NOT NEW.active THEN
+            RETURN NULL;
+        END IF;
+        ticket_trip_id := NEW.trip_id;
+    ELSIF TG_OP = 'DELETE' THEN
+        IF NOT OLD.active THEN
+            RETURN NULL;
+        END IF;
+        ticket_trip_id := OLD.trip_id;
+    ELSE
+        IF OLD.active = NEW.active THEN
+            RETURN NULL;
+        END IF;
+        ticket_trip_id := NEW.trip_id;
+    END IF;
+
+    -- Always in the same order, so two sales on one trip can't deadlock on its seat types
+    PERFORM 1
+    FROM trip_seat_availability a
+    WHERE a.trip_id = ticket_trip_id
+    ORDER BY a.seat_type
+    FOR UPDATE;
+
+    UPDATE trip_seat_availability a
+    SET booked_seats = (
+        SELECT COUNT(DISTINCT ls.id)
+        FROM trips tr
+        JOIN buses b ON b.id = tr.bus_id
+        JOIN layout_seats ls ON ls.layout_id = b.bus_layout_id AND ls.is_active IS NOT FALSE
+        WHERE tr.id = a.trip_id
+          AND ls.seat_type = a.seat_type
+          AND EXISTS (
+              SELECT 1
+              FROM tickets t
+              WHERE t.trip_id = tr.id
+                AND t.seat_code = ls.seat_code
+                AND t.active
+          )
+    )
+    WHERE a.trip_id = ticket_trip_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Correct whatever drift the previous trigger left behind
+UPDATE trip_seat_availability a
+SET booked_seats = (
+    SELECT COUNT(DISTINCT ls.id)
+    FROM trips tr
+    JOIN buses b ON b.id = tr.bus_id
+    JOIN layout_seats ls ON ls.layout_id = b.bus_layout_id AND ls.is_active IS NOT FALSE
+    WHERE tr.id = a.trip_id
+      AND ls.seat_type = a.seat_type
+      AND EXISTS (
+          SELECT 1
+          FROM tickets t
+          WHERE t.trip_id = tr.id
+            AND t.seat_code = ls.seat_code
+            AND t.active
+      )
+);
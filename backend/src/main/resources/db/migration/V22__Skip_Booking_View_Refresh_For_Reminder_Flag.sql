@@ -0,0 +1,23 @@
+-- Marking a page of reminders as sent updates only is_reminder_sent, which booking_view does not copy,
+-- yet the statement trigger recomputed the whole page. Updates now refresh just the bookings whose
+-- copied columns changed, like the catalog triggers do.
+CREATE OR REPLACE FUNCTION sync_booking_view_from_booking_updates() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM refresh_booking_view(ARRAY(
+        SELECT n.id
+        FROM new_rows n
+        JOIN old_rows o ON o.id = n.id
+        WHERE (n.code, n.status, n.total_price, n.passenger_name, n.passenger_phone, n.passenger_email,
+               n.user_id, n.created_at, n.updated_at, n.trip_id, n.pickup_station_id, n.dropoff_station_id)
+              IS DISTINCT FROM
+              (o.code, o.status, o.total_price, o.passenger_name, o.passenger_phone, o.passenger_email,
+               o.user_id, o.created_at, o.updated_at, o.trip_id, o.pickup_station_id, o.dropoff_station_id)));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_booking_view_bookings_update ON bookings;
+CREATE TRIGGER trg_booking_view_bookings_update
+    AFTER UPDATE ON bookings
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION sync_booking_view_from_booking_updates();
@@ -0,0 +1,68 @@
+-- V21 recounted every seat type of the trip under a lock on its counter rows, so all sales of a trip
+-- queued behind each other and a bulk insert ran one whole-trip recount per ticket. Back to moving the
+-- counter by one per ticket. A seat only counts once however many disjoint segments of it are sold:
+-- the first active ticket adds it and the last one removes it. The check for another active ticket is
+-- serialized per seat with a transaction-level advisory lock, so two sales of the same seat cannot both
+-- miss each other, while sales of different seats never wait. The lock is held until commit, and every
+-- statement of the function reads a fresh snapshot, so the second sale sees the first one's ticket.
+-- Bookings write their tickets in seat-code order, so two multi-seat sales take these locks in the same
+-- order; any other interleaving (e.g. with the expiry sweep's batch delete) is broken by the deadlock
+-- detector aborting one side.
+CREATE OR REPLACE FUNCTION sync_trip_seat_availability() RETURNS TRIGGER AS $$
+DECLARE
+    delta INTEGER;
+    ticket_id UUID;
+    ticket_trip_id UUID;
+    ticket_seat_code VARCHAR;
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        IF NOT NEW.active THEN
+            RETURN NULL;
+        END IF;
+        delta := 1;
+        ticket_id := NEW.id;
+        ticket_trip_id := NEW.trip_id;
+        ticket_seat_code := NEW.seat_code;
+    ELSIF TG_OP = 'DELETE' THEN
+        IF NOT OLD.active THEN
+            RETURN NULL;
+        END IF;
+        delta := -1;
+        ticket_id := OLD.id;
+        ticket_trip_id := OLD.trip_id;
+        ticket_seat_code := OLD.seat_code;
+    ELSE
+        IF OLD.active = NEW.active THEN
+            RETURN NULL;
+        END IF;
+        delta := CASE WHEN NEW.active THEN 1 ELSE -1 END;
+        ticket_id := NEW.id;
+        ticket_trip_id := NEW.trip_id;
+        ticket_seat_code := NEW.seat_code;
+    END IF;
+
+    PERFORM pg_advisory_xact_lock(hashtextextended(ticket_trip_id::TEXT || ':' || ticket_seat_code, 0));
+
+    IF EXISTS (
+        SELECT 1
+        FROM tickets t
+        WHERE t.trip_id = ticket_trip_id
+          AND t.seat_code = ticket_seat_code
+          AND t.active
+          AND t.id <> ticket_id
+    ) THEN
+        RETURN NULL;
+    END IF;
+
+    UPDATE trip_seat_availability a
+    SET booked_seats = a.booked_seats + delta
+    FROM trips tr
+    JOIN buses b ON b.id = tr.bus_id
+    JOIN layout_seats ls ON ls.layout_id = b.bus_layout_id
+    WHERE tr.id = ticket_trip_id
+      AND ls.seat_code = ticket_seat_code
+      AND a.trip_id = tr.id
+      AND a.seat_type = ls.seat_type;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,13 @@
+-- outbox_events.id was an identity column, which keeps Hibernate from batching inserts: every event
+-- was its own INSERT ... RETURNING. Ids now come from a sequence advancing by the entity's
+-- allocationSize (50), so one nextval reserves a block for the node. The first block starts above
+-- every existing id.
+CREATE SEQUENCE IF NOT EXISTS outbox_event_id_seq INCREMENT BY 50;
+SELECT setval('outbox_event_id_seq', COALESCE((SELECT MAX(id) FROM outbox_events), 0) + 50, false);
+ALTER TABLE outbox_events ALTER COLUMN id SET DEFAULT nextval('outbox_event_id_seq');
+DROP SEQUENCE IF EXISTS outbox_events_id_seq;
+
+-- Blocks of different nodes interleave, so events of an aggregate are ordered by creation time first
+DROP INDEX IF EXISTS idx_outbox_events_open_aggregate;
+CREATE INDEX idx_outbox_events_open_aggregate ON outbox_events (aggregate_id, created_at, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
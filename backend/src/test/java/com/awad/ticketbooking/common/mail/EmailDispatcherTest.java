@@ -0,0 +1,133 @@
+package com.awad.ticketbooking.common.mail;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailDispatcherTest {
+
+    private static GreenMail smtpServer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EmailDispatcher emailDispatcher;
+
+    @BeforeAll
+    static void startSmtp() {
+        smtpServer = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        smtpServer.start();
+    }
+
+    @AfterAll
+    static void stopSmtp() {
+        smtpServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtpServer.purgeEmailFromAllMailboxes();
+        emailDispatcher = dispatcher(smtpServer.getSmtp().getPort());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        emailDispatcher.stop();
+    }
+
+    @Test
+    void concurrentSends_ShouldAllBeDeliveredInBatches() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                MimeMessage message = message("passenger" + i + "@example.com", "<p>Ticket " + i + "</p>");
+                sends.add(callers.submit(() -> emailDispatcher.send("booking-confirmation", message)));
+            }
+            for (Future<?> send : sends) {
+                send.get();
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(30, smtpServer.getReceivedMessages().length);
+        assertEquals(30.0, meterRegistry.summary("email.batch.size").totalAmount());
+        assertTrue(meterRegistry.summary("email.batch.size").count() <= 30);
+        assertEquals(30, meterRegistry.timer("email.send.latency", "type", "booking-confirmation",
+                "outcome", "sent").count());
+    }
+
+    @Test
+    void renderedTemplate_ShouldArriveWithEscapedValues() throws Exception {
+        EmailTemplate template = EmailTemplate.compile("<p>Xin chào {{name}}, ghế {{seats}}</p>");
+
+        emailDispatcher.send("trip-reminder", message("passenger@example.com",
+                template.render(Map.of("name", "Nguyễn <Văn> A", "seats", "A1, A2"))));
+
+        String body = (String) smtpServer.getReceivedMessages()[0].getContent();
+        assertTrue(body.contains("Xin chào Nguyễn &lt;Văn&gt; A, ghế A1, A2"));
+    }
+
+    @Test
+    void unreachableServer_ShouldFailTheSendAndCountIt() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        EmailDispatcher unreachable = dispatcher(closedPort);
+        try {
+            MimeMessage message = message("passenger@example.com", "<p>Ticket</p>");
+            assertThrows(MailSendException.class, () -> unreachable.send("trip-reminder", message));
+            assertEquals(1.0, meterRegistry.counter("email.failures", "type", "trip-reminder").count());
+        } finally {
+            unreachable.stop();
+        }
+    }
+
+    private EmailDispatcher dispatcher(int port) throws IOException {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(port);
+        EmailDispatcher dispatcher = new EmailDispatcher(mailSender, meterRegistry);
+        ReflectionTestUtils.setField(dispatcher, "senderCount", 2);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 20);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 100);
+        ReflectionTestUtils.setField(dispatcher, "enqueueTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "sendTimeoutSeconds", 10L);
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    private static MimeMessage message(String to, String html) throws MessagingException {
+        MimeMessage message = new JavaMailSenderImpl().createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom("noreply@example.com");
+        helper.setTo(to);
+        helper.setSubject("Test");
+        helper.setText(html, true);
+        return message;
+    }
+}
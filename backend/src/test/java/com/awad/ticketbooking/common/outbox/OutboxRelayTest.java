@@ -0,0 +1,149 @@
+package com.awad.ticketbooking.common.outbox;
+
+import com.awad.ticketbooking.common.enums.BookingStatus;
+import com.awad.ticketbooking.common.enums.DashboardChange;
+import com.awad.ticketbooking.common.enums.OutboxEventType;
+import com.awad.ticketbooking.common.enums.OutboxStatus;
+import com.awad.ticketbooking.common.scheduling.ClusterJobRunner;
+import com.awad.ticketbooking.common.service.ClusterBroadcastService;
+import com.awad.ticketbooking.common.service.EmailService;
+import com.awad.ticketbooking.modules.booking.dto.BookingStatusMessage;
+import com.awad.ticketbooking.modules.booking.entity.Booking;
+import com.awad.ticketbooking.modules.booking.repository.BookingRepository;
+import com.awad.ticketbooking.modules.dashboard.service.DashboardCacheInvalidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final ClusterBroadcastService clusterBroadcastService = mock(ClusterBroadcastService.class);
+    private final DashboardCacheInvalidator dashboardCacheInvalidator = mock(DashboardCacheInvalidator.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxEventRepository, bookingRepository, emailService, clusterBroadcastService,
+                dashboardCacheInvalidator, meterRegistry, mock(ClusterJobRunner.class));
+        ReflectionTestUtils.setField(relay, "workerCount", 2);
+        ReflectionTestUtils.setField(relay, "batchSize", 10);
+        ReflectionTestUtils.setField(relay, "maxAttempts", 3);
+        ReflectionTestUtils.setField(relay, "leaseSeconds", 60L);
+        relay.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        relay.stop();
+    }
+
+    @Test
+    void relay_ShouldDeliverEachEventTypeAndMarkItDone() throws Exception {
+        UUID bookingId = UUID.randomUUID();
+        Booking booking = new Booking();
+        Instant createdAt = Instant.parse("2026-10-01T08:30:00Z");
+        when(bookingRepository.findByIdWithFullDetails(bookingId)).thenReturn(Optional.of(booking));
+        OutboxEvent eviction = event(1L, bookingId, OutboxEventType.DASHBOARD_INVALIDATION,
+                Map.of("createdAt", createdAt.toString(), "change", "CONFIRMATION_CHANGED"), 1);
+        OutboxEvent broadcast = event(2L, UUID.randomUUID(), OutboxEventType.BOOKING_STATUS_BROADCAST,
+                Map.of("status", "CONFIRMED"), 1);
+        OutboxEvent email = event(3L, bookingId, OutboxEventType.BOOKING_CONFIRMATION_EMAIL,
+                Map.of("recipientEmail", "guest@example.com"), 1);
+        when(outboxEventRepository.claimDue(any(), any(), anyInt()))
+                .thenReturn(List.of(eviction, broadcast, email));
+
+        assertEquals(3, relay.relay());
+
+        verify(dashboardCacheInvalidator).invalidate(createdAt, DashboardChange.CONFIRMATION_CHANGED);
+        verify(clusterBroadcastService).convertAndSend("/topic/booking/" + broadcast.getAggregateId(),
+                new BookingStatusMessage(broadcast.getAggregateId(), BookingStatus.CONFIRMED));
+        verify(emailService).sendBookingConfirmationEmail(booking, "guest@example.com");
+        verify(outboxEventRepository).markDone(eq(1L), any());
+        verify(outboxEventRepository).markDone(eq(2L), any());
+        verify(outboxEventRepository).markDone(eq(3L), any());
+        assertEquals(3, meterRegistry.find("outbox.delivery").timers().stream()
+                .mapToLong(timer -> timer.count()).sum());
+    }
+
+    @Test
+    void relay_ShouldRescheduleFailedDeliveryWithBackoff() throws Exception {
+        UUID bookingId = UUID.randomUUID();
+        Booking booking = new Booking();
+        when(bookingRepository.findByIdWithFullDetails(bookingId)).thenReturn(Optional.of(booking));
+        doThrow(new MessagingException("SMTP timeout"))
+                .when(emailService).sendBookingConfirmationEmail(booking, "guest@example.com");
+        OutboxEvent email = event(7L, bookingId, OutboxEventType.BOOKING_CONFIRMATION_EMAIL,
+                Map.of("recipientEmail", "guest@example.com"), 2);
+        when(outboxEventRepository.claimDue(any(), any(), anyInt())).thenReturn(List.of(email));
+
+        Instant before = Instant.now();
+        assertEquals(0, relay.relay());
+
+        verify(outboxEventRepository, never()).markDone(any(), any());
+        verify(outboxEventRepository).markFailed(eq(7L), eq(OutboxStatus.PENDING),
+                argThat(at -> !at.isBefore(before.plusSeconds(10))), eq("SMTP timeout"));
+        assertEquals(1.0, meterRegistry.counter("outbox.retries", "type", "BOOKING_CONFIRMATION_EMAIL").count());
+    }
+
+    @Test
+    void relay_ShouldGiveUpAfterMaxAttempts() throws Exception {
+        UUID bookingId = UUID.randomUUID();
+        when(bookingRepository.findByIdWithFullDetails(bookingId)).thenThrow(new IllegalStateException("db down"));
+        OutboxEvent email = event(9L, bookingId, OutboxEventType.BOOKING_CONFIRMATION_EMAIL,
+                Map.of("recipientEmail", "guest@example.com"), 3);
+        when(outboxEventRepository.claimDue(any(), any(), anyInt())).thenReturn(List.of(email));
+
+        relay.relay();
+
+        verify(outboxEventRepository).markFailed(eq(9L), eq(OutboxStatus.FAILED), any(), eq("db down"));
+        assertEquals(1.0, meterRegistry.counter("outbox.failed", "type", "BOOKING_CONFIRMATION_EMAIL").count());
+    }
+
+    @Test
+    void retryDelay_ShouldDoubleUpToTenMinutes() {
+        assertEquals(Duration.ofSeconds(5), OutboxRelay.retryDelay(1));
+        assertEquals(Duration.ofSeconds(20), OutboxRelay.retryDelay(3));
+        assertEquals(Duration.ofMinutes(10), OutboxRelay.retryDelay(12));
+        assertTrue(OutboxRelay.retryDelay(100).compareTo(Duration.ofMinutes(10)) <= 0);
+    }
+
+    private static OutboxEvent event(long id, UUID aggregateId, OutboxEventType type, Map<String, Object> payload,
+            int attempts) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateId(aggregateId);
+        event.setEventType(type);
+        event.setPayload(payload);
+        event.setStatus(OutboxStatus.PROCESSING);
+        event.setAttempts(attempts);
+        event.setCreatedAt(Instant.now());
+        return event;
+    }
+}
@@ -0,0 +1,91 @@
+package com.awad.ticketbooking.common.scheduling;
+
+import com.awad.ticketbooking.common.config.JacksonConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterJobRunnerTest {
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger runs = new AtomicInteger();
+    private ClusterJobRunner firstNode;
+    private ClusterJobRunner secondNode;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        firstNode = new ClusterJobRunner(redissonClient, new JacksonConfig().objectMapper(), meterRegistry);
+        secondNode = new ClusterJobRunner(redissonClient, new JacksonConfig().objectMapper(), meterRegistry);
+    }
+
+    @Test
+    void job_ShouldRunOncePerIntervalAcrossNodes() throws InterruptedException {
+        Duration interval = Duration.ofMillis(200);
+
+        assertTrue(firstNode.runOnce("sweep", interval, runs::incrementAndGet));
+        assertFalse(secondNode.runOnce("sweep", interval, runs::incrementAndGet));
+        assertTrue(secondNode.runOnce("other", interval, runs::incrementAndGet));
+        Thread.sleep(interval.toMillis());
+        assertTrue(secondNode.runOnce("sweep", interval, runs::incrementAndGet));
+
+        assertEquals(3, runs.get());
+        assertEquals(1.0, meterRegistry.counter("scheduler.job.skipped", "job", "sweep").count());
+    }
+
+    @Test
+    void lastRuns_ShouldRecordItemsAndFailures() {
+        firstNode.runOnce("reminders", Duration.ofMinutes(1), () -> 7);
+        secondNode.runOnce("expiry", Duration.ofMinutes(1), () -> {
+            throw new IllegalStateException("db down");
+        });
+
+        List<JobRun> lastRuns = firstNode.getLastRuns();
+
+        assertEquals(List.of("expiry", "reminders"), lastRuns.stream().map(JobRun::getJob).toList());
+        assertEquals("db down", lastRuns.get(0).getError());
+        assertEquals(7, lastRuns.get(1).getItemsProcessed());
+        assertNull(lastRuns.get(1).getError());
+        assertEquals(7.0, meterRegistry.counter("scheduler.job.items", "job", "reminders").count());
+        assertEquals(1, meterRegistry.timer("scheduler.job.duration", "job", "expiry", "outcome", "failure").count());
+    }
+}
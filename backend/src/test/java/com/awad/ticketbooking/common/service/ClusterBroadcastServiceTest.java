@@ -0,0 +1,138 @@
+package com.awad.ticketbooking.common.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs two application nodes in one JVM against an embedded Redis and checks that a
+ * broadcast sent on one node reaches the local broker of both nodes exactly once.
+ */
+class ClusterBroadcastServiceTest {
+
+    private static RedisServer redisServer;
+    private static int redisPort;
+
+    private AnnotationConfigApplicationContext nodeA;
+    private AnnotationConfigApplicationContext nodeB;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            redisPort = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(redisPort);
+        redisServer.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void startNodes() {
+        System.setProperty("test.redis.port", String.valueOf(redisPort));
+        nodeA = new AnnotationConfigApplicationContext(NodeConfig.class);
+        nodeB = new AnnotationConfigApplicationContext(NodeConfig.class);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void convertAndSend_ShouldReachSubscribersOnEveryNode() throws Exception {
+        nodeA.getBean(ClusterBroadcastService.class)
+                .convertAndSend("/topic/trip/1/seats", Map.of("seatCode", "A1", "status", "LOCKED"));
+
+        List<Message<?>> receivedA = nodeA.getBean(SentMessages.class).messages();
+        List<Message<?>> receivedB = nodeB.getBean(SentMessages.class).messages();
+        awaitMessages(receivedA, 1);
+        awaitMessages(receivedB, 1);
+
+        // Give a duplicate delivery the chance to show up before asserting
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(1, receivedA.size());
+        assertEquals(1, receivedB.size());
+
+        Message<?> message = receivedB.get(0);
+        assertEquals("/topic/trip/1/seats", SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+        String body = new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+        assertTrue(body.contains("\"seatCode\":\"A1\""));
+        assertTrue(body.contains("\"status\":\"LOCKED\""));
+    }
+
+    private static void awaitMessages(List<Message<?>> messages, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (messages.size() < count && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertEquals(count, messages.size());
+    }
+
+    record SentMessages(List<Message<?>> messages) {
+    }
+
+    @Configuration
+    @Import(ClusterBroadcastService.class)
+    static class NodeConfig {
+
+        @Bean(destroyMethod = "shutdown")
+        RedissonClient redissonClient() {
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://127.0.0.1:" + System.getProperty("test.redis.port"));
+            return Redisson.create(config);
+        }
+
+        @Bean
+        SentMessages sentMessages() {
+            return new SentMessages(new CopyOnWriteArrayList<>());
+        }
+
+        // Stands in for the node's simple broker and records what it would fan out
+        @Bean
+        SimpMessagingTemplate simpMessagingTemplate(SentMessages sentMessages) {
+            return new SimpMessagingTemplate((message, timeout) -> sentMessages.messages().add(message));
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.awad.ticketbooking.common.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measured throughput of {@link IdAllocator} handing out booking and order codes from many threads, block
+ * refills and code encoding included. The sequences are in-memory counters that record every
+ * {@code nextval}, so the figures are the allocator's own cost plus the number of sequence calls it needs;
+ * the latency of those calls against Postgres is not part of them. Run with
+ * {@code mvn test -Dtest=IdAllocatorBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+class IdAllocatorBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int CODES_PER_THREAD = 50_000;
+
+    @Test
+    void measureAllocationThroughput() throws InterruptedException {
+        Sequence bookingCodeSeq = new Sequence();
+        Sequence orderCodeSeq = new Sequence();
+        IdAllocator allocator = new IdAllocator(bookingCodeSeq, orderCodeSeq);
+
+        run("warm-up", allocator::nextBookingCode, bookingCodeSeq);
+        run("booking codes", allocator::nextBookingCode, bookingCodeSeq);
+        run("order codes", allocator::nextOrderCode, orderCodeSeq);
+    }
+
+    private static void run(String name, Supplier<?> allocate, Sequence sequence) throws InterruptedException {
+        Set<Object> seen = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                List<Object> codes = new ArrayList<>(CODES_PER_THREAD);
+                for (int i = 0; i < CODES_PER_THREAD; i++) {
+                    codes.add(allocate.get());
+                }
+                seen.addAll(codes);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        long callsBefore = sequence.calls.get();
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long calls = sequence.calls.get() - callsBefore;
+
+        int total = THREADS * CODES_PER_THREAD;
+        log.info("{}: {} codes/s, {} sequence calls ({} threads, {} codes)", name,
+                String.format("%,.0f", total / seconds), calls, THREADS, total);
+        assertEquals(total, seen.size(), name + " handed out a duplicate");
+        // At most one block is left over from the previous run, so every other call served a full block
+        assertEquals((double) total / IdAllocator.BLOCK_SIZE, calls, 1, name + " refilled more often than needed");
+    }
+
+    // Stands in for a sequence with INCREMENT BY BLOCK_SIZE, counting nextval calls
+    private static final class Sequence implements LongSupplier {
+        private final AtomicLong value = new AtomicLong(1);
+        private final AtomicLong calls = new AtomicLong();
+
+        @Override
+        public long getAsLong() {
+            calls.incrementAndGet();
+            return value.getAndAdd(IdAllocator.BLOCK_SIZE);
+        }
+    }
+}
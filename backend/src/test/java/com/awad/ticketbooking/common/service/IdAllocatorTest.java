@@ -0,0 +1,59 @@
+package com.awad.ticketbooking.common.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdAllocatorTest {
+
+    @Test
+    void nextOrderCode_ShouldReserveOneBlockPerHundredIds() {
+        AtomicInteger reservations = new AtomicInteger();
+        AtomicLong sequence = new AtomicLong(10_000_000_000_000L);
+        LongSupplier blocks = () -> {
+            reservations.incrementAndGet();
+            return sequence.getAndAdd(IdAllocator.BLOCK_SIZE);
+        };
+        IdAllocator allocator = new IdAllocator(blocks, blocks);
+
+        long first = allocator.nextOrderCode();
+        for (int i = 1; i < 250; i++) {
+            assertEquals(first + i, allocator.nextOrderCode());
+        }
+        assertEquals(3, reservations.get());
+    }
+
+    @Test
+    void nodesSharingSequences_ShouldNeverHandOutTheSameCode() {
+        AtomicLong sequence = new AtomicLong(1);
+        LongSupplier blocks = () -> sequence.getAndAdd(IdAllocator.BLOCK_SIZE);
+        IdAllocator nodeA = new IdAllocator(blocks, blocks);
+        IdAllocator nodeB = new IdAllocator(blocks, blocks);
+
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(codes.add(nodeA.nextBookingCode()));
+            assertTrue(codes.add(nodeB.nextBookingCode()));
+        }
+    }
+
+    @Test
+    void encodeBookingCode_ShouldGiveDistinctReadableCodes() {
+        Set<String> codes = new HashSet<>();
+        for (long id = 0; id < 200_000; id++) {
+            String code = IdAllocator.encodeBookingCode(id);
+            assertTrue(code.matches("BK-[0-9A-HJKMNP-TV-Z]{7}"), code);
+            assertTrue(codes.add(code), code);
+        }
+        assertTrue(IdAllocator.encodeBookingCode((1L << 35) - 1).startsWith("BK-"));
+        assertThrows(IllegalStateException.class, () -> IdAllocator.encodeBookingCode(1L << 35));
+    }
+}
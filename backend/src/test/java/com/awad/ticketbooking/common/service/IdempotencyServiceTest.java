@@ -0,0 +1,203 @@
+package com.awad.ticketbooking.common.service;
+
+import com.awad.ticketbooking.common.config.JacksonConfig;
+import com.awad.ticketbooking.common.exception.SeatConflictException;
+import com.awad.ticketbooking.modules.payment.dto.CreatePaymentRequest;
+import com.awad.ticketbooking.modules.payment.dto.PaymentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyServiceTest {
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final UUID caller = UUID.randomUUID();
+    private IdempotencyService idempotencyService;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        idempotencyService = new IdempotencyService(redissonClient, new JacksonConfig().objectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(idempotencyService, "ttlHours", 1L);
+        ReflectionTestUtils.setField(idempotencyService, "requestTimeoutSeconds", 30L);
+    }
+
+    @Test
+    void retry_ShouldReplayTheFirstResponse() {
+        CreatePaymentRequest request = request();
+
+        PaymentResponse first = idempotencyService.execute("payment", caller, "key-1", request, PaymentResponse.class,
+                this::createPayment);
+        PaymentResponse retry = idempotencyService.execute("payment", caller, "key-1", request, PaymentResponse.class,
+                this::createPayment);
+
+        assertEquals(1, calls.get());
+        assertEquals(first, retry);
+        assertEquals(1.0, meterRegistry.counter("idempotency.replayed", "scope", "payment").count());
+    }
+
+    @Test
+    void concurrentDuplicates_ShouldWaitForTheFirstRequest() throws Exception {
+        CreatePaymentRequest request = request();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<PaymentResponse> first = pool.submit(() -> idempotencyService.execute("payment", caller, "key-2",
+                    request, PaymentResponse.class, () -> {
+                        running.countDown();
+                        await(release);
+                        return createPayment();
+                    }));
+            running.await();
+            List<Future<PaymentResponse>> duplicates = List.of(
+                    pool.submit(() -> idempotencyService.execute("payment", caller, "key-2", request,
+                            PaymentResponse.class, this::createPayment)),
+                    pool.submit(() -> idempotencyService.execute("payment", caller, "key-2", request,
+                            PaymentResponse.class, this::createPayment)));
+            Thread.sleep(100);
+            release.countDown();
+
+            PaymentResponse expected = first.get();
+            for (Future<PaymentResponse> duplicate : duplicates) {
+                assertEquals(expected, duplicate.get());
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedRequest_ShouldRunAgainOnRetry() {
+        CreatePaymentRequest request = request();
+
+        assertThrows(SeatConflictException.class, () -> idempotencyService.execute("booking", caller, "key-3", request,
+                PaymentResponse.class, () -> {
+                    throw new SeatConflictException(List.of("A1"));
+                }));
+        idempotencyService.execute("booking", caller, "key-3", request, PaymentResponse.class, this::createPayment);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void keyReusedForAnotherRequest_ShouldBeRejected() {
+        idempotencyService.execute("payment", caller, "key-4", request(), PaymentResponse.class, this::createPayment);
+
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute("payment", caller, "key-4",
+                request(), PaymentResponse.class, this::createPayment));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void sameKeyFromAnotherCaller_ShouldRunSeparately() {
+        PaymentResponse mine = idempotencyService.execute("payment", caller, "key-5", request(),
+                PaymentResponse.class, this::createPayment);
+        PaymentResponse theirs = idempotencyService.execute("payment", UUID.randomUUID(), "key-5", request(),
+                PaymentResponse.class, this::createPayment);
+
+        assertEquals(2, calls.get());
+        assertNotEquals(mine, theirs);
+    }
+
+    @Test
+    void keyWithoutCaller_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute("payment", null, "key-6",
+                request(), PaymentResponse.class, this::createPayment));
+
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void callerWithoutKey_ShouldRunWithoutReplay() {
+        idempotencyService.execute("payment", null, null, request(), PaymentResponse.class, this::createPayment);
+        idempotencyService.execute("payment", null, null, request(), PaymentResponse.class, this::createPayment);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void pendingMarker_ShouldOutliveTheRequestTimeout() {
+        idempotencyService.execute("payment", caller, "key-7", request(), PaymentResponse.class, () -> {
+            long ttl = redissonClient.getBucket("idempotency:payment:" + caller + ":key-7").remainTimeToLive();
+            assertTrue(ttl > TimeUnit.SECONDS.toMillis(30), "marker expires before the request times out");
+            return createPayment();
+        });
+    }
+
+    private PaymentResponse createPayment() {
+        calls.incrementAndGet();
+        return PaymentResponse.builder()
+                .id(UUID.randomUUID())
+                .orderCode(42L)
+                .amount(new BigDecimal("150000.00"))
+                .checkoutUrl("https://pay.example/42")
+                .createdAt(Instant.parse("2026-10-17T08:00:00Z"))
+                .build();
+    }
+
+    private static CreatePaymentRequest request() {
+        CreatePaymentRequest request = new CreatePaymentRequest();
+        request.setBookingId(UUID.randomUUID());
+        request.setReturnUrl("https://app.example/return");
+        request.setCancelUrl("https://app.example/cancel");
+        return request;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
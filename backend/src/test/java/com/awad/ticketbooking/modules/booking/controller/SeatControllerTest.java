@@ -0,0 +1,176 @@
+package com.awad.ticketbooking.modules.booking.controller;
+
+import com.awad.ticketbooking.common.enums.SeatLockResult;
+import com.awad.ticketbooking.common.exception.GlobalExceptionHandler;
+import com.awad.ticketbooking.common.exception.WaitingRoomException;
+import com.awad.ticketbooking.modules.booking.dto.LockSeatsRequest;
+import com.awad.ticketbooking.modules.booking.repository.TicketRepository;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Segment;
+import com.awad.ticketbooking.modules.booking.service.SeatLockService;
+import com.awad.ticketbooking.modules.trip.service.WaitingRoomService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class SeatControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private SeatLockService seatLockService;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private WaitingRoomService waitingRoomService;
+
+    @InjectMocks
+    private SeatController seatController;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final UUID tripId = UUID.randomUUID();
+    private final UUID guestId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(seatController)
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void lockSeats_ShouldLockAllSeats() throws Exception {
+        when(seatLockService.lockSeats(tripId, List.of("A1", "A2"), guestId, Segment.WHOLE_TRIP)).thenReturn(Map.of());
+
+        mockMvc.perform(post("/api/bookings/seats/lock/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request("A1", "A2"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.locked").value(true))
+                .andExpect(jsonPath("$.lockedSeats.length()").value(2));
+    }
+
+    @Test
+    void lockSeats_ShouldLockOnlyTheRequestedSegment() throws Exception {
+        UUID pickupStationId = UUID.randomUUID();
+        UUID dropoffStationId = UUID.randomUUID();
+        Segment segment = new Segment(pickupStationId, dropoffStationId);
+        when(seatLockService.lockSeats(tripId, List.of("A1"), guestId, segment))
+                .thenReturn(Map.of("A1", SeatLockResult.ALREADY_BOOKED));
+
+        LockSeatsRequest request = request("A1");
+        request.setPickupStationId(pickupStationId);
+        request.setDropoffStationId(dropoffStationId);
+
+        mockMvc.perform(post("/api/bookings/seats/lock/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.locked").value(false))
+                .andExpect(jsonPath("$.conflicts.A1").value("ALREADY_BOOKED"));
+    }
+
+    @Test
+    void lockSeats_ShouldReportSeatsHeldByOthers() throws Exception {
+        when(seatLockService.lockSeats(tripId, List.of("A1", "A2"), guestId, Segment.WHOLE_TRIP))
+                .thenReturn(Map.of("A1", SeatLockResult.HELD_BY_OTHER));
+
+        mockMvc.perform(post("/api/bookings/seats/lock/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request("A1", "A2", "A1"))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.lockedSeats.length()").value(0))
+                .andExpect(jsonPath("$.conflicts.A1").value("HELD_BY_OTHER"));
+    }
+
+    @Test
+    void lockSeats_ShouldTurnAwayShoppersNotAdmittedFromTheWaitingRoom() throws Exception {
+        doThrow(new WaitingRoomException("Trip has a waiting room"))
+                .when(waitingRoomService).requireAdmission(tripId, "queued-token");
+
+        mockMvc.perform(post("/api/bookings/seats/lock/batch")
+                        .header(WaitingRoomService.ADMISSION_HEADER, "queued-token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request("A1"))))
+                .andExpect(status().isTooManyRequests());
+
+        verify(seatLockService, never()).lockSeats(any(), any(), any(), any());
+    }
+
+    @Test
+    void getSeatStatus_ShouldReturnNotModifiedWhenNothingChanged() throws Exception {
+        when(seatLockService.getSeatChanges(tripId, 42L, Segment.WHOLE_TRIP))
+                .thenReturn(new SeatInventoryService.Changes(42L, true, Map.of()));
+
+        mockMvc.perform(get("/api/bookings/seats/{tripId}", tripId).param("sinceVersion", "42"))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(SeatController.SEAT_VERSION_HEADER, "42"));
+
+        verify(ticketRepository, never()).findBookedSeatCodesByTripIdAndSegment(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getSeatStatus_ShouldReturnOnlyChangedSeats() throws Exception {
+        when(seatLockService.getSeatChanges(tripId, 42L, Segment.WHOLE_TRIP))
+                .thenReturn(new SeatInventoryService.Changes(44L, true, Map.of("A1", "AVAILABLE", "A2", "BOOKED")));
+
+        mockMvc.perform(get("/api/bookings/seats/{tripId}", tripId).param("sinceVersion", "42"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SeatController.SEAT_VERSION_HEADER, "44"))
+                .andExpect(header().string(SeatController.SEAT_DELTA_HEADER, "true"))
+                .andExpect(jsonPath("$.A1").value("AVAILABLE"))
+                .andExpect(jsonPath("$.A2").value("BOOKED"));
+    }
+
+    @Test
+    void getSeatStatus_ShouldFallBackToSnapshotWhenChangeLogIsTooShort() throws Exception {
+        when(seatLockService.getSeatChanges(tripId, 1L, Segment.WHOLE_TRIP))
+                .thenReturn(new SeatInventoryService.Changes(44L, false, Map.of()));
+        when(seatLockService.getSeatSnapshot(tripId, Segment.WHOLE_TRIP))
+                .thenReturn(new SeatInventoryService.Snapshot(44L, 0, 3, Map.of("A1", guestId, "A2", guestId)));
+        when(ticketRepository.findBookedSeatCodesByTripIdAndSegment(tripId, 0, 3)).thenReturn(List.of("A2"));
+
+        mockMvc.perform(get("/api/bookings/seats/{tripId}", tripId).param("sinceVersion", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SeatController.SEAT_DELTA_HEADER, "false"))
+                .andExpect(jsonPath("$.A1").value("LOCKED:" + guestId))
+                .andExpect(jsonPath("$.A2").value("BOOKED"));
+    }
+
+    private LockSeatsRequest request(String... seatCodes) {
+        LockSeatsRequest request = new LockSeatsRequest();
+        request.setTripId(tripId);
+        request.setSeatCodes(List.of(seatCodes));
+        request.setGuestId(guestId.toString());
+        return request;
+    }
+}
@@ -0,0 +1,68 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.enums.BookingStatus;
+import com.awad.ticketbooking.common.enums.DashboardChange;
+import com.awad.ticketbooking.common.outbox.OutboxService;
+import com.awad.ticketbooking.modules.booking.service.BookingExpiryService.ExpiredBooking;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Release;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Segment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BookingExpiryServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SeatLockService seatLockService = mock(SeatLockService.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final BookingExpiryService bookingExpiryService =
+            new BookingExpiryService(jdbcTemplate, seatLockService, outboxService, meterRegistry);
+
+    @Test
+    void expireDue_ShouldReleaseSeatsOfTheWholeBatchTogether() {
+        UUID tripId = UUID.randomUUID();
+        Segment tail = new Segment(UUID.randomUUID(), null);
+        ExpiredBooking first = new ExpiredBooking(UUID.randomUUID(), tripId, Instant.parse("2026-10-17T08:00:00Z"),
+                Segment.WHOLE_TRIP, List.of("A1", "A2"));
+        ExpiredBooking second = new ExpiredBooking(UUID.randomUUID(), tripId, Instant.parse("2026-10-17T08:01:00Z"),
+                tail, List.of("B1"));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), eq(50), any()))
+                .thenReturn(List.of(first, second));
+
+        int expired = bookingExpiryService.expireDue(Instant.parse("2026-10-17T08:20:00Z"), 50);
+
+        assertEquals(2, expired);
+        verify(seatLockService).releaseSeatsAfterCommit(List.of(
+                new Release(tripId, List.of("A1", "A2"), Segment.WHOLE_TRIP),
+                new Release(tripId, List.of("B1"), tail)));
+        verify(outboxService).publishDashboardChange(first.id(), first.createdAt(), DashboardChange.UPDATED);
+        verify(outboxService).publishStatusChange(second.id(), BookingStatus.CANCELLED);
+        assertEquals(2.0, meterRegistry.counter("bookings.expired").count());
+    }
+
+    @Test
+    void expireDue_ShouldDoNothingWhenNoBookingIsDue() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), eq(50), any())).thenReturn(List.of());
+
+        assertEquals(0, bookingExpiryService.expireDue(Instant.now(), 50));
+        verify(seatLockService, never()).releaseSeatsAfterCommit(any());
+        verifyNoInteractions(outboxService);
+    }
+}
@@ -0,0 +1,201 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.enums.BookingStatus;
+import com.awad.ticketbooking.common.outbox.OutboxService;
+import com.awad.ticketbooking.common.service.IdAllocator;
+import com.awad.ticketbooking.modules.auth.repository.UserRepository;
+import com.awad.ticketbooking.modules.booking.dto.BookingResponse;
+import com.awad.ticketbooking.modules.booking.entity.Booking;
+import com.awad.ticketbooking.modules.booking.entity.BookingView;
+import com.awad.ticketbooking.modules.booking.entity.Ticket;
+import com.awad.ticketbooking.modules.booking.repository.BookingRepository;
+import com.awad.ticketbooking.modules.booking.repository.BookingViewRepository;
+import com.awad.ticketbooking.modules.booking.repository.TicketRepository;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Segment;
+import com.awad.ticketbooking.modules.catalog.entity.Bus;
+import com.awad.ticketbooking.modules.catalog.entity.Operator;
+import com.awad.ticketbooking.modules.catalog.entity.Route;
+import com.awad.ticketbooking.modules.catalog.entity.Station;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.service.TripPricingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingServiceTest {
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final BookingViewRepository bookingViewRepository = mock(BookingViewRepository.class);
+    private final SeatLockService seatLockService = mock(SeatLockService.class);
+
+    private final BookingService bookingService = new BookingService(bookingRepository, bookingViewRepository,
+            mock(TripRepository.class), mock(UserRepository.class), mock(TicketRepository.class),
+            seatLockService, mock(IdAllocator.class), mock(OutboxService.class), mock(TripPricingService.class));
+
+    @Test
+    void getBookingById_ShouldMapTheFlattenedViewRow() {
+        BookingView view = bookingView();
+        when(bookingViewRepository.findById(view.getBookingId())).thenReturn(Optional.of(view));
+
+        BookingResponse response = bookingService.getBookingById(view.getBookingId());
+
+        assertEquals(view.getBookingId(), response.getId());
+        assertEquals("BK-ABC123", response.getCode());
+        assertEquals(BookingStatus.CONFIRMED, response.getStatus());
+        assertEquals(new BigDecimal("500000"), response.getTotalPrice());
+        assertEquals(view.getTripId(), response.getTrip().getId());
+        assertEquals(view.getDepartureTime(), response.getTrip().getDepartureTime());
+        assertEquals(view.getRouteId(), response.getTrip().getRoute().getId());
+        assertEquals("Ha Noi", response.getTrip().getRoute().getOriginStation().getCity());
+        assertEquals("Da Nang", response.getTrip().getRoute().getDestinationStation().getCity());
+        assertEquals(720, response.getTrip().getRoute().getDurationMinutes());
+        assertEquals("29B-12345", response.getTrip().getBus().getPlateNumber());
+        assertEquals("Phuong Trang", response.getTrip().getBus().getOperatorName());
+        assertEquals(List.of("WIFI"), response.getTrip().getBus().getAmenities());
+        assertEquals(view.getPickupStationId(), response.getPickupStation().getId());
+        assertEquals("Ninh Binh", response.getPickupStation().getCity());
+        assertNull(response.getDropoffStation());
+        assertEquals(1, response.getTickets().size());
+        assertEquals("A1", response.getTickets().get(0).getSeatCode());
+        assertEquals(new BigDecimal("500000"), response.getTickets().get(0).getPrice());
+    }
+
+    @Test
+    void lookupBooking_ShouldRejectAnEmailThatIsNotTheContactEmail() {
+        BookingView view = bookingView();
+        when(bookingViewRepository.findByCode("BK-ABC123")).thenReturn(Optional.of(view));
+
+        assertEquals(view.getBookingId(), bookingService.lookupBooking("BK-ABC123", "AN@EXAMPLE.COM").getId());
+        assertThrows(RuntimeException.class, () -> bookingService.lookupBooking("BK-ABC123", "other@example.com"));
+    }
+
+    @Test
+    void rebuildBookingView_ShouldRefreshTheRowOfAnExistingBooking() {
+        UUID bookingId = UUID.randomUUID();
+        when(bookingRepository.existsById(bookingId)).thenReturn(true);
+
+        bookingService.rebuildBookingView(bookingId);
+
+        verify(bookingViewRepository).rebuild(bookingId);
+    }
+
+    @Test
+    void rebuildBookingView_ShouldRejectAnUnknownBooking() {
+        UUID bookingId = UUID.randomUUID();
+        when(bookingRepository.existsById(bookingId)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> bookingService.rebuildBookingView(bookingId));
+        verify(bookingViewRepository, never()).rebuild(any());
+    }
+
+    @Test
+    void rebuildAllBookingViews_ShouldReturnTheNumberOfRowsWritten() {
+        when(bookingViewRepository.rebuildAll()).thenReturn(42);
+
+        assertEquals(42, bookingService.rebuildAllBookingViews());
+    }
+
+    @Test
+    void cancelBooking_ShouldReleaseSeatsOnlyAfterCommit() {
+        Booking booking = pendingBooking("A1", "A2");
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+        when(bookingRepository.save(booking)).thenReturn(booking);
+
+        bookingService.cancelBooking(booking.getId());
+
+        assertEquals(BookingStatus.CANCELLED, booking.getStatus());
+        verify(seatLockService).releaseSeatsAfterCommit(booking.getTrip().getId(), List.of("A1", "A2"),
+                Segment.between(booking.getPickupStation(), booking.getDropoffStation()));
+    }
+
+    private static Booking pendingBooking(String... seatCodes) {
+        Station origin = station();
+        Station destination = station();
+        Route route = new Route();
+        route.setId(UUID.randomUUID());
+        route.setOriginStation(origin);
+        route.setDestinationStation(destination);
+        Operator operator = new Operator();
+        operator.setName("Phuong Trang");
+        Bus bus = new Bus();
+        bus.setId(UUID.randomUUID());
+        bus.setOperator(operator);
+        Trip trip = new Trip();
+        trip.setId(UUID.randomUUID());
+        trip.setRoute(route);
+        trip.setBus(bus);
+        trip.setDepartureTime(Instant.now().plusSeconds(86400));
+
+        Booking booking = new Booking();
+        booking.setId(UUID.randomUUID());
+        booking.setTrip(trip);
+        booking.setPickupStation(origin);
+        booking.setDropoffStation(destination);
+        booking.setStatus(BookingStatus.PENDING);
+        for (String seatCode : seatCodes) {
+            Ticket ticket = new Ticket();
+            ticket.setBooking(booking);
+            ticket.setSeatCode(seatCode);
+            booking.getTickets().add(ticket);
+        }
+        return booking;
+    }
+
+    private static Station station() {
+        Station station = new Station();
+        station.setId(UUID.randomUUID());
+        return station;
+    }
+
+    private static BookingView bookingView() {
+        BookingView view = new BookingView();
+        ReflectionTestUtils.setField(view, "bookingId", UUID.randomUUID());
+        ReflectionTestUtils.setField(view, "code", "BK-ABC123");
+        ReflectionTestUtils.setField(view, "status", BookingStatus.CONFIRMED);
+        ReflectionTestUtils.setField(view, "totalPrice", new BigDecimal("500000"));
+        ReflectionTestUtils.setField(view, "passengerName", "Nguyen Van An");
+        ReflectionTestUtils.setField(view, "passengerEmail", "an@example.com");
+        ReflectionTestUtils.setField(view, "createdAt", Instant.parse("2026-10-17T08:00:00Z"));
+        ReflectionTestUtils.setField(view, "tripId", UUID.randomUUID());
+        ReflectionTestUtils.setField(view, "departureTime", Instant.parse("2026-10-20T22:00:00Z"));
+        ReflectionTestUtils.setField(view, "arrivalTime", Instant.parse("2026-10-21T10:00:00Z"));
+        ReflectionTestUtils.setField(view, "routeId", UUID.randomUUID());
+        ReflectionTestUtils.setField(view, "durationMinutes", 720);
+        ReflectionTestUtils.setField(view, "originStationId", UUID.randomUUID());
+        ReflectionTestUtils.setField(view, "originName", "Ben xe Giap Bat");
+        ReflectionTestUtils.setField(view, "originCity", "Ha Noi");
+        ReflectionTestUtils.setField(view, "destinationStationId", UUID.randomUUID());
+        ReflectionTestUtils.setField(view, "destinationName", "Ben xe Trung tam Da Nang");
+        ReflectionTestUtils.setField(view, "destinationCity", "Da Nang");
+        ReflectionTestUtils.setField(view, "pickupStationId", UUID.randomUUID());
+        ReflectionTestUtils.setField(view, "pickupName", "Ben xe Ninh Binh");
+        ReflectionTestUtils.setField(view, "pickupCity", "Ninh Binh");
+        ReflectionTestUtils.setField(view, "busId", UUID.randomUUID());
+        ReflectionTestUtils.setField(view, "plateNumber", "29B-12345");
+        ReflectionTestUtils.setField(view, "amenities", List.of("WIFI"));
+        ReflectionTestUtils.setField(view, "operatorName", "Phuong Trang");
+
+        BookingView.Ticket ticket = new BookingView.Ticket();
+        ticket.setId(UUID.randomUUID());
+        ticket.setSeatCode("A1");
+        ticket.setPassengerName("Nguyen Van An");
+        ticket.setPrice(new BigDecimal("500000"));
+        ReflectionTestUtils.setField(view, "tickets", List.of(ticket));
+        return view;
+    }
+}
@@ -0,0 +1,222 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.enums.DashboardChange;
+import com.awad.ticketbooking.common.enums.SeatLockResult;
+import com.awad.ticketbooking.common.enums.TripStatus;
+import com.awad.ticketbooking.common.outbox.OutboxService;
+import com.awad.ticketbooking.common.service.IdAllocator;
+import com.awad.ticketbooking.modules.auth.repository.UserRepository;
+import com.awad.ticketbooking.modules.booking.dto.BulkBookingItemResult;
+import com.awad.ticketbooking.modules.booking.dto.BulkBookingRequest;
+import com.awad.ticketbooking.modules.booking.dto.BulkBookingResponse;
+import com.awad.ticketbooking.modules.booking.dto.CreateBookingRequest;
+import com.awad.ticketbooking.modules.booking.dto.TicketRequest;
+import com.awad.ticketbooking.modules.booking.repository.TicketRepository;
+import com.awad.ticketbooking.modules.catalog.entity.Bus;
+import com.awad.ticketbooking.common.enums.SeatType;
+import com.awad.ticketbooking.modules.catalog.entity.BusLayout;
+import com.awad.ticketbooking.modules.catalog.entity.Route;
+import com.awad.ticketbooking.modules.catalog.entity.Station;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.service.PriceMatrix;
+import com.awad.ticketbooking.modules.trip.service.TripPricingService;
+import com.awad.ticketbooking.modules.trip.service.WaitingRoomService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkBookingServiceTest {
+
+    private final TripRepository tripRepository = mock(TripRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final TripPricingService tripPricingService = mock(TripPricingService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final IdAllocator idAllocator = mock(IdAllocator.class);
+    private final SeatLockService seatLockService = mock(SeatLockService.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final WaitingRoomService waitingRoomService = mock(WaitingRoomService.class);
+
+    private final UUID layoutId = UUID.randomUUID();
+    private final Trip morningTrip = trip();
+    private final Trip eveningTrip = trip();
+
+    private BulkBookingService bulkBookingService;
+
+    @BeforeEach
+    void setUp() {
+        when(tripRepository.findWithRouteStopsByIdIn(any())).thenReturn(List.of(morningTrip, eveningTrip));
+        when(tripPricingService.getMatrices(any())).thenReturn(Map.of(
+                morningTrip.getId(), prices(morningTrip, "A1", "A2", "A3"),
+                eveningTrip.getId(), prices(eveningTrip, "A1", "A2", "A3")));
+        when(idAllocator.nextBookingCode()).thenReturn("BK-1", "BK-2", "BK-3");
+        bulkBookingService = new BulkBookingService(tripRepository, userRepository, ticketRepository,
+                tripPricingService, jdbcTemplate, idAllocator, seatLockService, outboxService,
+                waitingRoomService, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void createBookings_ShouldWriteEachTripWithOneBatchPerTable() {
+        BulkBookingResponse response = bulkBookingService.createBookings(request(
+                item(morningTrip, "A1", "A2"),
+                item(morningTrip, "A3"),
+                item(eveningTrip, "A1")));
+
+        assertEquals(3, response.getBooked());
+        assertEquals(0, response.getFailed());
+        assertEquals(List.of("A1", "A2"), response.getResults().get(0).getSeatCodes());
+        assertEquals(new BigDecimal("200"), response.getResults().get(0).getTotalPrice());
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.captor();
+        verify(jdbcTemplate, times(4)).batchUpdate(anyString(), rows.capture());
+        assertEquals(List.of(2, 3, 1, 1), rows.getAllValues().stream().map(List::size).toList());
+        verify(outboxService, times(2)).publishDashboardChange(any(), any(), eq(DashboardChange.CREATED));
+    }
+
+    @Test
+    void conflictingEntry_ShouldFailOnlyItsTrip() {
+        when(ticketRepository.findActiveSeatSegmentsByTripIdAndSeatCodes(eq(morningTrip.getId()), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{"A3", 0, 1}));
+
+        BulkBookingResponse response = bulkBookingService.createBookings(request(
+                item(morningTrip, "A1"),
+                item(morningTrip, "A3"),
+                item(eveningTrip, "A3")));
+
+        assertEquals(1, response.getBooked());
+        BulkBookingItemResult notBooked = response.getResults().get(0);
+        BulkBookingItemResult conflict = response.getResults().get(1);
+        assertFalse(notBooked.isSuccess());
+        assertEquals("Not booked because entry 1 for the same trip failed", notBooked.getError());
+        assertEquals(List.of("A3"), conflict.getConflictingSeats());
+        assertTrue(response.getResults().get(2).isSuccess());
+        verify(seatLockService, never()).markSeatsBooked(eq(morningTrip.getId()), anyList(), any());
+    }
+
+    @Test
+    void seatHeldByAnotherShopper_ShouldFailItsTripAsAConflict() {
+        when(seatLockService.lockSeats(eq(morningTrip.getId()), eq(List.of("A2", "A3")), any(), any()))
+                .thenReturn(Map.of("A3", SeatLockResult.HELD_BY_OTHER));
+
+        BulkBookingResponse response = bulkBookingService.createBookings(request(
+                item(morningTrip, "A1"),
+                item(morningTrip, "A2", "A3"),
+                item(eveningTrip, "A3")));
+
+        assertEquals(1, response.getBooked());
+        BulkBookingItemResult conflict = response.getResults().get(1);
+        assertFalse(conflict.isSuccess());
+        assertEquals("Seat A3 is held by another customer", conflict.getError());
+        assertEquals(List.of("A3"), conflict.getConflictingSeats());
+        assertFalse(response.getResults().get(0).isSuccess());
+        assertTrue(response.getResults().get(2).isSuccess());
+        // The hold taken for the first entry is given back when the trip rolls back
+        verify(seatLockService).unlockSeatsOnRollback(eq(morningTrip.getId()), eq(List.of("A1")), any());
+        verify(seatLockService, never()).markSeatsBooked(eq(morningTrip.getId()), anyList(), any());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void entriesOfOneRequest_ShouldNotShareASeat() {
+        BulkBookingResponse response = bulkBookingService.createBookings(request(
+                item(eveningTrip, "A2"),
+                item(eveningTrip, "A2", "A3")));
+
+        assertEquals(0, response.getBooked());
+        assertEquals(List.of("A2"), response.getResults().get(1).getConflictingSeats());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void unknownTrip_ShouldBeReportedPerEntry() {
+        CreateBookingRequest unknown = item(morningTrip, "A1");
+        unknown.setTripId(UUID.randomUUID());
+
+        BulkBookingResponse response = bulkBookingService.createBookings(request(unknown, item(eveningTrip, "A1")));
+
+        assertEquals("Trip not found", response.getResults().get(0).getError());
+        assertTrue(response.getResults().get(1).isSuccess());
+    }
+
+    private static BulkBookingRequest request(CreateBookingRequest... items) {
+        BulkBookingRequest request = new BulkBookingRequest();
+        request.setBookings(Arrays.asList(items));
+        return request;
+    }
+
+    private static CreateBookingRequest item(Trip trip, String... seatCodes) {
+        CreateBookingRequest item = new CreateBookingRequest();
+        item.setTripId(trip.getId());
+        item.setPassengerName("Group lead");
+        item.setPassengerPhone("0900000000");
+        List<TicketRequest> tickets = new ArrayList<>();
+        for (String seatCode : seatCodes) {
+            TicketRequest ticket = new TicketRequest();
+            ticket.setSeatCode(seatCode);
+            ticket.setPassengerName("Traveller " + seatCode);
+            ticket.setPassengerPhone("0900000000");
+            // Ignored, seats are priced from the trip's pricing
+            ticket.setPrice(new BigDecimal("1"));
+            tickets.add(ticket);
+        }
+        item.setTickets(tickets);
+        return item;
+    }
+
+    private Trip trip() {
+        Route route = new Route();
+        route.setOriginStation(station());
+        route.setDestinationStation(station());
+        BusLayout layout = new BusLayout();
+        layout.setId(layoutId);
+        Bus bus = new Bus();
+        bus.setBusLayout(layout);
+        Trip trip = new Trip();
+        trip.setId(UUID.randomUUID());
+        trip.setRoute(route);
+        trip.setBus(bus);
+        trip.setStatus(TripStatus.SCHEDULED);
+        trip.setDepartureTime(Instant.now().plusSeconds(86400));
+        return trip;
+    }
+
+    private static Station station() {
+        Station station = new Station();
+        station.setId(UUID.randomUUID());
+        return station;
+    }
+
+    private static PriceMatrix prices(Trip trip, String... seatCodes) {
+        Map<String, String> seatTypes = new HashMap<>();
+        for (String seatCode : seatCodes) {
+            seatTypes.put(seatCode, "NORMAL");
+        }
+        return new PriceMatrix(trip.getId(), null, trip.getDepartureTime(),
+                List.of(new PriceMatrix.Pricing(UUID.randomUUID(), SeatType.NORMAL, new BigDecimal("100"))), seatTypes);
+    }
+}
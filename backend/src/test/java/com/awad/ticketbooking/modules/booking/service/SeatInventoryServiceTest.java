@@ -0,0 +1,248 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.enums.SeatLockResult;
+import com.awad.ticketbooking.common.enums.StopType;
+import com.awad.ticketbooking.modules.booking.repository.TicketRepository;
+import com.awad.ticketbooking.modules.booking.service.SeatInventoryService.Segment;
+import com.awad.ticketbooking.modules.catalog.entity.LayoutSeat;
+import com.awad.ticketbooking.modules.catalog.entity.Route;
+import com.awad.ticketbooking.modules.catalog.entity.RouteStop;
+import com.awad.ticketbooking.modules.catalog.entity.Station;
+import com.awad.ticketbooking.modules.catalog.repository.LayoutSeatRepository;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the segment-aware inventory scripts against an embedded Redis for a route
+ * origin -> first stop -> second stop -> destination (three legs).
+ */
+class SeatInventoryServiceTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private final TripRepository tripRepository = mock(TripRepository.class);
+    private final LayoutSeatRepository layoutSeatRepository = mock(LayoutSeatRepository.class);
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+
+    private final UUID tripId = UUID.randomUUID();
+    private final UUID origin = UUID.randomUUID();
+    private final UUID firstStop = UUID.randomUUID();
+    private final UUID secondStop = UUID.randomUUID();
+    private final UUID destination = UUID.randomUUID();
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    private SeatInventoryService inventory;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        UUID layoutId = UUID.randomUUID();
+        when(tripRepository.findWithRouteStopsById(tripId)).thenReturn(Optional.of(trip()));
+        when(tripRepository.findBusLayoutIdById(tripId)).thenReturn(Optional.of(layoutId));
+        when(layoutSeatRepository.findByBusLayoutId(layoutId)).thenReturn(seats("A1", "A2", "A3"));
+        inventory = new SeatInventoryService(redissonClient, tripRepository, layoutSeatRepository, ticketRepository);
+    }
+
+    @Test
+    void seatSoldUpToAStop_ShouldBeSellableFromThatStopOn() {
+        inventory.markBooked(tripId, List.of("A1"), new Segment(null, firstStop));
+
+        assertEquals(SeatLockResult.ALREADY_BOOKED, inventory.lock(tripId, "A1", alice, Segment.WHOLE_TRIP, TTL));
+        assertEquals(SeatLockResult.ALREADY_BOOKED, inventory.lock(tripId, "A1", alice, new Segment(origin, secondStop), TTL));
+        assertEquals(SeatLockResult.LOCKED, inventory.lock(tripId, "A1", alice, new Segment(firstStop, null), TTL));
+
+        SeatInventoryService.Snapshot tail = inventory.getSnapshot(tripId, new Segment(secondStop, destination));
+        assertEquals(2, tail.fromStop());
+        assertEquals(3, tail.toStop());
+        assertEquals(Map.of("A1", alice), tail.lockedSeats());
+        assertEquals(Map.of(), inventory.getSnapshot(tripId, new Segment(null, firstStop)).lockedSeats());
+    }
+
+    @Test
+    void holdsOnDisjointSegments_ShouldCoexist() {
+        assertEquals(SeatLockResult.LOCKED, inventory.lock(tripId, "A2", alice, new Segment(null, firstStop), TTL));
+        assertEquals(SeatLockResult.LOCKED, inventory.lock(tripId, "A2", bob, new Segment(secondStop, null), TTL));
+        assertEquals(SeatLockResult.HELD_BY_OTHER, inventory.lock(tripId, "A2", bob, Segment.WHOLE_TRIP, TTL));
+
+        // Alice's release leaves Bob's hold, so the seat is not free for the whole trip yet
+        assertFalse(inventory.unlock(tripId, "A2", alice));
+        assertEquals(SeatLockResult.LOCKED, inventory.lock(tripId, "A2", alice, new Segment(null, secondStop), TTL));
+        assertEquals(List.of(), inventory.release(tripId, List.of("A2"), new Segment(null, secondStop)));
+        assertTrue(inventory.unlock(tripId, "A2", bob));
+    }
+
+    @Test
+    void changes_ShouldReportStatusOnTheRequestedSegment() {
+        long version = inventory.getSnapshot(tripId, Segment.WHOLE_TRIP).version();
+        inventory.markBooked(tripId, List.of("A3"), new Segment(firstStop, secondStop));
+        inventory.lock(tripId, "A1", bob, new Segment(secondStop, null), TTL);
+
+        assertEquals(Map.of("A3", "AVAILABLE", "A1", "AVAILABLE"),
+                inventory.getChangesSince(tripId, version, new Segment(null, firstStop)).seats());
+        assertEquals(Map.of("A3", "BOOKED", "A1", "LOCKED:" + bob),
+                inventory.getChangesSince(tripId, version, Segment.WHOLE_TRIP).seats());
+    }
+
+    @Test
+    void initialize_ShouldRebuildSoldSegmentsFromTickets() {
+        when(ticketRepository.findActiveSeatSegmentsByTripId(tripId))
+                .thenReturn(List.<Object[]>of(new Object[]{"A3", 1, 3}));
+
+        assertEquals(SeatLockResult.ALREADY_BOOKED, inventory.lock(tripId, "A3", alice, new Segment(secondStop, null), TTL));
+        assertEquals(SeatLockResult.LOCKED, inventory.lock(tripId, "A3", alice, new Segment(null, firstStop), TTL));
+        assertEquals(SeatLockResult.UNKNOWN_SEAT, inventory.lock(tripId, "#legs", alice, Segment.WHOLE_TRIP, TTL));
+    }
+
+    @Test
+    void reversedSegment_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> inventory.lock(tripId, "A1", alice, new Segment(secondStop, firstStop), TTL));
+    }
+
+    @Test
+    void unknownStation_ShouldBeRejected() {
+        IllegalArgumentException pickup = assertThrows(IllegalArgumentException.class,
+                () -> inventory.lock(tripId, "A1", alice, new Segment(UUID.randomUUID(), null), TTL));
+        assertEquals("Invalid pickup station for this route", pickup.getMessage());
+        IllegalArgumentException dropoff = assertThrows(IllegalArgumentException.class,
+                () -> inventory.getSnapshot(tripId, new Segment(null, UUID.randomUUID())));
+        assertEquals("Invalid dropoff station for this route", dropoff.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> inventory.markBooked(tripId, List.of("A1"), new Segment(UUID.randomUUID(), null)));
+        assertTrue(inventory.getSnapshot(tripId, Segment.WHOLE_TRIP).lockedSeats().isEmpty());
+    }
+
+    @Test
+    void stopPassengersMayNotBoardAt_ShouldBeRejectedForHoldsButNotForSales() {
+        Trip trip = trip();
+        trip.getRoute().getStops().forEach(stop -> stop.setStopType(StopType.DROPOFF));
+        when(tripRepository.findWithRouteStopsById(tripId)).thenReturn(Optional.of(trip));
+
+        IllegalArgumentException pickup = assertThrows(IllegalArgumentException.class,
+                () -> inventory.lock(tripId, "A1", alice, new Segment(firstStop, null), TTL));
+        assertEquals("Invalid pickup station for this route", pickup.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> inventory.getChangesSince(tripId, 0, new Segment(secondStop, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> inventory.lock(tripId, "A1", alice, new Segment(null, origin), TTL));
+        assertEquals(SeatLockResult.LOCKED, inventory.lock(tripId, "A1", alice, new Segment(null, firstStop), TTL));
+
+        // A sale made before the stop changed its type is still recorded and released
+        inventory.markBooked(tripId, List.of("A2"), new Segment(firstStop, null));
+        assertEquals(SeatLockResult.ALREADY_BOOKED, inventory.lock(tripId, "A2", bob, new Segment(null, secondStop), TTL));
+        assertEquals(List.of("A2"), inventory.release(tripId, List.of("A2"), new Segment(firstStop, null)));
+    }
+
+    @Test
+    void expireLocks_ShouldFreeTimedOutHolds() throws InterruptedException {
+        inventory.lock(tripId, "A1", alice, new Segment(null, firstStop), Duration.ofMillis(1));
+        inventory.lock(tripId, "A2", alice, new Segment(null, firstStop), Duration.ofMillis(1));
+        inventory.markBooked(tripId, List.of("A2"), new Segment(secondStop, null));
+        Thread.sleep(5);
+
+        SeatInventoryService.ExpiredHolds expired = inventory.expireLocks(tripId, System.currentTimeMillis(), 10);
+
+        assertEquals(2, expired.swept());
+        assertEquals(List.of("A1"), expired.freedSeats());
+        assertEquals(Map.of(), inventory.getSnapshot(tripId, Segment.WHOLE_TRIP).lockedSeats());
+    }
+
+    @Test
+    void releaseAll_ShouldReportSeatsOnceEveryBookingOnThemIsReleased() {
+        inventory.markBooked(tripId, List.of("A1"), new Segment(null, firstStop));
+        inventory.markBooked(tripId, List.of("A1"), new Segment(secondStop, null));
+        inventory.markBooked(tripId, List.of("A2"), Segment.WHOLE_TRIP);
+
+        List<List<String>> freed = inventory.releaseAll(List.of(
+                new SeatInventoryService.Release(tripId, List.of("A1"), new Segment(null, firstStop)),
+                new SeatInventoryService.Release(tripId, List.of("A1"), new Segment(secondStop, null)),
+                new SeatInventoryService.Release(tripId, List.of("A2"), Segment.WHOLE_TRIP),
+                new SeatInventoryService.Release(tripId, List.of(), Segment.WHOLE_TRIP)));
+
+        assertEquals(List.of(List.of(), List.of("A1"), List.of("A2"), List.of()), freed);
+        assertEquals(SeatLockResult.LOCKED, inventory.lock(tripId, "A1", alice, Segment.WHOLE_TRIP, TTL));
+    }
+
+    private Trip trip() {
+        Route route = new Route();
+        route.setOriginStation(station(origin));
+        route.setDestinationStation(station(destination));
+        route.getStops().add(stop(secondStop, 2));
+        route.getStops().add(stop(firstStop, 1));
+        Trip trip = new Trip();
+        trip.setId(tripId);
+        trip.setRoute(route);
+        return trip;
+    }
+
+    private static Station station(UUID id) {
+        Station station = new Station();
+        station.setId(id);
+        return station;
+    }
+
+    private static RouteStop stop(UUID stationId, int stopOrder) {
+        RouteStop stop = new RouteStop();
+        stop.setStation(station(stationId));
+        stop.setStopOrder(stopOrder);
+        return stop;
+    }
+
+    private static List<LayoutSeat> seats(String... seatCodes) {
+        List<LayoutSeat> seats = new ArrayList<>();
+        for (int i = 0; i < seatCodes.length; i++) {
+            LayoutSeat seat = new LayoutSeat();
+            seat.setSeatCode(seatCodes[i]);
+            seat.setRowIndex(0);
+            seat.setColIndex(i);
+            seats.add(seat);
+        }
+        return seats;
+    }
+}
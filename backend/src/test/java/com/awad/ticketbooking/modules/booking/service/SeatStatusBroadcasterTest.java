@@ -0,0 +1,65 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.service.ClusterBroadcastService;
+import com.awad.ticketbooking.modules.booking.dto.SeatStatusBatchMessage;
+import com.awad.ticketbooking.modules.booking.dto.SeatStatusMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SeatStatusBroadcasterTest {
+
+    @Mock
+    private ClusterBroadcastService clusterBroadcastService;
+
+    @Mock
+    private SeatInventoryService seatInventoryService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SeatStatusBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new SeatStatusBroadcaster(clusterBroadcastService, seatInventoryService, meterRegistry);
+        ReflectionTestUtils.setField(broadcaster, "windowMs", 200L);
+    }
+
+    @Test
+    void broadcast_ShouldMergeChangesWithinWindowIntoOneFrame() throws Exception {
+        UUID tripId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        when(seatInventoryService.getVersion(tripId)).thenReturn(7L);
+
+        broadcaster.broadcast(tripId, "A1", "LOCKED", userId);
+        broadcaster.broadcast(tripId, "A2", "LOCKED", userId);
+        broadcaster.broadcast(tripId, "A1", "AVAILABLE", null);
+
+        ArgumentCaptor<SeatStatusBatchMessage> frame = ArgumentCaptor.forClass(SeatStatusBatchMessage.class);
+        verify(clusterBroadcastService, timeout(2000)).convertAndSend(eq("/topic/trip/" + tripId + "/seats"), frame.capture());
+
+        assertEquals(7L, frame.getValue().getVersion());
+        assertEquals(2, frame.getValue().getSeats().size());
+        SeatStatusMessage first = frame.getValue().getSeats().get(0);
+        assertEquals("A1", first.getSeatCode());
+        assertEquals("AVAILABLE", first.getStatus());
+        broadcaster.shutdown();
+        assertEquals(1.0, meterRegistry.counter("seat.broadcast.frames").count());
+        assertEquals(2.0, meterRegistry.counter("seat.broadcast.frames.saved").count());
+    }
+}
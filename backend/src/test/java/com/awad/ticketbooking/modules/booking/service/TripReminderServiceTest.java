@@ -0,0 +1,85 @@
+package com.awad.ticketbooking.modules.booking.service;
+
+import com.awad.ticketbooking.common.service.EmailService;
+import com.awad.ticketbooking.modules.booking.entity.BookingView;
+import com.awad.ticketbooking.modules.booking.repository.BookingRepository;
+import com.awad.ticketbooking.modules.booking.repository.BookingViewRepository;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TripReminderServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-17T08:00:00Z");
+
+    private final BookingViewRepository bookingViewRepository = mock(BookingViewRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+
+    private TripReminderService tripReminderService;
+
+    @BeforeEach
+    void setUp() {
+        tripReminderService = new TripReminderService(bookingViewRepository, bookingRepository, emailService);
+        ReflectionTestUtils.setField(tripReminderService, "pageSize", 2);
+        ReflectionTestUtils.setField(tripReminderService, "concurrency", 2);
+        ReflectionTestUtils.setField(tripReminderService, "ratePerSecond", 1000.0);
+    }
+
+    @Test
+    void sendReminders_ShouldPageByDepartureAndFlagEachPageOnce() throws Exception {
+        BookingView first = booking(NOW.plusSeconds(3600));
+        BookingView failing = booking(NOW.plusSeconds(7200));
+        BookingView last = booking(NOW.plusSeconds(7200));
+        when(bookingViewRepository.findReminderCandidates(any(), any(), any(), anyInt()))
+                .thenReturn(List.of(first, failing), List.of(last));
+        doThrow(new MessagingException("SMTP timeout")).when(emailService)
+                .sendTripReminderEmail(failing, failing.getContactEmail());
+
+        int sent = tripReminderService.sendReminders(NOW, Duration.ofHours(24));
+
+        assertEquals(2, sent);
+        Instant until = NOW.plus(Duration.ofHours(24));
+        verify(bookingViewRepository).findReminderCandidates(NOW, new UUID(0, 0), until, 2);
+        verify(bookingViewRepository).findReminderCandidates(failing.getDepartureTime(), failing.getBookingId(),
+                until, 2);
+        verify(bookingRepository).markRemindersSent(List.of(first.getBookingId()));
+        verify(bookingRepository).markRemindersSent(List.of(last.getBookingId()));
+    }
+
+    @Test
+    void sendReminders_ShouldNotFlagAnythingWhenNoReminderWentOut() throws Exception {
+        BookingView booking = booking(NOW.plusSeconds(60));
+        when(bookingViewRepository.findReminderCandidates(any(), any(), any(), eq(2))).thenReturn(List.of(booking));
+        doThrow(new MessagingException("SMTP down")).when(emailService).sendTripReminderEmail(any(), any());
+
+        assertEquals(0, tripReminderService.sendReminders(NOW, Duration.ofHours(24)));
+        verify(bookingRepository, never()).markRemindersSent(any());
+    }
+
+    private static BookingView booking(Instant departureTime) {
+        BookingView booking = new BookingView();
+        UUID id = UUID.randomUUID();
+        ReflectionTestUtils.setField(booking, "bookingId", id);
+        ReflectionTestUtils.setField(booking, "code", "BK-" + id.toString().substring(0, 6));
+        ReflectionTestUtils.setField(booking, "passengerEmail", id + "@example.com");
+        ReflectionTestUtils.setField(booking, "departureTime", departureTime);
+        return booking;
+    }
+}
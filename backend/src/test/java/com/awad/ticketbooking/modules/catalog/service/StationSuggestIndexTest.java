@@ -0,0 +1,106 @@
+package com.awad.ticketbooking.modules.catalog.service;
+
+import com.awad.ticketbooking.modules.catalog.dto.StationSuggestion;
+import com.awad.ticketbooking.modules.catalog.entity.Station;
+import com.awad.ticketbooking.modules.catalog.repository.StationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StationSuggestIndexTest {
+
+    private final StationRepository stationRepository = mock(StationRepository.class);
+    private final RedissonClient redissonClient = mock(RedissonClient.class);
+    private final RTopic topic = mock(RTopic.class);
+
+    private final Station mienDong = station("Bến xe Miền Đông", "TP. Hồ Chí Minh");
+    private final Station mienTay = station("Bến xe Miền Tây", "TP. Hồ Chí Minh");
+    private final Station daNang = station("Bến xe Trung tâm Đà Nẵng", "Đà Nẵng");
+    private final Station daLat = station("Bến xe Liên tỉnh Đà Lạt", "Lâm Đồng");
+    private StationSuggestIndex stationSuggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(redissonClient.getTopic(eq(StationSuggestIndex.TOPIC), any())).thenReturn(topic);
+        when(stationRepository.findAll()).thenReturn(List.of(mienDong, mienTay, daNang, daLat));
+        when(stationRepository.countConfirmedBookingsByStation()).thenReturn(List.of(
+                new Object[]{mienDong.getId(), 120L},
+                new Object[]{mienTay.getId(), 40L},
+                new Object[]{daNang.getId(), 90L},
+                new Object[]{daLat.getId(), 300L}));
+        stationSuggestIndex = new StationSuggestIndex(stationRepository, redissonClient);
+        stationSuggestIndex.subscribe();
+        stationSuggestIndex.rebuild();
+    }
+
+    @Test
+    void suggest_ShouldIgnoreAccentsCaseAndPunctuation() {
+        assertEquals(List.of("Đà Nẵng", "Bến xe Trung tâm Đà Nẵng"), names(stationSuggestIndex.suggest("da nang", 10)));
+        assertEquals(List.of("Đà Nẵng", "Bến xe Trung tâm Đà Nẵng"), names(stationSuggestIndex.suggest("ĐÀ NẴ", 10)));
+        assertEquals(List.of("TP. Hồ Chí Minh", "Bến xe Miền Đông", "Bến xe Miền Tây"),
+                names(stationSuggestIndex.suggest("tp.ho chi", 10)));
+    }
+
+    @Test
+    void suggest_ShouldMatchAnyWordAndRankByPopularity() {
+        List<StationSuggestion> suggestions = stationSuggestIndex.suggest("mien", 10);
+
+        assertEquals(List.of("Bến xe Miền Đông", "Bến xe Miền Tây"), names(suggestions));
+        assertEquals(StationSuggestion.Type.STATION, suggestions.get(0).getType());
+        assertEquals(mienDong.getId(), suggestions.get(0).getStationId());
+        // Bến xe Liên tỉnh Đà Lạt (300) outranks the whole of TP. Hồ Chí Minh (160)
+        assertEquals("Bến xe Liên tỉnh Đà Lạt", stationSuggestIndex.suggest("ben xe", 1).get(0).getName());
+        assertEquals(3, stationSuggestIndex.suggest("", 3).size());
+    }
+
+    @Test
+    void suggest_ShouldReturnNothingForUnknownPrefixes() {
+        assertTrue(stationSuggestIndex.suggest("hai phong", 10).isEmpty());
+    }
+
+    @Test
+    void stationChange_ShouldBeAppliedWithoutReloadingEverything() {
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.captor();
+        verify(topic).addListener(eq(String.class), listener.capture());
+        mienTay.setName("Bến xe Cần Thơ");
+        mienTay.setCity("Cần Thơ");
+        when(stationRepository.findById(mienTay.getId())).thenReturn(Optional.of(mienTay));
+
+        stationSuggestIndex.refresh(mienTay.getId());
+        verify(topic).publish(mienTay.getId().toString());
+        listener.getValue().onMessage(StationSuggestIndex.TOPIC, mienTay.getId().toString());
+
+        assertEquals(List.of("Cần Thơ", "Bến xe Cần Thơ"), names(stationSuggestIndex.suggest("can tho", 10)));
+        assertEquals(List.of("Bến xe Miền Đông"), names(stationSuggestIndex.suggest("mien", 10)));
+        verify(stationRepository, times(1)).findAll();
+    }
+
+    private static List<String> names(List<StationSuggestion> suggestions) {
+        return suggestions.stream().map(StationSuggestion::getName).toList();
+    }
+
+    private static Station station(String name, String city) {
+        Station station = new Station();
+        station.setId(UUID.randomUUID());
+        station.setName(name);
+        station.setCity(city);
+        station.setAddress(city);
+        return station;
+    }
+}
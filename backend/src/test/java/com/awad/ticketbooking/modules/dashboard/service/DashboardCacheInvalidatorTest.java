@@ -0,0 +1,162 @@
+package com.awad.ticketbooking.modules.dashboard.service;
+
+import com.awad.ticketbooking.common.config.RedisConfig;
+import com.awad.ticketbooking.common.enums.DashboardChange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Fills the dashboard caches of a real Redis cache manager and checks that a booking change only
+ * evicts the entries whose range covers the booking.
+ */
+class DashboardCacheInvalidatorTest {
+
+    private static final Instant OCTOBER = Instant.parse("2026-10-01T00:00:00Z");
+    private static final Instant NOVEMBER = Instant.parse("2026-11-01T00:00:00Z");
+    private static final Instant DECEMBER = Instant.parse("2026-12-01T00:00:00Z");
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+    private static LettuceConnectionFactory connectionFactory;
+    private static CacheManager cacheManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DashboardCacheInvalidator invalidator;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        cacheManager = new RedisConfig().cacheManager(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        invalidator = new DashboardCacheInvalidator(cacheManager, redissonClient, meterRegistry);
+    }
+
+    @Test
+    void confirmationChange_ShouldEvictOnlyRangesCoveringTheBooking() {
+        String october = DashboardCacheInvalidator.rangeKey(OCTOBER, NOVEMBER);
+        String november = DashboardCacheInvalidator.rangeKey(NOVEMBER, DECEMBER);
+        cache(RedisConfig.CACHE_ADMIN_REVENUE, october, OCTOBER, NOVEMBER);
+        cache(RedisConfig.CACHE_ADMIN_REVENUE, november, NOVEMBER, DECEMBER);
+        cache(RedisConfig.CACHE_ADMIN_TOP_ROUTES, "all:5", null, null);
+
+        invalidator.invalidate(Instant.parse("2026-10-15T10:00:00Z"), DashboardChange.CONFIRMATION_CHANGED);
+
+        assertNull(cached(RedisConfig.CACHE_ADMIN_REVENUE, october));
+        assertNotNull(cached(RedisConfig.CACHE_ADMIN_REVENUE, november));
+        assertNull(cached(RedisConfig.CACHE_ADMIN_TOP_ROUTES, "all:5"));
+        assertEquals(1.0, meterRegistry.counter("dashboard.cache.invalidations",
+                "cache", RedisConfig.CACHE_ADMIN_REVENUE).count());
+    }
+
+    @Test
+    void confirmationChange_ShouldEvictMetricsOfTheBookingDay() {
+        Instant createdAt = Instant.parse("2026-10-15T10:00:00Z");
+        String bookingDay = DashboardCacheInvalidator.metricsKey(LocalDate.ofInstant(createdAt, ZoneId.systemDefault()));
+        String otherDay = DashboardCacheInvalidator.metricsKey(LocalDate.parse("2026-10-20"));
+        cacheManager.getCache(RedisConfig.CACHE_ADMIN_METRICS).put(bookingDay, "metrics");
+        cacheManager.getCache(RedisConfig.CACHE_ADMIN_METRICS).put(otherDay, "metrics");
+
+        invalidator.invalidate(createdAt, DashboardChange.CONFIRMATION_CHANGED);
+
+        assertNull(cached(RedisConfig.CACHE_ADMIN_METRICS, bookingDay));
+        assertNotNull(cached(RedisConfig.CACHE_ADMIN_METRICS, otherDay));
+    }
+
+    @Test
+    void pendingBookingChanges_ShouldLeaveRevenueFiguresWarm() {
+        String october = DashboardCacheInvalidator.rangeKey(OCTOBER, NOVEMBER);
+        cache(RedisConfig.CACHE_ADMIN_REVENUE, october, OCTOBER, NOVEMBER);
+        cache(RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION, october, OCTOBER, NOVEMBER);
+        cache(RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS, "limit:10", null, null);
+        Instant createdAt = Instant.parse("2026-10-15T10:00:00Z");
+
+        invalidator.invalidate(createdAt, DashboardChange.UPDATED);
+
+        assertNull(cached(RedisConfig.CACHE_ADMIN_RECENT_TRANSACTIONS, "limit:10"));
+        assertNotNull(cached(RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION, october));
+        assertNotNull(cached(RedisConfig.CACHE_ADMIN_REVENUE, october));
+
+        invalidator.invalidate(createdAt, DashboardChange.CREATED);
+
+        assertNull(cached(RedisConfig.CACHE_ADMIN_BOOKING_CONVERSION, october));
+        assertNotNull(cached(RedisConfig.CACHE_ADMIN_REVENUE, october));
+    }
+
+    @Test
+    void invalidate_ShouldKeepEvictedEntriesIndexed() {
+        String october = DashboardCacheInvalidator.rangeKey(OCTOBER, NOVEMBER);
+        cache(RedisConfig.CACHE_ADMIN_REVENUE, october, OCTOBER, NOVEMBER);
+
+        invalidator.invalidate(Instant.parse("2026-10-15T10:00:00Z"), DashboardChange.CONFIRMATION_CHANGED);
+
+        assertNull(cached(RedisConfig.CACHE_ADMIN_REVENUE, october));
+        assertEquals(1, redissonClient.getScoredSortedSet(RedisConfig.CACHE_ADMIN_REVENUE + ":index").size());
+    }
+
+    @Test
+    void putLandingAfterAnInvalidation_ShouldBeEvictedByTheNextChange() {
+        String october = DashboardCacheInvalidator.rangeKey(OCTOBER, NOVEMBER);
+
+        // The entry is registered and its figure computed, then a booking change commits before the put
+        invalidator.register(RedisConfig.CACHE_ADMIN_REVENUE, october, OCTOBER, NOVEMBER);
+        invalidator.invalidate(Instant.parse("2026-10-15T10:00:00Z"), DashboardChange.CONFIRMATION_CHANGED);
+        cacheManager.getCache(RedisConfig.CACHE_ADMIN_REVENUE).put(october, "stale figures");
+        assertNotNull(cached(RedisConfig.CACHE_ADMIN_REVENUE, october));
+
+        invalidator.invalidate(Instant.parse("2026-10-16T10:00:00Z"), DashboardChange.CONFIRMATION_CHANGED);
+
+        assertNull(cached(RedisConfig.CACHE_ADMIN_REVENUE, october));
+    }
+
+    private void cache(String cacheName, String key, Instant start, Instant end) {
+        invalidator.register(cacheName, key, start, end);
+        cacheManager.getCache(cacheName).put(key, "figures");
+    }
+
+    private Cache.ValueWrapper cached(String cacheName, String key) {
+        return cacheManager.getCache(cacheName).get(key);
+    }
+}
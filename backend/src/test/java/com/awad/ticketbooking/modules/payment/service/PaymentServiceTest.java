@@ -0,0 +1,193 @@
+package com.awad.ticketbooking.modules.payment.service;
+
+import com.awad.ticketbooking.common.config.JacksonConfig;
+import com.awad.ticketbooking.common.enums.BookingStatus;
+import com.awad.ticketbooking.common.enums.PaymentStatus;
+import com.awad.ticketbooking.common.outbox.OutboxService;
+import com.awad.ticketbooking.common.service.IdAllocator;
+import com.awad.ticketbooking.modules.booking.entity.Booking;
+import com.awad.ticketbooking.modules.booking.repository.BookingRepository;
+import com.awad.ticketbooking.modules.booking.service.BookingExpiryService;
+import com.awad.ticketbooking.modules.booking.service.SeatLockService;
+import com.awad.ticketbooking.modules.payment.entity.PaymentTransaction;
+import com.awad.ticketbooking.modules.payment.repository.PaymentTransactionRepository;
+import com.awad.ticketbooking.modules.payment.repository.PaymentWebhookEventRepository;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import vn.payos.PayOS;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentServiceTest {
+
+    private static final long ORDER_CODE = 42L;
+    private static final String PAID_WEBHOOK = """
+            {"data": {"orderCode": 42, "code": "00", "reference": "FT123"}}""";
+
+    private final PaymentTransactionRepository paymentTransactionRepository = mock(PaymentTransactionRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final SeatLockService seatLockService = mock(SeatLockService.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final PaymentService paymentService = new PaymentService(mock(PayOS.class, RETURNS_DEEP_STUBS),
+            paymentTransactionRepository, mock(PaymentWebhookEventRepository.class), bookingRepository,
+            new JacksonConfig().objectMapper(), seatLockService, mock(IdAllocator.class), outboxService);
+    private final BookingExpiryService bookingExpiryService = new BookingExpiryService(jdbcTemplate,
+            seatLockService, outboxService, new SimpleMeterRegistry());
+
+    // Status column of the booking row; both sides only move it away from PENDING, like their SQL does
+    private final AtomicReference<BookingStatus> row = new AtomicReference<>(BookingStatus.PENDING);
+    // What the sweep's query returns for the booking when it claims the row
+    private final AtomicReference<ResultSet> dueRow = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        when(bookingRepository.updateStatusIfCurrent(any(), any(), any())).thenAnswer(invocation ->
+                row.compareAndSet(invocation.getArgument(1), invocation.getArgument(2)) ? 1 : 0);
+        when(bookingRepository.findStatusById(any())).thenAnswer(invocation -> row.get());
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), eq(50), any())).thenAnswer(invocation ->
+                row.compareAndSet(BookingStatus.PENDING, BookingStatus.CANCELLED)
+                        ? List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(dueRow.get(), 0))
+                        : List.of());
+    }
+
+    @Test
+    void paidWebhook_ShouldConfirmAPendingBooking() throws SQLException {
+        PaymentTransaction transaction = pendingPayment();
+
+        paymentService.handleWebhook(PAID_WEBHOOK);
+
+        assertEquals(BookingStatus.CONFIRMED, row.get());
+        assertEquals(PaymentStatus.SUCCESS, transaction.getStatus());
+        assertEquals("FT123", transaction.getTransactionId());
+        verify(outboxService).publishConfirmationEmail(transaction.getBooking().getId(), "an@example.com");
+    }
+
+    @Test
+    void paidWebhookAfterExpiry_ShouldFlagARefundInsteadOfConfirming() throws SQLException {
+        PaymentTransaction transaction = pendingPayment();
+        row.set(BookingStatus.CANCELLED);
+
+        paymentService.handleWebhook(PAID_WEBHOOK);
+
+        assertEquals(BookingStatus.CANCELLED, row.get());
+        assertEquals(PaymentStatus.REFUND_REQUIRED, transaction.getStatus());
+        verify(outboxService, never()).publishConfirmationEmail(any(), any());
+        verify(seatLockService, never()).releaseSeatsAfterCommit(any(), anyList(), any());
+    }
+
+    @Test
+    void failedWebhookAfterExpiry_ShouldNotReleaseTheSeatsAgain() throws SQLException {
+        PaymentTransaction transaction = pendingPayment();
+        row.set(BookingStatus.CANCELLED);
+
+        paymentService.handleWebhook("""
+                {"data": {"orderCode": 42, "code": "01"}}""");
+
+        assertEquals(PaymentStatus.FAILED, transaction.getStatus());
+        verify(seatLockService, never()).releaseSeatsAfterCommit(any(), anyList(), any());
+        verify(outboxService, never()).publishStatusChange(any(), any());
+    }
+
+    @Test
+    void expiryAndPaidWebhook_ShouldNeverBothWin() throws Exception {
+        AtomicInteger confirmations = new AtomicInteger();
+        AtomicInteger expirations = new AtomicInteger();
+        doAnswer(invocation -> confirmations.incrementAndGet())
+                .when(outboxService).publishConfirmationEmail(any(), any());
+        doAnswer(invocation -> expirations.incrementAndGet())
+                .when(seatLockService).releaseSeatsAfterCommit(anyList());
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 200; round++) {
+                row.set(BookingStatus.PENDING);
+                PaymentTransaction transaction = pendingPayment();
+                int confirmedBefore = confirmations.get();
+                int expiredBefore = expirations.get();
+
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> sweep = pool.submit(() -> {
+                    start.await();
+                    return bookingExpiryService.expireDue(Instant.now(), 50);
+                });
+                Future<?> webhook = pool.submit(() -> {
+                    start.await();
+                    paymentService.handleWebhook(PAID_WEBHOOK);
+                    return null;
+                });
+                start.countDown();
+                sweep.get();
+                webhook.get();
+
+                boolean confirmed = confirmations.get() > confirmedBefore;
+                boolean expired = expirations.get() > expiredBefore;
+                assertEquals(1, (confirmed ? 1 : 0) + (expired ? 1 : 0), "round " + round);
+                assertEquals(confirmed ? BookingStatus.CONFIRMED : BookingStatus.CANCELLED, row.get());
+                assertEquals(confirmed ? PaymentStatus.SUCCESS : PaymentStatus.REFUND_REQUIRED,
+                        transaction.getStatus());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private PaymentTransaction pendingPayment() throws SQLException {
+        Trip trip = new Trip();
+        trip.setId(UUID.randomUUID());
+        Booking booking = new Booking();
+        booking.setId(UUID.randomUUID());
+        booking.setCode("BK-ABC123");
+        booking.setTrip(trip);
+        booking.setPassengerEmail("an@example.com");
+        booking.setCreatedAt(Instant.parse("2026-10-17T08:00:00Z"));
+
+        PaymentTransaction transaction = new PaymentTransaction();
+        transaction.setBooking(booking);
+        transaction.setOrderCode(ORDER_CODE);
+        when(paymentTransactionRepository.findByOrderCode(ORDER_CODE)).thenReturn(Optional.of(transaction));
+        dueRow.set(expiredRow(booking));
+        return transaction;
+    }
+
+    private static ResultSet expiredRow(Booking booking) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("id", UUID.class)).thenReturn(booking.getId());
+        when(rs.getObject("trip_id", UUID.class)).thenReturn(booking.getTrip().getId());
+        when(rs.getTimestamp("created_at")).thenReturn(Timestamp.from(booking.getCreatedAt()));
+        Array seatCodes = mock(Array.class);
+        when(seatCodes.getArray()).thenReturn(new String[]{"A1"});
+        when(rs.getArray("seat_codes")).thenReturn(seatCodes);
+        return rs;
+    }
+}
@@ -0,0 +1,178 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.common.enums.SeatType;
+import com.awad.ticketbooking.modules.trip.entity.PricingRule;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.entity.TripPricing;
+import com.awad.ticketbooking.modules.trip.entity.TripSeatAvailability;
+import com.awad.ticketbooking.modules.trip.repository.PricingRuleRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripPricingRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripSeatAvailabilityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TripPricingServiceTest {
+
+    private final TripPricingRepository tripPricingRepository = mock(TripPricingRepository.class);
+    private final TripSeatAvailabilityRepository tripSeatAvailabilityRepository =
+            mock(TripSeatAvailabilityRepository.class);
+    private final PricingRuleRepository pricingRuleRepository = mock(PricingRuleRepository.class);
+    private final RedissonClient redissonClient = mock(RedissonClient.class);
+    private final RTopic topic = mock(RTopic.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UUID tripId = UUID.randomUUID();
+    private final UUID operatorId = UUID.randomUUID();
+    private final Instant departure = Instant.now().plusSeconds(3600);
+    private TripPricingService tripPricingService;
+
+    @BeforeEach
+    void setUp() {
+        when(redissonClient.getTopic(eq(TripPricingService.TOPIC), any())).thenReturn(topic);
+        when(tripPricingRepository.findByTripIdIn(anyCollection()))
+                .thenReturn(List.of(pricing(SeatType.NORMAL, "200000"), pricing(SeatType.VIP, "350000")));
+        when(tripPricingRepository.findTripSeatsByTripIdIn(anyCollection())).thenReturn(List.of(
+                new Object[]{tripId, operatorId, departure.toEpochMilli(), "A1", "NORMAL"},
+                new Object[]{tripId, operatorId, departure.toEpochMilli(), "B1", "VIP"}));
+        tripPricingService = new TripPricingService(tripPricingRepository, tripSeatAvailabilityRepository,
+                pricingRuleRepository, redissonClient, meterRegistry);
+        ReflectionTestUtils.setField(tripPricingService, "cacheSize", 100);
+        ReflectionTestUtils.setField(tripPricingService, "rulesTtlSeconds", 30L);
+        tripPricingService.subscribe();
+    }
+
+    @Test
+    void matrix_ShouldBeLoadedOnceAndServedFromMemory() {
+        PriceMatrix first = tripPricingService.getMatrix(tripId);
+        PriceMatrix second = tripPricingService.getMatrix(tripId);
+
+        assertSame(first, second);
+        assertEquals(new BigDecimal("350000"), second.priceOf("B1"));
+        verify(tripPricingRepository, times(1)).findTripSeatsByTripIdIn(anyCollection());
+        assertEquals(1.0, meterRegistry.counter("pricing.matrix.hits").count());
+    }
+
+    @Test
+    void withoutRules_ShouldNotReadOccupancy() {
+        PriceMatrix prices = tripPricingService.getMatrix(tripId);
+
+        assertNull(prices.ruleId());
+        verify(tripSeatAvailabilityRepository, never()).findByTripIdIn(anyCollection());
+    }
+
+    @Test
+    void firstMatchingRule_ShouldAdjustPricesForTheTripsOccupancy() {
+        PricingRule lastMinute = rule(1, null, 40, 2, "-15");
+        PricingRule busy = rule(2, 70, null, null, "10");
+        when(pricingRuleRepository.findByActiveTrueOrderByPriorityAscCreatedAtAsc())
+                .thenReturn(List.of(lastMinute, busy));
+        // 30 of 40 seats sold: 75%, so the last-minute discount does not apply
+        when(tripSeatAvailabilityRepository.findByTripIdIn(anyCollection()))
+                .thenReturn(List.of(availability(SeatType.NORMAL, 30, 24), availability(SeatType.VIP, 10, 6)));
+
+        PriceMatrix prices = tripPricingService.getMatrix(tripId);
+
+        assertEquals(busy.getId(), prices.ruleId());
+        assertEquals(new BigDecimal("220000"), prices.priceOf("A1"));
+        assertEquals(new BigDecimal("385000"), prices.priceOf("B1"));
+        assertEquals(new BigDecimal("350000"), prices.pricings().get(1).basePrice());
+
+        // Served from memory until the TTL runs out
+        tripPricingService.getMatrix(tripId);
+        verify(tripSeatAvailabilityRepository, times(1)).findByTripIdIn(anyCollection());
+    }
+
+    @Test
+    void invalidation_ShouldReloadOnThisNodeAndNotifyTheOthers() {
+        tripPricingService.getMatrix(tripId);
+
+        tripPricingService.invalidate(tripId);
+        tripPricingService.getMatrix(tripId);
+
+        verify(topic).publish(tripId.toString());
+        verify(tripPricingRepository, times(2)).findTripSeatsByTripIdIn(anyCollection());
+    }
+
+    @Test
+    void invalidationFromAnotherNode_ShouldDropTheMatrix() {
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.captor();
+        verify(topic).addListener(eq(String.class), listener.capture());
+        tripPricingService.getMatrix(tripId);
+
+        listener.getValue().onMessage(TripPricingService.TOPIC, "*");
+        tripPricingService.getMatrices(List.of(tripId));
+
+        verify(tripPricingRepository, times(2)).findByTripIdIn(anyCollection());
+        assertEquals(Map.of("A1", new BigDecimal("200000"), "B1", new BigDecimal("350000")),
+                tripPricingService.getMatrix(tripId).seatPrices());
+    }
+
+    @Test
+    void ruleChange_ShouldKeepBasePricesButReapplyRules() {
+        tripPricingService.getMatrix(tripId);
+
+        tripPricingService.invalidateRules();
+        tripPricingService.getMatrix(tripId);
+
+        verify(pricingRuleRepository, times(2)).findByActiveTrueOrderByPriorityAscCreatedAtAsc();
+        verify(tripPricingRepository, times(1)).findTripSeatsByTripIdIn(anyCollection());
+    }
+
+    private PricingRule rule(int priority, Integer above, Integer below, Integer withinHours, String percent) {
+        PricingRule rule = new PricingRule();
+        rule.setId(UUID.randomUUID());
+        rule.setOperatorId(operatorId);
+        rule.setOccupancyAbovePercent(above);
+        rule.setOccupancyBelowPercent(below);
+        rule.setWithinHoursOfDeparture(withinHours);
+        rule.setAdjustmentPercent(new BigDecimal(percent));
+        rule.setPriority(priority);
+        return rule;
+    }
+
+    private TripSeatAvailability availability(SeatType seatType, int total, int booked) {
+        Trip trip = new Trip();
+        trip.setId(tripId);
+        TripSeatAvailability availability = new TripSeatAvailability();
+        availability.setTrip(trip);
+        availability.setSeatType(seatType);
+        availability.setTotalSeats(total);
+        availability.setBookedSeats(booked);
+        return availability;
+    }
+
+    private TripPricing pricing(SeatType seatType, String price) {
+        Trip trip = new Trip();
+        trip.setId(tripId);
+        TripPricing pricing = new TripPricing();
+        pricing.setId(UUID.randomUUID());
+        pricing.setTrip(trip);
+        pricing.setSeatType(seatType);
+        pricing.setPrice(new BigDecimal(price));
+        return pricing;
+    }
+}
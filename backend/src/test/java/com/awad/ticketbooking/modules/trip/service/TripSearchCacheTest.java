@@ -0,0 +1,255 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.common.config.JacksonConfig;
+import com.awad.ticketbooking.common.enums.SeatType;
+import com.awad.ticketbooking.modules.catalog.entity.Route;
+import com.awad.ticketbooking.modules.catalog.entity.Station;
+import com.awad.ticketbooking.modules.trip.dto.SearchTripRequest;
+import com.awad.ticketbooking.modules.trip.dto.TripResponse;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.entity.TripSeatAvailability;
+import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripSeatAvailabilityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TripSearchCacheTest {
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private final TripRepository tripRepository = mock(TripRepository.class);
+    private final TripSeatAvailabilityRepository tripSeatAvailabilityRepository =
+            mock(TripSeatAvailabilityRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Pageable pageable = PageRequest.of(0, 10);
+    private final LocalDate tomorrow = LocalDate.now().plusDays(1);
+    private final AtomicInteger queries = new AtomicInteger();
+    private TripSearchCache tripSearchCache;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        tripSearchCache = cache();
+    }
+
+    @Test
+    void identicalSearches_ShouldShareOneQuery() {
+        SearchTripRequest first = request("Hà Nội", "Đà Nẵng", null);
+        first.setAmenities(List.of("WiFi", "Toilet"));
+        first.setMaxPrice(new BigDecimal("300000.00"));
+        SearchTripRequest same = request("hà nội", "ĐÀ NẴNG", null);
+        same.setAmenities(List.of("Toilet", "WiFi"));
+        same.setMaxPrice(new BigDecimal("300000"));
+
+        Page<TripResponse> miss = search(first);
+        Page<TripResponse> hit = search(same);
+
+        assertEquals(1, queries.get());
+        assertEquals(miss.getContent(), hit.getContent());
+        assertEquals(1, hit.getTotalElements());
+        assertEquals(1.0, meterRegistry.counter("search.cache.hits").count());
+    }
+
+    @Test
+    void concurrentMisses_ShouldRunOneQueryAcrossNodes() throws Exception {
+        TripSearchCache otherNode = cache();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Page<TripResponse>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                TripSearchCache node = i % 2 == 0 ? tripSearchCache : otherNode;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return node.get(request("Hà Nội", "Đà Nẵng", null), pageable, () -> {
+                        sleep(300);
+                        return page();
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Page<TripResponse>> result : results) {
+                assertEquals(1, result.get().getTotalElements());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void tripChange_ShouldEvictOnlyTheSearchesItAppearsIn() {
+        SearchTripRequest undated = request("hà", "nẵng", null);
+        SearchTripRequest otherDestination = request("Hà Nội", "Huế", tomorrow);
+        SearchTripRequest otherDay = request("Hà Nội", "Đà Nẵng", tomorrow.plusDays(1));
+        search(undated);
+        search(otherDestination);
+        search(otherDay);
+
+        tripSearchCache.invalidate(trip("Hà Nội", "Đà Nẵng", tomorrow));
+        search(undated);
+        search(otherDestination);
+        search(otherDay);
+
+        assertEquals(4, queries.get());
+        assertEquals(1.0, meterRegistry.counter("search.cache.evictions").count());
+    }
+
+    @Test
+    void availabilityChange_ShouldOnlyEvictOnceFewSeatsAreLeft() {
+        Trip trip = trip("Hà Nội", "Đà Nẵng", tomorrow);
+        when(tripRepository.findSearchableByIdIn(List.of(trip.getId()))).thenReturn(List.of(trip));
+        SearchTripRequest request = request("Hà Nội", "Đà Nẵng", null);
+        search(request);
+
+        when(tripSeatAvailabilityRepository.findByTripIdIn(List.of(trip.getId())))
+                .thenReturn(List.of(availability(trip, 40, 20)));
+        tripSearchCache.availabilityChanged(trip.getId());
+        search(request);
+        assertEquals(1, queries.get());
+
+        when(tripSeatAvailabilityRepository.findByTripIdIn(List.of(trip.getId())))
+                .thenReturn(List.of(availability(trip, 40, 37)));
+        tripSearchCache.availabilityChanged(trip.getId());
+        search(request);
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void loadRacingAnEviction_ShouldNotBeStored() {
+        SearchTripRequest request = request("Hà Nội", "Đà Nẵng", null);
+
+        tripSearchCache.get(request, pageable, () -> {
+            // Trip changed while the query ran, after it read the old rows
+            tripSearchCache.invalidate(trip("Hà Nội", "Đà Nẵng", tomorrow));
+            return page();
+        });
+        search(request);
+
+        assertEquals(2, queries.get());
+    }
+
+    private TripSearchCache cache() {
+        TripSearchCache cache = new TripSearchCache(tripRepository, tripSeatAvailabilityRepository, redissonClient,
+                new JacksonConfig().objectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "lowSeats", 5);
+        ReflectionTestUtils.setField(cache, "claimSeconds", 10L);
+        ReflectionTestUtils.setField(cache, "waitMillis", 5000L);
+        return cache;
+    }
+
+    private Page<TripResponse> search(SearchTripRequest request) {
+        return tripSearchCache.get(request, pageable, this::page);
+    }
+
+    private Page<TripResponse> page() {
+        queries.incrementAndGet();
+        TripResponse trip = TripResponse.builder()
+                .id(UUID.randomUUID())
+                .departureTime(Instant.parse("2026-10-18T01:00:00Z"))
+                .availableSeats(12)
+                .tripPricings(List.of(TripResponse.TripPricingInfo.builder()
+                        .seatType(SeatType.NORMAL)
+                        .price(new BigDecimal("250000"))
+                        .basePrice(new BigDecimal("250000"))
+                        .build()))
+                .build();
+        return new PageImpl<>(List.of(trip), pageable, 1);
+    }
+
+    private static SearchTripRequest request(String origin, String destination, LocalDate date) {
+        SearchTripRequest request = new SearchTripRequest();
+        request.setOrigin(origin);
+        request.setDestination(destination);
+        request.setDate(date);
+        return request;
+    }
+
+    private static Trip trip(String origin, String destination, LocalDate date) {
+        Route route = new Route();
+        route.setOriginStation(station(origin));
+        route.setDestinationStation(station(destination));
+        Trip trip = new Trip();
+        trip.setId(UUID.randomUUID());
+        trip.setRoute(route);
+        trip.setDepartureTime(date.atTime(8, 0).atZone(ZoneId.systemDefault()).toInstant());
+        return trip;
+    }
+
+    private static Station station(String city) {
+        Station station = new Station();
+        station.setId(UUID.randomUUID());
+        station.setCity(city);
+        return station;
+    }
+
+    private static TripSeatAvailability availability(Trip trip, int total, int booked) {
+        TripSeatAvailability availability = new TripSeatAvailability();
+        availability.setTrip(trip);
+        availability.setSeatType(SeatType.NORMAL);
+        availability.setTotalSeats(total);
+        availability.setBookedSeats(booked);
+        return availability;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.common.enums.SeatType;
+import com.awad.ticketbooking.modules.catalog.entity.Bus;
+import com.awad.ticketbooking.modules.catalog.entity.BusLayout;
+import com.awad.ticketbooking.modules.catalog.entity.Operator;
+import com.awad.ticketbooking.modules.catalog.entity.Route;
+import com.awad.ticketbooking.modules.catalog.entity.Station;
+import com.awad.ticketbooking.modules.trip.dto.SearchTripRequest;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.entity.TripSeatAvailability;
+import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripSeatAvailabilityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Search throughput of {@link TripSearchIndex} over a generated set of upcoming trips. Every result is
+ * checked against a brute-force filter of the same trips. Run with
+ * {@code mvn test -Dtest=TripSearchIndexBenchmarkTest -Dbenchmark=true}.
+ * <p>
+ * This is not a comparison with the database path: {@link TripService}'s specification search on
+ * Postgres is not measured, so the numbers say how fast the index answers, not how much faster it is
+ * than the query it replaces. That comparison has not been done.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Slf4j
+class TripSearchIndexBenchmarkTest {
+
+    private static final int CITIES = 40;
+    private static final int DAYS = 30;
+    private static final int TRIPS = 50_000;
+    private static final int SEARCHES = 2_000;
+    // Most searches repeat a popular city pair and date
+    private static final int DISTINCT_SEARCHES = 200;
+    private static final int PAGE_SIZE = 10;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    void measureSearchThroughput() {
+        Random random = new Random(42);
+        List<Station> stations = new ArrayList<>();
+        for (int i = 0; i < CITIES; i++) {
+            Station station = new Station();
+            station.setId(UUID.randomUUID());
+            station.setCity("Thành phố " + i);
+            station.setName("Bến xe " + i);
+            stations.add(station);
+        }
+        List<Trip> trips = new ArrayList<>();
+        Map<UUID, PriceMatrix> prices = new HashMap<>();
+        List<TripSeatAvailability> availability = new ArrayList<>();
+        for (int i = 0; i < TRIPS; i++) {
+            int origin = random.nextInt(CITIES);
+            Trip trip = trip(stations.get(origin), stations.get((origin + 1 + random.nextInt(CITIES - 1)) % CITIES),
+                    today.plusDays(random.nextInt(DAYS)).atStartOfDay(zone).toInstant()
+                            .plusSeconds(random.nextInt(86_400)));
+            trips.add(trip);
+            prices.put(trip.getId(), new PriceMatrix(trip.getId(), null, trip.getDepartureTime(),
+                    List.of(new PriceMatrix.Pricing(UUID.randomUUID(), SeatType.NORMAL, new BigDecimal("250000"))),
+                    Map.of()));
+            TripSeatAvailability seats = new TripSeatAvailability();
+            seats.setTrip(trip);
+            seats.setSeatType(SeatType.NORMAL);
+            seats.setTotalSeats(40);
+            seats.setBookedSeats(random.nextInt(40));
+            availability.add(seats);
+        }
+        Map<UUID, List<TripSeatAvailability>> availabilityByTrip = new HashMap<>();
+        availability.forEach(a -> availabilityByTrip.computeIfAbsent(a.getTrip().getId(), id -> new ArrayList<>()).add(a));
+
+        TripSearchIndex index = index(trips, prices, availabilityByTrip);
+        List<SearchTripRequest> distinct = new ArrayList<>();
+        for (int i = 0; i < DISTINCT_SEARCHES; i++) {
+            int origin = random.nextInt(CITIES);
+            SearchTripRequest request = new SearchTripRequest();
+            request.setOrigin(stations.get(origin).getCity());
+            request.setDestination(stations.get((origin + 1 + random.nextInt(CITIES - 1)) % CITIES).getCity());
+            request.setDate(today.plusDays(random.nextInt(DAYS)));
+            request.setSize(PAGE_SIZE);
+            distinct.add(request);
+        }
+        List<SearchTripRequest> requests = new ArrayList<>();
+        for (int i = 0; i < SEARCHES; i++) {
+            requests.add(distinct.get(random.nextInt(DISTINCT_SEARCHES)));
+        }
+
+        Function<SearchTripRequest, Long> indexed = request -> index.search(request).orElseThrow().getTotalElements();
+        // Same matching as the specification query, to check what the index finds
+        Function<SearchTripRequest, Long> bruteForce = request -> {
+            String origin = request.getOrigin().toLowerCase();
+            String destination = request.getDestination().toLowerCase();
+            long from = request.getDate().atStartOfDay(zone).toInstant().toEpochMilli();
+            long to = request.getDate().plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return trips.stream()
+                    .filter(trip -> trip.getRoute().getOriginStation().getCity().toLowerCase().contains(origin)
+                            && trip.getRoute().getDestinationStation().getCity().toLowerCase().contains(destination)
+                            && trip.getDepartureTime().toEpochMilli() >= from
+                            && trip.getDepartureTime().toEpochMilli() < to)
+                    .count();
+        };
+        for (SearchTripRequest request : distinct) {
+            assertEquals(bruteForce.apply(request), indexed.apply(request),
+                    "TripSearchIndex found other trips for " + request.getOrigin() + " -> " + request.getDestination());
+        }
+
+        run("warm-up", requests, indexed);
+        run("TripSearchIndex", requests, indexed);
+    }
+
+    private TripSearchIndex index(List<Trip> trips, Map<UUID, PriceMatrix> prices,
+                                  Map<UUID, List<TripSeatAvailability>> availability) {
+        TripRepository tripRepository = mock(TripRepository.class);
+        when(tripRepository.findSearchableByDepartureTimeGreaterThanEqual(any())).thenReturn(trips);
+        TripSeatAvailabilityRepository tripSeatAvailabilityRepository = mock(TripSeatAvailabilityRepository.class);
+        when(tripSeatAvailabilityRepository.findByTripIdIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<UUID>>getArgument(0).stream()
+                        .flatMap(tripId -> availability.get(tripId).stream())
+                        .toList());
+        TripPricingService tripPricingService = mock(TripPricingService.class);
+        when(tripPricingService.getMatrices(anyCollection())).thenAnswer(invocation -> {
+            Map<UUID, PriceMatrix> result = new HashMap<>();
+            invocation.<Collection<UUID>>getArgument(0).forEach(tripId -> result.put(tripId, prices.get(tripId)));
+            return result;
+        });
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getTopic(eq(TripSearchIndex.TOPIC), any())).thenReturn(mock(RTopic.class));
+
+        TripSearchIndex index = new TripSearchIndex(tripRepository, tripSeatAvailabilityRepository,
+                tripPricingService, mock(PlatformTransactionManager.class), redissonClient, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(index, "availabilityTtlSeconds", 5L);
+        index.subscribe();
+        index.rebuild();
+        return index;
+    }
+
+    private static void run(String name, List<SearchTripRequest> requests, Function<SearchTripRequest, Long> search) {
+        long begin = System.nanoTime();
+        for (SearchTripRequest request : requests) {
+            search.apply(request);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        log.info("{}: {} searches/s ({} trips, {} searches)", name, String.format("%,.0f", requests.size() / seconds),
+                TRIPS, requests.size());
+    }
+
+    private static Trip trip(Station origin, Station destination, Instant departure) {
+        Operator operator = new Operator();
+        operator.setId(UUID.randomUUID());
+        operator.setName("Operator");
+        BusLayout layout = new BusLayout();
+        layout.setId(UUID.randomUUID());
+        layout.setTotalSeats(40);
+        Bus bus = new Bus();
+        bus.setId(UUID.randomUUID());
+        bus.setOperator(operator);
+        bus.setBusLayout(layout);
+        bus.setPlateNumber("51B-00000");
+        bus.setAmenities(List.of("WiFi"));
+        Route route = new Route();
+        route.setId(UUID.randomUUID());
+        route.setOriginStation(origin);
+        route.setDestinationStation(destination);
+        route.setDurationMinutes(480);
+
+        Trip trip = new Trip();
+        trip.setId(UUID.randomUUID());
+        trip.setBus(bus);
+        trip.setRoute(route);
+        trip.setDepartureTime(departure);
+        trip.setArrivalTime(departure.plusSeconds(28_800));
+        return trip;
+    }
+
+}
@@ -0,0 +1,217 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.common.enums.SeatType;
+import com.awad.ticketbooking.modules.catalog.entity.Bus;
+import com.awad.ticketbooking.modules.catalog.entity.BusLayout;
+import com.awad.ticketbooking.modules.catalog.entity.Operator;
+import com.awad.ticketbooking.modules.catalog.entity.Route;
+import com.awad.ticketbooking.modules.catalog.entity.Station;
+import com.awad.ticketbooking.modules.trip.dto.SearchTripRequest;
+import com.awad.ticketbooking.modules.trip.dto.TripResponse;
+import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.entity.TripSeatAvailability;
+import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripSeatAvailabilityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.data.domain.Page;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TripSearchIndexTest {
+
+    private final TripRepository tripRepository = mock(TripRepository.class);
+    private final TripSeatAvailabilityRepository tripSeatAvailabilityRepository =
+            mock(TripSeatAvailabilityRepository.class);
+    private final TripPricingService tripPricingService = mock(TripPricingService.class);
+    private final RedissonClient redissonClient = mock(RedissonClient.class);
+    private final RTopic topic = mock(RTopic.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LocalDate tomorrow = LocalDate.now().plusDays(1);
+    private final Station hanoi = station("Hà Nội");
+    private final Station danang = station("Đà Nẵng");
+    private final Station hue = station("Huế");
+    private final Map<UUID, PriceMatrix> prices = new HashMap<>();
+    private final List<TripSeatAvailability> availability = new ArrayList<>();
+    private TripSearchIndex tripSearchIndex;
+
+    private Trip morning;
+    private Trip evening;
+    private Trip toHue;
+
+    @BeforeEach
+    void setUp() {
+        morning = trip(hanoi, danang, LocalTime.of(8, 0), "250000", 10);
+        evening = trip(hanoi, danang, LocalTime.of(20, 0), "180000", 0);
+        toHue = trip(hanoi, hue, LocalTime.of(9, 0), "200000", 30);
+        when(tripRepository.findSearchableByDepartureTimeGreaterThanEqual(any()))
+                .thenReturn(List.of(evening, morning, toHue));
+        when(tripSeatAvailabilityRepository.findByTripIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> tripIds = invocation.getArgument(0);
+            return availability.stream().filter(a -> tripIds.contains(a.getTrip().getId())).toList();
+        });
+        when(tripPricingService.getMatrices(anyCollection())).thenAnswer(invocation -> {
+            Map<UUID, PriceMatrix> result = new HashMap<>();
+            for (UUID tripId : invocation.<Collection<UUID>>getArgument(0)) {
+                result.put(tripId, prices.get(tripId));
+            }
+            return result;
+        });
+        when(redissonClient.getTopic(eq(TripSearchIndex.TOPIC), any())).thenReturn(topic);
+
+        tripSearchIndex = new TripSearchIndex(tripRepository, tripSeatAvailabilityRepository, tripPricingService,
+                mock(PlatformTransactionManager.class), redissonClient, meterRegistry);
+        ReflectionTestUtils.setField(tripSearchIndex, "availabilityTtlSeconds", 30L);
+        tripSearchIndex.subscribe();
+        tripSearchIndex.rebuild();
+    }
+
+    @Test
+    void search_ShouldMatchCitiesLikeTheDatabaseAndOrderByDeparture() {
+        Page<TripResponse> page = tripSearchIndex.search(request("hà", "nẵng")).orElseThrow();
+
+        assertEquals(List.of(morning.getId(), evening.getId()), ids(page));
+        assertEquals(2, page.getTotalElements());
+        assertEquals(10, page.getContent().get(0).getAvailableSeats());
+        assertEquals(new BigDecimal("250000"), page.getContent().get(0).getTripPricings().get(0).getPrice());
+    }
+
+    @Test
+    void search_ShouldApplyTimePriceAndSeatFiltersInMemory() {
+        SearchTripRequest afterNoon = request("Hà Nội", "Đà Nẵng");
+        afterNoon.setMinTime(LocalTime.NOON);
+        assertEquals(List.of(evening.getId()), ids(tripSearchIndex.search(afterNoon).orElseThrow()));
+
+        SearchTripRequest cheap = request("Hà Nội", null);
+        cheap.setMaxPrice(new BigDecimal("210000"));
+        cheap.setSortBy("price,desc");
+        assertEquals(List.of(toHue.getId(), evening.getId()), ids(tripSearchIndex.search(cheap).orElseThrow()));
+
+        SearchTripRequest withSeats = request("Hà Nội", "Đà Nẵng");
+        withSeats.setMinAvailableSeats(1);
+        assertEquals(List.of(morning.getId()), ids(tripSearchIndex.search(withSeats).orElseThrow()));
+    }
+
+    @Test
+    void seatsLeft_ShouldBeReadOncePerBucketWithinTheTtl() {
+        tripSearchIndex.search(request("Hà Nội", "Đà Nẵng"));
+        tripSearchIndex.search(request("Hà Nội", "Đà Nẵng"));
+
+        verify(tripSeatAvailabilityRepository, times(1)).findByTripIdIn(anyCollection());
+        assertEquals(2.0, meterRegistry.counter("search.index.hits").count());
+    }
+
+    @Test
+    void searchesTheIndexCannotAnswer_ShouldFallBackToTheDatabase() {
+        SearchTripRequest noDate = request("Hà Nội", "Đà Nẵng");
+        noDate.setDate(null);
+        SearchTripRequest past = request("Hà Nội", "Đà Nẵng");
+        past.setDate(LocalDate.now().minusDays(1));
+        SearchTripRequest byPlate = request("Hà Nội", "Đà Nẵng");
+        byPlate.setSortBy("bus.plateNumber");
+
+        assertTrue(tripSearchIndex.search(noDate).isEmpty());
+        assertTrue(tripSearchIndex.search(past).isEmpty());
+        assertTrue(tripSearchIndex.search(byPlate).isEmpty());
+    }
+
+    @Test
+    void changeMessage_ShouldMoveTheTripToItsNewBucket() {
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.captor();
+        verify(topic).addListener(eq(String.class), listener.capture());
+        morning.getRoute().setDestinationStation(hue);
+        when(tripRepository.findSearchableByIdIn(List.of(morning.getId()))).thenReturn(List.of(morning));
+
+        tripSearchIndex.refresh(morning.getId());
+        verify(topic).publish(morning.getId().toString());
+        listener.getValue().onMessage(TripSearchIndex.TOPIC, morning.getId().toString());
+
+        assertEquals(List.of(evening.getId()), ids(tripSearchIndex.search(request("Hà Nội", "Đà Nẵng")).orElseThrow()));
+        assertEquals(List.of(morning.getId(), toHue.getId()),
+                ids(tripSearchIndex.search(request("Hà Nội", "Huế")).orElseThrow()));
+    }
+
+    private SearchTripRequest request(String origin, String destination) {
+        SearchTripRequest request = new SearchTripRequest();
+        request.setOrigin(origin);
+        request.setDestination(destination);
+        request.setDate(tomorrow);
+        return request;
+    }
+
+    private Trip trip(Station origin, Station destination, LocalTime departure, String price, int seatsLeft) {
+        Operator operator = new Operator();
+        operator.setId(UUID.randomUUID());
+        operator.setName("Phương Trang");
+        BusLayout layout = new BusLayout();
+        layout.setId(UUID.randomUUID());
+        layout.setTotalSeats(30);
+        Bus bus = new Bus();
+        bus.setId(UUID.randomUUID());
+        bus.setOperator(operator);
+        bus.setBusLayout(layout);
+        bus.setPlateNumber("51B-" + departure.getHour());
+        bus.setAmenities(List.of("WiFi"));
+        Route route = new Route();
+        route.setId(UUID.randomUUID());
+        route.setOriginStation(origin);
+        route.setDestinationStation(destination);
+        route.setDurationMinutes(600);
+
+        Trip trip = new Trip();
+        trip.setId(UUID.randomUUID());
+        trip.setBus(bus);
+        trip.setRoute(route);
+        trip.setDepartureTime(tomorrow.atTime(departure).atZone(ZoneId.systemDefault()).toInstant());
+        trip.setArrivalTime(trip.getDepartureTime().plusSeconds(36_000));
+
+        prices.put(trip.getId(), new PriceMatrix(trip.getId(), operator.getId(), trip.getDepartureTime(),
+                List.of(new PriceMatrix.Pricing(UUID.randomUUID(), SeatType.NORMAL, new BigDecimal(price))), Map.of()));
+        TripSeatAvailability seats = new TripSeatAvailability();
+        seats.setTrip(trip);
+        seats.setSeatType(SeatType.NORMAL);
+        seats.setTotalSeats(30);
+        seats.setBookedSeats(30 - seatsLeft);
+        availability.add(seats);
+        return trip;
+    }
+
+    private static Station station(String city) {
+        Station station = new Station();
+        station.setId(UUID.randomUUID());
+        station.setName("Bến xe " + city);
+        station.setCity(city);
+        return station;
+    }
+
+    private static List<UUID> ids(Page<TripResponse> page) {
+        return page.getContent().stream().map(TripResponse::getId).toList();
+    }
+}
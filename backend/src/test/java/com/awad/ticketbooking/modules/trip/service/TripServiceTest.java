@@ -1,5 +1,6 @@
 package com.awad.ticketbooking.modules.trip.service;
 
+import com.awad.ticketbooking.common.enums.SeatType;
 import com.awad.ticketbooking.modules.catalog.entity.Bus;
 import com.awad.ticketbooking.modules.catalog.entity.Operator;
 import com.awad.ticketbooking.modules.catalog.entity.BusLayout;
@@ -8,8 +9,10 @@ import com.awad.ticketbooking.modules.catalog.entity.Station;
 import com.awad.ticketbooking.modules.trip.dto.SearchTripRequest;
 import com.awad.ticketbooking.modules.trip.dto.TripResponse;
 import com.awad.ticketbooking.modules.trip.entity.Trip;
+import com.awad.ticketbooking.modules.trip.entity.TripSeatAvailability;
 import com.awad.ticketbooking.modules.trip.repository.TripPricingRepository;
 import com.awad.ticketbooking.modules.trip.repository.TripRepository;
+import com.awad.ticketbooking.modules.trip.repository.TripSeatAvailabilityRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -19,13 +22,19 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import org.mockito.ArgumentMatchers;
 import static org.mockito.Mockito.verify;
@@ -40,6 +49,21 @@ class TripServiceTest {
     @Mock
     private TripPricingRepository tripPricingRepository;
 
+    @Mock
+    private TripSeatAvailabilityRepository tripSeatAvailabilityRepository;
+
+    @Mock
+    private TripPricingService tripPricingService;
+
+    @Mock
+    private TripSearchIndex tripSearchIndex;
+
+    @Mock
+    private TripSearchCache tripSearchCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private TripService tripService;
 
@@ -83,6 +107,10 @@ class TripServiceTest {
 
         Page<Trip> page = new PageImpl<>(Collections.singletonList(trip));
         when(tripRepository.findAll(ArgumentMatchers.<Specification<Trip>>any(), any(Pageable.class))).thenReturn(page);
+        when(tripPricingService.getMatrices(List.of(trip.getId())))
+                .thenReturn(Map.of(trip.getId(), prices(trip, new BigDecimal("250000"))));
+
+        searchThroughCache();
 
         // Act
         Page<TripResponse> result = tripService.searchTrips(request);
@@ -91,10 +119,84 @@ class TripServiceTest {
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         assertEquals("Hanoi", result.getContent().get(0).getRoute().getOriginStation().getCity());
+        assertEquals(new BigDecimal("250000"), result.getContent().get(0).getTripPricings().get(0).getPrice());
 
         verify(tripRepository).findAll(ArgumentMatchers.<Specification<Trip>>any(), any(Pageable.class));
     }
 
+    @Test
+    void searchTrips_shouldReturnSeatsLeftPerSeatType() {
+        // Arrange
+        Trip trip = new Trip();
+        trip.setId(UUID.randomUUID());
+        Station station = new Station();
+        Route route = new Route();
+        route.setOriginStation(station);
+        route.setDestinationStation(station);
+        route.setDurationMinutes(60);
+        trip.setRoute(route);
+        Bus bus = new Bus();
+        bus.setBusLayout(new BusLayout());
+        bus.setOperator(new Operator());
+        trip.setBus(bus);
+
+        when(tripRepository.findAll(ArgumentMatchers.<Specification<Trip>>any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(trip)));
+        when(tripSeatAvailabilityRepository.findByTripIdIn(List.of(trip.getId())))
+                .thenReturn(List.of(availability(trip, SeatType.VIP, 10, 10), availability(trip, SeatType.NORMAL, 30, 12)));
+        when(tripPricingService.getMatrices(List.of(trip.getId())))
+                .thenReturn(Map.of(trip.getId(), prices(trip, new BigDecimal("250000"))));
+
+        SearchTripRequest request = new SearchTripRequest();
+        request.setMinAvailableSeats(1);
+        searchThroughCache();
+
+        // Act
+        TripResponse result = tripService.searchTrips(request).getContent().get(0);
+
+        // Assert
+        assertEquals(18, result.getAvailableSeats());
+        assertEquals(SeatType.NORMAL, result.getSeatAvailability().get(0).getSeatType());
+        assertEquals(18, result.getSeatAvailability().get(0).getAvailableSeats());
+        assertEquals(0, result.getSeatAvailability().get(1).getAvailableSeats());
+    }
+
+    private void searchThroughCache() {
+        when(tripSearchCache.get(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<Page<TripResponse>>>getArgument(2).get());
+    }
+
+    private TripSeatAvailability availability(Trip trip, SeatType seatType, int total, int booked) {
+        TripSeatAvailability availability = new TripSeatAvailability();
+        availability.setTrip(trip);
+        availability.setSeatType(seatType);
+        availability.setTotalSeats(total);
+        availability.setBookedSeats(booked);
+        return availability;
+    }
+
+    private PriceMatrix prices(Trip trip, BigDecimal normalPrice) {
+        return new PriceMatrix(trip.getId(), null, trip.getDepartureTime(),
+                List.of(new PriceMatrix.Pricing(UUID.randomUUID(), SeatType.NORMAL, normalPrice)),
+                Map.of("A1", "NORMAL", "A2", "VIP"));
+    }
+
+    @Test
+    void priceMatrix_shouldPriceSeatsByLayoutType() {
+        Trip trip = new Trip();
+        trip.setId(UUID.randomUUID());
+        PriceMatrix prices = prices(trip, new BigDecimal("250000"));
+
+        assertEquals(new BigDecimal("250000"), prices.priceOf("A1"));
+        assertEquals(Map.of("A1", new BigDecimal("250000")), prices.seatPrices());
+        assertThrows(IllegalArgumentException.class, () -> prices.priceOf("A2"));
+        assertThrows(IllegalArgumentException.class, () -> prices.priceOf("Z9"));
+
+        PriceMatrix surcharged = prices.adjusted(UUID.randomUUID(), new BigDecimal("10"));
+        assertEquals(new BigDecimal("275000"), surcharged.priceOf("A1"));
+        assertEquals(new BigDecimal("250000"), surcharged.pricings().get(0).basePrice());
+    }
+
     @Test
     void getTripById_shouldReturnTrip() {
         // Arrange
@@ -130,6 +232,7 @@ class TripServiceTest {
         trip.setBus(bus);
 
         when(tripRepository.findById(tripId)).thenReturn(java.util.Optional.of(trip));
+        when(tripPricingService.getMatrix(tripId)).thenReturn(prices(trip, new BigDecimal("250000")));
 
         // Act
         TripResponse result = tripService.getTripById(tripId);
@@ -0,0 +1,154 @@
+package com.awad.ticketbooking.modules.trip.service;
+
+import com.awad.ticketbooking.common.enums.WaitingRoomState;
+import com.awad.ticketbooking.common.exception.WaitingRoomException;
+import com.awad.ticketbooking.common.service.ClusterBroadcastService;
+import com.awad.ticketbooking.modules.trip.dto.QueueStatusMessage;
+import com.awad.ticketbooking.modules.trip.dto.WaitingRoomRequest;
+import com.awad.ticketbooking.modules.trip.dto.WaitingRoomTicketResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class WaitingRoomServiceTest {
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private final ClusterBroadcastService clusterBroadcastService = mock(ClusterBroadcastService.class);
+
+    private final UUID tripId = UUID.randomUUID();
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    private WaitingRoomService waitingRoomService;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redissonClient.shutdown();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redissonClient.getKeys().flushall();
+        waitingRoomService = new WaitingRoomService(redissonClient, clusterBroadcastService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(waitingRoomService, "defaultAdmissionTtlSeconds", 300);
+        ReflectionTestUtils.setField(waitingRoomService, "idleTimeoutSeconds", 120);
+    }
+
+    @Test
+    void tripWithoutWaitingRoom_ShouldLetEveryoneIn() {
+        assertEquals(WaitingRoomState.OPEN, waitingRoomService.join(tripId, alice).getState());
+        assertDoesNotThrow(() -> waitingRoomService.requireAdmission(tripId, null));
+    }
+
+    @Test
+    void join_ShouldQueueShoppersBeyondCapacity() {
+        enable(1);
+
+        WaitingRoomTicketResponse first = waitingRoomService.join(tripId, alice);
+        WaitingRoomTicketResponse second = waitingRoomService.join(tripId, bob);
+
+        assertEquals(WaitingRoomState.ADMITTED, first.getState());
+        assertEquals(WaitingRoomState.QUEUED, second.getState());
+        assertEquals(2, second.getTicket());
+        assertEquals(1, second.getPosition());
+        assertEquals(1, second.getServingTicket());
+        assertEquals(second.getToken(), waitingRoomService.join(tripId, bob).getToken());
+
+        assertDoesNotThrow(() -> waitingRoomService.requireAdmission(tripId, first.getToken()));
+        assertThrows(WaitingRoomException.class, () -> waitingRoomService.requireAdmission(tripId, second.getToken()));
+        assertThrows(WaitingRoomException.class, () -> waitingRoomService.requireAdmission(tripId, null));
+    }
+
+    @Test
+    void admitWaiting_ShouldLetTheNextShopperInAndBroadcastProgress() {
+        enable(1);
+        String aliceToken = waitingRoomService.join(tripId, alice).getToken();
+        String bobToken = waitingRoomService.join(tripId, bob).getToken();
+        waitingRoomService.admitWaiting();
+
+        waitingRoomService.release(tripId, aliceToken);
+        assertEquals(1, waitingRoomService.admitWaiting());
+
+        ArgumentCaptor<QueueStatusMessage> frame = ArgumentCaptor.forClass(QueueStatusMessage.class);
+        verify(clusterBroadcastService, times(2))
+                .convertAndSend(eq("/topic/trip/" + tripId + "/queue"), frame.capture());
+        assertEquals(2, frame.getValue().getServingTicket());
+        assertEquals(0, frame.getValue().getQueueLength());
+        assertEquals(1, frame.getValue().getActiveShoppers());
+        assertDoesNotThrow(() -> waitingRoomService.requireAdmission(tripId, bobToken));
+        assertEquals(0, waitingRoomService.admitWaiting());
+    }
+
+    @Test
+    void admitWaiting_ShouldSkipVisitorsThatStoppedPolling() throws InterruptedException {
+        ReflectionTestUtils.setField(waitingRoomService, "idleTimeoutSeconds", 0);
+        enable(1);
+        String aliceToken = waitingRoomService.join(tripId, alice).getToken();
+        waitingRoomService.join(tripId, bob);
+
+        Thread.sleep(5);
+        waitingRoomService.release(tripId, aliceToken);
+        waitingRoomService.admitWaiting();
+
+        assertEquals(0, waitingRoomService.getStatus(tripId).getActiveShoppers());
+        WaitingRoomTicketResponse rejoined = waitingRoomService.join(tripId, bob);
+        assertEquals(WaitingRoomState.ADMITTED, rejoined.getState());
+    }
+
+    @Test
+    void configure_ShouldDropTheQueueWhenTurnedOff() {
+        enable(1);
+        waitingRoomService.join(tripId, alice);
+        String bobToken = waitingRoomService.join(tripId, bob).getToken();
+
+        WaitingRoomRequest request = new WaitingRoomRequest();
+        request.setEnabled(false);
+        assertEquals(false, waitingRoomService.configure(tripId, request).isEnabled());
+
+        assertDoesNotThrow(() -> waitingRoomService.requireAdmission(tripId, bobToken));
+        assertEquals(WaitingRoomState.OPEN, waitingRoomService.join(tripId, bob).getState());
+    }
+
+    private void enable(int maxActiveShoppers) {
+        WaitingRoomRequest request = new WaitingRoomRequest();
+        request.setEnabled(true);
+        request.setMaxActiveShoppers(maxActiveShoppers);
+        waitingRoomService.configure(tripId, request);
+    }
+}
@@ -6,7 +6,11 @@ import { persist } from 'zustand/middleware';
 import { useAuthStore } from '@/store/auth-store';
 
 import { bookingApi } from './api';
-import { type LockSeatRequest, type SeatStatusMessage } from './types';
+import {
+  type LockSeatRequest,
+  type SeatStatusBatchMessage,
+  type SeatStatusMessage,
+} from './types';
 
 const getBaseUrl = () => {
   const apiUrl = import.meta.env.VITE_API_URL ?? 'http://localhost:8080';
@@ -90,17 +94,19 @@ export const useBookingStore = create<BookingState>()(
                 stompClient?.subscribe(
                   `/topic/trip/${tripId}/seats`,
                   (message: { body: string }) => {
-                    const body: SeatStatusMessage = JSON.parse(message.body);
-                    const { seatCode, status, lockedByUserId } = body;
+                    const body: SeatStatusBatchMessage | SeatStatusMessage = JSON.parse(message.body);
+                    const updates = 'seats' in body ? body.seats : [body];
 
                     set((state) => {
                       const newMap = { ...state.seatStatusMap };
-                      if (status === 'AVAILABLE') {
-                        delete newMap[seatCode];
-                      } else if (status === 'LOCKED') {
-                        newMap[seatCode] = `LOCKED:${lockedByUserId}`;
-                      } else if (status === 'BOOKED') {
-                        newMap[seatCode] = 'BOOKED';
+                      for (const { seatCode, status, lockedByUserId } of updates) {
+                        if (status === 'AVAILABLE') {
+                          delete newMap[seatCode];
+                        } else if (status === 'LOCKED') {
+                          newMap[seatCode] = `LOCKED:${lockedByUserId}`;
+                        } else if (status === 'BOOKED') {
+                          newMap[seatCode] = 'BOOKED';
+                        }
                       }
                       return { seatStatusMap: newMap };
                     });
@@ -98,5 +98,12 @@ export type SeatStatusMessage = {
   lockedByUserId?: string;
 };
 
+// Seat changes are coalesced per trip and pushed as one frame
+export type SeatStatusBatchMessage = {
+  tripId: string;
+  version: number;
+  seats: SeatStatusMessage[];
+};
+
 // Prefer OpenAPI/Orval request models as the source of truth.
 export type LockSeatRequest = ApiLockSeatRequest;
@@ -20,4 +20,5 @@ export interface CreateBookingRequest {
   totalPrice: number;
   /** @minItems 1 */
   tickets: TicketRequest[];
+  guestId?: string;
 }
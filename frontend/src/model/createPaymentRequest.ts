@@ -12,4 +12,5 @@ export interface CreatePaymentRequest {
   returnUrl: string;
   /** @minLength 1 */
   cancelUrl: string;
+  guestId?: string;
 }
@@ -15,4 +15,5 @@ export const PaymentResponseStatus = {
   SUCCESS: 'SUCCESS',
   FAILED: 'FAILED',
   CANCELLED: 'CANCELLED',
+  REFUND_REQUIRED: 'REFUND_REQUIRED',
 } as const;